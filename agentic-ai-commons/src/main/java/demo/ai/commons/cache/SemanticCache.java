@@ -0,0 +1,285 @@
+package demo.ai.commons.cache;
+
+import demo.ai.commons.record.SemanticCacheStats;
+import org.springframework.util.Assert;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size- and TTL-bounded store of (prompt embedding, response) pairs with an approximate
+ * nearest-neighbor index.
+ *
+ * <p>
+ * The index is a random-hyperplane LSH: each of {@code tables} hash tables buckets an
+ * embedding by the signs of its dot products with {@code bits} random hyperplanes, so
+ * embeddings with a small angle between them share a bucket in at least one table with
+ * high probability. A lookup only compares the embedding with the entries of its own
+ * buckets, and answers with the most similar one at or above the similarity threshold.
+ *
+ * <p>
+ * Entries are scoped by a context key (system prompt, model, advisors): a response is
+ * only reused for a prompt asked in the same context.
+ */
+public class SemanticCache {
+
+    private static final long HYPERPLANE_SEED = 0x5eed_cafeL;
+
+    private final double similarityThreshold;
+    private final int maxEntries;
+    private final Duration ttl;
+    private final int tables;
+    private final int bits;
+    private final Clock clock;
+
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Bucket, Set<Long>> buckets = new HashMap<>();
+    private float[][][] hyperplanes;
+    private long nextId;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final DoubleAdder hitSimilarity = new DoubleAdder();
+    private final Map<String, LongAdder[]> routeCounters = new ConcurrentHashMap<>();
+
+    public SemanticCache(double similarityThreshold, int maxEntries, Duration ttl, int tables, int bits) {
+        this(similarityThreshold, maxEntries, ttl, tables, bits, Clock.systemUTC());
+    }
+
+    public SemanticCache(double similarityThreshold, int maxEntries, Duration ttl, int tables, int bits,
+                         Clock clock) {
+        Assert.isTrue(similarityThreshold > 0 && similarityThreshold <= 1, "Similarity threshold must be in (0, 1]");
+        Assert.isTrue(maxEntries > 0, "Max entries must be greater than 0");
+        Assert.isTrue(ttl != null && !ttl.isNegative() && !ttl.isZero(), "TTL must be positive");
+        Assert.isTrue(tables > 0, "Number of LSH tables must be greater than 0");
+        Assert.isTrue(bits > 0 && bits <= 31, "Number of LSH bits must be between 1 and 31");
+        Assert.notNull(clock, "Clock must not be null");
+
+        this.similarityThreshold = similarityThreshold;
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.tables = tables;
+        this.bits = bits;
+        this.clock = clock;
+    }
+
+    /**
+     * Finds the cached response of the most similar prompt asked in the same context.
+     *
+     * @param route     name of the calling route, only used for the per-route statistics
+     * @param context   key of the context the prompt was asked in
+     * @param embedding embedding of the prompt
+     */
+    public Optional<Match> lookup(String route, String context, float[] embedding) {
+        float[] vector = normalize(embedding);
+        long now = clock.millis();
+        Match best = null;
+        synchronized (entries) {
+            for (long id : candidates(context, vector)) {
+                Entry entry = entries.get(id);
+                if (entry == null) {
+                    continue;
+                }
+                if (entry.expiresAt() <= now) {
+                    remove(id);
+                    evictions.increment();
+                    continue;
+                }
+                double similarity = dot(vector, entry.vector());
+                if (similarity >= similarityThreshold && (best == null || similarity > best.similarity())) {
+                    best = new Match(entry.response(), similarity);
+                }
+            }
+        }
+
+        LongAdder[] counters = routeCounters.computeIfAbsent(route,
+                name -> new LongAdder[]{new LongAdder(), new LongAdder()});
+        if (best == null) {
+            misses.increment();
+            counters[1].increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        counters[0].increment();
+        hitSimilarity.add(best.similarity());
+        return Optional.of(best);
+    }
+
+    public void put(String context, float[] embedding, String response) {
+        float[] vector = normalize(embedding);
+        long now = clock.millis();
+        synchronized (entries) {
+            int[] hashes = hashes(vector);
+            long id = nextId++;
+            entries.put(id, new Entry(context, vector, hashes, response, now + ttl.toMillis()));
+            for (int table = 0; table < tables; table++) {
+                buckets.computeIfAbsent(new Bucket(context, table, hashes[table]), bucket -> new HashSet<>()).add(id);
+            }
+            evict(now);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            buckets.clear();
+        }
+    }
+
+    public SemanticCacheStats stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, SemanticCacheStats.RouteCacheStats> routes = new TreeMap<>();
+        routeCounters.forEach((route, counters) -> {
+            long routeHits = counters[0].sum();
+            long routeMisses = counters[1].sum();
+            routes.put(route, new SemanticCacheStats.RouteCacheStats(routeHits, routeMisses,
+                    ratio(routeHits, routeMisses)));
+        });
+        return new SemanticCacheStats(hitCount, missCount, evictions.sum(), size, ratio(hitCount, missCount),
+                hitCount == 0 ? 0.0 : hitSimilarity.sum() / hitCount, routes);
+    }
+
+    private List<Long> candidates(String context, float[] vector) {
+        if (entries.isEmpty()) {
+            return List.of();
+        }
+        int[] hashes = hashes(vector);
+        Set<Long> ids = new HashSet<>();
+        for (int table = 0; table < tables; table++) {
+            Set<Long> bucket = buckets.get(new Bucket(context, table, hashes[table]));
+            if (bucket != null) {
+                ids.addAll(bucket);
+            }
+        }
+        return new ArrayList<>(ids);
+    }
+
+    /**
+     * Drops expired entries first, then the least recently used ones.
+     */
+    private void evict(long now) {
+        if (entries.size() <= maxEntries) {
+            return;
+        }
+        List<Long> expired = entries.entrySet().stream()
+                .filter(entry -> entry.getValue().expiresAt() <= now)
+                .map(Map.Entry::getKey)
+                .toList();
+        expired.forEach(this::remove);
+        evictions.add(expired.size());
+
+        List<Long> eldest = entries.keySet().stream()
+                .limit(Math.max(0, entries.size() - maxEntries))
+                .toList();
+        eldest.forEach(this::remove);
+        evictions.add(eldest.size());
+    }
+
+    private void remove(long id) {
+        unindex(id, entries.remove(id));
+    }
+
+    private void unindex(long id, Entry entry) {
+        if (entry == null) {
+            return;
+        }
+        for (int table = 0; table < tables; table++) {
+            Bucket bucket = new Bucket(entry.context(), table, entry.hashes()[table]);
+            Set<Long> ids = buckets.get(bucket);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    buckets.remove(bucket);
+                }
+            }
+        }
+    }
+
+    private int[] hashes(float[] vector) {
+        if (hyperplanes == null || hyperplanes[0][0].length != vector.length) {
+            // Created on first use, when the embedding dimensions are known. A model with
+            // other dimensions makes every indexed entry unreachable, so start over.
+            hyperplanes = randomHyperplanes(vector.length);
+            entries.clear();
+            buckets.clear();
+        }
+        int[] hashes = new int[tables];
+        for (int table = 0; table < tables; table++) {
+            int hash = 0;
+            for (int bit = 0; bit < bits; bit++) {
+                if (dot(vector, hyperplanes[table][bit]) >= 0) {
+                    hash |= 1 << bit;
+                }
+            }
+            hashes[table] = hash;
+        }
+        return hashes;
+    }
+
+    private float[][][] randomHyperplanes(int dimensions) {
+        Random random = new Random(HYPERPLANE_SEED);
+        float[][][] planes = new float[tables][bits][dimensions];
+        for (float[][] table : planes) {
+            for (float[] plane : table) {
+                for (int i = 0; i < dimensions; i++) {
+                    plane[i] = (float) random.nextGaussian();
+                }
+            }
+        }
+        return planes;
+    }
+
+    private static float[] normalize(float[] embedding) {
+        Assert.isTrue(embedding != null && embedding.length > 0, "Embedding must not be empty");
+        double norm = Math.sqrt(dot(embedding, embedding));
+        float[] vector = new float[embedding.length];
+        for (int i = 0; i < embedding.length; i++) {
+            vector[i] = norm == 0 ? 0 : (float) (embedding[i] / norm);
+        }
+        return vector;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static double ratio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * A cached response and the cosine similarity of its prompt to the looked up one.
+     */
+    public record Match(String response, double similarity) {
+    }
+
+    private record Entry(String context, float[] vector, int[] hashes, String response, long expiresAt) {
+    }
+
+    private record Bucket(String context, int table, int hash) {
+    }
+}
@@ -0,0 +1,237 @@
+package demo.ai.commons.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.core.Ordered;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Answers prompts that are semantically close to an earlier one from a {@link SemanticCache},
+ * so that users asking the same question in slightly different words skip the chat model.
+ *
+ * <p>
+ * Caching is opt-in per route: a request is looked up only when it is tagged with
+ * {@link #route(String)} and the route is one of the configured ones. The user message is
+ * embedded and looked up among earlier prompts asked in the same context, i.e. with the
+ * same system prompt, model, advisors and chat memory conversation id. Responses with
+ * tool calls are never cached.
+ *
+ * <p>
+ * The advisor runs before chat memory and retrieval advisors, so it matches on the
+ * question as asked. A cache hit therefore skips them too and is not added to the chat
+ * memory. Routes with chat memory must be tagged with {@link #route(String, String)}, so
+ * that answers are only reused within the same conversation; routes whose tools have
+ * side effects must not be cached at all.
+ */
+public class SemanticCacheAdvisor implements CallAdvisor, StreamAdvisor {
+
+    private static final Logger log = LoggerFactory.getLogger(SemanticCacheAdvisor.class);
+
+    /**
+     * Advisor param naming the route a request belongs to.
+     */
+    public static final String ROUTE = "semantic-cache.route";
+
+    private final SemanticCache cache;
+    private final EmbeddingModel embeddingModel;
+    private final Set<String> routes;
+
+    public SemanticCacheAdvisor(SemanticCache cache, EmbeddingModel embeddingModel, Collection<String> routes) {
+        Assert.notNull(cache, "Cache must not be null");
+        Assert.notNull(embeddingModel, "EmbeddingModel must not be null");
+        Assert.notNull(routes, "Routes must not be null");
+
+        this.cache = cache;
+        this.embeddingModel = embeddingModel;
+        this.routes = Set.copyOf(routes);
+    }
+
+    /**
+     * Tags a chat client request with the route it belongs to.
+     */
+    public static Consumer<ChatClient.AdvisorSpec> route(String route) {
+        return advisor -> advisor.param(ROUTE, route);
+    }
+
+    /**
+     * Tags a chat client request with the route it belongs to and its chat memory
+     * conversation id, which scopes the cached answers to that conversation.
+     */
+    public static Consumer<ChatClient.AdvisorSpec> route(String route, String conversationId) {
+        Assert.hasText(conversationId, "Conversation id must not be empty");
+        return advisor -> advisor.param(ROUTE, route).param(ChatMemory.CONVERSATION_ID, conversationId);
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        Lookup lookup = lookup(request, chain.getCallAdvisors()).orElse(null);
+        if (lookup == null) {
+            return chain.nextCall(request);
+        }
+
+        Optional<SemanticCache.Match> match = lookup.find(cache);
+        if (match.isPresent()) {
+            return cachedResponse(request, match.get());
+        }
+
+        ChatClientResponse response = chain.nextCall(request);
+        ChatResponse chatResponse = response.chatResponse();
+        if (chatResponse != null && chatResponse.getResult() != null) {
+            AssistantMessage output = chatResponse.getResult().getOutput();
+            if (!output.hasToolCalls() && StringUtils.hasText(output.getText())) {
+                lookup.store(cache, output.getText());
+            }
+        }
+        return response;
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+        return Flux.defer(() -> {
+            Lookup lookup = lookup(request, chain.getStreamAdvisors()).orElse(null);
+            if (lookup == null) {
+                return chain.nextStream(request);
+            }
+
+            Optional<SemanticCache.Match> match = lookup.find(cache);
+            if (match.isPresent()) {
+                return Flux.just(cachedResponse(request, match.get()));
+            }
+
+            StringBuilder content = new StringBuilder();
+            boolean[] toolCalls = {false};
+            return chain.nextStream(request)
+                    .doOnNext(response -> {
+                        ChatResponse chatResponse = response.chatResponse();
+                        if (chatResponse != null && chatResponse.getResult() != null) {
+                            AssistantMessage output = chatResponse.getResult().getOutput();
+                            toolCalls[0] |= output.hasToolCalls();
+                            if (output.getText() != null) {
+                                content.append(output.getText());
+                            }
+                        }
+                    })
+                    .doOnComplete(() -> {
+                        if (!toolCalls[0] && !content.isEmpty()) {
+                            lookup.store(cache, content.toString());
+                        }
+                    });
+        });
+    }
+
+    @Override
+    public String getName() {
+        return SemanticCacheAdvisor.class.getSimpleName();
+    }
+
+    @Override
+    public int getOrder() {
+        // Ahead of the chat memory advisors (HIGHEST_PRECEDENCE + 1000), see the class docs.
+        return Ordered.HIGHEST_PRECEDENCE + 500;
+    }
+
+    /**
+     * Embeds the user message of a cacheable request. Requests of routes that are not
+     * enabled, without user text, or whose embedding fails are not cached.
+     */
+    private Optional<Lookup> lookup(ChatClientRequest request, List<? extends Advisor> advisors) {
+        Object route = request.context().get(ROUTE);
+        if (route == null || !routes.contains(route.toString())) {
+            return Optional.empty();
+        }
+        UserMessage userMessage = request.prompt().getUserMessage();
+        if (userMessage == null || !StringUtils.hasText(userMessage.getText())) {
+            return Optional.empty();
+        }
+
+        float[] embedding;
+        try {
+            embedding = embeddingModel.embed(userMessage.getText());
+        } catch (RuntimeException e) {
+            log.warn("Could not embed prompt of route '{}', skipping the semantic cache: {}", route, e.toString());
+            return Optional.empty();
+        }
+        Object conversationId = request.context().get(ChatMemory.CONVERSATION_ID);
+        return Optional.of(new Lookup(route.toString(), context(route.toString(), conversationId, request.prompt(),
+                advisors), embedding));
+    }
+
+    /**
+     * Key of everything besides the user message that shapes the answer.
+     */
+    private static String context(String route, Object conversationId, Prompt prompt,
+                                  List<? extends Advisor> advisors) {
+        SystemMessage system = prompt.getSystemMessage();
+        ChatOptions options = prompt.getOptions();
+        String advisorNames = advisors.stream().map(Advisor::getName).collect(Collectors.joining(","));
+        return sha256(String.join("\u0000", route,
+                conversationId != null ? conversationId.toString() : "",
+                system != null && system.getText() != null ? system.getText() : "",
+                options != null && options.getModel() != null ? options.getModel() : "",
+                advisorNames));
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static ChatClientResponse cachedResponse(ChatClientRequest request, SemanticCache.Match match) {
+        ChatResponse chatResponse = new ChatResponse(List.of(new Generation(new AssistantMessage(match.response()))),
+                ChatResponseMetadata.builder()
+                        .keyValue("semantic-cache-hit", true)
+                        .keyValue("semantic-cache-similarity", match.similarity())
+                        .build());
+        return ChatClientResponse.builder()
+                .chatResponse(chatResponse)
+                .context(new HashMap<>(request.context()))
+                .build();
+    }
+
+    private record Lookup(String route, String context, float[] embedding) {
+
+        Optional<SemanticCache.Match> find(SemanticCache cache) {
+            return cache.lookup(route, context, embedding);
+        }
+
+        void store(SemanticCache cache, String response) {
+            cache.put(context, embedding, response);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package demo.ai.commons.cache;
+
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Creates the {@link SemanticCacheAdvisor} when {@code app.semantic-cache.enabled} is set.
+ * Applications add the advisor to their {@code ChatClient} and tag the routes to cache.
+ */
+@AutoConfiguration
+@ConditionalOnClass(EmbeddingModel.class)
+@ConditionalOnProperty(prefix = "app.semantic-cache", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(SemanticCacheProperties.class)
+public class SemanticCacheAutoConfiguration {
+
+    @Bean
+    SemanticCache semanticCache(SemanticCacheProperties properties) {
+        return new SemanticCache(properties.similarityThreshold(), properties.maxEntries(), properties.ttl(),
+                properties.index().tables(), properties.index().bits());
+    }
+
+    @Bean
+    SemanticCacheAdvisor semanticCacheAdvisor(SemanticCache semanticCache, EmbeddingModel embeddingModel,
+                                              SemanticCacheProperties properties) {
+        return new SemanticCacheAdvisor(semanticCache, embeddingModel, properties.routes());
+    }
+
+    @Bean
+    SemanticCacheController semanticCacheController(SemanticCache semanticCache) {
+        return new SemanticCacheController(semanticCache);
+    }
+}
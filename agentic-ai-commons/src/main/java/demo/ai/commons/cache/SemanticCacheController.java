@@ -0,0 +1,40 @@
+package demo.ai.commons.cache;
+
+import demo.ai.commons.record.SemanticCacheStats;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@Tag(name = "Semantic Cache", description = "Semantic response cache endpoints")
+public class SemanticCacheController {
+
+    private final SemanticCache semanticCache;
+
+    SemanticCacheController(SemanticCache semanticCache) {
+        this.semanticCache = semanticCache;
+    }
+
+    @GetMapping("/cache/semantic/stats")
+    @Operation(summary = "Get semantic cache statistics", description = "Returns the overall and per-route hit ratio, the average similarity of hits and the number of cached responses.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statistics returned")
+    })
+    SemanticCacheStats stats() {
+        return semanticCache.stats();
+    }
+
+    @DeleteMapping("/cache/semantic")
+    @Operation(summary = "Clear semantic cache", description = "Removes every cached response.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cache cleared")
+    })
+    SemanticCacheStats clear() {
+        semanticCache.clear();
+        return semanticCache.stats();
+    }
+}
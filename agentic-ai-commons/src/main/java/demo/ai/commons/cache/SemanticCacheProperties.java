@@ -0,0 +1,34 @@
+package demo.ai.commons.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Settings of the semantic response cache.
+ *
+ * @param enabled             whether the semantic cache advisor is created at all
+ * @param similarityThreshold minimum cosine similarity of two prompts to reuse a response
+ * @param maxEntries          maximum number of cached responses
+ * @param ttl                 how long a cached response stays valid
+ * @param routes              routes whose requests are cached, see {@link SemanticCacheAdvisor#route(String)}
+ * @param index               shape of the approximate nearest-neighbor index
+ */
+@ConfigurationProperties("app.semantic-cache")
+public record SemanticCacheProperties(@DefaultValue("false") boolean enabled,
+                                      @DefaultValue("0.92") double similarityThreshold,
+                                      @DefaultValue("1000") int maxEntries,
+                                      @DefaultValue("1h") Duration ttl,
+                                      @DefaultValue List<String> routes,
+                                      @DefaultValue Index index) {
+
+    /**
+     * @param tables number of LSH hash tables; more tables find more near neighbors
+     * @param bits   hyperplanes per table; more bits mean smaller buckets
+     */
+    public record Index(@DefaultValue("8") int tables,
+                        @DefaultValue("10") int bits) {
+    }
+}
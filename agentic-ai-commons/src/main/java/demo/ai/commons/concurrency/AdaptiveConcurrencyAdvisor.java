@@ -0,0 +1,129 @@
+package demo.ai.commons.concurrency;
+
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.core.Ordered;
+import org.springframework.util.Assert;
+import org.springframework.web.client.RestClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Runs every chat model call under an {@link AdaptiveLimiter}, so the number of calls in
+ * flight follows what the provider sustains instead of a hand-tuned constant.
+ *
+ * <p>
+ * Throttled calls lower the limit; other failures leave it as is. A call is considered
+ * throttled when its failure carries HTTP status 429 or 503, or is a throttling exception
+ * of a provider SDK such as Bedrock's {@code ThrottlingException}. The advisor runs right
+ * outside of the metrics advisor, so the time spent waiting for a permit is not part of
+ * the recorded call latency; advisors further out can take it from the
+ * {@link #PERMIT_WAIT_NANOS} context entry of the response.
+ */
+public class AdaptiveConcurrencyAdvisor implements CallAdvisor, StreamAdvisor {
+
+    /**
+     * Response context entry with the nanoseconds a call waited for its permit.
+     */
+    public static final String PERMIT_WAIT_NANOS = "concurrency.permit-wait-nanos";
+
+    private final AdaptiveLimiter limiter;
+
+    public AdaptiveConcurrencyAdvisor(AdaptiveLimiter limiter) {
+        Assert.notNull(limiter, "Limiter must not be null");
+
+        this.limiter = limiter;
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        long waitStart = System.nanoTime();
+        AdaptiveLimiter.Permit permit = acquire();
+        long permitWait = System.nanoTime() - waitStart;
+        boolean succeeded = false;
+        try {
+            ChatClientResponse response = chain.nextCall(request);
+            succeeded = true;
+            permit.success();
+            return response.mutate().context(PERMIT_WAIT_NANOS, permitWait).build();
+        } catch (RuntimeException e) {
+            release(permit, e);
+            throw e;
+        } finally {
+            if (!succeeded) {
+                // Errors such as an OutOfMemoryError must not leak the permit either.
+                permit.ignore();
+            }
+        }
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+        return Flux.using(this::acquire,
+                permit -> chain.nextStream(request)
+                        .doOnError(e -> release(permit, e))
+                        .doFinally(signal -> {
+                            if (signal == SignalType.ON_COMPLETE) {
+                                permit.success();
+                            } else {
+                                permit.ignore();
+                            }
+                        }),
+                // Released by the signals above; a second release is a no-op.
+                AdaptiveLimiter.Permit::ignore);
+    }
+
+    @Override
+    public String getName() {
+        return AdaptiveConcurrencyAdvisor.class.getSimpleName();
+    }
+
+    @Override
+    public int getOrder() {
+        // Right outside of the metrics advisor (LOWEST_PRECEDENCE - 1).
+        return Ordered.LOWEST_PRECEDENCE - 2;
+    }
+
+    /**
+     * Whether a failure means that the provider is overloaded or rate limits us.
+     */
+    public static boolean isThrottled(Throwable failure) {
+        for (Throwable e = failure; e != null; e = e.getCause()) {
+            if (e instanceof RestClientResponseException response) {
+                int status = response.getStatusCode().value();
+                return status == 429 || status == 503;
+            }
+            String message = e.getMessage();
+            // Spring AI reports HTTP errors as "<status> - <body>".
+            if (message != null && (message.startsWith("429 ") || message.startsWith("503 ")
+                    || message.contains("Too Many Requests"))) {
+                return true;
+            }
+            if (e.getClass().getSimpleName().contains("Throttling")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private AdaptiveLimiter.Permit acquire() {
+        try {
+            return limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a model call permit", e);
+        }
+    }
+
+    private static void release(AdaptiveLimiter.Permit permit, Throwable failure) {
+        if (isThrottled(failure)) {
+            permit.dropped();
+        } else {
+            permit.ignore();
+        }
+    }
+}
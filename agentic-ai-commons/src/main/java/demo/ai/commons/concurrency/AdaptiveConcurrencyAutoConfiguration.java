@@ -0,0 +1,50 @@
+package demo.ai.commons.concurrency;
+
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.client.RestClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.RestClient;
+
+/**
+ * Creates the {@link AdaptiveLimiter} of chat model calls with its advisor, and honors
+ * {@code Retry-After} on every {@link RestClient} built from the application's builder,
+ * which the Spring AI model clients use. Applications add the advisor to their
+ * {@code ChatClient}; it can be turned off with {@code app.concurrency.llm.enabled=false}.
+ * The limiter is a {@code MeterBinder}, so its gauges are published when actuator is present.
+ */
+@AutoConfiguration
+@ConditionalOnProperty(prefix = "app.concurrency.llm", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(AdaptiveConcurrencyProperties.class)
+public class AdaptiveConcurrencyAutoConfiguration {
+
+    @Bean
+    AdaptiveLimiter llmConcurrencyLimiter(AdaptiveConcurrencyProperties properties) {
+        return new AdaptiveLimiter("chat-model", properties.initialLimit(), properties.minLimit(),
+                properties.maxLimit(), properties.backoffRatio(), properties.timeout(), properties.maxPause());
+    }
+
+    @Bean
+    AdaptiveConcurrencyAdvisor adaptiveConcurrencyAdvisor(AdaptiveLimiter llmConcurrencyLimiter) {
+        return new AdaptiveConcurrencyAdvisor(llmConcurrencyLimiter);
+    }
+
+    @Bean
+    AdaptiveConcurrencyController adaptiveConcurrencyController(AdaptiveLimiter llmConcurrencyLimiter) {
+        return new AdaptiveConcurrencyController(llmConcurrencyLimiter);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(RestClient.class)
+    static class RetryAfterConfiguration {
+
+        @Bean
+        RestClientCustomizer retryAfterRestClientCustomizer(AdaptiveLimiter llmConcurrencyLimiter) {
+            RetryAfterInterceptor interceptor = new RetryAfterInterceptor(llmConcurrencyLimiter);
+            return builder -> builder.requestInterceptor(interceptor);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package demo.ai.commons.concurrency;
+
+import demo.ai.commons.record.ConcurrencyLimitStats;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@Tag(name = "LLM Concurrency", description = "Adaptive concurrency limit endpoints")
+public class AdaptiveConcurrencyController {
+
+    private final AdaptiveLimiter limiter;
+
+    AdaptiveConcurrencyController(AdaptiveLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @GetMapping("/llm/concurrency/stats")
+    @Operation(summary = "Get adaptive concurrency statistics", description = "Returns the current concurrency limit of chat model calls, the calls in flight and waiting, throttled and timed out calls, and any Retry-After pause in effect.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statistics returned")
+    })
+    ConcurrencyLimitStats stats() {
+        return limiter.stats();
+    }
+}
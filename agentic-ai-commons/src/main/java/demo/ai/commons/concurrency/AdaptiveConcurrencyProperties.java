@@ -0,0 +1,27 @@
+package demo.ai.commons.concurrency;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the adaptive concurrency limit of chat model calls.
+ *
+ * @param enabled      whether the limiter and its advisor are created at all
+ * @param initialLimit calls in flight allowed before the limit has adapted
+ * @param minLimit     the limit never goes below
+ * @param maxLimit     the limit never goes above
+ * @param backoffRatio factor the limit is multiplied with when a call is throttled
+ * @param timeout      calls slower than this lower the limit like throttled ones
+ * @param maxPause     longest {@code Retry-After} pause that is honored
+ */
+@ConfigurationProperties("app.concurrency.llm")
+public record AdaptiveConcurrencyProperties(@DefaultValue("true") boolean enabled,
+                                            @DefaultValue("8") int initialLimit,
+                                            @DefaultValue("1") int minLimit,
+                                            @DefaultValue("64") int maxLimit,
+                                            @DefaultValue("0.5") double backoffRatio,
+                                            @DefaultValue("60s") Duration timeout,
+                                            @DefaultValue("60s") Duration maxPause) {
+}
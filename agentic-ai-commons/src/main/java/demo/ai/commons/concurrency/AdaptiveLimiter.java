@@ -0,0 +1,288 @@
+package demo.ai.commons.concurrency;
+
+import demo.ai.commons.metrics.LlmMetrics;
+import demo.ai.commons.record.ConcurrencyLimitStats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit for calls to a model provider that adapts to what the provider
+ * sustains, using additive increase / multiplicative decrease (AIMD).
+ *
+ * <p>
+ * Each successful call raises the limit by one, but only while the limit is actually
+ * used, i.e. at least half of it was in flight when the call started; otherwise the limit
+ * would grow without bound during quiet periods. A drop, i.e. a throttled call (HTTP 429,
+ * 503) or a call slower than the timeout, multiplies the limit by the backoff ratio. As
+ * all calls in flight tend to be throttled together, only drops of calls that started
+ * after the last cut cut again, so the limit is cut at most once per round trip.
+ *
+ * <p>
+ * A throttling response may ask to pause for a while through {@code Retry-After}: no
+ * permit is handed out before the pause is over, see {@link #pause(Duration)}.
+ */
+public class AdaptiveLimiter implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveLimiter.class);
+
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long timeoutNanos;
+    private final long maxPauseNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    private long latencyNanos;
+    private long lastDecrease;
+    private volatile long pausedUntil = System.nanoTime();
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    /**
+     * @param name         name of the limiter in logs, metrics and stats
+     * @param initialLimit limit to start with
+     * @param minLimit     the limit never goes below
+     * @param maxLimit     the limit never goes above
+     * @param backoffRatio factor the limit is multiplied with on a drop
+     * @param timeout      calls slower than this count as a drop
+     * @param maxPause     longest {@code Retry-After} pause that is honored
+     */
+    public AdaptiveLimiter(String name, int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+                           Duration timeout, Duration maxPause) {
+        Assert.hasText(name, "Name must not be empty");
+        Assert.isTrue(minLimit > 0, "Min limit must be greater than 0");
+        Assert.isTrue(maxLimit >= minLimit, "Max limit must not be less than the min limit");
+        Assert.isTrue(initialLimit >= minLimit && initialLimit <= maxLimit,
+                "Initial limit must be between the min and max limit");
+        Assert.isTrue(backoffRatio > 0 && backoffRatio < 1, "Backoff ratio must be between 0 and 1");
+        Assert.isTrue(timeout.isPositive(), "Timeout must be positive");
+        Assert.isTrue(!maxPause.isNegative(), "Max pause must not be negative");
+
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.timeoutNanos = timeout.toNanos();
+        this.maxPauseNanos = maxPause.toNanos();
+        this.limit = initialLimit;
+        this.lastDecrease = System.nanoTime() - 1;
+    }
+
+    /**
+     * Waits until a call may start, i.e. the limit has room and no pause is in effect.
+     */
+    public Permit acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            waiting++;
+            try {
+                while (true) {
+                    long pause = pausedUntil - System.nanoTime();
+                    if (pause > 0) {
+                        available.awaitNanos(pause);
+                    } else if (inFlight < (int) limit) {
+                        break;
+                    } else {
+                        available.await();
+                    }
+                }
+            } finally {
+                waiting--;
+            }
+            inFlight++;
+            return new Permit(System.nanoTime(), inFlight * 2 >= (int) limit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for a {@code Retry-After} pause to be over, without taking a permit. Used
+     * for requests that already hold one, such as retries inside the model client.
+     */
+    public void awaitPause() throws InterruptedException {
+        long pause = pausedUntil - System.nanoTime();
+        if (pause > 0) {
+            TimeUnit.NANOSECONDS.sleep(pause);
+        }
+    }
+
+    /**
+     * Holds back new calls, and requests of calls in flight, for the delay a throttling
+     * response asked for through {@code Retry-After}, capped at the max pause.
+     */
+    public void pause(Duration retryAfter) {
+        if (retryAfter == null || !retryAfter.isPositive()) {
+            return;
+        }
+        lock.lock();
+        try {
+            long until = System.nanoTime() + Math.min(retryAfter.toNanos(), maxPauseNanos);
+            if (until - pausedUntil > 0) {
+                pausedUntil = until;
+                log.info("Provider '{}' asked to retry after {}, pausing new calls", name, retryAfter);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Whether calls are waiting for a permit or a {@code Retry-After} pause is in effect,
+     * i.e. an extra call would only queue behind the others.
+     */
+    public boolean congested() {
+        lock.lock();
+        try {
+            return waiting > 0 || pausedUntil - System.nanoTime() > 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int limit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(LlmMetrics.CONCURRENCY_LIMIT, this, AdaptiveLimiter::limit)
+                .description("Current adaptive concurrency limit of chat model calls")
+                .tag("limiter", name)
+                .register(registry);
+        Gauge.builder(LlmMetrics.CONCURRENCY_IN_FLIGHT, this, limiter -> limiter.stats().inFlight())
+                .description("Chat model calls in flight")
+                .tag("limiter", name)
+                .register(registry);
+        Gauge.builder(LlmMetrics.CONCURRENCY_WAITING, this, limiter -> limiter.stats().waiting())
+                .description("Chat model calls waiting for a permit")
+                .tag("limiter", name)
+                .register(registry);
+    }
+
+    public ConcurrencyLimitStats stats() {
+        lock.lock();
+        try {
+            long pause = pausedUntil - System.nanoTime();
+            return new ConcurrencyLimitStats(name, (int) limit, minLimit, maxLimit, inFlight, waiting,
+                    completed.sum(), throttled.sum(), timedOut.sum(), latencyNanos / 1_000_000.0,
+                    pause > 0 ? TimeUnit.NANOSECONDS.toMillis(pause) : 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void decrease(String reason) {
+        lastDecrease = System.nanoTime();
+        double previous = limit;
+        limit = Math.max(minLimit, limit * backoffRatio);
+        if ((int) previous != (int) limit) {
+            log.info("Concurrency limit of '{}' lowered from {} to {} ({})", name, (int) previous, (int) limit,
+                    reason);
+        }
+    }
+
+    /**
+     * Permission to run one call. Exactly one of the release methods must be called.
+     */
+    public final class Permit {
+
+        private final long started;
+        private final boolean limitInUse;
+        private boolean released;
+
+        private Permit(long started, boolean limitInUse) {
+            this.started = started;
+            this.limitInUse = limitInUse;
+        }
+
+        /**
+         * The call succeeded: grows the limit unless the call was slower than the timeout.
+         */
+        public void success() {
+            release(Outcome.SUCCESS);
+        }
+
+        /**
+         * The provider throttled the call: lowers the limit.
+         */
+        public void dropped() {
+            release(Outcome.DROPPED);
+        }
+
+        /**
+         * The call failed for a reason unrelated to load, or was cancelled: leaves the limit as is.
+         */
+        public void ignore() {
+            release(Outcome.IGNORED);
+        }
+
+        private void release(Outcome outcome) {
+            long latency = System.nanoTime() - started;
+            lock.lock();
+            try {
+                if (released) {
+                    return;
+                }
+                released = true;
+                inFlight--;
+                completed.increment();
+                double previous = limit;
+                // Calls that started before the last cut saw the old limit and do not change it.
+                boolean current = started - lastDecrease > 0;
+                if (outcome == Outcome.SUCCESS && latency > timeoutNanos) {
+                    timedOut.increment();
+                    if (current) {
+                        decrease("timeout");
+                    }
+                } else if (outcome == Outcome.SUCCESS) {
+                    latencyNanos = latencyNanos == 0 ? latency
+                            : (long) (latencyNanos * (1 - LATENCY_SMOOTHING) + latency * LATENCY_SMOOTHING);
+                    if (limitInUse && current) {
+                        limit = Math.min(maxLimit, limit + 1);
+                    }
+                } else if (outcome == Outcome.DROPPED) {
+                    throttled.increment();
+                    if (current) {
+                        decrease("throttled");
+                    }
+                }
+                if (limit > previous) {
+                    available.signalAll();
+                } else {
+                    available.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private enum Outcome {
+        SUCCESS, DROPPED, IGNORED
+    }
+}
@@ -0,0 +1,81 @@
+package demo.ai.commons.concurrency;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Honors {@code Retry-After} of model provider responses on the HTTP clients of the
+ * application.
+ *
+ * <p>
+ * A 429 or 503 response with {@code Retry-After} (seconds or an HTTP date) or OpenAI's
+ * {@code retry-after-ms} pauses the {@link AdaptiveLimiter}. Every request waits for a
+ * pause to be over before it is sent, which also holds back the retries Spring AI makes
+ * inside a single model call.
+ */
+public class RetryAfterInterceptor implements ClientHttpRequestInterceptor {
+
+    static final String RETRY_AFTER_MS = "retry-after-ms";
+
+    private final AdaptiveLimiter limiter;
+
+    public RetryAfterInterceptor(AdaptiveLimiter limiter) {
+        Assert.notNull(limiter, "Limiter must not be null");
+
+        this.limiter = limiter;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        try {
+            limiter.awaitPause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while pausing for Retry-After");
+        }
+        ClientHttpResponse response = execution.execute(request, body);
+        int status = response.getStatusCode().value();
+        if (status == 429 || status == 503) {
+            limiter.pause(retryAfter(response.getHeaders()));
+        }
+        return response;
+    }
+
+    static Duration retryAfter(HttpHeaders headers) {
+        String millis = headers.getFirst(RETRY_AFTER_MS);
+        if (millis != null) {
+            try {
+                return Duration.ofMillis((long) Double.parseDouble(millis.strip()));
+            } catch (NumberFormatException e) {
+                // fall back to Retry-After
+            }
+        }
+        String retryAfter = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (retryAfter == null) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(retryAfter.strip()));
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime date = ZonedDateTime.parse(retryAfter.strip(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Duration.between(Instant.now(), date.toInstant());
+            } catch (DateTimeParseException invalid) {
+                return null;
+            }
+        }
+    }
+}
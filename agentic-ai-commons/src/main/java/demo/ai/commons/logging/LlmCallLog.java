@@ -0,0 +1,205 @@
+package demo.ai.commons.logging;
+
+import demo.ai.commons.metrics.LlmMetrics;
+import demo.ai.commons.record.LlmCallLogStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Writes chat model calls to the log from a background thread.
+ *
+ * <p>
+ * Request threads only put the call, i.e. references to the request and response, into a
+ * bounded ring buffer and never block: when the buffer is full the call is dropped and
+ * counted. Rendering, truncating and hashing the prompt and response happen on the writer
+ * thread. Every call is written as one line of {@code key=value} timing fields; the
+ * prompt and response follow on the next lines only for calls that carry their payload.
+ */
+public class LlmCallLog implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(LlmCallLog.class);
+
+    private final BlockingQueue<Call> buffer;
+    private final int capacity;
+    private final int maxPayloadChars;
+    private final BiConsumer<Level, String> sink;
+    private final Thread writer;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean running = true;
+    private long reportedDrops;
+
+    public LlmCallLog(int capacity, int maxPayloadChars) {
+        this(capacity, maxPayloadChars, (level, line) -> log.atLevel(level).log(line));
+    }
+
+    LlmCallLog(int capacity, int maxPayloadChars, BiConsumer<Level, String> sink) {
+        Assert.isTrue(capacity > 0, "Capacity must be positive");
+        Assert.isTrue(maxPayloadChars > 0, "Max payload chars must be positive");
+        Assert.notNull(sink, "Sink must not be null");
+
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.capacity = capacity;
+        this.maxPayloadChars = maxPayloadChars;
+        this.sink = sink;
+        this.writer = Thread.ofPlatform().name("llm-call-log").daemon().start(this::drain);
+    }
+
+    /**
+     * Queues a call for writing; drops it when the buffer is full.
+     */
+    public void submit(Call call) {
+        if (!running || !buffer.offer(call)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public LlmCallLogStats stats() {
+        return new LlmCallLogStats(capacity, buffer.size(), written.get(), dropped.get());
+    }
+
+    /**
+     * Stops the writer after it has written the calls still in the buffer.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void drain() {
+        try {
+            while (running) {
+                write(buffer.take());
+            }
+        } catch (InterruptedException e) {
+            // closing, write what is left
+        }
+        for (Call call = buffer.poll(); call != null; call = buffer.poll()) {
+            write(call);
+        }
+    }
+
+    private void write(Call call) {
+        try {
+            sink.accept(call.failed() ? Level.WARN : Level.INFO, call.render(maxPayloadChars));
+            written.incrementAndGet();
+        } catch (RuntimeException e) {
+            log.warn("Failed to write LLM call: {}", e.getMessage());
+        }
+        long drops = dropped.get();
+        if (drops > reportedDrops) {
+            sink.accept(Level.WARN, "Dropped %d LLM call log entries, the log buffer of %d is full"
+                    .formatted(drops - reportedDrops, capacity));
+            reportedDrops = drops;
+        }
+    }
+
+    /**
+     * One chat model call as seen by {@link LlmLoggingAdvisor}.
+     *
+     * @param request      the request sent to the model
+     * @param response     the model's response, {@code null} when the call failed or streamed nothing
+     * @param text         the answer text, collected from all chunks for streamed calls
+     * @param error        the failure, if any
+     * @param duration     time from the request to the response or failure
+     * @param defaultModel the model to report when neither the request nor the response names one
+     * @param sampled      whether the call was sampled for payload logging
+     */
+    public record Call(ChatClientRequest request, ChatResponse response, String text, Throwable error,
+                       Duration duration, String defaultModel, boolean sampled) {
+
+        boolean failed() {
+            return error != null;
+        }
+
+        String render(int maxPayloadChars) {
+            Map<String, Object> context = request.context();
+            String prompt = prompt(request);
+            StringBuilder line = new StringBuilder(256)
+                    .append("llm.call")
+                    .append(" workflow=").append(tag(context.get(LlmMetrics.WORKFLOW)))
+                    .append(" step=").append(tag(context.get(LlmMetrics.STEP)))
+                    .append(" model=").append(model(request, response, defaultModel))
+                    .append(" outcome=").append(failed() ? "error" : "success")
+                    .append(" duration_ms=").append(duration.toMillis());
+            Usage usage = response != null ? response.getMetadata().getUsage() : null;
+            if (usage != null) {
+                line.append(" prompt_tokens=").append(usage.getPromptTokens())
+                        .append(" completion_tokens=").append(usage.getCompletionTokens());
+            }
+            line.append(" prompt_chars=").append(prompt.length())
+                    .append(" prompt_hash=").append(hash(prompt))
+                    .append(" response_chars=").append(text != null ? text.length() : 0)
+                    .append(" sampled=").append(sampled);
+            if (failed()) {
+                line.append(" error=\"").append(error.getClass().getSimpleName()).append(": ")
+                        .append(truncate(String.valueOf(error.getMessage()), maxPayloadChars)).append('"');
+            }
+            if (sampled || failed()) {
+                line.append("\n  prompt: ").append(truncate(prompt, maxPayloadChars));
+                line.append("\n  response: ").append(text != null ? truncate(text, maxPayloadChars) : "-");
+            }
+            return line.toString();
+        }
+
+        private static String prompt(ChatClientRequest request) {
+            StringBuilder prompt = new StringBuilder();
+            for (Message message : request.prompt().getInstructions()) {
+                if (!prompt.isEmpty()) {
+                    prompt.append('\n');
+                }
+                prompt.append(message.getMessageType().getValue()).append(": ").append(message.getText());
+            }
+            return prompt.toString();
+        }
+
+        private static String model(ChatClientRequest request, ChatResponse response, String defaultModel) {
+            if (response != null && StringUtils.hasText(response.getMetadata().getModel())) {
+                return response.getMetadata().getModel();
+            }
+            ChatOptions options = request.prompt().getOptions();
+            return options != null && StringUtils.hasText(options.getModel()) ? options.getModel() : defaultModel;
+        }
+
+        private static String tag(Object value) {
+            return value != null ? value.toString() : "none";
+        }
+
+        static String truncate(String text, int maxChars) {
+            String flat = text.replace("\n", "\\n");
+            return flat.length() <= maxChars ? flat
+                    : flat.substring(0, maxChars) + "...[+" + (flat.length() - maxChars) + " chars]";
+        }
+
+        static String hash(String text) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+                return HexFormat.of().formatHex(digest, 0, 6);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package demo.ai.commons.logging;
+
+import demo.ai.commons.metrics.LlmMetrics;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Logs chat model calls through an {@link LlmCallLog}, as a cheaper replacement of
+ * {@code SimpleLoggerAdvisor}.
+ *
+ * <p>
+ * Every call is logged with its timing fields. The prompt and response are logged for
+ * failed calls and for a sample of the others; the sample rate is set per route, i.e.
+ * per workflow or workflow step a request was tagged with through
+ * {@link LlmMetrics#step(String, String)}, with a default for all other requests. The
+ * sampling decision is the only work done on the request thread.
+ */
+public class LlmLoggingAdvisor implements CallAdvisor, StreamAdvisor {
+
+    private final LlmCallLog callLog;
+    private final double sampleRate;
+    private final Map<String, Double> routes;
+    private final String defaultModel;
+
+    /**
+     * @param callLog      where calls are written to
+     * @param sampleRate   share of successful calls logged with their payload
+     * @param routes       sample rates by workflow ({@code chain}) or step ({@code chain/extract})
+     * @param defaultModel the model to report when a call does not name one
+     */
+    public LlmLoggingAdvisor(LlmCallLog callLog, double sampleRate, Map<String, Double> routes,
+                             String defaultModel) {
+        Assert.notNull(callLog, "Call log must not be null");
+        Assert.isTrue(sampleRate >= 0 && sampleRate <= 1, "Sample rate must be between 0 and 1");
+        Assert.notNull(routes, "Routes must not be null");
+
+        this.callLog = callLog;
+        this.sampleRate = sampleRate;
+        this.routes = Map.copyOf(routes);
+        this.defaultModel = StringUtils.hasText(defaultModel) ? defaultModel : "none";
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        boolean sampled = sampled(request);
+        long start = System.nanoTime();
+        ChatClientResponse response;
+        try {
+            response = chain.nextCall(request);
+        } catch (RuntimeException e) {
+            callLog.submit(call(request, null, null, e, start, sampled));
+            throw e;
+        }
+        ChatResponse chatResponse = response.chatResponse();
+        String text = chatResponse != null && chatResponse.getResult() != null
+                ? chatResponse.getResult().getOutput().getText() : null;
+        callLog.submit(call(request, chatResponse, text, null, start, sampled));
+        return response;
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+        return Flux.defer(() -> {
+            boolean sampled = sampled(request);
+            long start = System.nanoTime();
+            StringBuilder content = new StringBuilder();
+            AtomicReference<ChatResponse> last = new AtomicReference<>();
+            return chain.nextStream(request)
+                    .doOnNext(response -> {
+                        ChatResponse chatResponse = response.chatResponse();
+                        if (chatResponse != null && chatResponse.getResult() != null) {
+                            last.set(chatResponse);
+                            String text = chatResponse.getResult().getOutput().getText();
+                            if (text != null) {
+                                content.append(text);
+                            }
+                        }
+                    })
+                    .doOnComplete(() -> callLog.submit(
+                            call(request, last.get(), content.toString(), null, start, sampled)))
+                    .doOnError(e -> callLog.submit(
+                            call(request, last.get(), content.toString(), e, start, sampled)));
+        });
+    }
+
+    @Override
+    public String getName() {
+        return LlmLoggingAdvisor.class.getSimpleName();
+    }
+
+    @Override
+    public int getOrder() {
+        // Same place as SimpleLoggerAdvisor, so answers served from a cache are not logged.
+        return 0;
+    }
+
+    private boolean sampled(ChatClientRequest request) {
+        double rate = sampleRate(request.context());
+        return rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    private double sampleRate(Map<String, Object> context) {
+        Object workflow = context.get(LlmMetrics.WORKFLOW);
+        if (workflow == null || routes.isEmpty()) {
+            return sampleRate;
+        }
+        Double stepRate = routes.get(workflow + "/" + context.get(LlmMetrics.STEP));
+        return stepRate != null ? stepRate : routes.getOrDefault(workflow.toString(), sampleRate);
+    }
+
+    private LlmCallLog.Call call(ChatClientRequest request, ChatResponse response, String text, Throwable error,
+                                 long start, boolean sampled) {
+        return new LlmCallLog.Call(request, response, text, error, Duration.ofNanos(System.nanoTime() - start),
+                defaultModel, sampled);
+    }
+}
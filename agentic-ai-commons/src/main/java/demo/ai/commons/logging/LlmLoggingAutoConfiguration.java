@@ -0,0 +1,34 @@
+package demo.ai.commons.logging;
+
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Creates the {@link LlmLoggingAdvisor} and its {@link LlmCallLog}. Applications add the
+ * advisor to their {@code ChatClient}; it can be turned off with
+ * {@code app.logging.llm.enabled=false}.
+ */
+@AutoConfiguration
+@ConditionalOnProperty(prefix = "app.logging.llm", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(LlmLoggingProperties.class)
+public class LlmLoggingAutoConfiguration {
+
+    @Bean
+    LlmCallLog llmCallLog(LlmLoggingProperties properties) {
+        return new LlmCallLog(properties.bufferSize(), properties.maxPayloadChars());
+    }
+
+    @Bean
+    LlmLoggingAdvisor llmLoggingAdvisor(LlmCallLog llmCallLog, LlmLoggingProperties properties,
+                                        ObjectProvider<ChatModel> chatModel) {
+        ChatModel model = chatModel.getIfUnique();
+        ChatOptions defaultOptions = model != null ? model.getDefaultOptions() : null;
+        return new LlmLoggingAdvisor(llmCallLog, properties.sampleRate(), properties.routes(),
+                defaultOptions != null ? defaultOptions.getModel() : null);
+    }
+}
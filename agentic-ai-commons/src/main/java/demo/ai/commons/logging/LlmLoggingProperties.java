@@ -0,0 +1,23 @@
+package demo.ai.commons.logging;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Map;
+
+/**
+ * Settings of the chat model call log.
+ *
+ * @param enabled         whether the logging advisor is created at all
+ * @param bufferSize      calls buffered for the writer thread before new ones are dropped
+ * @param sampleRate      share of successful calls logged with their prompt and response
+ * @param routes          sample rates by workflow or {@code workflow/step}, e.g. {@code "[chain/extract]": 1.0}
+ * @param maxPayloadChars characters of a prompt or response logged before it is truncated
+ */
+@ConfigurationProperties("app.logging.llm")
+public record LlmLoggingProperties(@DefaultValue("true") boolean enabled,
+                                   @DefaultValue("4096") int bufferSize,
+                                   @DefaultValue("0.01") double sampleRate,
+                                   @DefaultValue Map<String, Double> routes,
+                                   @DefaultValue("2000") int maxPayloadChars) {
+}
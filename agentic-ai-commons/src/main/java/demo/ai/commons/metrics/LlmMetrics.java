@@ -0,0 +1,160 @@
+package demo.ai.commons.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.chat.client.ChatClient;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Names, tags and recorders of the LLM metrics.
+ *
+ * <p>
+ * Every meter is tagged with the {@code workflow} and {@code step} a request was tagged
+ * with through {@link #step(String, String)}, or {@value #NONE} for untagged requests. The
+ * {@code module} tag is a common tag of each application. Meters recorded by the
+ * workflows themselves (retries, workflow steps) go to the global registry, which Spring
+ * Boot adds every application registry to, because workflows are created per request.
+ */
+public final class LlmMetrics {
+
+    /**
+     * Advisor param naming the workflow a request belongs to.
+     */
+    public static final String WORKFLOW = "workflow.name";
+
+    /**
+     * Advisor param naming the step of the workflow that issued a request.
+     */
+    public static final String STEP = "workflow.step";
+
+    /**
+     * Latency of chat model calls, published as a histogram so p50/p95/p99 can be
+     * aggregated across instances with {@code histogram_quantile}.
+     */
+    public static final String CALL_DURATION = "llm.call.duration";
+
+    /**
+     * Tokens spent, tagged with {@code type} {@code prompt} or {@code completion}.
+     */
+    public static final String TOKENS = "llm.tokens";
+
+    /**
+     * Tool calls requested by the model, tagged with the {@code tool} name.
+     */
+    public static final String TOOL_CALLS = "llm.tool.calls";
+
+    /**
+     * Answers to structured-output requests that are not valid JSON.
+     */
+    public static final String PARSE_FAILURES = "llm.parse.failures";
+
+    /**
+     * Retries of failed or timed out workflow steps.
+     */
+    public static final String RETRIES = "llm.retries";
+
+    /**
+     * Latency of workflow steps, including local ones and all retries of a step.
+     */
+    public static final String STEP_DURATION = "workflow.step.duration";
+
+    /**
+     * Current adaptive concurrency limit of chat model calls, tagged with the {@code limiter}.
+     */
+    public static final String CONCURRENCY_LIMIT = "llm.concurrency.limit";
+
+    /**
+     * Chat model calls in flight under the adaptive concurrency limit.
+     */
+    public static final String CONCURRENCY_IN_FLIGHT = "llm.concurrency.in.flight";
+
+    /**
+     * Chat model calls waiting for the adaptive concurrency limit or a {@code Retry-After} pause.
+     */
+    public static final String CONCURRENCY_WAITING = "llm.concurrency.waiting";
+
+    /**
+     * Hedged chat model calls, tagged with the {@code winner}: {@code primary}, {@code hedge},
+     * or {@code none} when both requests failed.
+     */
+    public static final String HEDGES = "llm.hedges";
+
+    static final String NONE = "none";
+
+    private LlmMetrics() {
+    }
+
+    /**
+     * Tags a chat client request with the workflow and step it belongs to.
+     */
+    public static Consumer<ChatClient.AdvisorSpec> step(String workflow, String step) {
+        return advisor -> advisor.param(WORKFLOW, workflow).param(STEP, step);
+    }
+
+    /**
+     * Counts a retry of a workflow step.
+     */
+    public static void retry(String workflow, String step) {
+        Counter.builder(RETRIES)
+                .description("Retries of failed or timed out workflow steps")
+                .tags("workflow", workflow, "step", step)
+                .register(Metrics.globalRegistry)
+                .increment();
+    }
+
+    /**
+     * Counts a hedged chat model call and which of its requests answered first.
+     */
+    public static void hedge(String workflow, String step, String winner) {
+        Counter.builder(HEDGES)
+                .description("Hedged chat model calls")
+                .tags("workflow", workflow, "step", step, "winner", winner)
+                .register(Metrics.globalRegistry)
+                .increment();
+    }
+
+    /**
+     * Records the duration of a workflow step, whether or not it called a model.
+     */
+    public static void stepCompleted(String workflow, String step, Duration duration, boolean success) {
+        Timer.builder(STEP_DURATION)
+                .description("Latency of workflow steps")
+                .tags("workflow", workflow, "step", step, "outcome", success ? "success" : "error")
+                .publishPercentileHistogram()
+                .register(Metrics.globalRegistry)
+                .record(duration);
+    }
+
+    static Timer callTimer(MeterRegistry registry, String workflow, String step, String model, String outcome) {
+        return Timer.builder(CALL_DURATION)
+                .description("Latency of chat model calls")
+                .tags("workflow", workflow, "step", step, "model", model, "outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    static Counter tokens(MeterRegistry registry, String workflow, String step, String model, String type) {
+        return Counter.builder(TOKENS)
+                .description("Tokens spent on chat model calls")
+                .tags("workflow", workflow, "step", step, "model", model, "type", type)
+                .register(registry);
+    }
+
+    static Counter toolCalls(MeterRegistry registry, String workflow, String step, String model, String tool) {
+        return Counter.builder(TOOL_CALLS)
+                .description("Tool calls requested by the model")
+                .tags("workflow", workflow, "step", step, "model", model, "tool", tool)
+                .register(registry);
+    }
+
+    static Counter parseFailures(MeterRegistry registry, String workflow, String step, String model) {
+        return Counter.builder(PARSE_FAILURES)
+                .description("Answers to structured-output requests that are not valid JSON")
+                .tags("workflow", workflow, "step", step, "model", model)
+                .register(registry);
+    }
+}
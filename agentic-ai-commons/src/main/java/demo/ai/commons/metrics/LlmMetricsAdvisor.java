@@ -0,0 +1,180 @@
+package demo.ai.commons.metrics;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.client.ChatClientAttributes;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.core.Ordered;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Records latency, token usage, requested tool calls and structured-output parse
+ * failures of every chat model call, tagged by workflow, step and model.
+ *
+ * <p>
+ * The advisor runs innermost, right before the model, so it measures the calls that
+ * actually reach the model: answers served from a cache are not counted, and time spent
+ * in retrieval or memory advisors is not part of the call latency. A structured-output
+ * answer counts as a parse failure when it is not valid JSON; the check is a streaming
+ * parse without building objects.
+ */
+public class LlmMetricsAdvisor implements CallAdvisor, StreamAdvisor {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final MeterRegistry registry;
+    private final String defaultModel;
+
+    public LlmMetricsAdvisor(MeterRegistry registry, String defaultModel) {
+        Assert.notNull(registry, "Meter registry must not be null");
+
+        this.registry = registry;
+        this.defaultModel = StringUtils.hasText(defaultModel) ? defaultModel : LlmMetrics.NONE;
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        long start = System.nanoTime();
+        ChatClientResponse response;
+        try {
+            response = chain.nextCall(request);
+        } catch (RuntimeException e) {
+            record(request, null, null, start, "error");
+            throw e;
+        }
+        ChatResponse chatResponse = response.chatResponse();
+        record(request, chatResponse, text(chatResponse), start, "success");
+        return response;
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            StringBuilder content = new StringBuilder();
+            // Usage, model and tool calls arrive in the last chunks, if at all.
+            AtomicReference<ChatResponse> last = new AtomicReference<>();
+            return chain.nextStream(request)
+                    .doOnNext(response -> {
+                        ChatResponse chatResponse = response.chatResponse();
+                        if (chatResponse != null && chatResponse.getResult() != null) {
+                            last.set(chatResponse);
+                            String text = chatResponse.getResult().getOutput().getText();
+                            if (text != null) {
+                                content.append(text);
+                            }
+                        }
+                    })
+                    .doOnComplete(() -> record(request, last.get(), content.toString(), start, "success"))
+                    .doOnError(e -> record(request, null, null, start, "error"));
+        });
+    }
+
+    @Override
+    public String getName() {
+        return LlmMetricsAdvisor.class.getSimpleName();
+    }
+
+    @Override
+    public int getOrder() {
+        // Innermost, right before the call to the chat model.
+        return Ordered.LOWEST_PRECEDENCE - 1;
+    }
+
+    private void record(ChatClientRequest request, ChatResponse chatResponse, String text, long start,
+                        String outcome) {
+        Map<String, Object> context = request.context();
+        String workflow = tag(context.get(LlmMetrics.WORKFLOW));
+        String step = tag(context.get(LlmMetrics.STEP));
+        String model = model(request, chatResponse);
+
+        LlmMetrics.callTimer(registry, workflow, step, model, outcome)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (chatResponse == null) {
+            return;
+        }
+
+        Usage usage = chatResponse.getMetadata().getUsage();
+        if (usage != null) {
+            increment(LlmMetrics.tokens(registry, workflow, step, model, "prompt"), usage.getPromptTokens());
+            increment(LlmMetrics.tokens(registry, workflow, step, model, "completion"), usage.getCompletionTokens());
+        }
+        if (chatResponse.getResult() != null) {
+            AssistantMessage output = chatResponse.getResult().getOutput();
+            for (AssistantMessage.ToolCall toolCall : output.getToolCalls()) {
+                LlmMetrics.toolCalls(registry, workflow, step, model, toolCall.name()).increment();
+            }
+            if (!output.hasToolCalls() && context.get(ChatClientAttributes.OUTPUT_FORMAT.getKey()) != null
+                    && !isJson(text)) {
+                LlmMetrics.parseFailures(registry, workflow, step, model).increment();
+            }
+        }
+    }
+
+    private String model(ChatClientRequest request, ChatResponse chatResponse) {
+        if (chatResponse != null && StringUtils.hasText(chatResponse.getMetadata().getModel())) {
+            return chatResponse.getMetadata().getModel();
+        }
+        ChatOptions options = request.prompt().getOptions();
+        return options != null && StringUtils.hasText(options.getModel()) ? options.getModel() : defaultModel;
+    }
+
+    private static String tag(Object value) {
+        return value != null ? value.toString() : LlmMetrics.NONE;
+    }
+
+    private static void increment(Counter counter, Integer tokens) {
+        if (tokens != null && tokens > 0) {
+            counter.increment(tokens);
+        }
+    }
+
+    private static String text(ChatResponse chatResponse) {
+        return chatResponse != null && chatResponse.getResult() != null
+                ? chatResponse.getResult().getOutput().getText() : null;
+    }
+
+    /**
+     * Whether the text is a JSON document, allowing the markdown code fence that the
+     * structured output converters strip as well.
+     */
+    static boolean isJson(String text) {
+        if (!StringUtils.hasText(text)) {
+            return false;
+        }
+        String json = text.strip();
+        if (json.startsWith("```")) {
+            json = json.substring(json.indexOf('\n') + 1);
+            if (json.endsWith("```")) {
+                json = json.substring(0, json.length() - 3);
+            }
+        }
+        try (JsonParser parser = JSON.createParser(json)) {
+            if (parser.nextToken() == null) {
+                return false;
+            }
+            parser.skipChildren();
+            return parser.nextToken() == null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
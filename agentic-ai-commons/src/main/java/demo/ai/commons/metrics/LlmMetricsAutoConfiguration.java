@@ -0,0 +1,30 @@
+package demo.ai.commons.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Creates the {@link LlmMetricsAdvisor} when a {@link MeterRegistry} is available, i.e.
+ * when the application includes actuator. Applications add the advisor to their
+ * {@code ChatClient}; it can be turned off with {@code app.metrics.llm.enabled=false}.
+ */
+@AutoConfiguration(afterName = "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration")
+@ConditionalOnClass(MeterRegistry.class)
+@ConditionalOnBean(MeterRegistry.class)
+@ConditionalOnProperty(prefix = "app.metrics.llm", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class LlmMetricsAutoConfiguration {
+
+    @Bean
+    LlmMetricsAdvisor llmMetricsAdvisor(MeterRegistry meterRegistry, ObjectProvider<ChatModel> chatModel) {
+        ChatModel model = chatModel.getIfUnique();
+        ChatOptions defaultOptions = model != null ? model.getDefaultOptions() : null;
+        return new LlmMetricsAdvisor(meterRegistry, defaultOptions != null ? defaultOptions.getModel() : null);
+    }
+}
@@ -0,0 +1,6 @@
+package demo.ai.commons.record;
+
+public record ConcurrencyLimitStats(String name, int limit, int minLimit, int maxLimit, int inFlight, int waiting,
+                                    long completed, long throttled, long timedOut, double avgLatencyMillis,
+                                    long pausedForMillis) {
+}
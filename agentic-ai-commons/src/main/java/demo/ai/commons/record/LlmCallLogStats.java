@@ -0,0 +1,4 @@
+package demo.ai.commons.record;
+
+public record LlmCallLogStats(int capacity, int pending, long written, long dropped) {
+}
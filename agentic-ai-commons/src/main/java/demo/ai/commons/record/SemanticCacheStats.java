@@ -0,0 +1,10 @@
+package demo.ai.commons.record;
+
+import java.util.Map;
+
+public record SemanticCacheStats(long hits, long misses, long evictions, int entries, double hitRatio,
+                                 double averageHitSimilarity, Map<String, RouteCacheStats> routes) {
+
+    public record RouteCacheStats(long hits, long misses, double hitRatio) {
+    }
+}
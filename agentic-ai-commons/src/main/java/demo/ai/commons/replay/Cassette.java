@@ -0,0 +1,232 @@
+package demo.ai.commons.replay;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Recorded model exchanges, one JSON object per line, keyed by a hash of the request.
+ *
+ * <p>
+ * Recording appends every exchange and flushes it right away, so a cassette survives an
+ * application that is killed under load. Up to {@code maxSamples} exchanges are kept per
+ * request; together they are the latency distribution replayed for it. Embeddings are
+ * stored as base64 of their float32 values to keep cassettes small, and cassettes can be
+ * gzipped ({@code .jsonl.gz}) for checking in.
+ */
+public class Cassette implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(Cassette.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final Path file;
+    private final int maxSamples;
+    private final Map<String, List<Exchange>> exchanges = new ConcurrentHashMap<>();
+    private BufferedWriter writer;
+
+    private Cassette(Path file, int maxSamples) {
+        this.file = file;
+        this.maxSamples = maxSamples;
+    }
+
+    /**
+     * Opens a cassette and loads what it has recorded so far; a missing file is an empty cassette.
+     *
+     * @param file       the cassette, gzipped if its name ends with {@code .gz}
+     * @param maxSamples exchanges recorded per request
+     */
+    public static Cassette open(Path file, int maxSamples) {
+        Assert.notNull(file, "File must not be null");
+        Assert.isTrue(maxSamples > 0, "Max samples must be positive");
+
+        Cassette cassette = new Cassette(file, maxSamples);
+        if (Files.exists(file)) {
+            cassette.load();
+        }
+        return cassette;
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    /**
+     * The exchanges recorded for a request, in the order they were recorded.
+     */
+    public List<Exchange> get(String key) {
+        return exchanges.getOrDefault(key, List.of());
+    }
+
+    /**
+     * One exchange of any request, e.g. to learn the embedding dimensions, or {@code null} if there is none.
+     */
+    public Exchange any() {
+        return exchanges.values().stream().flatMap(List::stream).findFirst().orElse(null);
+    }
+
+    public int size() {
+        return exchanges.size();
+    }
+
+    /**
+     * Records an exchange unless its request already has {@code maxSamples} of them.
+     *
+     * @return whether the exchange was recorded
+     */
+    public boolean record(Exchange exchange) {
+        List<Exchange> samples = exchanges.computeIfAbsent(exchange.key(), key -> new CopyOnWriteArrayList<>());
+        synchronized (this) {
+            if (samples.size() >= maxSamples) {
+                return false;
+            }
+            samples.add(exchange);
+            try {
+                if (writer == null) {
+                    Assert.state(!file.toString().endsWith(".gz"), "Cannot record to a gzipped cassette: " + file);
+                    Path parent = file.toAbsolutePath().getParent();
+                    Files.createDirectories(parent);
+                    writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                }
+                writer.write(MAPPER.writeValueAsString(exchange));
+                writer.newLine();
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not record to cassette " + file, e);
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.warn("Could not close cassette {}", file, e);
+            }
+            writer = null;
+        }
+    }
+
+    /**
+     * Hash of the parts of a request that make it the same request, as the key of its exchanges.
+     */
+    public static String key(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                digest.update((part != null ? part : "").getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    static String encode(float[] embedding) {
+        ByteBuffer buffer = ByteBuffer.allocate(embedding.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(embedding);
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    static float[] decode(String embedding) {
+        ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(embedding)).order(ByteOrder.LITTLE_ENDIAN);
+        float[] values = new float[buffer.remaining() / Float.BYTES];
+        buffer.asFloatBuffer().get(values);
+        return values;
+    }
+
+    private void load() {
+        try (InputStream in = file.toString().endsWith(".gz")
+                ? new GZIPInputStream(Files.newInputStream(file)) : Files.newInputStream(file);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                Exchange exchange = MAPPER.readValue(line, Exchange.class);
+                List<Exchange> samples = exchanges.computeIfAbsent(exchange.key(), key -> new CopyOnWriteArrayList<>());
+                if (samples.size() < maxSamples) {
+                    samples.add(exchange);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read cassette " + file, e);
+        }
+        log.info("Loaded {} recorded requests from cassette {}", exchanges.size(), file);
+    }
+
+    /**
+     * A recorded request and what the model answered; chat exchanges have a text and
+     * possibly tool calls, embedding exchanges an embedding.
+     *
+     * @param key              hash of the request
+     * @param model            model that answered
+     * @param latencyMillis    how long the model took
+     * @param text             answer of a chat model
+     * @param toolCalls        tool calls requested by a chat model
+     * @param promptTokens     prompt tokens of a chat model call
+     * @param completionTokens completion tokens of a chat model call
+     * @param finishReason     finish reason of a chat model call
+     * @param embedding        base64 float32 embedding of an embedding model call
+     */
+    public record Exchange(String key, String model, long latencyMillis, String text, List<ToolCall> toolCalls,
+                           Integer promptTokens, Integer completionTokens, String finishReason,
+                           String embedding) {
+
+        static Exchange chat(String key, String model, long latencyMillis, String text, List<ToolCall> toolCalls,
+                             Integer promptTokens, Integer completionTokens, String finishReason) {
+            return new Exchange(key, model, latencyMillis, text, toolCalls.isEmpty() ? null : toolCalls,
+                    promptTokens, completionTokens, finishReason, null);
+        }
+
+        static Exchange embedding(String key, String model, long latencyMillis, float[] embedding) {
+            return new Exchange(key, model, latencyMillis, null, null, null, null, null, encode(embedding));
+        }
+
+        List<ToolCall> toolCallsOrEmpty() {
+            return toolCalls != null ? toolCalls : List.of();
+        }
+    }
+
+    /**
+     * @param id        id of the tool call
+     * @param type      type of the tool call, usually {@code function}
+     * @param name      name of the tool
+     * @param arguments JSON arguments of the call
+     */
+    public record ToolCall(String id, String type, String name, String arguments) {
+    }
+}
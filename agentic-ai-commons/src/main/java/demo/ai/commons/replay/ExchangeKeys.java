@@ -0,0 +1,54 @@
+package demo.ai.commons.replay;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Keys of recorded exchanges: what makes two model requests the same request.
+ *
+ * <p>
+ * A chat request is its model, the type and text of its messages, tool calls and tool
+ * results included, and the names of the tools it offers. Ids of tool calls are left out
+ * since providers make up new ones on every call.
+ */
+final class ExchangeKeys {
+
+    private ExchangeKeys() {
+    }
+
+    static String chat(Prompt prompt, String defaultModel) {
+        ChatOptions options = prompt.getOptions();
+        String model = options != null && options.getModel() != null ? options.getModel() : defaultModel;
+        List<String> parts = new ArrayList<>();
+        parts.add("chat");
+        parts.add(model);
+        for (Message message : prompt.getInstructions()) {
+            parts.add(message.getMessageType().getValue() + ":" + message.getText());
+            if (message instanceof AssistantMessage assistant) {
+                assistant.getToolCalls().forEach(call -> parts.add("tool-call:" + call.name() + ":" + call.arguments()));
+            } else if (message instanceof ToolResponseMessage tools) {
+                tools.getResponses().forEach(response ->
+                        parts.add("tool-response:" + response.name() + ":" + response.responseData()));
+            }
+        }
+        if (options instanceof ToolCallingChatOptions toolOptions) {
+            TreeSet<String> tools = new TreeSet<>(toolOptions.getToolNames());
+            toolOptions.getToolCallbacks().forEach(callback -> tools.add(callback.getToolDefinition().name()));
+            parts.add("tools:" + String.join(",", tools));
+        }
+        return Cassette.key(parts.toArray(String[]::new));
+    }
+
+    static String embedding(String text, EmbeddingOptions options) {
+        return Cassette.key("embedding", options != null ? options.getModel() : null, text);
+    }
+}
@@ -0,0 +1,112 @@
+package demo.ai.commons.replay;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records or replays the exchanges of every {@link ChatModel} and {@link EmbeddingModel}
+ * bean when {@code app.replay.mode} is {@code record} or {@code replay}, which the
+ * {@code record} and {@code replay} profiles of the applications set.
+ *
+ * <p>
+ * Each model bean gets its own cassette, {@code <dir>/<bean name>.jsonl}; replay prefers
+ * a gzipped {@code .jsonl.gz} next to it. When replaying, the provider models are still
+ * created, for their default options, but never called. With
+ * {@code app.replay.vector-store.enabled} an in-memory {@link SimpleVectorStore} stands in
+ * for the vector store, so that the RAG paths run without a database either.
+ */
+@AutoConfiguration
+@ConditionalOnExpression("'${app.replay.mode:off}' != 'off'")
+@EnableConfigurationProperties(ModelReplayProperties.class)
+public class ModelReplayAutoConfiguration {
+
+    @Bean
+    static ModelReplayPostProcessor modelReplayPostProcessor(Environment environment) {
+        // Post-processors are created before configuration properties beans can be injected.
+        return new ModelReplayPostProcessor(Binder.get(environment)
+                .bindOrCreate("app.replay", ModelReplayProperties.class));
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.replay.vector-store", name = "enabled", havingValue = "true")
+    VectorStore inMemoryVectorStore(EmbeddingModel embeddingModel, ModelReplayProperties properties) {
+        SimpleVectorStore vectorStore = SimpleVectorStore.builder(embeddingModel).build();
+        List<String> documents = properties.vectorStore().documents();
+        if (!documents.isEmpty()) {
+            vectorStore.add(documents.stream().map(Document::new).toList());
+        }
+        return vectorStore;
+    }
+
+    static class ModelReplayPostProcessor implements BeanPostProcessor, DisposableBean {
+
+        private static final Logger log = LoggerFactory.getLogger(ModelReplayPostProcessor.class);
+
+        private final ModelReplayProperties properties;
+        private final ReplayLatency chatLatency;
+        private final ReplayLatency embeddingLatency;
+        private final List<Cassette> cassettes = new CopyOnWriteArrayList<>();
+
+        ModelReplayPostProcessor(ModelReplayProperties properties) {
+            this.properties = properties;
+            ModelReplayProperties.Latency latency = properties.latency();
+            this.chatLatency = new ReplayLatency(latency.mode(), latency.scale(), latency.median(), latency.p99());
+            this.embeddingLatency = new ReplayLatency(latency.mode(), latency.scale(), latency.embeddingMedian(),
+                    latency.embeddingP99());
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (properties.mode() == ModelReplayProperties.Mode.OFF
+                    || !(bean instanceof ChatModel || bean instanceof EmbeddingModel)) {
+                return bean;
+            }
+            Cassette cassette = Cassette.open(cassette(beanName), properties.maxSamples());
+            cassettes.add(cassette);
+            log.info("{} model bean '{}' with cassette {}",
+                    properties.mode() == ModelReplayProperties.Mode.RECORD ? "Recording" : "Replaying",
+                    beanName, cassette.file());
+            if (bean instanceof ChatModel chatModel) {
+                return properties.mode() == ModelReplayProperties.Mode.RECORD
+                        ? new RecordingChatModel(chatModel, cassette)
+                        : new ReplayChatModel(cassette, chatLatency, chatModel.getDefaultOptions(),
+                        properties.synthesizeMisses());
+            }
+            EmbeddingModel embeddingModel = (EmbeddingModel) bean;
+            return properties.mode() == ModelReplayProperties.Mode.RECORD
+                    ? new RecordingEmbeddingModel(embeddingModel, cassette)
+                    : new ReplayEmbeddingModel(cassette, embeddingLatency, properties.synthesizeMisses(),
+                    properties.embeddingDimensions());
+        }
+
+        @Override
+        public void destroy() {
+            cassettes.forEach(Cassette::close);
+        }
+
+        private Path cassette(String beanName) {
+            Path file = properties.dir().resolve(beanName + ".jsonl");
+            Path gzipped = properties.dir().resolve(beanName + ".jsonl.gz");
+            return properties.mode() == ModelReplayProperties.Mode.REPLAY && Files.exists(gzipped) ? gzipped : file;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package demo.ai.commons.replay;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Settings of recording and replaying model exchanges.
+ *
+ * @param mode                whether model calls go to the provider as usual, are recorded, or are replayed
+ * @param dir                 directory of the cassettes, one per model bean
+ * @param maxSamples          exchanges recorded per request, which make up its replayed latency distribution
+ * @param latency             latency of replayed calls
+ * @param synthesizeMisses    whether requests that were never recorded get a placeholder answer instead of failing
+ * @param embeddingDimensions dimensions of synthetic embeddings when a cassette has no embedding to take them from
+ * @param vectorStore         in-memory stand-in for the vector store of the application
+ */
+@ConfigurationProperties("app.replay")
+public record ModelReplayProperties(@DefaultValue("off") Mode mode,
+                                    @DefaultValue("cassettes") Path dir,
+                                    @DefaultValue("5") int maxSamples,
+                                    @DefaultValue Latency latency,
+                                    @DefaultValue("false") boolean synthesizeMisses,
+                                    @DefaultValue("1024") int embeddingDimensions,
+                                    @DefaultValue InMemoryStore vectorStore) {
+
+    public enum Mode {
+        OFF, RECORD, REPLAY
+    }
+
+    /**
+     * @param mode            {@code recorded} latencies, {@code synthetic} log-normal ones, or {@code none}
+     * @param scale           factor applied to every latency
+     * @param median          median of synthetic chat latencies
+     * @param p99             99th percentile of synthetic chat latencies
+     * @param embeddingMedian median of synthetic embedding latencies
+     * @param embeddingP99    99th percentile of synthetic embedding latencies
+     */
+    public record Latency(@DefaultValue("recorded") ReplayLatency.Mode mode,
+                          @DefaultValue("1.0") double scale,
+                          @DefaultValue("800ms") Duration median,
+                          @DefaultValue("5s") Duration p99,
+                          @DefaultValue("50ms") Duration embeddingMedian,
+                          @DefaultValue("300ms") Duration embeddingP99) {
+    }
+
+    /**
+     * @param enabled   whether an in-memory vector store replaces the one of the application; the
+     *                  auto-configuration of the real store has to be excluded
+     * @param documents documents the in-memory store starts with
+     */
+    public record InMemoryStore(@DefaultValue("false") boolean enabled,
+                                @DefaultValue List<String> documents) {
+    }
+}
@@ -0,0 +1,82 @@
+package demo.ai.commons.replay;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.model.MessageAggregator;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * Records the exchanges of a {@link ChatModel} to a {@link Cassette} for
+ * {@link ReplayChatModel}. Streamed answers are recorded once the stream completed, with
+ * the latency of the whole stream.
+ */
+public class RecordingChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final Cassette cassette;
+
+    public RecordingChatModel(ChatModel delegate, Cassette cassette) {
+        Assert.notNull(delegate, "Delegate must not be null");
+        Assert.notNull(cassette, "Cassette must not be null");
+
+        this.delegate = delegate;
+        this.cassette = cassette;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        long start = System.nanoTime();
+        ChatResponse response = delegate.call(prompt);
+        record(prompt, response, start);
+        return response;
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            return new MessageAggregator().aggregate(delegate.stream(prompt),
+                    response -> record(prompt, response, start));
+        });
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+
+    private void record(Prompt prompt, ChatResponse response, long start) {
+        long latencyMillis = (System.nanoTime() - start) / 1_000_000;
+        Generation result = response != null ? response.getResult() : null;
+        if (result == null) {
+            return;
+        }
+        String defaultModel = defaultModel();
+        AssistantMessage output = result.getOutput();
+        List<Cassette.ToolCall> toolCalls = output.getToolCalls().stream()
+                .map(call -> new Cassette.ToolCall(call.id(), call.type(), call.name(), call.arguments()))
+                .toList();
+        ChatResponseMetadata metadata = response.getMetadata();
+        Usage usage = metadata.getUsage();
+        cassette.record(Cassette.Exchange.chat(ExchangeKeys.chat(prompt, defaultModel),
+                metadata.getModel() != null && !metadata.getModel().isEmpty() ? metadata.getModel() : defaultModel,
+                latencyMillis, output.getText(), toolCalls,
+                usage != null ? usage.getPromptTokens() : null,
+                usage != null ? usage.getCompletionTokens() : null,
+                result.getMetadata().getFinishReason()));
+    }
+
+    private String defaultModel() {
+        ChatOptions options = delegate.getDefaultOptions();
+        return options != null ? options.getModel() : null;
+    }
+}
@@ -0,0 +1,56 @@
+package demo.ai.commons.replay;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.MetadataMode;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.util.Assert;
+
+import java.util.List;
+
+/**
+ * Records the embeddings of an {@link EmbeddingModel} to a {@link Cassette} for
+ * {@link ReplayEmbeddingModel}, one exchange per embedded text, so that replay does not
+ * depend on how texts were batched. Each text is recorded with the latency of its batch.
+ */
+public class RecordingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final Cassette cassette;
+
+    public RecordingEmbeddingModel(EmbeddingModel delegate, Cassette cassette) {
+        Assert.notNull(delegate, "Delegate must not be null");
+        Assert.notNull(cassette, "Cassette must not be null");
+
+        this.delegate = delegate;
+        this.cassette = cassette;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        long start = System.nanoTime();
+        EmbeddingResponse response = delegate.call(request);
+        long latencyMillis = (System.nanoTime() - start) / 1_000_000;
+        List<String> texts = request.getInstructions();
+        response.getResults().forEach(embedding -> {
+            if (embedding.getIndex() < texts.size()) {
+                String text = texts.get(embedding.getIndex());
+                cassette.record(Cassette.Exchange.embedding(ExchangeKeys.embedding(text, request.getOptions()),
+                        request.getOptions() != null ? request.getOptions().getModel() : null,
+                        latencyMillis, embedding.getOutput()));
+            }
+        });
+        return response;
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getFormattedContent(MetadataMode.EMBED));
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
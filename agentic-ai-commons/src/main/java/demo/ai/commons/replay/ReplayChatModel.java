@@ -0,0 +1,124 @@
+package demo.ai.commons.replay;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatGenerationMetadata;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Answers chat requests from a {@link Cassette} without calling a provider.
+ *
+ * <p>
+ * A request is served one of the exchanges recorded for it, picked at random, after its
+ * {@link ReplayLatency}. Streams emit the answer word by word, spread over that latency.
+ * Tool calls in recorded answers are replayed as well; tools that the provider executed
+ * within a recorded call, as with Spring AI's internal tool execution, are not called
+ * again. A request that was never recorded fails, unless {@code synthesizeMisses} is set,
+ * in which case it gets a placeholder answer (see {@link SyntheticAnswers}) with a
+ * synthetic latency.
+ */
+public class ReplayChatModel implements ChatModel {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplayChatModel.class);
+
+    private final Cassette cassette;
+    private final ReplayLatency latency;
+    private final ChatOptions defaultOptions;
+    private final boolean synthesizeMisses;
+    private final Set<String> reportedMisses = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param cassette         recorded exchanges
+     * @param latency          latency of replayed calls
+     * @param defaultOptions   default options of the replayed model, so requests get the keys they were recorded with
+     * @param synthesizeMisses whether requests that were never recorded get a placeholder answer instead of failing
+     */
+    public ReplayChatModel(Cassette cassette, ReplayLatency latency, ChatOptions defaultOptions,
+                           boolean synthesizeMisses) {
+        Assert.notNull(cassette, "Cassette must not be null");
+        Assert.notNull(latency, "Latency must not be null");
+
+        this.cassette = cassette;
+        this.latency = latency;
+        this.defaultOptions = defaultOptions;
+        this.synthesizeMisses = synthesizeMisses;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        Cassette.Exchange exchange = exchange(prompt);
+        latency.await(exchange.latencyMillis());
+        return response(exchange, exchange.text(), exchange.toolCallsOrEmpty());
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.defer(() -> {
+            Cassette.Exchange exchange = exchange(prompt);
+            String text = exchange.text() != null ? exchange.text() : "";
+            String[] words = text.split("(?<= )");
+            Duration total = latency.latency(exchange.latencyMillis());
+            Flux<ChatResponse> chunks = Flux.range(0, words.length)
+                    .map(i -> response(exchange, words[i],
+                            i == words.length - 1 ? exchange.toolCallsOrEmpty() : List.of()));
+            return !total.isPositive() ? chunks : chunks.delayElements(total.dividedBy(words.length));
+        });
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return defaultOptions != null ? defaultOptions.copy() : ChatModel.super.getDefaultOptions();
+    }
+
+    private Cassette.Exchange exchange(Prompt prompt) {
+        String key = ExchangeKeys.chat(prompt, defaultOptions != null ? defaultOptions.getModel() : null);
+        List<Cassette.Exchange> recorded = cassette.get(key);
+        if (!recorded.isEmpty()) {
+            return recorded.get(ThreadLocalRandom.current().nextInt(recorded.size()));
+        }
+        if (reportedMisses.add(key)) {
+            log.warn("No recorded answer for chat request {} in cassette {}", key, cassette.file());
+        }
+        if (!synthesizeMisses) {
+            throw new IllegalStateException("No recorded answer for chat request " + key
+                    + " in cassette " + cassette.file());
+        }
+        return Cassette.Exchange.chat(key, null, -1, SyntheticAnswers.answer(prompt), List.of(), null, null, "STOP");
+    }
+
+    private static ChatResponse response(Cassette.Exchange exchange, String text, List<Cassette.ToolCall> toolCalls) {
+        List<AssistantMessage.ToolCall> calls = toolCalls.stream()
+                .map(call -> new AssistantMessage.ToolCall(call.id(), call.type(), call.name(), call.arguments()))
+                .toList();
+        ChatGenerationMetadata.Builder generationMetadata = ChatGenerationMetadata.builder();
+        if (exchange.finishReason() != null) {
+            generationMetadata.finishReason(exchange.finishReason());
+        }
+        ChatResponseMetadata.Builder metadata = ChatResponseMetadata.builder();
+        if (exchange.model() != null) {
+            metadata.model(exchange.model());
+        }
+        if (exchange.promptTokens() != null && exchange.completionTokens() != null) {
+            metadata.usage(new DefaultUsage(exchange.promptTokens(), exchange.completionTokens()));
+        }
+        return new ChatResponse(
+                List.of(new Generation(new AssistantMessage(text, Map.of(), calls), generationMetadata.build())),
+                metadata.build());
+    }
+}
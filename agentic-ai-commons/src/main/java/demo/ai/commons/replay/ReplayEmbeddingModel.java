@@ -0,0 +1,109 @@
+package demo.ai.commons.replay;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.MetadataMode;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves embeddings from a {@link Cassette} without calling a provider. A batch takes
+ * the longest {@link ReplayLatency} of its texts.
+ *
+ * <p>
+ * A text that was never recorded fails, unless {@code synthesizeMisses} is set, in which
+ * case it gets a pseudo-random unit vector derived from the text: the same text always
+ * gets the same vector, so caches and vector store lookups still behave consistently.
+ */
+public class ReplayEmbeddingModel implements EmbeddingModel {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplayEmbeddingModel.class);
+
+    private final Cassette cassette;
+    private final ReplayLatency latency;
+    private final boolean synthesizeMisses;
+    private final int dimensions;
+    private final Set<String> reportedMisses = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param cassette          recorded embeddings
+     * @param latency           latency of replayed calls
+     * @param synthesizeMisses  whether texts that were never recorded get a synthetic embedding instead of failing
+     * @param defaultDimensions dimensions of synthetic embeddings if the cassette has no embedding to take them from
+     */
+    public ReplayEmbeddingModel(Cassette cassette, ReplayLatency latency, boolean synthesizeMisses,
+                                int defaultDimensions) {
+        Assert.notNull(cassette, "Cassette must not be null");
+        Assert.notNull(latency, "Latency must not be null");
+        Assert.isTrue(defaultDimensions > 0, "Default dimensions must be positive");
+
+        Cassette.Exchange recorded = cassette.any();
+        this.cassette = cassette;
+        this.latency = latency;
+        this.synthesizeMisses = synthesizeMisses;
+        this.dimensions = recorded != null ? Cassette.decode(recorded.embedding()).length : defaultDimensions;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<Embedding> embeddings = new ArrayList<>();
+        // No text recorded means no recorded latency either
+        long latencyMillis = -1;
+        List<String> texts = request.getInstructions();
+        for (int i = 0; i < texts.size(); i++) {
+            String key = ExchangeKeys.embedding(texts.get(i), request.getOptions());
+            List<Cassette.Exchange> recorded = cassette.get(key);
+            if (!recorded.isEmpty()) {
+                Cassette.Exchange exchange = recorded.getFirst();
+                latencyMillis = Math.max(latencyMillis, exchange.latencyMillis());
+                embeddings.add(new Embedding(Cassette.decode(exchange.embedding()), i));
+            } else {
+                embeddings.add(new Embedding(miss(key), i));
+            }
+        }
+        latency.await(latencyMillis);
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getFormattedContent(MetadataMode.EMBED));
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    private float[] miss(String key) {
+        if (reportedMisses.add(key)) {
+            log.warn("No recorded embedding for text {} in cassette {}", key, cassette.file());
+        }
+        if (!synthesizeMisses) {
+            throw new IllegalStateException("No recorded embedding for text " + key
+                    + " in cassette " + cassette.file());
+        }
+        Random random = new Random(key.hashCode());
+        float[] embedding = new float[dimensions];
+        double norm = 0;
+        for (int i = 0; i < dimensions; i++) {
+            embedding[i] = (float) random.nextGaussian();
+            norm += embedding[i] * embedding[i];
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < dimensions; i++) {
+            embedding[i] *= scale;
+        }
+        return embedding;
+    }
+}
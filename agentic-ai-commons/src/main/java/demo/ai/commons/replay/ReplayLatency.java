@@ -0,0 +1,87 @@
+package demo.ai.commons.replay;
+
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How long a replayed model call takes.
+ *
+ * <p>
+ * {@link Mode#RECORDED} replays the latency of the exchange that is served, so the
+ * distribution is the one seen while recording. {@link Mode#SYNTHETIC} draws from a
+ * log-normal distribution with the given median and p99, which is what model latencies
+ * roughly follow, to test against latencies that were never recorded. Both are
+ * multiplied by {@code scale}, e.g. 2.0 to simulate a provider having a bad day.
+ */
+public class ReplayLatency {
+
+    // z-score of the 99th percentile of the standard normal distribution
+    private static final double Z_99 = 2.3263;
+
+    public enum Mode {
+        /**
+         * No latency at all, to measure the application itself.
+         */
+        NONE,
+        /**
+         * The latency recorded for the exchange that is served.
+         */
+        RECORDED,
+        /**
+         * Log-normal latencies with the configured median and p99.
+         */
+        SYNTHETIC
+    }
+
+    private final Mode mode;
+    private final double scale;
+    private final double mu;
+    private final double sigma;
+
+    public ReplayLatency(Mode mode, double scale, Duration median, Duration p99) {
+        Assert.notNull(mode, "Mode must not be null");
+        Assert.isTrue(scale >= 0, "Scale must not be negative");
+        Assert.isTrue(median.isPositive(), "Median must be positive");
+        Assert.isTrue(p99.compareTo(median) >= 0, "P99 must not be less than the median");
+
+        this.mode = mode;
+        this.scale = scale;
+        this.mu = Math.log(median.toNanos());
+        this.sigma = Math.log((double) p99.toNanos() / median.toNanos()) / Z_99;
+    }
+
+    /**
+     * How long to take for an exchange recorded with the given latency; a negative latency
+     * means none was recorded, which gets a synthetic one.
+     */
+    public Duration latency(long recordedMillis) {
+        double nanos = switch (mode) {
+            case NONE -> 0;
+            case RECORDED -> recordedMillis >= 0 ? recordedMillis * 1_000_000.0 : synthetic();
+            case SYNTHETIC -> synthetic();
+        };
+        return Duration.ofNanos((long) (nanos * scale));
+    }
+
+    /**
+     * Sleeps for the latency of an exchange recorded with the given latency.
+     */
+    public void await(long recordedMillis) {
+        Duration latency = latency(recordedMillis);
+        if (!latency.isPositive()) {
+            return;
+        }
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while replaying model latency", e);
+        }
+    }
+
+    private double synthetic() {
+        return Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian());
+    }
+}
@@ -0,0 +1,100 @@
+package demo.ai.commons.replay;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.ai.chat.prompt.Prompt;
+
+/**
+ * Placeholder answers for chat requests that were never recorded.
+ *
+ * <p>
+ * Requests for structured output carry the JSON schema of the expected answer, as added
+ * by Spring AI's {@code BeanOutputConverter}; they get the smallest instance of that
+ * schema (the first value of enums, one element per array), so that workflows parsing
+ * the answer keep running. Other requests get a fixed text.
+ */
+final class SyntheticAnswers {
+
+    static final String MISSING_ANSWER = "No answer was recorded for this request.";
+
+    private static final String SCHEMA_MARKER = "JSON Schema instance your output must adhere to";
+    private static final String FENCE = "```";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+    private SyntheticAnswers() {
+    }
+
+    static String answer(Prompt prompt) {
+        String text = prompt.getContents();
+        int marker = text.lastIndexOf(SCHEMA_MARKER);
+        int start = marker < 0 ? -1 : text.indexOf(FENCE, marker);
+        int end = start < 0 ? -1 : text.indexOf(FENCE, start + FENCE.length());
+        if (end < 0) {
+            return MISSING_ANSWER;
+        }
+        try {
+            JsonNode schema = MAPPER.readTree(text.substring(start + FENCE.length(), end));
+            return MAPPER.writeValueAsString(instance(schema, schema, 0));
+        } catch (JsonProcessingException e) {
+            return MISSING_ANSWER;
+        }
+    }
+
+    private static JsonNode instance(JsonNode schema, JsonNode root, int depth) {
+        if (depth > 16) {
+            return NODES.nullNode();
+        }
+        if (schema.has("$ref")) {
+            // Local references such as #/$defs/Task
+            JsonNode target = root.at(schema.get("$ref").asText().substring(1));
+            return target.isMissingNode() ? NODES.nullNode() : instance(target, root, depth + 1);
+        }
+        if (schema.has("enum") && !schema.get("enum").isEmpty()) {
+            return schema.get("enum").get(0);
+        }
+        JsonNode anyOf = schema.has("anyOf") ? schema.get("anyOf") : schema.get("oneOf");
+        if (anyOf != null && !anyOf.isEmpty()) {
+            return instance(anyOf.get(0), root, depth + 1);
+        }
+        return switch (type(schema)) {
+            case "object" -> {
+                ObjectNode object = NODES.objectNode();
+                schema.path("properties").properties()
+                        .forEach(property -> object.set(property.getKey(),
+                                instance(property.getValue(), root, depth + 1)));
+                yield object;
+            }
+            case "array" -> {
+                ArrayNode array = NODES.arrayNode();
+                array.add(instance(schema.path("items"), root, depth + 1));
+                yield array;
+            }
+            case "string" -> NODES.textNode("synthetic");
+            case "integer" -> NODES.numberNode(1);
+            case "number" -> NODES.numberNode(1.0);
+            case "boolean" -> NODES.booleanNode(true);
+            default -> NODES.nullNode();
+        };
+    }
+
+    private static String type(JsonNode schema) {
+        JsonNode type = schema.get("type");
+        if (type == null) {
+            return schema.has("properties") ? "object" : "";
+        }
+        if (type.isArray()) {
+            for (JsonNode candidate : type) {
+                if (!"null".equals(candidate.asText())) {
+                    return candidate.asText();
+                }
+            }
+            return "";
+        }
+        return type.asText();
+    }
+}
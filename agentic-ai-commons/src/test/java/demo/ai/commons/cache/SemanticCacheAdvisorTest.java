@@ -0,0 +1,184 @@
+package demo.ai.commons.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SemanticCacheAdvisorTest {
+
+    private final AtomicInteger chatCalls = new AtomicInteger();
+
+    private final ChatModel chatModel = new ChatModel() {
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            return new ChatResponse(List.of(new Generation(
+                    new AssistantMessage("answer " + chatCalls.incrementAndGet()))));
+        }
+    };
+
+    private final SemanticCache cache = new SemanticCache(0.9, 100, Duration.ofMinutes(10), 8, 8);
+
+    private final ChatClient chatClient = ChatClient.builder(chatModel)
+            .defaultAdvisors(new SemanticCacheAdvisor(cache, new BagOfWordsEmbeddingModel(), List.of("enquiry")))
+            .build();
+
+    @Test
+    void adviseCall_ShouldAnswerRephrasedQuestionFromCache() {
+        // When
+        String first = ask("enquiry", "system", "Do you have any small dogs for adoption?");
+        String second = ask("enquiry", "system", "do you have any small dogs for adoption");
+
+        // Then
+        assertThat(second).isEqualTo(first);
+        assertThat(chatCalls).hasValue(1);
+        assertThat(cache.stats().routes().get("enquiry").hits()).isEqualTo(1);
+    }
+
+    @Test
+    void adviseCall_ShouldSkipRoutesThatAreNotEnabled() {
+        // When
+        ask("chat", "system", "Do you have any small dogs for adoption?");
+        ask("chat", "system", "Do you have any small dogs for adoption?");
+
+        // Then
+        assertThat(chatCalls).hasValue(2);
+        assertThat(cache.stats().entries()).isZero();
+    }
+
+    @Test
+    void adviseCall_ShouldNotReuseResponseAcrossSystemPrompts() {
+        // When
+        ask("enquiry", "Answer in English", "Do you have any small dogs for adoption?");
+        ask("enquiry", "Answer in French", "Do you have any small dogs for adoption?");
+
+        // Then
+        assertThat(chatCalls).hasValue(2);
+    }
+
+    @Test
+    void adviseCall_ShouldNotReuseResponseAcrossConversations() {
+        // When
+        String alice = ask("enquiry", "alice", "system", "Do you have any small dogs for adoption?");
+        String bob = ask("enquiry", "bob", "system", "Do you have any small dogs for adoption?");
+        String aliceAgain = ask("enquiry", "alice", "system", "do you have any small dogs for adoption");
+
+        // Then
+        assertThat(bob).isNotEqualTo(alice);
+        assertThat(aliceAgain).isEqualTo(alice);
+        assertThat(chatCalls).hasValue(2);
+    }
+
+    @Test
+    void adviseCall_ShouldAnswerFromCacheWhenTheContextHasNullValues() {
+        // Given an advisor upstream that adds a null value, once the answer is cached
+        Map<String, Object> nullValue = new HashMap<>();
+        nullValue.put("nullable", null);
+        AtomicBoolean addNullValue = new AtomicBoolean();
+        CallAdvisor addsNullValue = new CallAdvisor() {
+            @Override
+            public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+                return chain.nextCall(addNullValue.get() ? request.mutate().context(nullValue).build() : request);
+            }
+
+            @Override
+            public String getName() {
+                return "addsNullValue";
+            }
+
+            @Override
+            public int getOrder() {
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+        };
+        ChatClient client = ChatClient.builder(chatModel)
+                .defaultAdvisors(addsNullValue, new SemanticCacheAdvisor(cache, new BagOfWordsEmbeddingModel(),
+                        List.of("enquiry")))
+                .build();
+
+        String first = client.prompt().user("Do you have any small dogs for adoption?")
+                .advisors(SemanticCacheAdvisor.route("enquiry")).call().content();
+        addNullValue.set(true);
+
+        // When
+        String second = client.prompt().user("do you have any small dogs for adoption")
+                .advisors(SemanticCacheAdvisor.route("enquiry")).call().content();
+
+        // Then
+        assertThat(second).isEqualTo(first);
+        assertThat(chatCalls).hasValue(1);
+    }
+
+    private String ask(String route, String system, String question) {
+        return chatClient.prompt()
+                .system(system)
+                .user(question)
+                .advisors(SemanticCacheAdvisor.route(route))
+                .call()
+                .content();
+    }
+
+    private String ask(String route, String conversationId, String system, String question) {
+        return chatClient.prompt()
+                .system(system)
+                .user(question)
+                .advisors(SemanticCacheAdvisor.route(route, conversationId))
+                .call()
+                .content();
+    }
+
+    /**
+     * Hashes lower-cased words into a fixed number of dimensions, so that prompts that
+     * differ only in case and punctuation get the same embedding.
+     */
+    private static final class BagOfWordsEmbeddingModel implements EmbeddingModel {
+
+        private static final int DIMENSIONS = 64;
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            return new EmbeddingResponse(IntStream.range(0, request.getInstructions().size())
+                    .mapToObj(i -> new Embedding(embed(request.getInstructions().get(i)), i))
+                    .toList());
+        }
+
+        @Override
+        public float[] embed(String text) {
+            float[] vector = new float[DIMENSIONS];
+            for (String word : text.toLowerCase().split("\\W+")) {
+                if (!word.isEmpty()) {
+                    vector[Math.floorMod(word.hashCode(), DIMENSIONS)] += 1;
+                }
+            }
+            return vector;
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return embed(document.getText());
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package demo.ai.commons.cache;
+
+import demo.ai.commons.record.SemanticCacheStats;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SemanticCacheTest {
+
+    private static final float[] QUESTION = {0.9f, 0.1f, 0.3f, 0.2f};
+    private static final float[] REPHRASED = {0.88f, 0.12f, 0.31f, 0.2f};
+    private static final float[] UNRELATED = {-0.2f, 0.9f, -0.1f, 0.4f};
+
+    private final MutableClock clock = new MutableClock();
+
+    private final SemanticCache cache = new SemanticCache(0.95, 2, Duration.ofMinutes(10), 8, 6, clock);
+
+    @Test
+    void lookup_ShouldReturnResponseOfSimilarPromptInSameContext() {
+        // Given
+        cache.put("ctx", QUESTION, "answer");
+
+        // When
+        Optional<SemanticCache.Match> rephrased = cache.lookup("chat", "ctx", REPHRASED);
+        Optional<SemanticCache.Match> unrelated = cache.lookup("chat", "ctx", UNRELATED);
+        Optional<SemanticCache.Match> otherContext = cache.lookup("chat", "other", QUESTION);
+
+        // Then
+        assertThat(rephrased).map(SemanticCache.Match::response).contains("answer");
+        assertThat(rephrased.get().similarity()).isGreaterThan(0.99);
+        assertThat(unrelated).isEmpty();
+        assertThat(otherContext).isEmpty();
+        SemanticCacheStats stats = cache.stats();
+        assertThat(stats.hits()).isEqualTo(1);
+        assertThat(stats.misses()).isEqualTo(2);
+        assertThat(stats.routes().get("chat").hitRatio()).isEqualTo(1.0 / 3);
+    }
+
+    @Test
+    void lookup_ShouldIgnoreExpiredEntries() {
+        // Given
+        cache.put("ctx", QUESTION, "answer");
+        clock.advance(Duration.ofMinutes(11));
+
+        // When
+        Optional<SemanticCache.Match> match = cache.lookup("chat", "ctx", QUESTION);
+
+        // Then
+        assertThat(match).isEmpty();
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+        assertThat(cache.stats().entries()).isZero();
+    }
+
+    @Test
+    void put_ShouldEvictLeastRecentlyUsedEntryWhenFull() {
+        // Given
+        cache.put("ctx", QUESTION, "first");
+        cache.put("ctx", UNRELATED, "second");
+        cache.lookup("chat", "ctx", QUESTION);
+
+        // When
+        cache.put("other", QUESTION, "third");
+
+        // Then
+        assertThat(cache.lookup("chat", "ctx", QUESTION)).map(SemanticCache.Match::response).contains("first");
+        assertThat(cache.lookup("chat", "ctx", UNRELATED)).isEmpty();
+        assertThat(cache.stats().entries()).isEqualTo(2);
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
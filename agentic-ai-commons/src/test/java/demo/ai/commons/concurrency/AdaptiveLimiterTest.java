@@ -0,0 +1,191 @@
+package demo.ai.commons.concurrency;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveLimiterTest {
+
+    @Test
+    void success_ShouldGrowLimitOnlyWhileItIsUsed() throws InterruptedException {
+        // Given
+        AdaptiveLimiter limiter = limiter(4);
+
+        // When
+        limiter.acquire().success();
+        int afterIdleCall = limiter.limit();
+        List<AdaptiveLimiter.Permit> permits = acquire(limiter, 4);
+        permits.forEach(AdaptiveLimiter.Permit::success);
+
+        // Then
+        assertThat(afterIdleCall).isEqualTo(4);
+        // the 2nd, 3rd and 4th call started with at least half of the limit in flight
+        assertThat(limiter.limit()).isEqualTo(7);
+    }
+
+    @Test
+    void dropped_ShouldCutLimitOnceForCallsThrottledTogether() throws InterruptedException {
+        // Given
+        AdaptiveLimiter limiter = limiter(8);
+        List<AdaptiveLimiter.Permit> permits = acquire(limiter, 8);
+
+        // When
+        permits.forEach(AdaptiveLimiter.Permit::dropped);
+        int afterFirstWave = limiter.limit();
+        acquire(limiter, 1).getFirst().dropped();
+
+        // Then
+        assertThat(afterFirstWave).isEqualTo(4);
+        assertThat(limiter.limit()).isEqualTo(2);
+        assertThat(limiter.stats().throttled()).isEqualTo(9);
+        assertThat(limiter.stats().inFlight()).isZero();
+    }
+
+    @Test
+    void acquire_ShouldWaitForRetryAfterPause() throws InterruptedException {
+        // Given
+        AdaptiveLimiter limiter = limiter(4);
+
+        // When
+        limiter.pause(Duration.ofMillis(300));
+        boolean congestedWhilePaused = limiter.congested();
+        long start = System.nanoTime();
+        limiter.acquire().success();
+
+        // Then
+        assertThat(congestedWhilePaused).isTrue();
+        assertThat(limiter.congested()).isFalse();
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(250));
+    }
+
+    @Test
+    void acquire_ShouldBlockAtLimitUntilPermitIsReleased() throws InterruptedException {
+        // Given
+        AdaptiveLimiter limiter = limiter(1);
+        AdaptiveLimiter.Permit first = limiter.acquire();
+        AtomicBoolean acquired = new AtomicBoolean();
+        Thread waiter = Thread.ofVirtual().start(() -> {
+            try {
+                limiter.acquire().ignore();
+                acquired.set(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // When
+        Thread.sleep(100);
+        boolean acquiredWhileFull = acquired.get();
+        boolean congestedWhileFull = limiter.congested();
+        first.ignore();
+        waiter.join(Duration.ofSeconds(5));
+
+        // Then
+        assertThat(acquiredWhileFull).isFalse();
+        assertThat(congestedWhileFull).isTrue();
+        assertThat(acquired).isTrue();
+    }
+
+    @Test
+    void adviseCall_ShouldLowerLimitWhenProviderThrottles() {
+        // Given
+        AdaptiveLimiter limiter = limiter(8);
+        ChatModel chatModel = new ChatModel() {
+            @Override
+            public ChatResponse call(Prompt prompt) {
+                // Spring AI reports HTTP errors of the providers as "<status> - <body>".
+                if (prompt.getContents().contains("busy")) {
+                    throw new IllegalStateException("429 - {\"error\":\"Rate limit reached\"}");
+                }
+                if (prompt.getContents().contains("invalid")) {
+                    throw new IllegalStateException("400 - {\"error\":\"Invalid request\"}");
+                }
+                return new ChatResponse(List.of(new Generation(new AssistantMessage("answer"))));
+            }
+        };
+        ChatClient chatClient = ChatClient.builder(chatModel)
+                .defaultAdvisors(new AdaptiveConcurrencyAdvisor(limiter))
+                .build();
+
+        // When
+        assertThatThrownBy(() -> chatClient.prompt("invalid").call().content());
+        int afterInvalid = limiter.limit();
+        assertThatThrownBy(() -> chatClient.prompt("busy").call().content());
+
+        // Then
+        assertThat(afterInvalid).isEqualTo(8);
+        assertThat(limiter.limit()).isEqualTo(4);
+        assertThat(chatClient.prompt("hello").call().content()).isEqualTo("answer");
+        assertThat(limiter.stats().inFlight()).isZero();
+    }
+
+    @Test
+    void adviseCall_ShouldReleasePermitWhenCallThrowsError() {
+        // Given
+        AdaptiveLimiter limiter = limiter(1);
+        ChatModel chatModel = new ChatModel() {
+            @Override
+            public ChatResponse call(Prompt prompt) {
+                throw new StackOverflowError("deep prompt");
+            }
+        };
+        ChatClient chatClient = ChatClient.builder(chatModel)
+                .defaultAdvisors(new AdaptiveConcurrencyAdvisor(limiter))
+                .build();
+
+        // When
+        assertThatThrownBy(() -> chatClient.prompt("hello").call().content())
+                .isInstanceOf(StackOverflowError.class);
+
+        // Then
+        assertThat(limiter.stats().inFlight()).isZero();
+        assertThat(limiter.limit()).isEqualTo(1);
+    }
+
+    @Test
+    void retryAfter_ShouldParseSecondsDatesAndMillis() {
+        // Given
+        HttpHeaders seconds = new HttpHeaders();
+        seconds.set(HttpHeaders.RETRY_AFTER, "20");
+        HttpHeaders date = new HttpHeaders();
+        date.set(HttpHeaders.RETRY_AFTER,
+                ZonedDateTime.now().plusSeconds(30).format(DateTimeFormatter.RFC_1123_DATE_TIME));
+        HttpHeaders millis = new HttpHeaders();
+        millis.set(RetryAfterInterceptor.RETRY_AFTER_MS, "1500");
+        millis.set(HttpHeaders.RETRY_AFTER, "2");
+
+        // When / Then
+        assertThat(RetryAfterInterceptor.retryAfter(seconds)).isEqualTo(Duration.ofSeconds(20));
+        assertThat(RetryAfterInterceptor.retryAfter(date)).isBetween(Duration.ofSeconds(25), Duration.ofSeconds(30));
+        assertThat(RetryAfterInterceptor.retryAfter(millis)).isEqualTo(Duration.ofMillis(1500));
+        assertThat(RetryAfterInterceptor.retryAfter(new HttpHeaders())).isNull();
+    }
+
+    private static AdaptiveLimiter limiter(int initialLimit) {
+        return new AdaptiveLimiter("test", initialLimit, 1, 64, 0.5, Duration.ofSeconds(30), Duration.ofMinutes(1));
+    }
+
+    private static List<AdaptiveLimiter.Permit> acquire(AdaptiveLimiter limiter, int permits)
+            throws InterruptedException {
+        List<AdaptiveLimiter.Permit> acquired = new ArrayList<>();
+        for (int i = 0; i < permits; i++) {
+            acquired.add(limiter.acquire());
+        }
+        return acquired;
+    }
+}
@@ -0,0 +1,138 @@
+package demo.ai.commons.logging;
+
+import demo.ai.commons.metrics.LlmMetrics;
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.Level;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LlmLoggingAdvisorTest {
+
+    private final List<String> lines = new CopyOnWriteArrayList<>();
+    private final List<Level> levels = new CopyOnWriteArrayList<>();
+
+    @Test
+    void adviseCall_ShouldLogOnlyTimingFieldsOfUnsampledCalls() throws InterruptedException {
+        // Given
+        LlmCallLog callLog = callLog(16, 100);
+        ChatClient chatClient = chatClient(callLog, 0, Map.of(), prompt -> "plain answer");
+
+        // When
+        chatClient.prompt("hello").advisors(LlmMetrics.step("chain", "extract")).call().content();
+        callLog.close();
+
+        // Then
+        assertThat(lines).singleElement().satisfies(line -> assertThat(line)
+                .startsWith("llm.call workflow=chain step=extract model=stub-model outcome=success duration_ms=")
+                .contains("prompt_tokens=10", "completion_tokens=3", "response_chars=12", "sampled=false")
+                .containsPattern("prompt_hash=[0-9a-f]{12}")
+                .doesNotContain("prompt:", "plain answer"));
+        assertThat(levels).containsExactly(Level.INFO);
+    }
+
+    @Test
+    void adviseCall_ShouldLogTruncatedPayloadOfSampledRoutes() throws InterruptedException {
+        // Given
+        LlmCallLog callLog = callLog(16, 20);
+        ChatClient chatClient = chatClient(callLog, 0, Map.of("chain/extract", 1.0), prompt -> "x".repeat(50));
+
+        // When
+        chatClient.prompt("hello").advisors(LlmMetrics.step("chain", "extract")).call().content();
+        chatClient.prompt("hello").advisors(LlmMetrics.step("chain", "convert")).call().content();
+        callLog.close();
+
+        // Then
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).contains("sampled=true", "\n  prompt: user: hello",
+                "\n  response: " + "x".repeat(20) + "...[+30 chars]");
+        assertThat(lines.get(1)).contains("sampled=false").doesNotContain("response:");
+    }
+
+    @Test
+    void adviseCall_ShouldLogPayloadOfFailedCalls() throws InterruptedException {
+        // Given
+        LlmCallLog callLog = callLog(16, 100);
+        ChatClient chatClient = chatClient(callLog, 0, Map.of(), prompt -> {
+            throw new IllegalStateException("provider down");
+        });
+
+        // When
+        assertThatThrownBy(() -> chatClient.prompt("hello").call().content()).hasMessage("provider down");
+        callLog.close();
+
+        // Then
+        assertThat(lines).singleElement().satisfies(line -> assertThat(line)
+                .contains("workflow=none", "outcome=error", "error=\"IllegalStateException: provider down\"",
+                        "\n  prompt: user: hello", "\n  response: -"));
+        assertThat(levels).containsExactly(Level.WARN);
+    }
+
+    @Test
+    void submit_ShouldDropCallsInsteadOfBlockingWhenBufferIsFull() throws InterruptedException {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        LlmCallLog callLog = new LlmCallLog(2, 100, (level, line) -> {
+            awaitQuietly(release);
+            lines.add(line);
+        });
+        ChatClient chatClient = chatClient(callLog, 0, Map.of(), prompt -> "answer");
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            chatClient.prompt("hello " + i).call().content();
+        }
+        long dropped = callLog.stats().dropped();
+        release.countDown();
+        callLog.close();
+
+        // Then
+        assertThat(dropped).isBetween(7L, 8L);
+        assertThat(callLog.stats().written()).isEqualTo(10 - dropped);
+        assertThat(lines).anySatisfy(line -> assertThat(line)
+                .startsWith("Dropped " + dropped + " LLM call log entries"));
+    }
+
+    private LlmCallLog callLog(int capacity, int maxPayloadChars) {
+        return new LlmCallLog(capacity, maxPayloadChars, (level, line) -> {
+            levels.add(level);
+            lines.add(line);
+        });
+    }
+
+    private static ChatClient chatClient(LlmCallLog callLog, double sampleRate, Map<String, Double> routes,
+                                         Function<Prompt, String> answers) {
+        ChatModel chatModel = new ChatModel() {
+            @Override
+            public ChatResponse call(Prompt prompt) {
+                return new ChatResponse(List.of(new Generation(new AssistantMessage(answers.apply(prompt)))),
+                        ChatResponseMetadata.builder().usage(new DefaultUsage(10, 3)).build());
+            }
+        };
+        return ChatClient.builder(chatModel)
+                .defaultAdvisors(new LlmLoggingAdvisor(callLog, sampleRate, routes, "stub-model"))
+                .build();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
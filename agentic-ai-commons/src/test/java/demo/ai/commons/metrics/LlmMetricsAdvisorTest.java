@@ -0,0 +1,104 @@
+package demo.ai.commons.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LlmMetricsAdvisorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void adviseCall_ShouldRecordLatencyAndTokensPerStep() {
+        // Given
+        ChatClient chatClient = chatClient(prompt -> "plain answer");
+
+        // When
+        chatClient.prompt("hello").advisors(LlmMetrics.step("chain", "extract")).call().content();
+        chatClient.prompt("hello").advisors(LlmMetrics.step("chain", "extract")).call().content();
+
+        // Then
+        Timer timer = registry.get(LlmMetrics.CALL_DURATION)
+                .tags("workflow", "chain", "step", "extract", "model", "stub-model", "outcome", "success")
+                .timer();
+        assertThat(timer.count()).isEqualTo(2);
+        assertThat(registry.get(LlmMetrics.TOKENS).tags("step", "extract", "type", "prompt").counter().count())
+                .isEqualTo(20);
+        assertThat(registry.get(LlmMetrics.TOKENS).tags("step", "extract", "type", "completion").counter().count())
+                .isEqualTo(6);
+    }
+
+    @Test
+    void adviseCall_ShouldCountStructuredOutputThatIsNotJson() {
+        // Given
+        ChatClient chatClient = chatClient(prompt -> prompt.getContents().contains("broken")
+                ? "Sure! Here is the answer" : "```json\n{\"selection\":\"billing\"}\n```");
+
+        // When
+        Selection selection = chatClient.prompt("route").advisors(LlmMetrics.step("routing", "selector"))
+                .call().entity(Selection.class);
+        assertThatThrownBy(() -> chatClient.prompt("broken").advisors(LlmMetrics.step("routing", "selector"))
+                .call().entity(Selection.class));
+        chatClient.prompt("no structured output").call().content();
+
+        // Then
+        assertThat(selection.selection()).isEqualTo("billing");
+        assertThat(registry.get(LlmMetrics.PARSE_FAILURES).tags("step", "selector").counter().count()).isEqualTo(1);
+        assertThat(registry.find(LlmMetrics.PARSE_FAILURES).tags("step", LlmMetrics.NONE).counter()).isNull();
+    }
+
+    @Test
+    void adviseCall_ShouldRecordFailedCallsAsErrors() {
+        // Given
+        ChatClient chatClient = chatClient(prompt -> {
+            throw new IllegalStateException("provider down");
+        });
+
+        // When
+        assertThatThrownBy(() -> chatClient.prompt("hello").call().content()).hasMessage("provider down");
+
+        // Then
+        assertThat(registry.get(LlmMetrics.CALL_DURATION)
+                .tags("workflow", LlmMetrics.NONE, "outcome", "error")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void isJson_ShouldAcceptFencedDocumentsAndRejectTrailingText() {
+        assertThat(LlmMetricsAdvisor.isJson("{\"a\": [1, 2]}")).isTrue();
+        assertThat(LlmMetricsAdvisor.isJson("```json\n{\"a\": 1}\n```")).isTrue();
+        assertThat(LlmMetricsAdvisor.isJson("{\"a\": 1} and some prose")).isFalse();
+        assertThat(LlmMetricsAdvisor.isJson("{\"a\": ")).isFalse();
+        assertThat(LlmMetricsAdvisor.isJson("")).isFalse();
+    }
+
+    private ChatClient chatClient(Function<Prompt, String> responder) {
+        ChatModel chatModel = new ChatModel() {
+            @Override
+            public ChatResponse call(Prompt prompt) {
+                return new ChatResponse(List.of(new Generation(new AssistantMessage(responder.apply(prompt)))),
+                        ChatResponseMetadata.builder().model("stub-model").usage(new DefaultUsage(10, 3)).build());
+            }
+        };
+        return ChatClient.builder(chatModel)
+                .defaultAdvisors(new LlmMetricsAdvisor(registry, "default-model"))
+                .build();
+    }
+
+    record Selection(String selection) {
+    }
+}
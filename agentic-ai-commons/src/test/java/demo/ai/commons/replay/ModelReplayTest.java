@@ -0,0 +1,185 @@
+package demo.ai.commons.replay;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ModelReplayTest {
+
+    private static final ReplayLatency NO_LATENCY =
+            new ReplayLatency(ReplayLatency.Mode.NONE, 1.0, Duration.ofMillis(100), Duration.ofMillis(100));
+
+    private final AtomicInteger providerCalls = new AtomicInteger();
+
+    private final ChatModel provider = new ChatModel() {
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            providerCalls.incrementAndGet();
+            sleep(Duration.ofMillis(50));
+            return new ChatResponse(List.of(new Generation(new AssistantMessage("answer to " + prompt.getContents()))),
+                    ChatResponseMetadata.builder().model("provider-model").usage(new DefaultUsage(12, 34)).build());
+        }
+    };
+
+    @Test
+    void replay_ShouldServeRecordedAnswersWithoutCallingTheProvider(@TempDir Path directory) {
+        // Given
+        Path file = directory.resolve("chatModel.jsonl");
+        try (Cassette cassette = Cassette.open(file, 5)) {
+            ChatClient recording = ChatClient.create(new RecordingChatModel(provider, cassette));
+            recording.prompt("hello").call().content();
+            recording.prompt("goodbye").call().content();
+        }
+
+        // When
+        ChatClient replaying = ChatClient.create(new ReplayChatModel(Cassette.open(file, 5), NO_LATENCY, null, false));
+        ChatResponse response = replaying.prompt("hello").call().chatResponse();
+        String streamed = String.join("", replaying.prompt("goodbye").stream().content().collectList().block());
+
+        // Then
+        assertThat(providerCalls).hasValue(2);
+        assertThat(response.getResult().getOutput().getText()).isEqualTo("answer to hello");
+        assertThat(response.getMetadata().getModel()).isEqualTo("provider-model");
+        assertThat(response.getMetadata().getUsage().getCompletionTokens()).isEqualTo(34);
+        assertThat(streamed).isEqualTo("answer to goodbye");
+    }
+
+    @Test
+    void replay_ShouldFailOrSynthesizeRequestsThatWereNotRecorded(@TempDir Path directory) {
+        // Given
+        Cassette cassette = Cassette.open(directory.resolve("chatModel.jsonl"), 5);
+        ChatClient strict = ChatClient.create(new ReplayChatModel(cassette, NO_LATENCY, null, false));
+        ChatClient lenient = ChatClient.create(new ReplayChatModel(cassette, NO_LATENCY, null, true));
+
+        // When / Then
+        assertThatThrownBy(() -> strict.prompt("hello").call().content())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("No recorded answer");
+        assertThat(lenient.prompt("hello").call().content()).isEqualTo(SyntheticAnswers.MISSING_ANSWER);
+    }
+
+    @Test
+    void replay_ShouldSynthesizeStructuredAnswersFromTheirSchema(@TempDir Path directory) {
+        // Given
+        Cassette cassette = Cassette.open(directory.resolve("chatModel.jsonl"), 5);
+        ChatClient lenient = ChatClient.create(new ReplayChatModel(cassette, NO_LATENCY, null, true));
+
+        // When
+        Plan plan = lenient.prompt("plan the work").call().entity(Plan.class);
+
+        // Then
+        assertThat(plan.analysis()).isEqualTo("synthetic");
+        assertThat(plan.tasks()).singleElement().satisfies(task -> {
+            assertThat(task.priority()).isEqualTo(Priority.HIGH);
+            assertThat(task.estimate()).isEqualTo(1);
+        });
+    }
+
+    enum Priority {HIGH, LOW}
+
+    record Task(String description, Priority priority, int estimate) {
+    }
+
+    record Plan(String analysis, List<Task> tasks) {
+    }
+
+    @Test
+    void replay_ShouldReplayRecordedLatency(@TempDir Path directory) {
+        // Given
+        Path file = directory.resolve("chatModel.jsonl");
+        try (Cassette cassette = Cassette.open(file, 5)) {
+            ChatClient.create(new RecordingChatModel(provider, cassette)).prompt("hello").call().content();
+        }
+        ReplayLatency recorded = new ReplayLatency(ReplayLatency.Mode.RECORDED, 2.0, Duration.ofSeconds(1),
+                Duration.ofSeconds(1));
+        ChatClient replaying = ChatClient.create(new ReplayChatModel(Cassette.open(file, 5), recorded, null, false));
+
+        // When
+        long start = System.nanoTime();
+        replaying.prompt("hello").call().content();
+
+        // Then
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(100));
+    }
+
+    @Test
+    void record_ShouldKeepAtMostMaxSamplesPerRequest(@TempDir Path directory) {
+        // Given
+        Path file = directory.resolve("chatModel.jsonl");
+        try (Cassette cassette = Cassette.open(file, 2)) {
+            ChatClient recording = ChatClient.create(new RecordingChatModel(provider, cassette));
+
+            // When
+            IntStream.range(0, 4).forEach(i -> recording.prompt("hello").call().content());
+        }
+
+        // Then
+        Cassette reopened = Cassette.open(file, 5);
+        assertThat(reopened.size()).isEqualTo(1);
+        assertThat(reopened.any().latencyMillis()).isGreaterThanOrEqualTo(50);
+        assertThat(reopened.get(reopened.any().key())).hasSize(2);
+    }
+
+    @Test
+    void replay_ShouldServeRecordedEmbeddingsWhateverTheBatching(@TempDir Path directory) {
+        // Given
+        Path file = directory.resolve("embeddingModel.jsonl");
+        EmbeddingModel provider = new EmbeddingModel() {
+            @Override
+            public EmbeddingResponse call(EmbeddingRequest request) {
+                List<String> texts = request.getInstructions();
+                return new EmbeddingResponse(IntStream.range(0, texts.size())
+                        .mapToObj(i -> new Embedding(new float[]{texts.get(i).length(), 0.5f, -1f}, i))
+                        .toList());
+            }
+
+            @Override
+            public float[] embed(Document document) {
+                return embed(document.getText());
+            }
+        };
+        try (Cassette cassette = Cassette.open(file, 5)) {
+            new RecordingEmbeddingModel(provider, cassette).embed(List.of("a", "bb", "ccc"));
+        }
+
+        // When
+        ReplayEmbeddingModel replaying = new ReplayEmbeddingModel(Cassette.open(file, 5), NO_LATENCY, true, 8);
+        float[] recorded = replaying.embed("bb");
+        float[] synthetic = replaying.embed("never recorded");
+
+        // Then
+        assertThat(recorded).containsExactly(2f, 0.5f, -1f);
+        assertThat(replaying.dimensions()).isEqualTo(3);
+        assertThat(synthetic).hasSize(3).isEqualTo(replaying.embed("never recorded"));
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package demo.ai.agentic.loadtest;
+
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An application under test, run from its executable jar as a child process on a free
+ * port, with the same JVM as the load test and its output in a log file.
+ */
+final class AppProcess implements AutoCloseable {
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(500);
+
+    private final String name;
+    private final Process process;
+    private final URI uri;
+    private final Path log;
+
+    private AppProcess(String name, Process process, URI uri, Path log) {
+        this.name = name;
+        this.process = process;
+        this.uri = uri;
+        this.log = log;
+    }
+
+    /**
+     * Starts an application with the given profiles and extra arguments.
+     */
+    static AppProcess start(String name, Path jar, String profiles, List<String> args, Path logDirectory) {
+        Assert.state(Files.isRegularFile(jar), "No jar for " + name + " at " + jar.toAbsolutePath()
+                + "; build it first or pass its path");
+
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.add("-jar");
+        command.add(jar.toString());
+        command.add("--server.port=" + port);
+        if (profiles != null) {
+            command.add("--spring.profiles.active=" + profiles);
+        }
+        command.addAll(args);
+
+        Path log = logDirectory.resolve(name + ".log");
+        try {
+            Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(log.toFile())
+                    .start();
+            return new AppProcess(name, process, URI.create("http://localhost:" + port), log);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start " + name, e);
+        }
+    }
+
+    URI uri() {
+        return uri;
+    }
+
+    /**
+     * Waits until the actuator health endpoint answers 200.
+     */
+    void awaitHealthy(HttpClient client, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uri + "/actuator/health"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        while (System.nanoTime() < deadline) {
+            Assert.state(process.isAlive(), name + " exited with " + exitValue() + ", see " + log);
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for " + name, e);
+            }
+            sleep(POLL_INTERVAL);
+        }
+        throw new IllegalStateException(name + " did not become healthy within " + timeout + ", see " + log);
+    }
+
+    @Override
+    public void close() {
+        process.destroy();
+        try {
+            if (!process.waitFor(20, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor(5, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Object exitValue() {
+        return process.isAlive() ? "nothing" : process.exitValue();
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No free port", e);
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting", e);
+        }
+    }
+}
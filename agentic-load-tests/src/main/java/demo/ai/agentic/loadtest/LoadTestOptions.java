@@ -0,0 +1,178 @@
+package demo.ai.agentic.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.util.Assert;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Options of a load test, from {@code --name=value} arguments; arguments after a bare
+ * {@code --} are passed on to the application under test.
+ *
+ * @param app            application under test: {@code workflow}, {@code ollama}, {@code bedrock} or {@code adk}
+ * @param target         base URL of an application that is already running, or {@code null} to start it
+ * @param jar            executable jar of the application
+ * @param mcpJar         executable jar of the MCP server, started for the applications that use it
+ * @param rate           requests started per second, whatever the response times
+ * @param duration       measured part of the run
+ * @param warmup         unmeasured run before it, at the same rate
+ * @param users          distinct users the requests are spread over
+ * @param arrivals       how the start times of requests are spaced
+ * @param seed           seed of the request mix, so runs can be repeated
+ * @param maxInFlight    requests in flight after which new ones are dropped and counted as errors
+ * @param requestTimeout timeout of a single request
+ * @param p95            gate on the p95 response time, or {@code null}
+ * @param p99            gate on the p99 response time, or {@code null}
+ * @param minThroughput  gate on successful requests per second, as a fraction of those started
+ * @param maxErrorRate   gate on the fraction of failed requests
+ * @param baseline       report of an earlier run that p95, p99 and throughput must not regress from, or {@code null}
+ * @param tolerance      regression tolerated against the baseline, e.g. 0.1 for 10%
+ * @param report         directory of the report, the histograms and the application logs
+ * @param appArgs        extra arguments of the application
+ */
+public record LoadTestOptions(String app, URI target, Path jar, Path mcpJar, double rate, Duration duration,
+                              Duration warmup, int users, Arrivals arrivals, long seed, int maxInFlight,
+                              Duration requestTimeout, Duration p95, Duration p99, double minThroughput,
+                              double maxErrorRate, Path baseline, double tolerance, Path report,
+                              List<String> appArgs) {
+
+    static final Set<String> APPS = Set.of("workflow", "ollama", "bedrock", "adk");
+
+    private static final Map<String, String> JARS = Map.of(
+            "workflow", "agentic-workflow-architecture/target/agentic-workflow-architecture-0.0.1-SNAPSHOT-exec.jar",
+            "ollama", "ai-agents-ollama/target/ai-agents-ollama-0.0.1-SNAPSHOT.jar",
+            "bedrock", "ai-agents-bedrock/target/ai-agents-bedrock-0.0.1-SNAPSHOT.jar",
+            "adk", "ai-agents-google-adk/target/ai-agents-google-adk-0.0.1-SNAPSHOT.jar");
+
+    private static final String MCP_JAR = "agentic-mcp-server/target/agentic-mcp-server-0.0.1-SNAPSHOT.jar";
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    static final String USAGE = """
+            Usage: java -jar load-tests.jar --app=workflow|ollama|bedrock|adk [options] [-- application arguments]
+
+              --target=URL            test a running application instead of starting its jar
+              --jar=PATH              executable jar of the application (default: its module's target directory)
+              --mcp-jar=PATH          executable jar of the MCP server, for bedrock and adk
+              --rate=N                requests started per second (default 20)
+              --duration=D            measured duration, e.g. 60s or 5m (default 60s)
+              --warmup=D              unmeasured warm-up at the same rate (default 15s)
+              --users=N               distinct users (default 500)
+              --arrivals=poisson|constant
+                                      spacing of request start times (default poisson)
+              --seed=N                seed of the request mix (default 42)
+              --max-in-flight=N       requests in flight before new ones are dropped (default 2000)
+              --request-timeout=D     timeout of a request (default 60s)
+              --p95=D, --p99=D        fail when the response time percentile is above D
+              --min-throughput=F      fail when fewer than this fraction of the requests started per second
+                                      succeed per second (default 0.95)
+              --max-error-rate=F      fail above this fraction of failed requests (default 0.01)
+              --baseline=PATH         fail on p95, p99 or throughput regressions against an earlier report.json
+              --tolerance=F           regression tolerated against the baseline (default 0.1)
+              --report=DIR            output directory (default load-test-results/<app>-<timestamp>)
+            """;
+
+    public LoadTestOptions {
+        Assert.isTrue(APPS.contains(app), "App must be one of " + APPS + ": " + app);
+        Assert.isTrue(rate > 0, "Rate must be positive");
+        Assert.isTrue(!duration.isNegative() && !duration.isZero(), "Duration must be positive");
+        Assert.isTrue(!warmup.isNegative(), "Warmup must not be negative");
+        Assert.isTrue(users > 0, "Users must be positive");
+        Assert.isTrue(maxInFlight > 0, "Max in flight must be positive");
+        Assert.isTrue(minThroughput >= 0 && minThroughput <= 1, "Min throughput must be between 0 and 1");
+        Assert.isTrue(maxErrorRate >= 0 && maxErrorRate <= 1, "Max error rate must be between 0 and 1");
+        Assert.isTrue(tolerance >= 0, "Tolerance must not be negative");
+        appArgs = List.copyOf(appArgs);
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        List<String> appArgs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--")) {
+                appArgs.addAll(List.of(args).subList(i + 1, args.length));
+                break;
+            }
+            Assert.isTrue(args[i].startsWith("--") && args[i].contains("="), "Expected --name=value: " + args[i]);
+            int separator = args[i].indexOf('=');
+            values.put(args[i].substring(2, separator), args[i].substring(separator + 1));
+        }
+
+        String app = required(values, "app");
+        String target = values.remove("target");
+        Path baseline = path(values.remove("baseline"));
+        String report = values.remove("report");
+        LoadTestOptions options = new LoadTestOptions(app,
+                target != null ? URI.create(target.replaceAll("/+$", "")) : null,
+                Path.of(values.getOrDefault("jar", JARS.getOrDefault(app, ""))),
+                Path.of(values.getOrDefault("mcp-jar", MCP_JAR)),
+                Double.parseDouble(values.getOrDefault("rate", "20")),
+                duration(values.getOrDefault("duration", "60s")),
+                duration(values.getOrDefault("warmup", "15s")),
+                Integer.parseInt(values.getOrDefault("users", "500")),
+                Arrivals.valueOf(values.getOrDefault("arrivals", "poisson").toUpperCase(Locale.ROOT)),
+                Long.parseLong(values.getOrDefault("seed", "42")),
+                Integer.parseInt(values.getOrDefault("max-in-flight", "2000")),
+                duration(values.getOrDefault("request-timeout", "60s")),
+                values.containsKey("p95") ? duration(values.get("p95")) : null,
+                values.containsKey("p99") ? duration(values.get("p99")) : null,
+                Double.parseDouble(values.getOrDefault("min-throughput", "0.95")),
+                Double.parseDouble(values.getOrDefault("max-error-rate", "0.01")),
+                baseline,
+                Double.parseDouble(values.getOrDefault("tolerance", "0.1")),
+                Path.of(report != null ? report
+                        : "load-test-results/" + app + "-" + LocalDateTime.now().format(TIMESTAMP)),
+                appArgs);
+
+        values.keySet().removeAll(Set.of("jar", "mcp-jar", "rate", "duration", "warmup", "users", "arrivals",
+                "seed", "max-in-flight", "request-timeout", "p95", "p99", "min-throughput", "max-error-rate",
+                "tolerance"));
+        Assert.isTrue(values.isEmpty(), "Unknown options: " + values.keySet());
+        return options;
+    }
+
+    /**
+     * Whether the application calls tools of the MCP server, which is then started before it.
+     */
+    boolean needsMcpServer() {
+        return app.equals("bedrock") || app.equals("adk");
+    }
+
+    private static String required(Map<String, String> values, String name) {
+        String value = values.remove(name);
+        Assert.hasText(value, "Missing --" + name);
+        return value;
+    }
+
+    private static Duration duration(String value) {
+        return DurationStyle.detectAndParse(value);
+    }
+
+    private static Path path(String value) {
+        return value != null ? Path.of(value) : null;
+    }
+
+    /**
+     * Spacing of the start times of requests.
+     */
+    public enum Arrivals {
+        /**
+         * Exponentially distributed gaps, like independent users.
+         */
+        POISSON,
+        /**
+         * Evenly spaced.
+         */
+        CONSTANT
+    }
+}
@@ -0,0 +1,275 @@
+package demo.ai.agentic.loadtest;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Results of a load test: response time percentiles and throughput per scenario, how the
+ * time of a request splits between model calls and our own stack, and the SLO gates.
+ *
+ * <p>
+ * The split comes from the application's metrics over the measured run: the server time
+ * of each endpoint and the time of the chat model calls of its workflow, per request.
+ * Model calls that overlap, as in the parallel workflows, are summed, so the model time
+ * can exceed the server time; the time of our own stack is then unknown, as the metrics
+ * do not tell how long the calls ran together. Whatever the client measures beyond the
+ * server time is spent on the network, waiting for a connection or a thread of the server.
+ *
+ * @param app       application under test
+ * @param target    its base URL
+ * @param rate      requests started per second
+ * @param arrivals  spacing of their start times
+ * @param seconds   measured duration, during which requests were started
+ * @param users     distinct users
+ * @param total     results of all requests
+ * @param scenarios results per scenario
+ * @param gates     SLO gates
+ * @param passed    whether all gates passed
+ */
+record LoadTestReport(String app, String target, double rate, String arrivals, double seconds, int users,
+                      Stats total, Map<String, Stats> scenarios, List<Gate> gates, boolean passed) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    static LoadTestReport of(LoadTestOptions options, String target, List<Scenario> scenarios,
+                             OpenLoopDriver.Result result, PrometheusSnapshot metrics, LoadTestReport baseline) {
+        double seconds = result.duration().toNanos() / 1e9;
+        Map<String, Stats> scenarioStats = new LinkedHashMap<>();
+        Histogram serviceTime = new Histogram(3);
+        Map<String, Long> errors = new LinkedHashMap<>();
+        double served = 0;
+        double serverSeconds = 0;
+        double modelSeconds = 0;
+        double modelCalls = 0;
+        boolean parallel = false;
+        for (Scenario scenario : scenarios) {
+            OpenLoopDriver.ScenarioResult scenarioResult = result.scenarios().get(scenario.name());
+            serviceTime.add(scenarioResult.serviceTime());
+            scenarioResult.errorsByCause().forEach((cause, count) -> errors.merge(cause, count, Long::sum));
+            Time time = null;
+            if (metrics != null) {
+                double scenarioServed = metrics.serverCounts().getOrDefault(scenario.serverUri(), 0.0);
+                double scenarioServerSeconds = metrics.serverSeconds().getOrDefault(scenario.serverUri(), 0.0);
+                double scenarioModelSeconds = metrics.modelSeconds(scenario.modelTags());
+                double scenarioModelCalls = metrics.modelCalls(scenario.modelTags());
+                time = Time.of(scenarioServed, scenarioServerSeconds, scenarioModelSeconds, scenarioModelCalls,
+                        scenario.parallelCalls());
+                served += scenarioServed;
+                serverSeconds += scenarioServerSeconds;
+                modelSeconds += scenarioModelSeconds;
+                modelCalls += scenarioModelCalls;
+                parallel |= scenario.parallelCalls() && scenarioModelCalls > 0;
+            }
+            scenarioStats.put(scenario.name(), Stats.of(scenarioResult.responseTime(), scenarioResult.serviceTime(),
+                    scenarioResult.errorsByCause(), seconds, time));
+        }
+        Stats total = Stats.of(result.responseTime(), serviceTime, errors, seconds,
+                metrics != null ? Time.of(served, serverSeconds, modelSeconds, modelCalls, parallel) : null);
+
+        List<Gate> gates = gates(options, total, baseline);
+        return new LoadTestReport(options.app(), target, options.rate(),
+                options.arrivals().name().toLowerCase(Locale.ROOT), seconds, options.users(), total, scenarioStats,
+                gates, gates.stream().allMatch(Gate::passed));
+    }
+
+    static LoadTestReport read(Path file) {
+        try {
+            return MAPPER.readValue(file.toFile(), LoadTestReport.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read report " + file, e);
+        }
+    }
+
+    /**
+     * Writes {@code report.json}, and the percentile distribution of the response times of
+     * each scenario and of all requests as {@code <scenario>.hgrm}, in milliseconds.
+     */
+    void write(Path directory, OpenLoopDriver.Result result) {
+        try {
+            Files.createDirectories(directory);
+            MAPPER.writeValue(directory.resolve("report.json").toFile(), this);
+            writeHistogram(directory.resolve("total.hgrm"), result.responseTime());
+            for (Map.Entry<String, OpenLoopDriver.ScenarioResult> scenario : result.scenarios().entrySet()) {
+                writeHistogram(directory.resolve(scenario.getKey() + ".hgrm"), scenario.getValue().responseTime());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the report to " + directory, e);
+        }
+    }
+
+    void print(PrintStream out) {
+        out.printf(Locale.ROOT, "%nLoad test of %s at %s: %.1f req/s (%s) for %.0fs, %d users%n", app, target, rate,
+                arrivals, seconds, users);
+        out.printf("%nResponse times in ms, from the planned start of successful requests%n");
+        out.printf(Locale.ROOT, "%-12s %8s %7s %7s %9s %9s %9s %9s %9s%n", "scenario", "requests", "errors",
+                "req/s", "mean", "p50", "p95", "p99", "max");
+        scenarios.forEach((name, stats) -> printStats(out, name, stats));
+        printStats(out, "total", total);
+        if (!total.errorsByCause().isEmpty()) {
+            out.printf("%nErrors: %s%n", total.errorsByCause());
+        }
+
+        if (total.time() == null) {
+            out.printf("%nNo /actuator/prometheus metrics: time is not split between model calls and our stack%n");
+        } else {
+            out.printf("%nMean time per request in ms; model calls that overlap are summed, leaving the time"
+                    + " of our stack unknown (n/a)%n");
+            out.printf(Locale.ROOT, "%-12s %9s %9s %9s %9s %9s%n", "scenario", "client", "server", "model",
+                    "calls", "our stack");
+            scenarios.forEach((name, stats) -> printTime(out, name, stats));
+            printTime(out, "total", total);
+        }
+
+        out.printf("%nGates:%n");
+        gates.forEach(gate -> out.printf(Locale.ROOT, "  %s %s %s %.3f: %.3f%n", gate.passed() ? "PASS" : "FAIL",
+                gate.name(), gate.comparison(), gate.limit(), gate.actual()));
+        out.printf("%n%s%n", passed ? "PASSED" : "FAILED");
+    }
+
+    private static void printStats(PrintStream out, String name, Stats stats) {
+        out.printf(Locale.ROOT, "%-12s %8d %7d %7.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n", name, stats.requests(),
+                stats.errors(), stats.throughput(), stats.meanMillis(), stats.p50Millis(), stats.p95Millis(),
+                stats.p99Millis(), stats.maxMillis());
+    }
+
+    private static void printTime(PrintStream out, String name, Stats stats) {
+        Time time = stats.time();
+        out.printf(Locale.ROOT, "%-12s %9.1f %9s %9s %9s %9s%n", name, stats.serviceMeanMillis(),
+                format(time.serverMillis()), format(time.modelMillis()), format(time.modelCalls()),
+                time.modelMillis() != null && time.stackMillis() == null ? "n/a" : format(time.stackMillis()));
+    }
+
+    private static String format(Double value) {
+        return value != null ? String.format(Locale.ROOT, "%.1f", value) : "-";
+    }
+
+    private static List<Gate> gates(LoadTestOptions options, Stats total, LoadTestReport baseline) {
+        List<Gate> gates = new ArrayList<>();
+        if (options.p95() != null) {
+            gates.add(Gate.atMost("p95 ms", options.p95().toNanos() / 1e6, total.p95Millis()));
+        }
+        if (options.p99() != null) {
+            gates.add(Gate.atMost("p99 ms", options.p99().toNanos() / 1e6, total.p99Millis()));
+        }
+        if (options.minThroughput() > 0) {
+            // Against the requests actually started, which vary around the rate with Poisson arrivals
+            gates.add(Gate.atLeast("req/s", options.minThroughput() * total.requests() / total.seconds(),
+                    total.throughput()));
+        }
+        double errorRate = total.requests() == 0 ? 1.0 : (double) total.errors() / total.requests();
+        gates.add(Gate.atMost("error rate", options.maxErrorRate(), errorRate));
+        if (baseline != null) {
+            double tolerance = options.tolerance();
+            gates.add(Gate.atMost("p95 ms vs baseline", baseline.total().p95Millis() * (1 + tolerance),
+                    total.p95Millis()));
+            gates.add(Gate.atMost("p99 ms vs baseline", baseline.total().p99Millis() * (1 + tolerance),
+                    total.p99Millis()));
+            gates.add(Gate.atLeast("req/s vs baseline", baseline.total().throughput() * (1 - tolerance),
+                    total.throughput()));
+        }
+        return gates;
+    }
+
+    private static void writeHistogram(Path file, Histogram histogram) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+        }
+    }
+
+    private static double millis(double micros) {
+        return micros / MICROS_PER_MILLI;
+    }
+
+    /**
+     * Response times in milliseconds, measured from the planned start of successful requests.
+     *
+     * @param requests          requests started, or dropped
+     * @param errors            failed or dropped requests
+     * @param errorsByCause     failed or dropped requests by cause
+     * @param seconds           during which the requests were started
+     * @param throughput        successful requests per second
+     * @param serviceMeanMillis mean time from sending a request to its response
+     * @param time              where the time of a request went, or {@code null} without metrics
+     */
+    record Stats(long requests, long errors, Map<String, Long> errorsByCause, double seconds, double throughput,
+                 double meanMillis, double p50Millis, double p95Millis, double p99Millis, double p999Millis,
+                 double maxMillis, double serviceMeanMillis, Time time) {
+
+        static Stats of(Histogram responseTime, Histogram serviceTime, Map<String, Long> errorsByCause,
+                        double seconds, Time time) {
+            long errors = errorsByCause.values().stream().mapToLong(Long::longValue).sum();
+            return new Stats(responseTime.getTotalCount() + errors, errors, errorsByCause, seconds,
+                    responseTime.getTotalCount() / seconds,
+                    millis(responseTime.getMean()),
+                    millis(responseTime.getValueAtPercentile(50)),
+                    millis(responseTime.getValueAtPercentile(95)),
+                    millis(responseTime.getValueAtPercentile(99)),
+                    millis(responseTime.getValueAtPercentile(99.9)),
+                    millis(responseTime.getMaxValue()),
+                    millis(serviceTime.getMean()),
+                    time);
+        }
+    }
+
+    /**
+     * Mean time per request served, in milliseconds, from the application's metrics.
+     *
+     * @param serverMillis spent in the server, or {@code null} if it served none
+     * @param modelMillis  spent in chat model calls, or {@code null} if it records none
+     * @param modelCalls   chat model calls, or {@code null} if it records none
+     * @param stackMillis  spent in the server outside of model calls, or {@code null} if either is
+     *                     unknown or the model calls overlap
+     */
+    record Time(Double serverMillis, Double modelMillis, Double modelCalls, Double stackMillis) {
+
+        static Time of(double served, double serverSeconds, double modelSeconds, double modelCalls,
+                       boolean parallel) {
+            if (served <= 0) {
+                return new Time(null, null, null, null);
+            }
+            double serverMillis = serverSeconds * 1000 / served;
+            if (modelCalls <= 0) {
+                return new Time(serverMillis, null, null, null);
+            }
+            double modelMillis = modelSeconds * 1000 / served;
+            // Summed model time only subtracts from the server time when the calls ran one after the other.
+            Double stackMillis = !parallel && modelMillis <= serverMillis ? serverMillis - modelMillis : null;
+            return new Time(serverMillis, modelMillis, modelCalls / served, stackMillis);
+        }
+    }
+
+    /**
+     * @param name       what is gated
+     * @param comparison {@code <=} or {@code >=}
+     * @param limit      limit of the value
+     * @param actual     value of this run
+     * @param passed     whether the value is within the limit
+     */
+    record Gate(String name, String comparison, double limit, double actual, boolean passed) {
+
+        static Gate atMost(String name, double limit, double actual) {
+            return new Gate(name, "<=", limit, actual, actual <= limit);
+        }
+
+        static Gate atLeast(String name, double limit, double actual) {
+            return new Gate(name, ">=", limit, actual, actual >= limit);
+        }
+    }
+}
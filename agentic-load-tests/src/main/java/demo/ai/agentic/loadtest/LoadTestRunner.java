@@ -0,0 +1,99 @@
+package demo.ai.agentic.loadtest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+/**
+ * Entry point of the load-test jar. Starts the application under test from its jar with
+ * the {@code replay} and {@code loadtest} profiles, so that its models answer from
+ * cassettes or synthetically and its vector store is in memory; the MCP server is started
+ * too for the applications that call its tools. Then it runs an unmeasured warm-up and
+ * the measured open-loop run, prints and writes the report, and exits with 1 when an SLO
+ * gate fails, so it can gate a CI build.
+ *
+ * <p>
+ * With {@code --target} an application that is already running is tested instead, e.g.
+ * with a real model.
+ */
+public final class LoadTestRunner {
+
+    private static final String PROFILES = "replay,loadtest";
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(3);
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0 || List.of(args).contains("--help")) {
+            System.out.print(LoadTestOptions.USAGE);
+            return;
+        }
+        System.exit(run(LoadTestOptions.parse(args)) ? 0 : 1);
+    }
+
+    static boolean run(LoadTestOptions options) {
+        List<Scenario> scenarios = Scenarios.of(options.app());
+        LoadTestReport baseline = options.baseline() != null ? LoadTestReport.read(options.baseline()) : null;
+        List<AppProcess> processes = new ArrayList<>();
+        try (HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build()) {
+            Files.createDirectories(options.report());
+            URI target = options.target() != null ? options.target() : start(options, client, processes);
+
+            OpenLoopDriver driver = new OpenLoopDriver(client, target, scenarios, options);
+            if (!options.warmup().isZero()) {
+                System.out.printf("Warming up %s for %s%n", target, options.warmup());
+                driver.run(options.warmup(), options.seed() + 1);
+            }
+            System.out.printf("Measuring %s for %s%n", target, options.duration());
+            PrometheusSnapshot before = PrometheusSnapshot.scrape(client, target);
+            OpenLoopDriver.Result result = driver.run(options.duration(), options.seed());
+            PrometheusSnapshot after = PrometheusSnapshot.scrape(client, target);
+
+            LoadTestReport report = LoadTestReport.of(options, target.toString(), scenarios, result,
+                    before != null && after != null ? after.minus(before) : null, baseline);
+            report.print(System.out);
+            report.write(options.report(), result);
+            System.out.printf("Report written to %s%n", options.report().toAbsolutePath());
+            return report.passed();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create the report directory " + options.report(), e);
+        } finally {
+            processes.reversed().forEach(AppProcess::close);
+        }
+    }
+
+    /**
+     * Starts the application, after the MCP server if it needs one, and returns its base URL.
+     */
+    private static URI start(LoadTestOptions options, HttpClient client, List<AppProcess> processes) {
+        Path logs = options.report();
+        List<String> args = new ArrayList<>();
+        if (options.needsMcpServer()) {
+            AppProcess mcpServer = AppProcess.start("mcp-server", options.mcpJar(), null, List.of(), logs);
+            processes.add(mcpServer);
+            mcpServer.awaitHealthy(client, STARTUP_TIMEOUT);
+            args.add(options.app().equals("adk")
+                    ? "--mcp.server.url=" + mcpServer.uri() + "/sse"
+                    : "--spring.ai.mcp.client.sse.connections.server1.url=" + mcpServer.uri());
+        }
+        args.addAll(options.appArgs());
+
+        System.out.printf("Starting %s from %s%n", options.app(), options.jar());
+        AppProcess app = AppProcess.start(options.app(), options.jar(), PROFILES, args, logs);
+        processes.add(app);
+        app.awaitHealthy(client, STARTUP_TIMEOUT);
+        return app.uri();
+    }
+}
@@ -0,0 +1,193 @@
+package demo.ai.agentic.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests at a fixed arrival rate, whatever the response times (an open loop),
+ * the way independent users do.
+ *
+ * <p>
+ * Start times are planned ahead from the arrival rate, and every request runs on its own
+ * virtual thread. Response times are measured from the planned start, not from when the
+ * request was actually sent, so a stalled server or a late scheduler shows up in the
+ * percentiles instead of silently lowering the load (coordinated omission). The time from
+ * sending to the response is recorded as well, as the service time.
+ */
+final class OpenLoopDriver {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final HttpClient client;
+    private final URI target;
+    private final List<Scenario> scenarios;
+    private final LoadTestOptions options;
+    private final int totalWeight;
+
+    OpenLoopDriver(HttpClient client, URI target, List<Scenario> scenarios, LoadTestOptions options) {
+        this.client = client;
+        this.target = target;
+        this.scenarios = scenarios;
+        this.options = options;
+        this.totalWeight = scenarios.stream().mapToInt(Scenario::weight).sum();
+    }
+
+    /**
+     * Sends requests for the given duration and waits for all of them to complete.
+     */
+    Result run(Duration duration, long seed) {
+        Map<Scenario, ScenarioStats> stats = new LinkedHashMap<>();
+        scenarios.forEach(scenario -> stats.put(scenario, new ScenarioStats()));
+        Semaphore inFlight = new Semaphore(options.maxInFlight());
+        SplittableRandom random = new SplittableRandom(seed);
+        double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / options.rate();
+
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            double intended = start;
+            for (long n = 0; ; n++) {
+                intended += options.arrivals() == LoadTestOptions.Arrivals.POISSON
+                        ? -Math.log(1 - random.nextDouble()) * meanGapNanos : meanGapNanos;
+                if (intended >= end) {
+                    break;
+                }
+                long plannedStart = (long) intended;
+                parkUntil(plannedStart);
+
+                Scenario scenario = pick(random);
+                String user = "user-" + random.nextInt(options.users());
+                URI uri = scenario.uri(target, user, n, random);
+                ScenarioStats scenarioStats = stats.get(scenario);
+                if (!inFlight.tryAcquire()) {
+                    scenarioStats.error("dropped");
+                    continue;
+                }
+                executor.execute(() -> {
+                    try {
+                        send(uri, plannedStart, scenarioStats);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Map<String, ScenarioResult> results = new LinkedHashMap<>();
+        stats.forEach((scenario, scenarioStats) -> results.put(scenario.name(), scenarioStats.result()));
+        return new Result(duration, Duration.ofNanos(elapsed), results);
+    }
+
+    private void send(URI uri, long plannedStart, ScenarioStats stats) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(options.requestTimeout())
+                .GET()
+                .build();
+        long sent = System.nanoTime();
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            long done = System.nanoTime();
+            if (response.statusCode() >= 400) {
+                stats.error("HTTP " + response.statusCode());
+                return;
+            }
+            stats.responseTime.recordValue(TimeUnit.NANOSECONDS.toMicros(done - plannedStart));
+            stats.serviceTime.recordValue(TimeUnit.NANOSECONDS.toMicros(done - sent));
+        } catch (HttpTimeoutException e) {
+            stats.error("timeout");
+        } catch (IOException e) {
+            stats.error(e.getClass().getSimpleName());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stats.error("interrupted");
+        }
+    }
+
+    private Scenario pick(SplittableRandom random) {
+        int ticket = random.nextInt(totalWeight);
+        for (Scenario scenario : scenarios) {
+            ticket -= scenario.weight();
+            if (ticket < 0) {
+                return scenario;
+            }
+        }
+        throw new IllegalStateException("Weights do not add up");
+    }
+
+    private static void parkUntil(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /**
+     * What happened to the requests of a run.
+     *
+     * @param duration  during which requests were started
+     * @param elapsed   from the first planned start until the last request completed
+     * @param scenarios results per scenario name
+     */
+    record Result(Duration duration, Duration elapsed, Map<String, ScenarioResult> scenarios) {
+
+        Histogram responseTime() {
+            Histogram total = new Histogram(SIGNIFICANT_DIGITS);
+            scenarios.values().forEach(result -> total.add(result.responseTime()));
+            return total;
+        }
+    }
+
+    /**
+     * @param responseTime microseconds from the planned start to the response, of successful requests
+     * @param serviceTime  microseconds from sending to the response, of successful requests
+     * @param errors       failed or dropped requests by cause
+     */
+    record ScenarioResult(Histogram responseTime, Histogram serviceTime, Map<String, Long> errorsByCause) {
+
+        long requests() {
+            return responseTime.getTotalCount() + errors();
+        }
+
+        long errors() {
+            return errorsByCause.values().stream().mapToLong(Long::longValue).sum();
+        }
+    }
+
+    private static final class ScenarioStats {
+
+        private final Recorder responseTime = new Recorder(SIGNIFICANT_DIGITS);
+        private final Recorder serviceTime = new Recorder(SIGNIFICANT_DIGITS);
+        private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+        void error(String cause) {
+            errors.computeIfAbsent(cause, key -> new LongAdder()).increment();
+        }
+
+        ScenarioResult result() {
+            Map<String, Long> errorsByCause = new LinkedHashMap<>();
+            errors.forEach((cause, count) -> errorsByCause.put(cause, count.sum()));
+            return new ScenarioResult(responseTime.getIntervalHistogram(), serviceTime.getIntervalHistogram(),
+                    errorsByCause);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package demo.ai.agentic.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The counters of the application's {@code /actuator/prometheus} endpoint that split the
+ * time of a request between model calls and our own stack: the time spent in serving
+ * requests, per endpoint ({@code http_server_requests_seconds}), and in chat model calls,
+ * per workflow and step ({@code llm_call_duration_seconds}). Snapshots are taken before
+ * and after a run, and their difference covers the run only.
+ *
+ * @param serverSeconds time spent serving requests, per {@code uri} tag
+ * @param serverCounts  requests served, per {@code uri} tag
+ * @param modelSeconds  time spent in chat model calls, per {@code workflow/step} tags
+ * @param modelCounts   chat model calls, per {@code workflow/step} tags
+ */
+record PrometheusSnapshot(Map<String, Double> serverSeconds, Map<String, Double> serverCounts,
+                          Map<String, Double> modelSeconds, Map<String, Double> modelCounts) {
+
+    private static final Pattern URI_TAG = Pattern.compile("[{,]uri=\"([^\"]*)\"");
+    private static final Pattern WORKFLOW_TAG = Pattern.compile("[{,]workflow=\"([^\"]*)\"");
+    private static final Pattern STEP_TAG = Pattern.compile("[{,]step=\"([^\"]*)\"");
+
+    /**
+     * Scrapes the application, or returns {@code null} if it has no Prometheus endpoint.
+     */
+    static PrometheusSnapshot scrape(HttpClient client, URI target) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(target + "/actuator/prometheus"))
+                .timeout(Duration.ofSeconds(10))
+                .build();
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            return response.statusCode() == 200 ? parse(response.body()) : null;
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    static PrometheusSnapshot parse(String exposition) {
+        Map<String, Double> serverSeconds = new HashMap<>();
+        Map<String, Double> serverCounts = new HashMap<>();
+        Map<String, Double> modelSeconds = new HashMap<>();
+        Map<String, Double> modelCounts = new HashMap<>();
+        for (String line : exposition.split("\n")) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            int valueStart = line.lastIndexOf(' ');
+            if (valueStart < 0) {
+                continue;
+            }
+            String series = line.substring(0, valueStart);
+            double value = Double.parseDouble(line.substring(valueStart + 1));
+            if (series.startsWith("http_server_requests_seconds_sum{")) {
+                serverSeconds.merge(tag(URI_TAG, series), value, Double::sum);
+            } else if (series.startsWith("http_server_requests_seconds_count{")) {
+                serverCounts.merge(tag(URI_TAG, series), value, Double::sum);
+            } else if (series.startsWith("llm_call_duration_seconds_sum{")) {
+                modelSeconds.merge(step(series), value, Double::sum);
+            } else if (series.startsWith("llm_call_duration_seconds_count{")) {
+                modelCounts.merge(step(series), value, Double::sum);
+            }
+        }
+        return new PrometheusSnapshot(serverSeconds, serverCounts, modelSeconds, modelCounts);
+    }
+
+    /**
+     * What was added since an earlier snapshot.
+     */
+    PrometheusSnapshot minus(PrometheusSnapshot earlier) {
+        return new PrometheusSnapshot(minus(serverSeconds, earlier.serverSeconds),
+                minus(serverCounts, earlier.serverCounts), minus(modelSeconds, earlier.modelSeconds),
+                minus(modelCounts, earlier.modelCounts));
+    }
+
+    /**
+     * Time spent in the chat model calls with the given {@code workflow} or {@code workflow/step} tags.
+     */
+    double modelSeconds(String tags) {
+        return sum(modelSeconds, tags);
+    }
+
+    /**
+     * Chat model calls with the given {@code workflow} or {@code workflow/step} tags.
+     */
+    double modelCalls(String tags) {
+        return sum(modelCounts, tags);
+    }
+
+    private static double sum(Map<String, Double> values, String tags) {
+        if (tags == null) {
+            return 0;
+        }
+        return values.entrySet().stream()
+                .filter(entry -> tags.contains("/") ? entry.getKey().equals(tags)
+                        : entry.getKey().startsWith(tags + "/"))
+                .mapToDouble(Map.Entry::getValue)
+                .sum();
+    }
+
+    private static String step(String series) {
+        return tag(WORKFLOW_TAG, series) + "/" + tag(STEP_TAG, series);
+    }
+
+    private static String tag(Pattern pattern, String series) {
+        Matcher matcher = pattern.matcher(series);
+        return matcher.find() ? matcher.group(1) : "";
+    }
+
+    private static Map<String, Double> minus(Map<String, Double> later, Map<String, Double> earlier) {
+        Map<String, Double> difference = new HashMap<>();
+        later.forEach((key, value) -> difference.put(key, value - earlier.getOrDefault(key, 0.0)));
+        return difference;
+    }
+}
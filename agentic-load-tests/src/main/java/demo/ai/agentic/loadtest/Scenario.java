@@ -0,0 +1,60 @@
+package demo.ai.agentic.loadtest;
+
+import org.springframework.util.Assert;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * One kind of request of a load test.
+ *
+ * @param name          name in the report
+ * @param weight        share of the requests, relative to the other scenarios
+ * @param path          path and query of the request; {@code {user}} is replaced by the user,
+ *                      {@code {n}} by the sequence number of the request and {@code {value}} by
+ *                      one of {@code values}, URL-encoded
+ * @param serverUri     {@code uri} tag of the endpoint in the server's {@code http_server_requests} metrics
+ * @param modelTags     {@code workflow} tag, or {@code workflow/step} tags, of the chat model calls
+ *                      of the endpoint in the server's {@code llm_call_duration} metrics, or
+ *                      {@code null} if it records none
+ * @param parallelCalls whether the chat model calls of a request can overlap, so that their
+ *                      summed time says nothing about the time spent outside of them
+ * @param values        values picked at random for {@code {value}}
+ */
+public record Scenario(String name, int weight, String path, String serverUri, String modelTags,
+                       boolean parallelCalls, List<String> values) {
+
+    public Scenario {
+        Assert.hasText(name, "Name must not be empty");
+        Assert.isTrue(weight > 0, "Weight must be positive");
+        Assert.isTrue(!path.contains("{value}") || !values.isEmpty(), "Path has a {value} but there are no values");
+        values = List.copyOf(values);
+    }
+
+    static Scenario of(String name, int weight, String path, String serverUri, String modelTags,
+                       String... values) {
+        return new Scenario(name, weight, path, serverUri, modelTags, false, List.of(values));
+    }
+
+    /**
+     * This scenario, with chat model calls that can overlap.
+     */
+    Scenario withParallelCalls() {
+        return new Scenario(name, weight, path, serverUri, modelTags, true, values);
+    }
+
+    URI uri(URI target, String user, long n, SplittableRandom random) {
+        String value = values.isEmpty() ? "" : values.get(random.nextInt(values.size()));
+        String resolved = path;
+        for (Map.Entry<String, String> variable : Map.of("{user}", user, "{n}", Long.toString(n),
+                "{value}", value).entrySet()) {
+            resolved = resolved.replace(variable.getKey(),
+                    URLEncoder.encode(variable.getValue(), StandardCharsets.UTF_8));
+        }
+        return URI.create(target + resolved);
+    }
+}
@@ -0,0 +1,75 @@
+package demo.ai.agentic.loadtest;
+
+import java.util.List;
+
+/**
+ * The request mix of each application.
+ *
+ * <p>
+ * Workflow requests carry a run id unique per request so that the runs are not shared;
+ * the chat endpoints of the other applications keep one conversation per user, so the
+ * memory of many users is part of the load.
+ */
+final class Scenarios {
+
+    private static final String[] WINE_QUESTIONS = {
+            "What are some tasty wines?",
+            "Can you suggest me three tropical wines?",
+            "Can you suggest me three aromatic wines?",
+            "Suggest some sparkling wines?",
+            "Which wine goes well with grilled salmon?",
+            "What is a good red wine for a barbecue?",
+            "Recommend a dry white wine under 20 dollars.",
+            "Which wines have notes of passion fruit?"
+    };
+
+    private static final String[] ADOPTION_QUESTIONS = {
+            "Do you have any neurotic dogs for adoption?",
+            "Which dogs are good with children?",
+            "Do you have a playful dog in Seoul?",
+            "I would like to adopt a protective dog.",
+            "Can I schedule an appointment to pick up Prancer?",
+            "What dogs are available in London?"
+    };
+
+    private static final String[] TRAVEL_QUESTIONS = {
+            "Plan my day in Gurgaon today?",
+            "What can I do in Paris this afternoon?",
+            "Is it a good day for a hike near Seattle?",
+            "Plan a rainy day in London.",
+            "What should I pack for Tokyo tomorrow?",
+            "Suggest outdoor activities in Mumbai today."
+    };
+
+    private Scenarios() {
+    }
+
+    static List<Scenario> of(String app) {
+        return switch (app) {
+            case "workflow" -> List.of(
+                    Scenario.of("chain", 3, "/workflow/chain?runId={user}-{n}", "/workflow/chain", "chain"),
+                    Scenario.of("route", 3, "/workflow/route/{value}", "/workflow/route/{incidentId}", "routing",
+                            "INC001", "INC002", "INC003"),
+                    Scenario.of("parallel", 2, "/workflow/parallel", "/workflow/parallel", "parallelization")
+                            .withParallelCalls(),
+                    Scenario.of("orchestrate", 2, "/workflow/orchestrate", "/workflow/orchestrate",
+                            "orchestrator").withParallelCalls());
+            case "ollama" -> List.of(
+                    Scenario.of("chat", 4, "/{user}/ai/chat?question={value}", "/{user}/ai/chat", "wine/chat",
+                            WINE_QUESTIONS),
+                    Scenario.of("rag", 3, "/{user}/ai/rag?question={value}", "/{user}/ai/rag", "wine/rag",
+                            WINE_QUESTIONS),
+                    Scenario.of("tool-call", 2, "/{user}/ai/tool/call?question={value}", "/{user}/ai/tool/call",
+                            "wine/tool-call", WINE_QUESTIONS),
+                    Scenario.of("structure", 1, "/{user}/ai/structure?question={value}", "/{user}/ai/structure",
+                            "wine/structure", WINE_QUESTIONS));
+            case "bedrock" -> List.of(
+                    Scenario.of("enquiry", 1, "/{user}/adoption/enquiry?question={value}",
+                            "/{user}/adoption/enquiry", "adoption/enquiry", ADOPTION_QUESTIONS));
+            case "adk" -> List.of(
+                    Scenario.of("plan", 1, "/{user}/travel/plan?question={value}", "/{user}/travel/plan", null,
+                            TRAVEL_QUESTIONS));
+            default -> throw new IllegalArgumentException("Unknown app: " + app);
+        };
+    }
+}
@@ -0,0 +1,166 @@
+package demo.ai.agentic.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LoadTestReportTest {
+
+    private static final Scenario CHAIN = Scenario.of("chain", 1, "/workflow/chain", "/workflow/chain", "chain");
+    private static final Scenario PARALLEL = Scenario.of("parallel", 1, "/workflow/parallel", "/workflow/parallel",
+            "parallelization").withParallelCalls();
+
+    private static final String METRICS = """
+            http_server_requests_seconds_count{uri="/workflow/chain"} 10
+            http_server_requests_seconds_sum{uri="/workflow/chain"} 5.0
+            http_server_requests_seconds_count{uri="/workflow/parallel"} 10
+            http_server_requests_seconds_sum{uri="/workflow/parallel"} 3.0
+            llm_call_duration_seconds_count{step="extract",workflow="chain"} 20
+            llm_call_duration_seconds_sum{step="extract",workflow="chain"} 4.0
+            llm_call_duration_seconds_count{step="worker",workflow="parallelization"} 30
+            llm_call_duration_seconds_sum{step="worker",workflow="parallelization"} 7.5
+            """;
+
+    @Test
+    void of_ShouldPassGatesWithinLimits() {
+        // Given
+        LoadTestOptions options = options("--p95=200ms", "--p99=200ms");
+
+        // When
+        LoadTestReport report = LoadTestReport.of(options, "http://localhost:8080", List.of(CHAIN),
+                result(Map.of(CHAIN, scenario(10, 100, Map.of()))), null, null);
+
+        // Then
+        assertThat(report.passed()).isTrue();
+        assertThat(report.gates()).extracting(LoadTestReport.Gate::name)
+                .containsExactly("p95 ms", "p99 ms", "req/s", "error rate");
+        assertThat(report.total().requests()).isEqualTo(10);
+        assertThat(report.total().throughput()).isCloseTo(10, within(1e-9));
+        assertThat(report.total().p95Millis()).isCloseTo(100, within(0.1));
+        assertThat(report.total().time()).isNull();
+    }
+
+    @Test
+    void of_ShouldFailOnErrorsAndSlowResponses() {
+        // Given
+        LoadTestOptions options = options("--p95=50ms");
+
+        // When
+        LoadTestReport report = LoadTestReport.of(options, "http://localhost:8080", List.of(CHAIN),
+                result(Map.of(CHAIN, scenario(9, 100, Map.of("timeout", 1L)))), null, null);
+
+        // Then
+        assertThat(report.passed()).isFalse();
+        assertThat(report.gates()).filteredOn(gate -> !gate.passed())
+                .extracting(LoadTestReport.Gate::name)
+                .containsExactly("p95 ms", "req/s", "error rate");
+        assertThat(report.total().errors()).isEqualTo(1);
+    }
+
+    @Test
+    void of_ShouldFailOnRegressionAgainstBaseline() {
+        // Given
+        LoadTestOptions options = options("--tolerance=0.2");
+        LoadTestReport baseline = LoadTestReport.of(options, "http://localhost:8080", List.of(CHAIN),
+                result(Map.of(CHAIN, scenario(10, 100, Map.of()))), null, null);
+
+        // When
+        LoadTestReport within = LoadTestReport.of(options, "http://localhost:8080", List.of(CHAIN),
+                result(Map.of(CHAIN, scenario(10, 110, Map.of()))), null, baseline);
+        LoadTestReport slower = LoadTestReport.of(options, "http://localhost:8080", List.of(CHAIN),
+                result(Map.of(CHAIN, scenario(10, 130, Map.of()))), null, baseline);
+
+        // Then
+        assertThat(within.passed()).isTrue();
+        assertThat(slower.passed()).isFalse();
+        assertThat(slower.gates()).filteredOn(gate -> !gate.passed())
+                .extracting(LoadTestReport.Gate::name)
+                .containsExactly("p95 ms vs baseline", "p99 ms vs baseline");
+    }
+
+    @Test
+    void of_ShouldLeaveStackTimeUnknownWhereModelCallsOverlap() {
+        // Given
+        LoadTestOptions options = options();
+        PrometheusSnapshot metrics = PrometheusSnapshot.parse(METRICS);
+
+        // When
+        LoadTestReport report = LoadTestReport.of(options, "http://localhost:8080", List.of(CHAIN, PARALLEL),
+                result(Map.of(CHAIN, scenario(10, 500, Map.of()), PARALLEL, scenario(10, 300, Map.of()))),
+                metrics, null);
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        report.print(new PrintStream(printed, true, StandardCharsets.UTF_8));
+
+        // Then
+        LoadTestReport.Time chain = report.scenarios().get("chain").time();
+        assertThat(chain.serverMillis()).isCloseTo(500, within(1e-9));
+        assertThat(chain.modelMillis()).isCloseTo(400, within(1e-9));
+        assertThat(chain.stackMillis()).isCloseTo(100, within(1e-9));
+        LoadTestReport.Time parallel = report.scenarios().get("parallel").time();
+        assertThat(parallel.modelMillis()).isCloseTo(750, within(1e-9));
+        assertThat(parallel.stackMillis()).isNull();
+        assertThat(report.total().time().stackMillis()).isNull();
+        assertThat(printed.toString(StandardCharsets.UTF_8)).containsPattern("parallel .* n/a");
+    }
+
+    @Test
+    void timeOf_ShouldSubtractModelTimeOfSequentialCallsOnly() {
+        // When
+        LoadTestReport.Time sequential = LoadTestReport.Time.of(10, 5.0, 4.0, 20, false);
+        LoadTestReport.Time parallel = LoadTestReport.Time.of(10, 5.0, 4.0, 20, true);
+        LoadTestReport.Time skewed = LoadTestReport.Time.of(10, 5.0, 6.0, 20, false);
+
+        // Then
+        assertThat(sequential.stackMillis()).isCloseTo(100, within(1e-9));
+        assertThat(sequential.modelCalls()).isCloseTo(2, within(1e-9));
+        assertThat(parallel.modelMillis()).isCloseTo(400, within(1e-9));
+        assertThat(parallel.stackMillis()).isNull();
+        assertThat(skewed.stackMillis()).isNull();
+    }
+
+    @Test
+    void timeOf_ShouldBeUnknownWithoutRequestsOrModelCalls() {
+        // When
+        LoadTestReport.Time idle = LoadTestReport.Time.of(0, 0, 0, 0, false);
+        LoadTestReport.Time noModel = LoadTestReport.Time.of(10, 2.0, 0, 0, false);
+
+        // Then
+        assertThat(idle).isEqualTo(new LoadTestReport.Time(null, null, null, null));
+        assertThat(noModel.serverMillis()).isCloseTo(200, within(1e-9));
+        assertThat(noModel.modelMillis()).isNull();
+        assertThat(noModel.stackMillis()).isNull();
+    }
+
+    private static LoadTestOptions options(String... gates) {
+        String[] args = new String[gates.length + 1];
+        args[0] = "--app=workflow";
+        System.arraycopy(gates, 0, args, 1, gates.length);
+        return LoadTestOptions.parse(args);
+    }
+
+    private static OpenLoopDriver.Result result(Map<Scenario, OpenLoopDriver.ScenarioResult> scenarios) {
+        Map<String, OpenLoopDriver.ScenarioResult> byName = new LinkedHashMap<>();
+        scenarios.forEach((scenario, result) -> byName.put(scenario.name(), result));
+        return new OpenLoopDriver.Result(Duration.ofSeconds(1), Duration.ofSeconds(1), byName);
+    }
+
+    private static OpenLoopDriver.ScenarioResult scenario(int successes, long millis, Map<String, Long> errors) {
+        Histogram responseTime = new Histogram(3);
+        Histogram serviceTime = new Histogram(3);
+        for (int i = 0; i < successes; i++) {
+            responseTime.recordValue(millis * 1000);
+            serviceTime.recordValue(millis * 1000);
+        }
+        return new OpenLoopDriver.ScenarioResult(responseTime, serviceTime, errors);
+    }
+}
@@ -0,0 +1,83 @@
+package demo.ai.agentic.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class PrometheusSnapshotTest {
+
+    private static final String BEFORE = """
+            # HELP http_server_requests_seconds
+            # TYPE http_server_requests_seconds summary
+            http_server_requests_seconds_count{error="none",method="GET",outcome="SUCCESS",status="200",uri="/workflow/chain"} 10
+            http_server_requests_seconds_sum{error="none",method="GET",outcome="SUCCESS",status="200",uri="/workflow/chain"} 4.0
+            http_server_requests_seconds_count{error="none",method="GET",outcome="SERVER_ERROR",status="500",uri="/workflow/chain"} 2
+            http_server_requests_seconds_sum{error="none",method="GET",outcome="SERVER_ERROR",status="500",uri="/workflow/chain"} 1.0
+            http_server_requests_seconds_max{error="none",method="GET",outcome="SUCCESS",status="200",uri="/workflow/chain"} 0.9
+            llm_call_duration_seconds_count{model="gpt-4o",step="extract",workflow="chain"} 10
+            llm_call_duration_seconds_sum{model="gpt-4o",step="extract",workflow="chain"} 2.0
+            llm_call_duration_seconds_count{model="gpt-4o",step="format",workflow="chain"} 10
+            llm_call_duration_seconds_sum{model="gpt-4o",step="format",workflow="chain"} 1.0
+            llm_call_duration_seconds_count{model="gpt-4o",step="route",workflow="chains"} 5
+            llm_call_duration_seconds_sum{model="gpt-4o",step="route",workflow="chains"} 9.0
+            """;
+
+    private static final String AFTER = """
+            http_server_requests_seconds_count{error="none",method="GET",outcome="SUCCESS",status="200",uri="/workflow/chain"} 30
+            http_server_requests_seconds_sum{error="none",method="GET",outcome="SUCCESS",status="200",uri="/workflow/chain"} 12.0
+            http_server_requests_seconds_count{error="none",method="GET",outcome="SERVER_ERROR",status="500",uri="/workflow/chain"} 2
+            http_server_requests_seconds_sum{error="none",method="GET",outcome="SERVER_ERROR",status="500",uri="/workflow/chain"} 1.0
+            http_server_requests_seconds_count{error="none",method="GET",outcome="SUCCESS",status="200",uri="/workflow/parallel"} 4
+            http_server_requests_seconds_sum{error="none",method="GET",outcome="SUCCESS",status="200",uri="/workflow/parallel"} 2.0
+            llm_call_duration_seconds_count{model="gpt-4o",step="extract",workflow="chain"} 30
+            llm_call_duration_seconds_sum{model="gpt-4o",step="extract",workflow="chain"} 6.0
+            llm_call_duration_seconds_count{model="gpt-4o",step="format",workflow="chain"} 30
+            llm_call_duration_seconds_sum{model="gpt-4o",step="format",workflow="chain"} 3.5
+            llm_call_duration_seconds_count{model="gpt-4o",step="route",workflow="chains"} 5
+            llm_call_duration_seconds_sum{model="gpt-4o",step="route",workflow="chains"} 9.0
+            """;
+
+    @Test
+    void parse_ShouldSumSeriesPerUriAndStep() {
+        // When
+        PrometheusSnapshot snapshot = PrometheusSnapshot.parse(BEFORE);
+
+        // Then
+        assertThat(snapshot.serverCounts()).containsOnlyKeys("/workflow/chain");
+        assertThat(snapshot.serverCounts().get("/workflow/chain")).isCloseTo(12, within(1e-9));
+        assertThat(snapshot.serverSeconds().get("/workflow/chain")).isCloseTo(5.0, within(1e-9));
+        assertThat(snapshot.modelCounts()).containsOnlyKeys("chain/extract", "chain/format", "chains/route");
+        assertThat(snapshot.modelSeconds().get("chain/extract")).isCloseTo(2.0, within(1e-9));
+    }
+
+    @Test
+    void modelSeconds_ShouldMatchWholeWorkflowOrSingleStep() {
+        // Given
+        PrometheusSnapshot snapshot = PrometheusSnapshot.parse(BEFORE);
+
+        // When / Then
+        assertThat(snapshot.modelSeconds("chain")).isCloseTo(3.0, within(1e-9));
+        assertThat(snapshot.modelSeconds("chain/format")).isCloseTo(1.0, within(1e-9));
+        assertThat(snapshot.modelCalls("chain")).isCloseTo(20, within(1e-9));
+        assertThat(snapshot.modelSeconds(null)).isZero();
+    }
+
+    @Test
+    void minus_ShouldKeepWhatWasAddedSinceEarlierSnapshot() {
+        // Given
+        PrometheusSnapshot before = PrometheusSnapshot.parse(BEFORE);
+        PrometheusSnapshot after = PrometheusSnapshot.parse(AFTER);
+
+        // When
+        PrometheusSnapshot run = after.minus(before);
+
+        // Then
+        assertThat(run.serverCounts().get("/workflow/chain")).isCloseTo(20, within(1e-9));
+        assertThat(run.serverSeconds().get("/workflow/chain")).isCloseTo(8.0, within(1e-9));
+        assertThat(run.serverCounts().get("/workflow/parallel")).isCloseTo(4, within(1e-9));
+        assertThat(run.modelSeconds("chain")).isCloseTo(6.5, within(1e-9));
+        assertThat(run.modelCalls("chain")).isCloseTo(40, within(1e-9));
+        assertThat(run.modelCalls("chains")).isZero();
+    }
+}
@@ -0,0 +1,51 @@
+package demo.ai.agentic.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ScenarioTest {
+
+    private static final URI TARGET = URI.create("http://localhost:8080");
+
+    @Test
+    void uri_ShouldReplaceVariablesUrlEncoded() {
+        // Given
+        Scenario scenario = Scenario.of("chat", 1, "/{user}/ai/chat?question={value}&n={n}", "/{user}/ai/chat",
+                "wine/chat", "Which wine goes with fish & chips?");
+
+        // When
+        URI uri = scenario.uri(TARGET, "user 7", 42, new SplittableRandom(1));
+
+        // Then
+        assertThat(uri).hasToString(
+                "http://localhost:8080/user+7/ai/chat?question=Which+wine+goes+with+fish+%26+chips%3F&n=42");
+    }
+
+    @Test
+    void uri_ShouldPickValuesWithTheRandom() {
+        // Given
+        Scenario scenario = Scenario.of("route", 1, "/workflow/route/{value}", "/workflow/route/{incidentId}",
+                "routing", "INC001", "INC002", "INC003");
+
+        // When
+        URI first = scenario.uri(TARGET, "user-1", 1, new SplittableRandom(42));
+        URI again = scenario.uri(TARGET, "user-1", 1, new SplittableRandom(42));
+
+        // Then
+        assertThat(first).isEqualTo(again);
+        assertThat(first.getPath()).matches("/workflow/route/INC00[123]");
+    }
+
+    @Test
+    void new_ShouldRejectValuePlaceholderWithoutValues() {
+        // When / Then
+        assertThatThrownBy(() -> Scenario.of("chat", 1, "/ai/chat?question={value}", "/ai/chat", null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("no values");
+    }
+}
@@ -0,0 +1,63 @@
+package demo.ai.agentic.cache;
+
+import org.springframework.ai.chat.client.ChatClientAttributes;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.prompt.ChatOptions;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+
+/**
+ * Content-addressed keys for chat client requests: a SHA-256 over the model, the
+ * sampling options, every message of the prompt and the structured output format.
+ * Two requests share a key only if the model would receive byte-identical input.
+ */
+public final class CacheKeys {
+
+    private static final char SEPARATOR = '\u001f';
+
+    private CacheKeys() {
+    }
+
+    public static String of(ChatClientRequest request, String defaultModel) {
+        StringBuilder content = new StringBuilder();
+
+        ChatOptions options = request.prompt().getOptions();
+        String model = options != null && options.getModel() != null ? options.getModel() : defaultModel;
+        append(content, model);
+        if (options != null) {
+            append(content, options.getTemperature());
+            append(content, options.getTopP());
+            append(content, options.getTopK());
+            append(content, options.getMaxTokens());
+            append(content, options.getFrequencyPenalty());
+            append(content, options.getPresencePenalty());
+            append(content, options.getStopSequences());
+        }
+
+        for (Message message : request.prompt().getInstructions()) {
+            append(content, message.getMessageType());
+            append(content, message.getText());
+        }
+        append(content, request.context().get(ChatClientAttributes.OUTPUT_FORMAT.getKey()));
+
+        return sha256(content.toString());
+    }
+
+    public static String sha256(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static void append(StringBuilder content, Object value) {
+        content.append(Objects.toString(value, "")).append(SEPARATOR);
+    }
+}
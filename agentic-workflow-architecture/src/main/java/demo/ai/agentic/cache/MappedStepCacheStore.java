@@ -0,0 +1,211 @@
+package demo.ai.agentic.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Append-only, memory-mapped file that backs a {@link StepCache} so cached step
+ * outputs survive restarts.
+ *
+ * <p>
+ * The file starts with a small header (magic, version, write position) followed by
+ * records of {@code [32-byte key][expiresAt][length][UTF-8 value]}. The in-memory
+ * index is rebuilt by scanning the records on open; a record only becomes visible
+ * once the header write position has moved past it, so a torn write is ignored.
+ * When the file is full, live entries are compacted to the front; if that does not
+ * free enough space the store starts over.
+ */
+public class MappedStepCacheStore implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedStepCacheStore.class);
+
+    private static final int MAGIC = 0x57534331;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 3 * Integer.BYTES;
+    private static final int WRITE_POSITION_OFFSET = 2 * Integer.BYTES;
+    private static final int KEY_SIZE = 32;
+    private static final int RECORD_OVERHEAD = KEY_SIZE + Long.BYTES + Integer.BYTES;
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final Map<String, Integer> index = new HashMap<>();
+
+    private int writePosition;
+
+    private MappedStepCacheStore(Path path, FileChannel channel, MappedByteBuffer buffer, int capacity) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Opens (or creates) a store of the given size and rebuilds its index.
+     */
+    public static MappedStepCacheStore open(Path path, long capacityBytes) throws IOException {
+        Assert.isTrue(capacityBytes > HEADER_SIZE + RECORD_OVERHEAD && capacityBytes <= Integer.MAX_VALUE,
+                "Capacity must be between " + (HEADER_SIZE + RECORD_OVERHEAD) + " and " + Integer.MAX_VALUE + " bytes");
+
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacityBytes);
+
+        MappedStepCacheStore store = new MappedStepCacheStore(path, channel, buffer, (int) capacityBytes);
+        store.load();
+        return store;
+    }
+
+    public synchronized Optional<Record> get(String key, long now) {
+        Integer position = index.get(key);
+        if (position == null) {
+            return Optional.empty();
+        }
+
+        long expiresAt = buffer.getLong(position + KEY_SIZE);
+        if (expiresAt <= now) {
+            index.remove(key);
+            return Optional.empty();
+        }
+        return Optional.of(new Record(readValue(position), expiresAt));
+    }
+
+    public synchronized void put(String key, String value, long expiresAt, long now) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int size = RECORD_OVERHEAD + bytes.length;
+        if (size > capacity - HEADER_SIZE) {
+            log.debug("Skipping cache entry of {} bytes, larger than the store", size);
+            return;
+        }
+
+        if (writePosition + size > capacity) {
+            compact(now);
+            if (writePosition + size > capacity) {
+                log.info("Step cache store {} is full of live entries, starting over", path);
+                clear();
+            }
+        }
+        append(HEX.parseHex(key), expiresAt, bytes);
+    }
+
+    public synchronized void clear() {
+        index.clear();
+        setWritePosition(HEADER_SIZE);
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private void load() {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != VERSION) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(Integer.BYTES, VERSION);
+            setWritePosition(HEADER_SIZE);
+            return;
+        }
+
+        int end = buffer.getInt(WRITE_POSITION_OFFSET);
+        if (end < HEADER_SIZE || end > capacity) {
+            setWritePosition(HEADER_SIZE);
+            return;
+        }
+
+        int position = HEADER_SIZE;
+        while (position + RECORD_OVERHEAD <= end) {
+            int length = buffer.getInt(position + KEY_SIZE + Long.BYTES);
+            if (length < 0 || position + RECORD_OVERHEAD + length > end) {
+                break;
+            }
+            index.put(readKey(position), position);
+            position += RECORD_OVERHEAD + length;
+        }
+        writePosition = position;
+        log.info("Loaded {} step cache entries from {}", index.size(), path);
+    }
+
+    private void compact(long now) {
+        List<byte[]> keys = new ArrayList<>();
+        List<Long> expirations = new ArrayList<>();
+        List<byte[]> values = new ArrayList<>();
+        for (int position : index.values()) {
+            long expiresAt = buffer.getLong(position + KEY_SIZE);
+            if (expiresAt > now) {
+                byte[] key = new byte[KEY_SIZE];
+                buffer.get(position, key);
+                keys.add(key);
+                expirations.add(expiresAt);
+                values.add(readValueBytes(position));
+            }
+        }
+
+        clear();
+        for (int i = 0; i < keys.size(); i++) {
+            append(keys.get(i), expirations.get(i), values.get(i));
+        }
+    }
+
+    private void append(byte[] key, long expiresAt, byte[] value) {
+        int position = writePosition;
+        buffer.put(position, key);
+        buffer.putLong(position + KEY_SIZE, expiresAt);
+        buffer.putInt(position + KEY_SIZE + Long.BYTES, value.length);
+        buffer.put(position + RECORD_OVERHEAD, value);
+
+        // Publish the record only after it has been written completely.
+        setWritePosition(position + RECORD_OVERHEAD + value.length);
+        index.put(HEX.formatHex(key), position);
+    }
+
+    private void setWritePosition(int position) {
+        writePosition = position;
+        buffer.putInt(WRITE_POSITION_OFFSET, position);
+    }
+
+    private String readKey(int position) {
+        byte[] key = new byte[KEY_SIZE];
+        buffer.get(position, key);
+        return HEX.formatHex(key);
+    }
+
+    private String readValue(int position) {
+        return new String(readValueBytes(position), StandardCharsets.UTF_8);
+    }
+
+    private byte[] readValueBytes(int position) {
+        byte[] value = new byte[buffer.getInt(position + KEY_SIZE + Long.BYTES)];
+        buffer.get(position + RECORD_OVERHEAD, value);
+        return value;
+    }
+
+    public record Record(String value, long expiresAt) {
+    }
+}
@@ -0,0 +1,133 @@
+package demo.ai.agentic.cache;
+
+import demo.ai.agentic.record.CacheStats;
+import org.springframework.util.Assert;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size- and TTL-bounded store of workflow step outputs, keyed by a content hash of
+ * the request (see {@link CacheKeys}). Entries live in an access-ordered in-memory
+ * map; an optional {@link MappedStepCacheStore} keeps them across restarts.
+ */
+public class StepCache {
+
+    private final int maxEntries;
+    private final Duration ttl;
+    private final MappedStepCacheStore diskStore;
+    private final Clock clock;
+
+    private final LinkedHashMap<String, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public StepCache(int maxEntries, Duration ttl) {
+        this(maxEntries, ttl, null, Clock.systemUTC());
+    }
+
+    public StepCache(int maxEntries, Duration ttl, MappedStepCacheStore diskStore, Clock clock) {
+        Assert.isTrue(maxEntries > 0, "Max entries must be greater than 0");
+        Assert.isTrue(ttl != null && !ttl.isNegative() && !ttl.isZero(), "TTL must be positive");
+        Assert.notNull(clock, "Clock must not be null");
+
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.diskStore = diskStore;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public Optional<String> get(String key) {
+        long now = clock.millis();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt() > now) {
+                    hits.increment();
+                    return Optional.of(entry.value());
+                }
+                entries.remove(key);
+                evictions.increment();
+            }
+        }
+
+        if (diskStore != null) {
+            Optional<MappedStepCacheStore.Record> stored = diskStore.get(key, now);
+            if (stored.isPresent()) {
+                MappedStepCacheStore.Record record = stored.get();
+                putInMemory(key, new Entry(record.value(), record.expiresAt()));
+                hits.increment();
+                diskHits.increment();
+                return Optional.of(record.value());
+            }
+        }
+
+        misses.increment();
+        return Optional.empty();
+    }
+
+    public void put(String key, String value) {
+        long now = clock.millis();
+        long expiresAt = now + ttl.toMillis();
+        putInMemory(key, new Entry(value, expiresAt));
+        if (diskStore != null) {
+            diskStore.put(key, value, expiresAt, now);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+        if (diskStore != null) {
+            diskStore.clear();
+        }
+    }
+
+    public CacheStats stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        return new CacheStats(hitCount, missCount, diskHits.sum(), evictions.sum(), size,
+                total == 0 ? 0.0 : (double) hitCount / total);
+    }
+
+    private void putInMemory(String key, Entry entry) {
+        synchronized (entries) {
+            entries.put(key, entry);
+            // Drop expired entries first, then the least recently used ones.
+            if (entries.size() > maxEntries) {
+                long now = clock.millis();
+                entries.values().removeIf(e -> {
+                    boolean expired = e.expiresAt() <= now;
+                    if (expired) {
+                        evictions.increment();
+                    }
+                    return expired;
+                });
+            }
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            while (entries.size() > maxEntries && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private record Entry(String value, long expiresAt) {
+    }
+}
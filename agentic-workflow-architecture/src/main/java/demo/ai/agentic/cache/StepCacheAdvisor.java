@@ -0,0 +1,164 @@
+package demo.ai.agentic.cache;
+
+import demo.ai.agentic.workflow.WorkflowStep;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.core.Ordered;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Memoizes workflow step outputs between the workflows and the chat model.
+ *
+ * <p>
+ * Caching is opt-in per step: a request is cached when it is tagged with
+ * {@link WorkflowStep} keys matching one of the configured {@code workflow:step}
+ * patterns (e.g. {@code chain:*}, {@code routing:selector}), or when the
+ * {@link #CACHE_ENABLED} advisor param is set explicitly. Responses with tool calls
+ * are never cached.
+ */
+public class StepCacheAdvisor implements CallAdvisor, StreamAdvisor {
+
+    private static final Logger log = LoggerFactory.getLogger(StepCacheAdvisor.class);
+
+    /**
+     * Advisor param that forces caching on ({@code true}) or off ({@code false}) for a
+     * single request, regardless of the configured steps.
+     */
+    public static final String CACHE_ENABLED = "step-cache.enabled";
+
+    private final StepCache cache;
+    private final List<String> cachedSteps;
+    private final String defaultModel;
+
+    public StepCacheAdvisor(StepCache cache, Collection<String> cachedSteps, String defaultModel) {
+        Assert.notNull(cache, "Cache must not be null");
+        Assert.notNull(cachedSteps, "Cached steps must not be null");
+
+        this.cache = cache;
+        this.cachedSteps = List.copyOf(cachedSteps);
+        this.defaultModel = defaultModel;
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        if (!isCacheable(request.context())) {
+            return chain.nextCall(request);
+        }
+
+        String key = CacheKeys.of(request, defaultModel);
+        Optional<String> cached = cache.get(key);
+        if (cached.isPresent()) {
+            log.debug("Step cache hit for {}", stepName(request.context()));
+            return cachedResponse(request, cached.get());
+        }
+
+        ChatClientResponse response = chain.nextCall(request);
+        store(key, response.chatResponse());
+        return response;
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+        if (!isCacheable(request.context())) {
+            return chain.nextStream(request);
+        }
+
+        return Flux.defer(() -> {
+            String key = CacheKeys.of(request, defaultModel);
+            Optional<String> cached = cache.get(key);
+            if (cached.isPresent()) {
+                return Flux.just(cachedResponse(request, cached.get()));
+            }
+
+            StringBuilder content = new StringBuilder();
+            boolean[] toolCalls = {false};
+            return chain.nextStream(request)
+                    .doOnNext(response -> {
+                        ChatResponse chatResponse = response.chatResponse();
+                        if (chatResponse != null && chatResponse.getResult() != null) {
+                            AssistantMessage output = chatResponse.getResult().getOutput();
+                            toolCalls[0] |= output.hasToolCalls();
+                            if (output.getText() != null) {
+                                content.append(output.getText());
+                            }
+                        }
+                    })
+                    .doOnComplete(() -> {
+                        if (!toolCalls[0] && !content.isEmpty()) {
+                            cache.put(key, content.toString());
+                        }
+                    });
+        });
+    }
+
+    @Override
+    public String getName() {
+        return StepCacheAdvisor.class.getSimpleName();
+    }
+
+    @Override
+    public int getOrder() {
+        // Outside of the logging advisor so cache hits skip it entirely.
+        return Ordered.HIGHEST_PRECEDENCE + 1000;
+    }
+
+    private boolean isCacheable(Map<String, Object> context) {
+        Object explicit = context.get(CACHE_ENABLED);
+        if (explicit != null) {
+            return Boolean.parseBoolean(explicit.toString());
+        }
+
+        Object workflow = context.get(WorkflowStep.WORKFLOW);
+        Object step = context.get(WorkflowStep.STEP);
+        if (workflow == null || step == null) {
+            return false;
+        }
+        return cachedSteps.stream().anyMatch(pattern -> matches(pattern, workflow.toString(), step.toString()));
+    }
+
+    private static boolean matches(String pattern, String workflow, String step) {
+        String[] parts = pattern.split(":", 2);
+        String stepPattern = parts.length == 2 ? parts[1] : "*";
+        return parts[0].equals(workflow) && (stepPattern.equals("*") || stepPattern.equals(step));
+    }
+
+    private void store(String key, ChatResponse chatResponse) {
+        if (chatResponse == null || chatResponse.getResult() == null) {
+            return;
+        }
+        AssistantMessage output = chatResponse.getResult().getOutput();
+        if (!output.hasToolCalls() && output.getText() != null) {
+            cache.put(key, output.getText());
+        }
+    }
+
+    private static ChatClientResponse cachedResponse(ChatClientRequest request, String content) {
+        ChatResponse chatResponse = new ChatResponse(List.of(new Generation(new AssistantMessage(content))),
+                ChatResponseMetadata.builder().keyValue("step-cache-hit", true).build());
+        return ChatClientResponse.builder()
+                .chatResponse(chatResponse)
+                .context(new HashMap<>(request.context()))
+                .build();
+    }
+
+    private static String stepName(Map<String, Object> context) {
+        return context.get(WorkflowStep.WORKFLOW) + ":" + context.get(WorkflowStep.STEP);
+    }
+}
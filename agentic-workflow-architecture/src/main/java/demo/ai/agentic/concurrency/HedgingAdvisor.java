@@ -0,0 +1,265 @@
+package demo.ai.agentic.concurrency;
+
+import demo.ai.agentic.record.HedgingStats;
+import demo.ai.agentic.workflow.WorkflowStep;
+import demo.ai.commons.concurrency.AdaptiveConcurrencyAdvisor;
+import demo.ai.commons.concurrency.AdaptiveLimiter;
+import demo.ai.commons.metrics.LlmMetrics;
+import io.micrometer.observation.ObservationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.DefaultAroundAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.BaseAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.core.Ordered;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Cuts the tail latency of chat model calls with hedged requests: when a call is still
+ * running after the hedge delay of its step (see {@link HedgingPolicy}), a duplicate
+ * request is sent, optionally to a secondary model, and whichever answers first wins.
+ * The other one is cancelled by interrupting its virtual thread, which aborts its
+ * blocking HTTP call.
+ *
+ * <p>
+ * Hedging is opt-in: it applies to the configured workflows once the policy is enabled,
+ * and a request can turn it on or off with the {@link #ENABLED} advisor param. Only
+ * blocking calls are hedged; streams pass through. Both requests run through the
+ * advisors after this one, so each counts against the concurrency limit and is recorded
+ * in the call metrics. No hedge is sent while the concurrency limit is congested, i.e.
+ * calls wait for a permit or the provider asked to back off, as it would only add load
+ * where it hurts.
+ *
+ * <p>
+ * The latency learned for the hedge delay is the one the caller saw, from the start of
+ * the primary request to the first answer, without the time that answer waited for a
+ * concurrency permit.
+ */
+public class HedgingAdvisor implements CallAdvisor, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(HedgingAdvisor.class);
+
+    /**
+     * Advisor param that turns hedging on ({@code true}) or off ({@code false}) for a single request.
+     */
+    public static final String ENABLED = "hedging.enabled";
+
+    private final HedgingPolicy policy;
+    private final Set<String> workflows;
+    private final String secondaryModel;
+    private final BooleanSupplier congested;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("hedge-", 0).factory());
+
+    /**
+     * @param policy         when to hedge and how often
+     * @param workflows      workflows whose calls are hedged; all when empty
+     * @param secondaryModel model the hedged request is sent to, or empty for the model of the call
+     */
+    public HedgingAdvisor(HedgingPolicy policy, Collection<String> workflows, String secondaryModel) {
+        this(policy, workflows, secondaryModel, () -> false);
+    }
+
+    /**
+     * @param congested whether the provider is congested, e.g. {@link AdaptiveLimiter#congested()}
+     */
+    public HedgingAdvisor(HedgingPolicy policy, Collection<String> workflows, String secondaryModel,
+                          BooleanSupplier congested) {
+        Assert.notNull(policy, "Policy must not be null");
+        Assert.notNull(workflows, "Workflows must not be null");
+        Assert.notNull(congested, "Congested must not be null");
+
+        this.policy = policy;
+        this.workflows = Set.copyOf(workflows);
+        this.secondaryModel = secondaryModel;
+        this.congested = congested;
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        if (!hedged(request)) {
+            return chain.nextCall(request);
+        }
+        String step = request.context().getOrDefault(WorkflowStep.WORKFLOW, "none") + "/"
+                + request.context().getOrDefault(WorkflowStep.STEP, "none");
+        Duration delay = policy.hedgeDelay(step);
+        if (delay == null) {
+            // Not enough samples yet: run on the calling thread and learn from it.
+            long start = System.nanoTime();
+            ChatClientResponse response = chain.nextCall(request);
+            policy.record(step, System.nanoTime() - start - permitWait(response));
+            return response;
+        }
+
+        // The chain can be walked only once, so every attempt gets its own copy of the rest of it.
+        List<CallAdvisor> rest = rest(chain);
+        ObservationRegistry observationRegistry = chain instanceof BaseAdvisorChain base
+                ? base.getObservationRegistry() : ObservationRegistry.NOOP;
+        CompletableFuture<Attempt> winner = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        long start = System.nanoTime();
+        Future<?> primary = executor.submit(() -> attempt(request, rest, observationRegistry, false, step,
+                start, winner, pending));
+        Future<?> hedge = null;
+        try {
+            try {
+                return winner.get(delay.toNanos(), TimeUnit.NANOSECONDS).response();
+            } catch (TimeoutException e) {
+                if (congested.getAsBoolean()) {
+                    policy.congested();
+                } else if (policy.tryHedge()) {
+                    pending.incrementAndGet();
+                    ChatClientRequest hedgeRequest = secondary(request);
+                    hedge = executor.submit(() -> attempt(hedgeRequest, rest, observationRegistry, true, step,
+                            start, winner, pending));
+                }
+            }
+            Attempt first = winner.get();
+            record(request, first, hedge != null);
+            return first.response();
+        } catch (ExecutionException e) {
+            if (hedge != null) {
+                LlmMetrics.hedge(workflow(request), stepName(request), "none");
+            }
+            throw e.getCause() instanceof RuntimeException runtime ? runtime
+                    : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a chat model call", e);
+        } finally {
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    public HedgingStats stats() {
+        return policy.stats();
+    }
+
+    @Override
+    public String getName() {
+        return HedgingAdvisor.class.getSimpleName();
+    }
+
+    @Override
+    public int getOrder() {
+        // Inside of the step cache and single-flight, outside of logging, limits and metrics.
+        return Ordered.HIGHEST_PRECEDENCE + 2000;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private boolean hedged(ChatClientRequest request) {
+        Object enabled = request.context().get(ENABLED);
+        if (enabled != null) {
+            return Boolean.parseBoolean(enabled.toString());
+        }
+        return policy.enabled() && (workflows.isEmpty() || workflows.contains(workflow(request)));
+    }
+
+    private List<CallAdvisor> rest(CallAdvisorChain chain) {
+        List<CallAdvisor> advisors = chain.getCallAdvisors();
+        for (int i = 0; i < advisors.size(); i++) {
+            if (advisors.get(i) == this) {
+                return advisors.subList(i + 1, advisors.size());
+            }
+        }
+        throw new IllegalStateException("Hedging advisor is not part of its own chain");
+    }
+
+    private void attempt(ChatClientRequest request, List<CallAdvisor> advisors,
+                         ObservationRegistry observationRegistry, boolean hedge, String step, long start,
+                         CompletableFuture<Attempt> winner, AtomicInteger pending) {
+        try {
+            ChatClientResponse response = DefaultAroundAdvisorChain.builder(observationRegistry)
+                    .pushAll(advisors)
+                    .build()
+                    .nextCall(request);
+            if (winner.complete(new Attempt(response, hedge))) {
+                // As the caller saw it: from the start of the primary, also when the hedge won.
+                policy.record(step, System.nanoTime() - start - permitWait(response));
+            }
+        } catch (RuntimeException e) {
+            // The call fails only when every attempt has failed.
+            if (pending.decrementAndGet() == 0) {
+                winner.completeExceptionally(e);
+            } else if (!winner.isDone()) {
+                log.debug("{} attempt of a hedged call failed: {}", hedge ? "Hedge" : "Primary", e.getMessage());
+            }
+        }
+    }
+
+    private void record(ChatClientRequest request, Attempt first, boolean hedged) {
+        if (!hedged) {
+            return;
+        }
+        if (first.hedge()) {
+            policy.hedgeWon();
+        }
+        LlmMetrics.hedge(workflow(request), stepName(request), first.hedge() ? "hedge" : "primary");
+    }
+
+    /**
+     * The request for the hedge, with the secondary model if one is configured and the
+     * options of the call have a model property.
+     */
+    private ChatClientRequest secondary(ChatClientRequest request) {
+        ChatOptions options = request.prompt().getOptions();
+        if (!StringUtils.hasText(secondaryModel) || options == null) {
+            return request;
+        }
+        ChatOptions copy = options.copy();
+        BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(copy);
+        if (!wrapper.isWritableProperty("model")) {
+            return request;
+        }
+        wrapper.setPropertyValue("model", secondaryModel);
+        Prompt prompt = request.prompt().mutate().chatOptions(copy).build();
+        return request.mutate().prompt(prompt).build();
+    }
+
+    private static long permitWait(ChatClientResponse response) {
+        Object wait = response.context().get(AdaptiveConcurrencyAdvisor.PERMIT_WAIT_NANOS);
+        return wait instanceof Long nanos ? nanos : 0;
+    }
+
+    private static String workflow(ChatClientRequest request) {
+        Object workflow = request.context().get(WorkflowStep.WORKFLOW);
+        return workflow != null ? workflow.toString() : "none";
+    }
+
+    private static String stepName(ChatClientRequest request) {
+        Object step = request.context().get(WorkflowStep.STEP);
+        return step != null ? step.toString() : "none";
+    }
+
+    private record Attempt(ChatClientResponse response, boolean hedge) {
+    }
+}
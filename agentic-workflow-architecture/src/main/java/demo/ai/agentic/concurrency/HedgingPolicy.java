@@ -0,0 +1,164 @@
+package demo.ai.agentic.concurrency;
+
+import demo.ai.agentic.record.HedgingStats;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides when a slow chat model call gets a duplicate, hedged request.
+ *
+ * <p>
+ * The hedge delay of a step is a percentile of its recent latencies, kept in a sliding
+ * window per step since steps differ widely in how long they take; steps with too few
+ * samples are not hedged. Hedges are capped by a budget: every call earns a fraction of
+ * a hedge (the budget ratio, e.g. 0.05 for at most 5% extra calls) and every hedge spends
+ * one, with a small burst allowance for stalls that hit several calls at once.
+ */
+public class HedgingPolicy {
+
+    private static final double MAX_BURST = 5;
+
+    private final boolean enabled;
+    private final double percentile;
+    private final double budgetRatio;
+    private final Duration minDelay;
+    private final int window;
+    private final int minSamples;
+
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder budgetExhausted = new LongAdder();
+    private final LongAdder congested = new LongAdder();
+    private double budget;
+
+    /**
+     * @param enabled     whether calls are hedged unless a request opts in
+     * @param percentile  latency percentile of a step after which a call is hedged, e.g. 0.95
+     * @param budgetRatio hedges allowed per call, e.g. 0.05
+     * @param minDelay    shortest hedge delay, whatever the percentile
+     * @param window      latencies kept per step
+     * @param minSamples  latencies a step needs before its calls are hedged
+     */
+    public HedgingPolicy(boolean enabled, double percentile, double budgetRatio, Duration minDelay, int window,
+                         int minSamples) {
+        Assert.isTrue(percentile > 0 && percentile < 1, "Percentile must be between 0 and 1");
+        Assert.isTrue(budgetRatio >= 0 && budgetRatio <= 1, "Budget ratio must be between 0 and 1");
+        Assert.isTrue(!minDelay.isNegative(), "Min delay must not be negative");
+        Assert.isTrue(window > 0, "Window must be greater than 0");
+        Assert.isTrue(minSamples > 0 && minSamples <= window, "Min samples must be between 1 and the window");
+
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.budgetRatio = budgetRatio;
+        this.minDelay = minDelay;
+        this.window = window;
+        this.minSamples = minSamples;
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * Counts a call under the policy, which adds to the hedge budget, and returns how long
+     * to wait for it before hedging, or {@code null} if the step has too few samples.
+     */
+    Duration hedgeDelay(String step) {
+        calls.increment();
+        synchronized (this) {
+            budget = Math.min(MAX_BURST, budget + budgetRatio);
+        }
+        LatencyWindow latency = latencies.get(step);
+        Long nanos = latency != null ? latency.percentile(percentile, minSamples) : null;
+        if (nanos == null) {
+            return null;
+        }
+        Duration delay = Duration.ofNanos(nanos);
+        return delay.compareTo(minDelay) < 0 ? minDelay : delay;
+    }
+
+    /**
+     * Takes a hedge from the budget, if there is one left.
+     */
+    synchronized boolean tryHedge() {
+        if (budget < 1) {
+            budgetExhausted.increment();
+            return false;
+        }
+        budget -= 1;
+        hedges.increment();
+        return true;
+    }
+
+    /**
+     * A hedge was due but not sent, as the provider was already congested.
+     */
+    void congested() {
+        congested.increment();
+    }
+
+    void hedgeWon() {
+        hedgeWins.increment();
+    }
+
+    /**
+     * Records the latency of a completed call of a step.
+     */
+    void record(String step, long nanos) {
+        latencies.computeIfAbsent(step, key -> new LatencyWindow(window)).add(nanos);
+    }
+
+    public HedgingStats stats() {
+        long callCount = calls.sum();
+        long hedgeCount = hedges.sum();
+        long wins = hedgeWins.sum();
+        Map<String, Double> delays = new TreeMap<>();
+        latencies.forEach((step, latency) -> {
+            Long nanos = latency.percentile(percentile, minSamples);
+            if (nanos != null) {
+                delays.put(step, Math.max(nanos, minDelay.toNanos()) / 1_000_000.0);
+            }
+        });
+        return new HedgingStats(enabled, percentile, budgetRatio, callCount, hedgeCount, wins,
+                callCount == 0 ? 0.0 : (double) hedgeCount / callCount,
+                hedgeCount == 0 ? 0.0 : (double) wins / hedgeCount,
+                budgetExhausted.sum(), congested.sum(), delays);
+    }
+
+    /**
+     * The last latencies of a step in a ring buffer.
+     */
+    private static final class LatencyWindow {
+
+        private final long[] samples;
+        private int next;
+        private int size;
+
+        LatencyWindow(int window) {
+            this.samples = new long[window];
+        }
+
+        synchronized void add(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            size = Math.min(size + 1, samples.length);
+        }
+
+        synchronized Long percentile(double percentile, int minSamples) {
+            if (size < minSamples) {
+                return null;
+            }
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            return sorted[Math.min(size - 1, (int) Math.ceil(percentile * size) - 1)];
+        }
+    }
+}
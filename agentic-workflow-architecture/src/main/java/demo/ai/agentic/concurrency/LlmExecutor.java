@@ -0,0 +1,295 @@
+package demo.ai.agentic.concurrency;
+
+import demo.ai.agentic.record.ProviderStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Long-lived executor for outbound LLM calls shared by all workflows.
+ *
+ * <p>
+ * Every call runs on its own virtual thread, so blocking on the provider is cheap,
+ * while a process-wide permit limiter per provider caps how many calls are in
+ * flight at once across all concurrent requests. Time spent waiting for a permit
+ * (queue wait) and time spent in the call itself are tracked separately.
+ *
+ * <p>
+ * Cancelling a returned future interrupts the virtual thread running the call.
+ */
+public class LlmExecutor implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(LlmExecutor.class);
+
+    private final ExecutorService executor;
+    private final String defaultProvider;
+    private final int defaultMaxConcurrency;
+    private final Map<String, Integer> maxConcurrency;
+    private final Map<String, ProviderLimiter> limiters = new ConcurrentHashMap<>();
+
+    public LlmExecutor(String defaultProvider, int defaultMaxConcurrency, Map<String, Integer> maxConcurrency) {
+        Assert.hasText(defaultProvider, "Default provider must not be empty");
+        Assert.isTrue(defaultMaxConcurrency > 0, "Default max concurrency must be greater than 0");
+        Assert.notNull(maxConcurrency, "Max concurrency map must not be null");
+
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("llm-", 0).factory());
+        this.defaultProvider = defaultProvider;
+        this.defaultMaxConcurrency = defaultMaxConcurrency;
+        this.maxConcurrency = Map.copyOf(maxConcurrency);
+    }
+
+    /**
+     * Runs the call against the default provider.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> call) {
+        return submit(defaultProvider, call);
+    }
+
+    /**
+     * Runs the call on a virtual thread once a permit for the provider is available.
+     */
+    public <T> CompletableFuture<T> submit(String provider, Supplier<T> call) {
+        return submit(provider, call, List.of(), null);
+    }
+
+    /**
+     * Runs the call against the default provider with a timeout, which includes the wait
+     * for a permit. A call that times out is interrupted, and the returned future fails
+     * with a {@link TimeoutException} only once the call has given back its permits, so
+     * the caller never moves on while the call still occupies the executor.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> call, Duration timeout) {
+        Assert.isTrue(timeout != null && timeout.isPositive(), "Timeout must be positive");
+        return submit(defaultProvider, call, List.of(), timeout);
+    }
+
+    /**
+     * Runs all calls against the default provider, with at most {@code maxParallelism}
+     * of them in flight at once on top of the provider limit. Futures are returned
+     * in the order of the calls.
+     */
+    public <T> List<CompletableFuture<T>> submitAll(List<Supplier<T>> calls, int maxParallelism) {
+        Batch batch = batch(maxParallelism);
+        List<CompletableFuture<T>> futures = new ArrayList<>(calls.size());
+        for (Supplier<T> call : calls) {
+            futures.add(batch.submit(call));
+        }
+        return futures;
+    }
+
+    /**
+     * Opens a batch for calls that are submitted over time, e.g. as their inputs become
+     * ready, while sharing one {@code maxParallelism} limit on top of the provider limit.
+     */
+    public Batch batch(int maxParallelism) {
+        Assert.isTrue(maxParallelism > 0, "Max parallelism must be greater than 0");
+        return new Batch(List.of(new Semaphore(maxParallelism)));
+    }
+
+    public String defaultProvider() {
+        return defaultProvider;
+    }
+
+    public List<ProviderStats> stats() {
+        return limiters.values().stream()
+                .map(ProviderLimiter::stats)
+                .toList();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @param batchLimits parallelism limits of the enclosing batches, outermost first
+     * @param timeout     after which the call is interrupted, or {@code null}
+     */
+    private <T> CompletableFuture<T> submit(String provider, Supplier<T> call, List<Semaphore> batchLimits,
+                                            Duration timeout) {
+        ProviderLimiter limiter = limiters.computeIfAbsent(provider,
+                name -> new ProviderLimiter(name, maxConcurrency.getOrDefault(name, defaultMaxConcurrency)));
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicBoolean started = new AtomicBoolean();
+        AtomicBoolean timedOut = new AtomicBoolean();
+        long submitted = System.nanoTime();
+        limiter.waiting.incrementAndGet();
+
+        Future<?> task = executor.submit(() -> {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            // Innermost limit first, so a call never holds a permit of an outer batch
+            // while it waits for its own batch.
+            int batchPermits = 0;
+            boolean providerPermit = false;
+            try {
+                for (int i = batchLimits.size() - 1; i >= 0; i--) {
+                    batchLimits.get(i).acquire();
+                    batchPermits++;
+                }
+                limiter.permits.acquire();
+                providerPermit = true;
+            } catch (InterruptedException e) {
+                limiter.waiting.decrementAndGet();
+                releaseBatchPermits(batchLimits, batchPermits);
+                result.completeExceptionally(timedOut.get() ? timeoutException(timeout) : e);
+                return;
+            }
+
+            long callStarted = System.nanoTime();
+            limiter.waiting.decrementAndGet();
+            limiter.inFlight.incrementAndGet();
+            limiter.recordQueueWait(callStarted - submitted);
+            T value = null;
+            Throwable failure = null;
+            try {
+                value = call.get();
+            } catch (Throwable e) {
+                failure = e;
+            } finally {
+                limiter.recordCall(System.nanoTime() - callStarted);
+                limiter.inFlight.decrementAndGet();
+                if (providerPermit) {
+                    limiter.permits.release();
+                }
+                releaseBatchPermits(batchLimits, batchPermits);
+            }
+            // Completed only after the stats and permits are settled, so callers see them.
+            if (failure == null) {
+                result.complete(value);
+            } else {
+                result.completeExceptionally(timedOut.get() ? timeoutException(timeout) : failure);
+            }
+        });
+
+        if (timeout != null) {
+            CompletableFuture.delayedExecutor(timeout.toNanos(), TimeUnit.NANOSECONDS).execute(() -> {
+                if (result.isDone() || !timedOut.compareAndSet(false, true)) {
+                    return;
+                }
+                // A task that has not started has nothing to unwind; otherwise it completes the result.
+                if (started.compareAndSet(false, true)) {
+                    limiter.waiting.decrementAndGet();
+                    result.completeExceptionally(timeoutException(timeout));
+                }
+                task.cancel(true);
+            });
+        }
+
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                // A task cancelled before it started never leaves the waiting queue on its own.
+                if (started.compareAndSet(false, true)) {
+                    limiter.waiting.decrementAndGet();
+                }
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private static TimeoutException timeoutException(Duration timeout) {
+        return new TimeoutException("LLM call timed out after " + timeout.toMillis() + " ms");
+    }
+
+    private static void releaseBatchPermits(List<Semaphore> batchLimits, int acquired) {
+        for (int i = batchLimits.size() - 1; i >= batchLimits.size() - acquired; i--) {
+            batchLimits.get(i).release();
+        }
+    }
+
+    /**
+     * Calls against the default provider that share a parallelism limit.
+     */
+    public final class Batch {
+
+        private final List<Semaphore> limits;
+
+        private Batch(List<Semaphore> limits) {
+            this.limits = limits;
+        }
+
+        public <T> CompletableFuture<T> submit(Supplier<T> call) {
+            return LlmExecutor.this.submit(defaultProvider, call, limits, null);
+        }
+
+        /**
+         * Opens a batch whose calls are limited to {@code maxParallelism} in flight and
+         * also count against the limit of this batch.
+         */
+        public Batch nested(int maxParallelism) {
+            Assert.isTrue(maxParallelism > 0, "Max parallelism must be greater than 0");
+            List<Semaphore> nestedLimits = new ArrayList<>(limits);
+            nestedLimits.add(new Semaphore(maxParallelism));
+            return new Batch(List.copyOf(nestedLimits));
+        }
+    }
+
+    private static final class ProviderLimiter {
+
+        private final String provider;
+        private final int maxConcurrency;
+        private final Semaphore permits;
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder queueWaitNanos = new LongAdder();
+        private final LongAdder callNanos = new LongAdder();
+        private final LongAccumulator maxQueueWaitNanos = new LongAccumulator(Long::max, 0);
+        private final LongAccumulator maxCallNanos = new LongAccumulator(Long::max, 0);
+
+        ProviderLimiter(String provider, int maxConcurrency) {
+            this.provider = provider;
+            this.maxConcurrency = maxConcurrency;
+            this.permits = new Semaphore(maxConcurrency, true);
+            log.info("LLM concurrency limit for provider '{}' is {}", provider, maxConcurrency);
+        }
+
+        void recordQueueWait(long nanos) {
+            queueWaitNanos.add(nanos);
+            maxQueueWaitNanos.accumulate(nanos);
+        }
+
+        void recordCall(long nanos) {
+            completed.increment();
+            callNanos.add(nanos);
+            maxCallNanos.accumulate(nanos);
+        }
+
+        ProviderStats stats() {
+            long count = completed.sum();
+            return new ProviderStats(provider, maxConcurrency, inFlight.get(), waiting.get(), count,
+                    average(queueWaitNanos.sum(), count), millis(maxQueueWaitNanos.get()),
+                    average(callNanos.sum(), count), millis(maxCallNanos.get()));
+        }
+
+        private static double average(long totalNanos, long count) {
+            return count == 0 ? 0.0 : millis(totalNanos) / count;
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
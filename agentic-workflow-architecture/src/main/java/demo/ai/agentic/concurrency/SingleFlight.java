@@ -0,0 +1,170 @@
+package demo.ai.agentic.concurrency;
+
+import demo.ai.agentic.record.SingleFlightStats;
+import org.springframework.util.Assert;
+
+import java.io.InterruptedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical calls: the first caller of a key runs the call and
+ * every caller that arrives while it is in flight waits for and shares its result.
+ *
+ * <p>
+ * With a linger, a successful result keeps being served for that long after it
+ * completed, so callers that arrive just after a run finished (e.g. dashboards
+ * polling on the same tick) do not start another one. Failures are never lingered.
+ *
+ * <p>
+ * A caller that leads a call and is cancelled or interrupted does not fail its
+ * followers: they retry, and one of them runs the call again.
+ */
+public class SingleFlight {
+
+    private final String name;
+    private final boolean enabled;
+    private final long lingerNanos;
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder lingered = new LongAdder();
+
+    /**
+     * @param enabled when false, every call runs on its own and is counted as executed
+     * @param linger  how long a successful result is shared after it completed; zero for
+     *                in-flight sharing only
+     */
+    public SingleFlight(String name, boolean enabled, Duration linger) {
+        Assert.hasText(name, "Name must not be empty");
+        Assert.notNull(linger, "Linger must not be null");
+        Assert.isTrue(!linger.isNegative(), "Linger must not be negative");
+
+        this.name = name;
+        this.enabled = enabled;
+        this.lingerNanos = linger.toNanos();
+    }
+
+    /**
+     * Runs the call, or joins the identical call in flight under the same key.
+     * Followers receive the same result instance, or the same exception, as the caller
+     * that ran it.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Supplier<T> call) {
+        Assert.notNull(key, "Key must not be null");
+        Assert.notNull(call, "Call must not be null");
+
+        if (!enabled) {
+            executed.increment();
+            return call.get();
+        }
+
+        while (true) {
+            Flight candidate = new Flight();
+            Flight flight = flights.compute(key,
+                    (k, existing) -> existing != null && !existing.expired(System.nanoTime()) ? existing : candidate);
+
+            if (flight == candidate) {
+                return (T) lead(key, flight, call);
+            }
+
+            if (flight.result.isDone()) {
+                lingered.increment();
+            } else {
+                coalesced.increment();
+            }
+            try {
+                return (T) flight.result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while waiting for in-flight call '" + key + "'");
+            } catch (CancellationException e) {
+                // The leader was cancelled; run it again unless this caller is cancelled too.
+                if (Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+            } catch (ExecutionException e) {
+                throw rethrow(e.getCause());
+            }
+        }
+    }
+
+    public SingleFlightStats stats() {
+        long executedCount = executed.sum();
+        long sharedCount = coalesced.sum() + lingered.sum();
+        long total = executedCount + sharedCount;
+        long inFlight = flights.values().stream().filter(flight -> !flight.result.isDone()).count();
+        return new SingleFlightStats(name, enabled, Duration.ofNanos(lingerNanos).toMillis(), executedCount,
+                coalesced.sum(), lingered.sum(), (int) inFlight, total == 0 ? 0 : (double) sharedCount / total);
+    }
+
+    private Object lead(String key, Flight flight, Supplier<?> call) {
+        executed.increment();
+        Object value;
+        try {
+            value = call.get();
+        } catch (Throwable e) {
+            flights.remove(key, flight);
+            if (Thread.currentThread().isInterrupted() || isInterruption(e)) {
+                flight.result.cancel(false);
+            } else {
+                flight.result.completeExceptionally(e);
+            }
+            throw e;
+        }
+
+        if (lingerNanos == 0) {
+            flights.remove(key, flight);
+        } else {
+            flight.expiresAt = System.nanoTime() + lingerNanos;
+            CompletableFuture.delayedExecutor(lingerNanos, TimeUnit.NANOSECONDS)
+                    .execute(() -> flights.remove(key, flight));
+        }
+        flight.result.complete(value);
+        return value;
+    }
+
+    private static boolean isInterruption(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof InterruptedException || cause instanceof InterruptedIOException
+                    || cause instanceof ClosedByInterruptException || cause instanceof CancellationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static RuntimeException rethrow(Throwable error) {
+        if (error instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (error instanceof Error fatal) {
+            throw fatal;
+        }
+        return new IllegalStateException(error);
+    }
+
+    private static final class Flight {
+
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        /**
+         * Set once the call succeeded; until then the flight never expires.
+         */
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        boolean expired(long now) {
+            return expiresAt != Long.MAX_VALUE && now - expiresAt >= 0;
+        }
+    }
+}
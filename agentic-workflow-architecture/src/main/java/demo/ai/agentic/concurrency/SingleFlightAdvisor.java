@@ -0,0 +1,70 @@
+package demo.ai.agentic.concurrency;
+
+import demo.ai.agentic.cache.CacheKeys;
+import demo.ai.agentic.record.SingleFlightStats;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.core.Ordered;
+import org.springframework.util.Assert;
+
+import java.util.HashMap;
+
+/**
+ * Shares one chat model call between concurrent byte-identical requests, keyed like the
+ * step cache by {@link CacheKeys}. Unlike the step cache it applies to every step, since
+ * it only merges calls that are in flight at the same time (plus the optional linger).
+ *
+ * <p>
+ * Only blocking calls are coalesced; streams pass through. A request can opt out with
+ * the {@link #ENABLED} advisor param.
+ */
+public class SingleFlightAdvisor implements CallAdvisor {
+
+    /**
+     * Advisor param that turns coalescing off ({@code false}) for a single request.
+     */
+    public static final String ENABLED = "single-flight.enabled";
+
+    private final SingleFlight singleFlight;
+    private final String defaultModel;
+
+    public SingleFlightAdvisor(SingleFlight singleFlight, String defaultModel) {
+        Assert.notNull(singleFlight, "Single flight must not be null");
+
+        this.singleFlight = singleFlight;
+        this.defaultModel = defaultModel;
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        Object enabled = request.context().get(ENABLED);
+        if (enabled != null && !Boolean.parseBoolean(enabled.toString())) {
+            return chain.nextCall(request);
+        }
+
+        ChatClientResponse shared = singleFlight.execute(CacheKeys.of(request, defaultModel),
+                () -> chain.nextCall(request));
+        // Each caller keeps its own advisor context, e.g. its workflow step tags.
+        return ChatClientResponse.builder()
+                .chatResponse(shared.chatResponse())
+                .context(new HashMap<>(request.context()))
+                .build();
+    }
+
+    public SingleFlightStats stats() {
+        return singleFlight.stats();
+    }
+
+    @Override
+    public String getName() {
+        return SingleFlightAdvisor.class.getSimpleName();
+    }
+
+    @Override
+    public int getOrder() {
+        // Inside of the step cache, so only cache misses are coalesced.
+        return Ordered.HIGHEST_PRECEDENCE + 1500;
+    }
+}
@@ -1,7 +1,13 @@
 package demo.ai.agentic.config;
 
+import demo.ai.agentic.cache.StepCacheAdvisor;
+import demo.ai.agentic.concurrency.HedgingAdvisor;
+import demo.ai.agentic.concurrency.SingleFlightAdvisor;
+import demo.ai.commons.concurrency.AdaptiveConcurrencyAdvisor;
+import demo.ai.commons.logging.LlmLoggingAdvisor;
+import demo.ai.commons.metrics.LlmMetricsAdvisor;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -9,9 +15,16 @@ import org.springframework.context.annotation.Configuration;
 public class ChatClientConfig {
 
     @Bean
-    ChatClient chatClient(ChatClient.Builder chatClientBuilder) {
+    ChatClient chatClient(ChatClient.Builder chatClientBuilder, StepCacheAdvisor stepCacheAdvisor,
+                          SingleFlightAdvisor singleFlightAdvisor, HedgingAdvisor hedgingAdvisor,
+                          ObjectProvider<LlmMetricsAdvisor> llmMetricsAdvisor,
+                          ObjectProvider<LlmLoggingAdvisor> llmLoggingAdvisor,
+                          ObjectProvider<AdaptiveConcurrencyAdvisor> adaptiveConcurrencyAdvisor) {
+        llmMetricsAdvisor.ifAvailable(chatClientBuilder::defaultAdvisors);
+        llmLoggingAdvisor.ifAvailable(chatClientBuilder::defaultAdvisors);
+        adaptiveConcurrencyAdvisor.ifAvailable(chatClientBuilder::defaultAdvisors);
         return chatClientBuilder
-                .defaultAdvisors(new SimpleLoggerAdvisor())
+                .defaultAdvisors(stepCacheAdvisor, singleFlightAdvisor, hedgingAdvisor)
                 .build();
     }
 }
@@ -0,0 +1,23 @@
+package demo.ai.agentic.config;
+
+import demo.ai.agentic.concurrency.HedgingAdvisor;
+import demo.ai.agentic.concurrency.HedgingPolicy;
+import demo.ai.commons.concurrency.AdaptiveLimiter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(HedgingProperties.class)
+public class HedgingConfig {
+
+    @Bean
+    HedgingAdvisor hedgingAdvisor(HedgingProperties properties, ObjectProvider<AdaptiveLimiter> limiter) {
+        HedgingPolicy policy = new HedgingPolicy(properties.enabled(), properties.percentile(), properties.budget(),
+                properties.minDelay(), properties.window(), properties.minSamples());
+        AdaptiveLimiter llmLimiter = limiter.getIfAvailable();
+        return new HedgingAdvisor(policy, properties.workflows(), properties.secondaryModel(),
+                llmLimiter != null ? llmLimiter::congested : () -> false);
+    }
+}
@@ -0,0 +1,30 @@
+package demo.ai.agentic.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Settings of hedged chat model calls.
+ *
+ * @param enabled        whether calls of the listed workflows are hedged; requests can still opt in when disabled
+ * @param percentile     latency percentile of a step after which a duplicate request is sent
+ * @param budget         hedges allowed per call, e.g. 0.05 for at most 5% extra calls
+ * @param minDelay       shortest time to wait before hedging, whatever the percentile
+ * @param window         latencies kept per step to compute the percentile
+ * @param minSamples     latencies a step needs before its calls are hedged
+ * @param workflows      workflows whose calls are hedged, or empty for all
+ * @param secondaryModel model of the same provider the duplicate request is sent to, or empty for the model of the call
+ */
+@ConfigurationProperties("workflow.hedging")
+public record HedgingProperties(@DefaultValue("false") boolean enabled,
+                                @DefaultValue("0.95") double percentile,
+                                @DefaultValue("0.05") double budget,
+                                @DefaultValue("200ms") Duration minDelay,
+                                @DefaultValue("200") int window,
+                                @DefaultValue("20") int minSamples,
+                                @DefaultValue({"chain", "routing"}) List<String> workflows,
+                                @DefaultValue("") String secondaryModel) {
+}
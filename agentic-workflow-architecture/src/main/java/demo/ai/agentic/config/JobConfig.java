@@ -0,0 +1,16 @@
+package demo.ai.agentic.config;
+
+import demo.ai.agentic.job.JobManager;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(JobProperties.class)
+public class JobConfig {
+
+    @Bean(destroyMethod = "close")
+    JobManager jobManager(JobProperties properties) {
+        return new JobManager(properties.workers(), properties.queueCapacity(), properties.ttl());
+    }
+}
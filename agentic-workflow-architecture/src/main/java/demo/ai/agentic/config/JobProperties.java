@@ -0,0 +1,19 @@
+package demo.ai.agentic.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the asynchronous workflow jobs.
+ *
+ * @param workers       number of jobs that run at the same time
+ * @param queueCapacity maximum number of queued jobs; further submissions are rejected
+ * @param ttl           how long the result of a finished job can be fetched
+ */
+@ConfigurationProperties("workflow.jobs")
+public record JobProperties(@DefaultValue("4") int workers,
+                            @DefaultValue("100") int queueCapacity,
+                            @DefaultValue("15m") Duration ttl) {
+}
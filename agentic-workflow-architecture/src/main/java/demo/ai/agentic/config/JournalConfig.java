@@ -0,0 +1,21 @@
+package demo.ai.agentic.config;
+
+import demo.ai.agentic.journal.WorkflowJournal;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+@Configuration
+@EnableConfigurationProperties(JournalProperties.class)
+public class JournalConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "workflow.journal", name = "enabled", havingValue = "true", matchIfMissing = true)
+    WorkflowJournal workflowJournal(JournalProperties properties) throws IOException {
+        return WorkflowJournal.open(properties.path(), properties.flushInterval(),
+                properties.compactionThreshold().toBytes(), properties.retention());
+    }
+}
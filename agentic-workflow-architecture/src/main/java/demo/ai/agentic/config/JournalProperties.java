@@ -0,0 +1,25 @@
+package demo.ai.agentic.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of the workflow checkpoint journal.
+ *
+ * @param enabled             whether runs with a run id are journaled
+ * @param path                journal file
+ * @param flushInterval       how long the flusher waits for more records before an fsync
+ * @param compactionThreshold dead bytes (finished runs, superseded steps) that trigger a compaction
+ * @param retention           how long an unfinished run can be resumed
+ */
+@ConfigurationProperties("workflow.journal")
+public record JournalProperties(@DefaultValue("true") boolean enabled,
+                                @DefaultValue("workflow-journal.log") Path path,
+                                @DefaultValue("10ms") Duration flushInterval,
+                                @DefaultValue("8MB") DataSize compactionThreshold,
+                                @DefaultValue("7d") Duration retention) {
+}
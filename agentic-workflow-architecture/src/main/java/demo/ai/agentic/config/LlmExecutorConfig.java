@@ -0,0 +1,17 @@
+package demo.ai.agentic.config;
+
+import demo.ai.agentic.concurrency.LlmExecutor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(LlmExecutorProperties.class)
+public class LlmExecutorConfig {
+
+    @Bean(destroyMethod = "close")
+    LlmExecutor llmExecutor(LlmExecutorProperties properties) {
+        return new LlmExecutor(properties.defaultProvider(), properties.defaultMaxConcurrency(),
+                properties.maxConcurrency());
+    }
+}
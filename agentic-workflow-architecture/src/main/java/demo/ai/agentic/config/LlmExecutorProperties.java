@@ -0,0 +1,19 @@
+package demo.ai.agentic.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Map;
+
+/**
+ * Settings of the shared LLM executor.
+ *
+ * @param defaultProvider       provider used by workflows that do not name one
+ * @param defaultMaxConcurrency in-flight call limit for providers without an explicit limit
+ * @param maxConcurrency        process-wide in-flight call limit per provider
+ */
+@ConfigurationProperties("workflow.executor")
+public record LlmExecutorProperties(@DefaultValue("openai") String defaultProvider,
+                                    @DefaultValue("8") int defaultMaxConcurrency,
+                                    @DefaultValue Map<String, Integer> maxConcurrency) {
+}
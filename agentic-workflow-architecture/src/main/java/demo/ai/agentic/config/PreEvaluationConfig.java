@@ -0,0 +1,17 @@
+package demo.ai.agentic.config;
+
+import demo.ai.agentic.evaluation.JavaCompilePreEvaluator;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(PreEvaluationProperties.class)
+public class PreEvaluationConfig {
+
+    @Bean
+    JavaCompilePreEvaluator javaCompilePreEvaluator(PreEvaluationProperties properties) {
+        return new JavaCompilePreEvaluator(properties.checkTimeout(), properties.cacheSize(),
+                properties.runChecks());
+    }
+}
@@ -0,0 +1,20 @@
+package demo.ai.agentic.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the local compile-and-check stage that runs before the LLM evaluator.
+ *
+ * @param runChecks    whether candidates that compile are also run against checks, in a
+ *                     separate JVM; off by default, as this runs generated code
+ * @param checkTimeout how long the checks of one candidate may run, after which their JVM is killed
+ * @param cacheSize    maximum number of verdicts cached by code hash
+ */
+@ConfigurationProperties("workflow.pre-evaluation")
+public record PreEvaluationProperties(@DefaultValue("false") boolean runChecks,
+                                      @DefaultValue("5s") Duration checkTimeout,
+                                      @DefaultValue("256") int cacheSize) {
+}
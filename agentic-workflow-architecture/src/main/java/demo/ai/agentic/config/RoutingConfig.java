@@ -0,0 +1,25 @@
+package demo.ai.agentic.config;
+
+import demo.ai.agentic.constants.RouteConstant;
+import demo.ai.agentic.routing.RouteClassifier;
+import demo.ai.agentic.routing.RouteSpeculator;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(RoutingProperties.class)
+public class RoutingConfig {
+
+    @Bean
+    RouteClassifier routeClassifier(RoutingProperties properties) {
+        RoutingProperties.Classifier classifier = properties.classifier();
+        return new RouteClassifier(RouteConstant.routeExamples, classifier.enabled(),
+                classifier.confidenceThreshold(), classifier.shadowRate(), classifier.maxLoggedDecisions());
+    }
+
+    @Bean
+    RouteSpeculator routeSpeculator(RoutingProperties properties) {
+        return new RouteSpeculator(properties.speculation().enabled(), properties.speculation().topK());
+    }
+}
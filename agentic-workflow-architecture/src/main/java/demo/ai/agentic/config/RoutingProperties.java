@@ -0,0 +1,35 @@
+package demo.ai.agentic.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings of the routing workflow.
+ *
+ * @param classifier  local fast-path route classifier
+ * @param speculation speculative specialist calls while the LLM selector runs
+ */
+@ConfigurationProperties("workflow.routing")
+public record RoutingProperties(@DefaultValue Classifier classifier, @DefaultValue Speculation speculation) {
+
+    /**
+     * @param enabled              whether confident local predictions skip the LLM selector
+     * @param confidenceThreshold  minimum relative margin between the best and second best
+     *                             route for a prediction to be used
+     * @param shadowRate           fraction of fast-path decisions verified by the LLM in the background
+     * @param maxLoggedDecisions   number of LLM decisions kept for retraining
+     */
+    public record Classifier(@DefaultValue("true") boolean enabled,
+                             @DefaultValue("0.35") double confidenceThreshold,
+                             @DefaultValue("0.05") double shadowRate,
+                             @DefaultValue("5000") int maxLoggedDecisions) {
+    }
+
+    /**
+     * @param enabled whether specialists are started before the LLM selector has decided
+     * @param topK    number of most likely routes whose specialists are started
+     */
+    public record Speculation(@DefaultValue("false") boolean enabled,
+                              @DefaultValue("1") int topK) {
+    }
+}
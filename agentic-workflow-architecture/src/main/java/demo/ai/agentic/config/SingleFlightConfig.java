@@ -0,0 +1,27 @@
+package demo.ai.agentic.config;
+
+import demo.ai.agentic.concurrency.SingleFlight;
+import demo.ai.agentic.concurrency.SingleFlightAdvisor;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(SingleFlightProperties.class)
+public class SingleFlightConfig {
+
+    @Bean
+    SingleFlight endpointSingleFlight(SingleFlightProperties properties) {
+        return new SingleFlight("endpoints", properties.endpoints().enabled(), properties.endpoints().linger());
+    }
+
+    @Bean
+    SingleFlightAdvisor singleFlightAdvisor(SingleFlightProperties properties, ChatModel chatModel) {
+        ChatOptions defaultOptions = chatModel.getDefaultOptions();
+        return new SingleFlightAdvisor(
+                new SingleFlight("calls", properties.calls().enabled(), properties.calls().linger()),
+                defaultOptions != null ? defaultOptions.getModel() : null);
+    }
+}
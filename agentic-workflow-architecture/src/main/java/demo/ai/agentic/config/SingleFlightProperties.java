@@ -0,0 +1,24 @@
+package demo.ai.agentic.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of request coalescing.
+ *
+ * @param endpoints coalescing of identical concurrent runs of the parameterless workflow endpoints
+ * @param calls     coalescing of identical concurrent chat model calls
+ */
+@ConfigurationProperties("workflow.single-flight")
+public record SingleFlightProperties(@DefaultValue Flight endpoints, @DefaultValue Flight calls) {
+
+    /**
+     * @param enabled whether identical concurrent requests share one execution
+     * @param linger  how long a successful result is still shared after it completed
+     */
+    public record Flight(@DefaultValue("true") boolean enabled,
+                         @DefaultValue("0s") Duration linger) {
+    }
+}
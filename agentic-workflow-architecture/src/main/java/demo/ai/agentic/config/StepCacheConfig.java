@@ -0,0 +1,40 @@
+package demo.ai.agentic.config;
+
+import demo.ai.agentic.cache.MappedStepCacheStore;
+import demo.ai.agentic.cache.StepCache;
+import demo.ai.agentic.cache.StepCacheAdvisor;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(StepCacheProperties.class)
+public class StepCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "workflow.cache.disk", name = "enabled", havingValue = "true")
+    MappedStepCacheStore mappedStepCacheStore(StepCacheProperties properties) throws IOException {
+        return MappedStepCacheStore.open(properties.disk().path(), properties.disk().size().toBytes());
+    }
+
+    @Bean
+    StepCache stepCache(StepCacheProperties properties, ObjectProvider<MappedStepCacheStore> diskStore) {
+        return new StepCache(properties.maxEntries(), properties.ttl(), diskStore.getIfAvailable(), Clock.systemUTC());
+    }
+
+    @Bean
+    StepCacheAdvisor stepCacheAdvisor(StepCache stepCache, StepCacheProperties properties, ChatModel chatModel) {
+        ChatOptions defaultOptions = chatModel.getDefaultOptions();
+        return new StepCacheAdvisor(stepCache,
+                properties.enabled() ? properties.steps() : List.of(),
+                defaultOptions != null ? defaultOptions.getModel() : null);
+    }
+}
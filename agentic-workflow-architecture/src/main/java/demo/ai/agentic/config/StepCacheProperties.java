@@ -0,0 +1,31 @@
+package demo.ai.agentic.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Settings of the workflow step cache.
+ *
+ * @param enabled    whether configured steps are cached at all
+ * @param maxEntries maximum number of entries kept in memory
+ * @param ttl        how long a cached step output stays valid
+ * @param steps      {@code workflow:step} patterns to cache, {@code *} matches every step
+ * @param disk       optional memory-mapped tier that survives restarts
+ */
+@ConfigurationProperties("workflow.cache")
+public record StepCacheProperties(@DefaultValue("true") boolean enabled,
+                                  @DefaultValue("1000") int maxEntries,
+                                  @DefaultValue("1h") Duration ttl,
+                                  @DefaultValue List<String> steps,
+                                  @DefaultValue Disk disk) {
+
+    public record Disk(@DefaultValue("false") boolean enabled,
+                       @DefaultValue("step-cache.bin") Path path,
+                       @DefaultValue("64MB") DataSize size) {
+    }
+}
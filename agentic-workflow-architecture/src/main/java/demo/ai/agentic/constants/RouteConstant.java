@@ -1,5 +1,6 @@
 package demo.ai.agentic.constants;
 
+import java.util.List;
 import java.util.Map;
 
 public class RouteConstant {
@@ -61,6 +62,48 @@ public class RouteConstant {
                     """
     );
 
+    /**
+     * Labeled example tickets the local route classifier is trained on.
+     */
+    public static Map<String, List<String>> routeExamples = Map.of(
+            "billing", List.of(
+                    "I was charged twice for my subscription this month, please refund the duplicate payment.",
+                    "Why is my invoice higher than the price of my plan?",
+                    "My credit card was billed after I cancelled, I want a refund.",
+                    "How do I update the payment method and billing address on my account?",
+                    "Unexpected charge on my card statement from your company.",
+                    "Can I switch from monthly to annual billing and get a discount?",
+                    "The invoice shows the wrong VAT number and amount.",
+                    "I need a receipt for last month's payment for my expense report."),
+            "technical", List.of(
+                    "The app crashes with an error every time I open the dashboard.",
+                    "API requests return 500 internal server error since this morning.",
+                    "The page is very slow to load and times out on Chrome.",
+                    "Sync is not working, the desktop client shows a connection error.",
+                    "I get a bug when uploading files larger than 10 MB, the upload fails.",
+                    "The integration with Slack stopped working after the latest update.",
+                    "Installation fails on Windows with an error code.",
+                    "The mobile app freezes and does not respond after login screen loads."),
+            "account", List.of(
+                    "I can't log in, it keeps saying invalid password.",
+                    "I forgot my password and the reset email never arrives.",
+                    "My account was locked after too many login attempts.",
+                    "I think someone hacked my account, there are logins from an unknown location.",
+                    "How do I enable two-factor authentication on my account?",
+                    "I need to change the email address of my account and verify it.",
+                    "Please delete my account and all personal data.",
+                    "I lost access to my authenticator app and cannot sign in."),
+            "product", List.of(
+                    "How do I export my project data to Excel or CSV?",
+                    "Is there a way to share a dashboard with my team?",
+                    "What is the best practice for organizing projects into folders?",
+                    "Does the product support custom fields and templates?",
+                    "How can I bulk import tasks from a spreadsheet?",
+                    "Where can I find documentation about the reporting feature?",
+                    "Can I schedule reports to be emailed automatically every week?",
+                    "Which plan includes the advanced analytics feature?")
+    );
+
     public static Map<String, String> tickets = Map.of(
         "INC001",
         """
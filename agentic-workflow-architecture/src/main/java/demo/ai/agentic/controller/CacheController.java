@@ -0,0 +1,41 @@
+package demo.ai.agentic.controller;
+
+import demo.ai.agentic.cache.StepCache;
+import demo.ai.agentic.record.CacheStats;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@Tag(name = "Step Cache", description = "Workflow step cache endpoints")
+public class CacheController {
+
+    private final StepCache stepCache;
+
+    CacheController(StepCache stepCache) {
+        this.stepCache = stepCache;
+    }
+
+    @GetMapping("/workflow/cache/stats")
+    @Operation(summary = "Get step cache statistics", description = "Returns hit/miss counters and the number of cached step outputs.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statistics returned")
+    })
+    CacheStats stats() {
+        return stepCache.stats();
+    }
+
+    @DeleteMapping("/workflow/cache")
+    @Operation(summary = "Clear step cache", description = "Removes every cached step output from memory and disk.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cache cleared")
+    })
+    CacheStats clear() {
+        stepCache.clear();
+        return stepCache.stats();
+    }
+}
@@ -0,0 +1,32 @@
+package demo.ai.agentic.controller;
+
+import demo.ai.agentic.concurrency.LlmExecutor;
+import demo.ai.agentic.record.ProviderStats;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@Tag(name = "LLM Executor", description = "Shared LLM executor endpoints")
+public class ExecutorController {
+
+    private final LlmExecutor llmExecutor;
+
+    ExecutorController(LlmExecutor llmExecutor) {
+        this.llmExecutor = llmExecutor;
+    }
+
+    @GetMapping("/workflow/executor/stats")
+    @Operation(summary = "Get LLM executor statistics", description = "Returns per-provider concurrency limits, in-flight calls and queue wait versus call time.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statistics returned")
+    })
+    List<ProviderStats> stats() {
+        return llmExecutor.stats();
+    }
+}
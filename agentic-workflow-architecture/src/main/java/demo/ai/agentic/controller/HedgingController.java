@@ -0,0 +1,30 @@
+package demo.ai.agentic.controller;
+
+import demo.ai.agentic.concurrency.HedgingAdvisor;
+import demo.ai.agentic.record.HedgingStats;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@Tag(name = "Hedging", description = "Hedged chat model call endpoints")
+public class HedgingController {
+
+    private final HedgingAdvisor hedgingAdvisor;
+
+    HedgingController(HedgingAdvisor hedgingAdvisor) {
+        this.hedgingAdvisor = hedgingAdvisor;
+    }
+
+    @GetMapping("/workflow/hedging/stats")
+    @Operation(summary = "Get hedging statistics", description = "Returns the hedge rate, how often the hedge answered first, and the current hedge delay of each workflow step.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statistics returned")
+    })
+    HedgingStats stats() {
+        return hedgingAdvisor.stats();
+    }
+}
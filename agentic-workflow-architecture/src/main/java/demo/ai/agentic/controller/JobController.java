@@ -0,0 +1,166 @@
+package demo.ai.agentic.controller;
+
+import demo.ai.agentic.concurrency.LlmExecutor;
+import demo.ai.agentic.constants.RouteConstant;
+import demo.ai.agentic.evaluation.JavaCompilePreEvaluator;
+import demo.ai.agentic.evaluation.MinStackCheck;
+import demo.ai.agentic.job.JobManager;
+import demo.ai.agentic.job.JobTask;
+import demo.ai.agentic.record.ChainEvent;
+import demo.ai.agentic.record.IndexedResult;
+import demo.ai.agentic.record.JobEvent;
+import demo.ai.agentic.record.JobStatus;
+import demo.ai.agentic.routing.RouteClassifier;
+import demo.ai.agentic.routing.RouteSpeculator;
+import demo.ai.agentic.workflow.ChainWorkflow;
+import demo.ai.agentic.workflow.EvaluatorOptimizerWorkflow;
+import demo.ai.agentic.workflow.LoopBudget;
+import demo.ai.agentic.workflow.OrchestratorWorkflow;
+import demo.ai.agentic.workflow.ParallelizationWorkflow;
+import demo.ai.agentic.workflow.RoutingWorkflow;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@Tag(name = "Workflow Jobs", description = "Asynchronous workflow job endpoints")
+public class JobController {
+
+    private final ChatClient chatClient;
+    private final LlmExecutor llmExecutor;
+    private final JavaCompilePreEvaluator preEvaluator;
+    private final RouteClassifier routeClassifier;
+    private final RouteSpeculator routeSpeculator;
+    private final JobManager jobManager;
+
+    JobController(ChatClient chatClient, LlmExecutor llmExecutor, JavaCompilePreEvaluator preEvaluator,
+                  RouteClassifier routeClassifier, RouteSpeculator routeSpeculator, JobManager jobManager) {
+        this.chatClient = chatClient;
+        this.llmExecutor = llmExecutor;
+        this.preEvaluator = preEvaluator;
+        this.routeClassifier = routeClassifier;
+        this.routeSpeculator = routeSpeculator;
+        this.jobManager = jobManager;
+    }
+
+    @PostMapping("/workflow/jobs/{workflow}")
+    @Operation(summary = "Submit a workflow job", description = "Queues a run of the workflow on its sample input and returns the job right away. Poll the job or subscribe to its events for progress and the result.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Job queued"),
+            @ApiResponse(responseCode = "404", description = "Unknown workflow"),
+            @ApiResponse(responseCode = "429", description = "Job queue is full")
+    })
+    ResponseEntity<JobStatus> submit(
+            @Parameter(description = "Workflow to run",
+                    schema = @Schema(allowableValues = {
+                            ChainWorkflow.NAME,
+                            RoutingWorkflow.NAME,
+                            ParallelizationWorkflow.NAME,
+                            OrchestratorWorkflow.NAME,
+                            EvaluatorOptimizerWorkflow.NAME
+                    }))
+            @PathVariable("workflow") String workflow,
+            @Parameter(description = "Queue priority of the job")
+            @RequestParam(name = "priority", defaultValue = "NORMAL") JobStatus.Priority priority,
+            @Parameter(description = "Incident to route, for the routing workflow")
+            @RequestParam(name = "incidentId", defaultValue = "INC001") String incidentId) {
+
+        JobTask task = switch (workflow) {
+            case ChainWorkflow.NAME -> context -> new ChainWorkflow(this.chatClient)
+                    .chainStream(WorkflowController.SAMPLE_REPORT)
+                    .filter(event -> event.type() == ChainEvent.Type.STEP_COMPLETED)
+                    .doOnNext(event -> context.progress("Step " + event.step() + " completed"))
+                    .map(ChainEvent::content)
+                    .blockLast();
+            case RoutingWorkflow.NAME -> {
+                String ticket = RouteConstant.tickets.get(incidentId);
+                if (ticket == null) {
+                    throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Ticket not found for id: " + incidentId);
+                }
+                yield context -> new RoutingWorkflow(this.chatClient, this.routeClassifier, this.llmExecutor,
+                        this.routeSpeculator).route(ticket, RouteConstant.supportRoutes);
+            }
+            case ParallelizationWorkflow.NAME -> context -> new ParallelizationWorkflow(this.chatClient, this.llmExecutor)
+                    .parallelStream(WorkflowController.STAKEHOLDER_PROMPT, WorkflowController.STAKEHOLDERS,
+                            WorkflowController.STAKEHOLDERS.size(), Duration.ofSeconds(60), 1)
+                    .doOnNext(result -> context.progress("Input " + result.index()
+                            + (result.success() ? " completed" : " failed: " + result.error())))
+                    .collectSortedList(Comparator.comparingInt(IndexedResult::index))
+                    .block();
+            case OrchestratorWorkflow.NAME -> context -> new OrchestratorWorkflow(this.chatClient, this.llmExecutor)
+                    .process("Write a product description for a new eco-friendly water bottle");
+            case EvaluatorOptimizerWorkflow.NAME -> context -> new EvaluatorOptimizerWorkflow(this.chatClient,
+                    this.llmExecutor, this.preEvaluator.withChecks(List.of(new MinStackCheck())))
+                    .loop(WorkflowController.STACK_TASK, LoopBudget.DEFAULT, context::isCancelled);
+            default -> throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown workflow: " + workflow);
+        };
+
+        try {
+            JobStatus status = this.jobManager.submit(workflow, priority, task);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/workflow/jobs/" + status.id()))
+                    .body(status);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, e.getMessage(), e);
+        }
+    }
+
+    @GetMapping("/workflow/jobs/{id}")
+    @Operation(summary = "Get a workflow job", description = "Returns the state, queue position, progress and, once finished, the result or error of the job.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Job returned"),
+            @ApiResponse(responseCode = "404", description = "Unknown or evicted job")
+    })
+    JobStatus status(@PathVariable("id") String id) {
+        return this.jobManager.status(id).orElseThrow(() -> notFound(id));
+    }
+
+    @GetMapping(value = "/workflow/jobs/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Subscribe to a workflow job", description = "Streams the state changes and progress of the job as server-sent events, starting with the events so far. The stream completes when the job has finished.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Event stream opened"),
+            @ApiResponse(responseCode = "404", description = "Unknown or evicted job")
+    })
+    Flux<ServerSentEvent<JobEvent>> events(@PathVariable("id") String id) {
+        return this.jobManager.events(id).orElseThrow(() -> notFound(id))
+                .map(event -> ServerSentEvent.builder(event)
+                        .event(event.type() == JobEvent.Type.STATE ? event.state().name().toLowerCase() : "progress")
+                        .build());
+    }
+
+    @DeleteMapping("/workflow/jobs/{id}")
+    @Operation(summary = "Cancel a workflow job", description = "Removes a queued job from the queue, or stops a running one.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cancellation requested"),
+            @ApiResponse(responseCode = "404", description = "Unknown or evicted job")
+    })
+    JobStatus cancel(@PathVariable("id") String id) {
+        return this.jobManager.cancel(id).orElseThrow(() -> notFound(id));
+    }
+
+    private static ResponseStatusException notFound(String id) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "Job not found: " + id);
+    }
+}
@@ -0,0 +1,43 @@
+package demo.ai.agentic.controller;
+
+import demo.ai.agentic.journal.WorkflowJournal;
+import demo.ai.agentic.record.JournalStats;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@ConditionalOnProperty(prefix = "workflow.journal", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Tag(name = "Workflow Journal", description = "Workflow checkpoint journal endpoints")
+public class JournalController {
+
+    private final WorkflowJournal journal;
+
+    JournalController(WorkflowJournal journal) {
+        this.journal = journal;
+    }
+
+    @GetMapping("/workflow/journal/stats")
+    @Operation(summary = "Get journal statistics", description = "Returns unfinished runs, file and live bytes, replayed steps and fsync batching of the checkpoint journal.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statistics returned")
+    })
+    JournalStats stats() {
+        return journal.stats();
+    }
+
+    @PostMapping("/workflow/journal/compact")
+    @Operation(summary = "Compact journal", description = "Rewrites the journal with the records of unfinished runs only.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Journal compacted")
+    })
+    JournalStats compact() {
+        journal.compact();
+        return journal.stats();
+    }
+}
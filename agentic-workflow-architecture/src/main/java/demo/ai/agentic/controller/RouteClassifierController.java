@@ -0,0 +1,54 @@
+package demo.ai.agentic.controller;
+
+import demo.ai.agentic.record.RouteClassifierStats;
+import demo.ai.agentic.record.SpeculationStats;
+import demo.ai.agentic.routing.RouteClassifier;
+import demo.ai.agentic.routing.RouteSpeculator;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@Tag(name = "Routing", description = "Route classifier and speculative routing endpoints")
+public class RouteClassifierController {
+
+    private final RouteClassifier routeClassifier;
+    private final RouteSpeculator routeSpeculator;
+
+    RouteClassifierController(RouteClassifier routeClassifier, RouteSpeculator routeSpeculator) {
+        this.routeClassifier = routeClassifier;
+        this.routeSpeculator = routeSpeculator;
+    }
+
+    @GetMapping("/workflow/route/classifier/stats")
+    @Operation(summary = "Get route classifier statistics", description = "Returns the fast-path hit rate, the disagreement rate with the LLM selector and the training set size.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statistics returned")
+    })
+    RouteClassifierStats stats() {
+        return routeClassifier.stats();
+    }
+
+    @PostMapping("/workflow/route/classifier/retrain")
+    @Operation(summary = "Retrain route classifier", description = "Rebuilds the classifier from the seed examples plus the logged LLM routing decisions.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Classifier retrained")
+    })
+    RouteClassifierStats retrain() {
+        routeClassifier.retrain();
+        return routeClassifier.stats();
+    }
+
+    @GetMapping("/workflow/route/speculation/stats")
+    @Operation(summary = "Get speculative routing statistics", description = "Returns how often the speculated specialist matched the selected route, the latency saved and the calls and tokens wasted on discarded specialists.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statistics returned")
+    })
+    SpeculationStats speculationStats() {
+        return routeSpeculator.stats();
+    }
+}
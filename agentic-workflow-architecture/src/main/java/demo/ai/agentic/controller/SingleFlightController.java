@@ -0,0 +1,35 @@
+package demo.ai.agentic.controller;
+
+import demo.ai.agentic.concurrency.SingleFlight;
+import demo.ai.agentic.concurrency.SingleFlightAdvisor;
+import demo.ai.agentic.record.SingleFlightStats;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@Tag(name = "Single Flight", description = "Request coalescing endpoints")
+public class SingleFlightController {
+
+    private final SingleFlight endpointSingleFlight;
+    private final SingleFlightAdvisor singleFlightAdvisor;
+
+    SingleFlightController(SingleFlight endpointSingleFlight, SingleFlightAdvisor singleFlightAdvisor) {
+        this.endpointSingleFlight = endpointSingleFlight;
+        this.singleFlightAdvisor = singleFlightAdvisor;
+    }
+
+    @GetMapping("/workflow/single-flight/stats")
+    @Operation(summary = "Get request coalescing statistics", description = "Returns executed versus coalesced and lingered requests, for the workflow endpoints and for chat model calls.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statistics returned")
+    })
+    List<SingleFlightStats> stats() {
+        return List.of(endpointSingleFlight.stats(), singleFlightAdvisor.stats());
+    }
+}
@@ -1,8 +1,22 @@
 package demo.ai.agentic.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import demo.ai.agentic.concurrency.LlmExecutor;
+import demo.ai.agentic.concurrency.SingleFlight;
 import demo.ai.agentic.constants.RouteConstant;
+import demo.ai.agentic.evaluation.JavaCompilePreEvaluator;
+import demo.ai.agentic.evaluation.MinStackCheck;
+import demo.ai.agentic.journal.RunCheckpoint;
+import demo.ai.agentic.journal.WorkflowJournal;
+import demo.ai.agentic.record.ChainEvent;
 import demo.ai.agentic.record.FinalResponse;
+import demo.ai.agentic.record.IndexedResult;
 import demo.ai.agentic.record.RefinedResponse;
+import demo.ai.agentic.record.RoutedTicket;
+import demo.ai.agentic.record.Ticket;
+import demo.ai.agentic.routing.RouteClassifier;
+import demo.ai.agentic.routing.RouteSpeculator;
 import demo.ai.agentic.workflow.*;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,30 +25,28 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 
 @RestController
 @Tag(name = "Workflow", description = "Agentic workflow design endpoints")
 public class WorkflowController {
 
-    private final ChatClient chatClient;
-
-    WorkflowController(ChatClient chatClient) {
-        this.chatClient = chatClient;
-    }
-
-    @GetMapping("/workflow/chain")
-    @Operation(summary = "Run chain workflow", description = "Executes a simple chain workflow on a sample report and returns the result.")
-    @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Workflow executed successfully")
-    })
-    String chainWorkflow() {
-
-        var report = """
+    static final String SAMPLE_REPORT = """
             Q3 Performance Summary:
             Our customer satisfaction score rose to 92 points this quarter.
             Revenue grew by 45% compared to last year.
@@ -46,7 +58,101 @@ public class WorkflowController {
             Operating margin improved to 34%.
             """;
 
-        return new ChainWorkflow(this.chatClient).chain(report);
+    static final String STACK_TASK = """
+            <user input>
+            Implement a Stack in Java with:
+            1. push(x)
+            2. pop()
+            3. getMin()
+            All operations should be O(1).
+            All inner fields should be private and when used should be prefixed with 'this.'.
+            </user input>
+            """;
+
+    static final String STAKEHOLDER_PROMPT = """
+            Analyze how market changes will impact this stakeholder group.
+            Provide specific impacts and recommended actions.
+            Format with clear sections and priorities.
+            """;
+
+    static final List<String> STAKEHOLDERS = List.of(
+            """
+                    Customers:
+                    - Price sensitive
+                    - Want better tech
+                    - Environmental concerns
+                    """,
+
+            """
+                    Employees:
+                    - Job security worries
+                    - Need new skills
+                    - Want clear direction
+                    """,
+
+            """
+                    Investors:
+                    - Expect growth
+                    - Want cost control
+                    - Risk concerns
+                    """,
+
+            """
+                    Suppliers:
+                    - Capacity constraints
+                    - Price pressures
+                    - Tech transitions
+                    """);
+
+    private final ChatClient chatClient;
+    private final LlmExecutor llmExecutor;
+    private final JavaCompilePreEvaluator preEvaluator;
+    private final RouteClassifier routeClassifier;
+    private final RouteSpeculator routeSpeculator;
+    private final ObjectMapper objectMapper;
+    private final WorkflowJournal journal;
+    private final SingleFlight singleFlight;
+
+    WorkflowController(ChatClient chatClient, LlmExecutor llmExecutor, JavaCompilePreEvaluator preEvaluator,
+                       RouteClassifier routeClassifier, RouteSpeculator routeSpeculator, ObjectMapper objectMapper,
+                       ObjectProvider<WorkflowJournal> journal, SingleFlight singleFlight) {
+        this.chatClient = chatClient;
+        this.llmExecutor = llmExecutor;
+        this.preEvaluator = preEvaluator;
+        this.routeClassifier = routeClassifier;
+        this.routeSpeculator = routeSpeculator;
+        this.objectMapper = objectMapper;
+        this.journal = journal.getIfAvailable();
+        this.singleFlight = singleFlight;
+    }
+
+    @GetMapping("/workflow/chain")
+    @Operation(summary = "Run chain workflow", description = "Executes a simple chain workflow on a sample report and returns the result. Concurrent requests without a run id share one run. With a run id, completed steps are journaled, and repeating the request with the same id resumes the run.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Workflow executed successfully")
+    })
+    String chainWorkflow(
+            @Parameter(description = "Id of the run to checkpoint and resume")
+            @RequestParam(name = "runId", required = false) String runId) {
+
+        if (runId == null || runId.isBlank()) {
+            return this.singleFlight.execute("chain",
+                    () -> new ChainWorkflow(this.chatClient).chain(SAMPLE_REPORT));
+        }
+        return new ChainWorkflow(this.chatClient).chain(SAMPLE_REPORT, checkpoint(ChainWorkflow.NAME, runId));
+    }
+
+    @GetMapping(value = "/workflow/chain/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream chain workflow", description = "Executes the chain workflow on a sample report and streams step-started, token and step-completed events as server-sent events.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Event stream opened")
+    })
+    Flux<ServerSentEvent<ChainEvent>> chainWorkflowStream() {
+
+        return new ChainWorkflow(this.chatClient).chainStream(SAMPLE_REPORT)
+                .map(event -> ServerSentEvent.builder(event)
+                        .event(event.type().name().toLowerCase())
+                        .build());
     }
 
     @GetMapping("/workflow/route/{incidentId}")
@@ -63,86 +169,147 @@ public class WorkflowController {
                     }))
             @PathVariable("incidentId") String incidentId) {
 
-        var routerWorkflow = new RoutingWorkflow(this.chatClient);
+        var routerWorkflow = new RoutingWorkflow(this.chatClient, this.routeClassifier, this.llmExecutor,
+                this.routeSpeculator);
         var ticket = RouteConstant.tickets.get(incidentId);
 
         return ticket == null ? "Ticket not found for id: " + incidentId :
                 routerWorkflow.route(ticket, RouteConstant.supportRoutes);
     }
 
+    @PostMapping(value = "/workflow/route/batch", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Run batch routing workflow", description = "Routes a list of tickets with several tickets per selector and specialist call, and streams one result per ticket as newline-delimited JSON as soon as it completes.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Result stream opened")
+    })
+    Flux<RoutedTicket> routingWorkflowBatch(
+            @RequestBody List<Ticket> tickets,
+            @Parameter(description = "Maximum number of tickets per selector or specialist call")
+            @RequestParam(name = "batchSize", defaultValue = "" + RoutingWorkflow.DEFAULT_BATCH_SIZE) int batchSize,
+            @Parameter(description = "Maximum number of LLM calls in flight for this request")
+            @RequestParam(name = "concurrency", defaultValue = "" + RoutingWorkflow.DEFAULT_BATCH_CONCURRENCY) int concurrency) {
+
+        return new RoutingWorkflow(this.chatClient, this.routeClassifier, this.llmExecutor)
+                .routeBatch(tickets, RouteConstant.supportRoutes, batchSize, concurrency);
+    }
+
+    @PostMapping(value = "/workflow/route/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Run batch routing workflow on NDJSON", description = "Same as the JSON variant, for tickets sent as newline-delimited JSON, one {\"id\", \"text\"} object per line.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Result stream opened"),
+            @ApiResponse(responseCode = "400", description = "A line is not a valid ticket")
+    })
+    Flux<RoutedTicket> routingWorkflowBatchNdjson(
+            @RequestBody String body,
+            @Parameter(description = "Maximum number of tickets per selector or specialist call")
+            @RequestParam(name = "batchSize", defaultValue = "" + RoutingWorkflow.DEFAULT_BATCH_SIZE) int batchSize,
+            @Parameter(description = "Maximum number of LLM calls in flight for this request")
+            @RequestParam(name = "concurrency", defaultValue = "" + RoutingWorkflow.DEFAULT_BATCH_CONCURRENCY) int concurrency) {
+
+        List<Ticket> tickets = new ArrayList<>();
+        List<String> lines = body.lines().toList();
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).isBlank()) {
+                continue;
+            }
+            try {
+                tickets.add(objectMapper.readValue(lines.get(i), Ticket.class));
+            } catch (JsonProcessingException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid ticket on line " + (i + 1), e);
+            }
+        }
+        return routingWorkflowBatch(tickets, batchSize, concurrency);
+    }
+
     @GetMapping("/workflow/parallel")
-    @Operation(summary = "Run parallelization workflow", description = "Runs analysis for multiple stakeholder groups in parallel and returns results.")
+    @Operation(summary = "Run parallelization workflow", description = "Runs analysis for multiple stakeholder groups in parallel and returns results. Concurrent requests share one run.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Parallel workflow executed successfully")
     })
     List<String> parallelWorkflow() {
 
-        return new ParallelizationWorkflow(this.chatClient)
-                .parallel("""
-                                    Analyze how market changes will impact this stakeholder group.
-                                    Provide specific impacts and recommended actions.
-                                    Format with clear sections and priorities.
-                                    """,
-                        List.of(
-                                """
-                                        Customers:
-                                        - Price sensitive
-                                        - Want better tech
-                                        - Environmental concerns
-                                        """,
-
-                                """
-                                        Employees:
-                                        - Job security worries
-                                        - Need new skills
-                                        - Want clear direction
-                                        """,
-
-                                """
-                                        Investors:
-                                        - Expect growth
-                                        - Want cost control
-                                        - Risk concerns
-                                        """,
-
-                                """
-                                        Suppliers:
-                                        - Capacity constraints
-                                        - Price pressures
-                                        - Tech transitions
-                                        """),
-                        4);
+        return this.singleFlight.execute("parallel", () -> new ParallelizationWorkflow(this.chatClient, this.llmExecutor)
+                .parallel(STAKEHOLDER_PROMPT, STAKEHOLDERS, STAKEHOLDERS.size()));
+    }
+
+    @GetMapping("/workflow/parallel/batched")
+    @Operation(summary = "Run micro-batched parallelization workflow", description = "Packs the stakeholder groups into as few structured-output calls as the token budget allows and returns one result per group, in input order.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batched workflow executed successfully")
+    })
+    List<String> parallelWorkflowBatched(
+            @Parameter(description = "Estimated input token budget of one batch call")
+            @RequestParam(name = "batchTokens", defaultValue = "" + ParallelizationWorkflow.DEFAULT_BATCH_TOKEN_BUDGET) int batchTokens) {
+
+        return new ParallelizationWorkflow(this.chatClient, this.llmExecutor)
+                .parallelBatched(STAKEHOLDER_PROMPT, STAKEHOLDERS, STAKEHOLDERS.size(), batchTokens,
+                        ParallelizationWorkflow.DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    @GetMapping(value = "/workflow/parallel/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream parallelization workflow", description = "Runs the stakeholder analysis in parallel and streams each result as soon as it completes. Every event carries the input index and its own success or failure.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Event stream opened")
+    })
+    Flux<ServerSentEvent<IndexedResult>> parallelWorkflowStream(
+            @Parameter(description = "Deadline of a single attempt for one input, in seconds")
+            @RequestParam(name = "timeoutSeconds", defaultValue = "60") long timeoutSeconds,
+            @Parameter(description = "Number of retries for a failed or timed out input")
+            @RequestParam(name = "retries", defaultValue = "1") int retries) {
+
+        return new ParallelizationWorkflow(this.chatClient, this.llmExecutor)
+                .parallelStream(STAKEHOLDER_PROMPT, STAKEHOLDERS, STAKEHOLDERS.size(),
+                        Duration.ofSeconds(timeoutSeconds), retries)
+                .map(result -> ServerSentEvent.builder(result)
+                        .id(String.valueOf(result.index()))
+                        .event(result.success() ? "result" : "failure")
+                        .build());
     }
 
     @GetMapping("/workflow/orchestrate")
-    @Operation(summary = "Run orchestrator workflow", description = "Orchestrates multiple steps to generate a product description.")
+    @Operation(summary = "Run orchestrator workflow", description = "Orchestrates multiple steps to generate a product description. Concurrent requests share one run.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Orchestration completed")
     })
     FinalResponse orchestratorWorkflow() {
 
-        return new OrchestratorWorkflow(this.chatClient)
+        return this.singleFlight.execute("orchestrate", () -> new OrchestratorWorkflow(this.chatClient, this.llmExecutor)
                 .process("Write a product description for " +
-                        "a new eco-friendly water bottle");
+                        "a new eco-friendly water bottle"));
     }
 
     @GetMapping("/workflow/evaluate/optimize")
-    @Operation(summary = "Run evaluator/optimizer workflow", description = "Evaluates and optimizes a coding task and returns the refined result.")
+    @Operation(summary = "Run evaluator/optimizer workflow", description = "Evaluates and optimizes a coding task within an iteration, token and time budget and returns the refined result with the reason the loop stopped. Candidates that do not compile or fail the local checks are rejected without an LLM evaluation. Concurrent requests with the same budget and no run id share one run. With a run id, iterations are journaled and repeating the request resumes the run.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Evaluation and optimization completed")
     })
-    RefinedResponse evaluateOptimizeWorkflow() {
-
-        return new EvaluatorOptimizerWorkflow(this.chatClient)
-                .loop("""
-					<user input>
-					Implement a Stack in Java with:
-					1. push(x)
-					2. pop()
-					3. getMin()
-					All operations should be O(1).
-					All inner fields should be private and when used should be prefixed with 'this.'.
-					</user input>
-					""");
+    RefinedResponse evaluateOptimizeWorkflow(
+            @Parameter(description = "Maximum number of generate/evaluate iterations")
+            @RequestParam(name = "maxIterations", defaultValue = "5") int maxIterations,
+            @Parameter(description = "Maximum number of tokens spent by all calls")
+            @RequestParam(name = "maxTokens", defaultValue = "50000") long maxTokens,
+            @Parameter(description = "Maximum wall-clock time, in seconds")
+            @RequestParam(name = "maxSeconds", defaultValue = "300") long maxSeconds,
+            @Parameter(description = "Candidates generated concurrently per round; more than 1 trades tokens for latency")
+            @RequestParam(name = "candidates", defaultValue = "1") int candidates,
+            @Parameter(description = "Id of the run to checkpoint and resume; not used with more than 1 candidate")
+            @RequestParam(name = "runId", required = false) String runId) {
+
+        var budget = new LoopBudget(maxIterations, maxTokens, Duration.ofSeconds(maxSeconds));
+        var workflow = new EvaluatorOptimizerWorkflow(this.chatClient, this.llmExecutor,
+                this.preEvaluator.withChecks(List.of(new MinStackCheck())));
+        if (candidates == 1 && runId != null && !runId.isBlank()) {
+            return workflow.loop(STACK_TASK, budget, () -> false, checkpoint(EvaluatorOptimizerWorkflow.NAME, runId));
+        }
+        return this.singleFlight.execute("evaluate/optimize:" + budget + ":" + candidates,
+                () -> candidates > 1 ? workflow.speculativeLoop(STACK_TASK, candidates, budget, () -> false)
+                        : workflow.loop(STACK_TASK, budget, () -> false));
+    }
+
+    private RunCheckpoint checkpoint(String workflow, String runId) {
+        return this.journal == null || runId == null || runId.isBlank() ? RunCheckpoint.NONE
+                : this.journal.run(workflow, runId);
     }
 }
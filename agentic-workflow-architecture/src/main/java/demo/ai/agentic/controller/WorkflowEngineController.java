@@ -0,0 +1,96 @@
+package demo.ai.agentic.controller;
+
+import demo.ai.agentic.concurrency.LlmExecutor;
+import demo.ai.agentic.constants.RouteConstant;
+import demo.ai.agentic.engine.PatternDefinitions;
+import demo.ai.agentic.engine.WorkflowDefinition;
+import demo.ai.agentic.engine.WorkflowEngine;
+import demo.ai.agentic.engine.WorkflowSpecs;
+import demo.ai.agentic.record.WorkflowRun;
+import demo.ai.agentic.workflow.ChainWorkflow;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+
+@RestController
+@Tag(name = "Workflow Engine", description = "Declarative workflow engine endpoints")
+public class WorkflowEngineController {
+
+    private final WorkflowEngine engine;
+
+    WorkflowEngineController(ChatClient chatClient, LlmExecutor llmExecutor) {
+        this.engine = new WorkflowEngine(chatClient, llmExecutor, PatternDefinitions.FUNCTIONS);
+    }
+
+    @GetMapping("/workflow/engine/{pattern}")
+    @Operation(summary = "Run a workflow pattern on the engine", description = "Runs one of the five workflow patterns, expressed as a workflow definition, on its sample input and returns the output with per-node timings.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Workflow executed successfully"),
+            @ApiResponse(responseCode = "404", description = "Unknown pattern")
+    })
+    WorkflowRun runPattern(
+            @Parameter(description = "Workflow pattern to run",
+                    schema = @Schema(allowableValues = {
+                            "chain",
+                            "routing",
+                            "parallelization",
+                            "orchestrator",
+                            "evaluator-optimizer"
+                    }))
+            @PathVariable("pattern") String pattern) {
+
+        return switch (pattern) {
+            case "chain" -> engine.run(PatternDefinitions.chain(ChainWorkflow.DEFAULT_STEPS),
+                    Map.of("input", WorkflowController.SAMPLE_REPORT));
+            case "routing" -> engine.run(PatternDefinitions.routing(RouteConstant.supportRoutes),
+                    Map.of("input", RouteConstant.tickets.get("INC001")));
+            case "parallelization" -> engine.run(PatternDefinitions.parallelization(WorkflowController.STAKEHOLDER_PROMPT,
+                            WorkflowController.STAKEHOLDERS.size()),
+                    Map.of("inputs", WorkflowController.STAKEHOLDERS));
+            case "orchestrator" -> engine.run(PatternDefinitions.orchestrator(4),
+                    Map.of("task", "Write a product description for a new eco-friendly water bottle"));
+            case "evaluator-optimizer" -> engine.run(PatternDefinitions.evaluatorOptimizer(5),
+                    Map.of("task", WorkflowController.STACK_TASK));
+            default -> throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown workflow pattern: " + pattern);
+        };
+    }
+
+    @PostMapping(value = "/workflow/engine/run", consumes = {"application/yaml", "application/x-yaml", "application/json", "text/plain"})
+    @Operation(summary = "Run a workflow definition", description = "Parses a workflow definition written in YAML or JSON and runs it with the given input, available to prompts as {input}.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Workflow executed successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid workflow definition")
+    })
+    WorkflowRun runDefinition(
+            @RequestBody String definition,
+            @Parameter(description = "Workflow input, available to prompts as {input}")
+            @RequestParam(name = "input", defaultValue = "") String input) {
+
+        WorkflowDefinition workflow;
+        try {
+            workflow = WorkflowSpecs.parse(definition);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        try {
+            return engine.runAdHoc(workflow, Map.of("input", input));
+        } catch (IllegalArgumentException e) {
+            // e.g. a fan-out over more items than an ad-hoc definition may have
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+}
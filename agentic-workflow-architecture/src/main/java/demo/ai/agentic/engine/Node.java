@@ -0,0 +1,121 @@
+package demo.ai.agentic.engine;
+
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A typed node of a {@link WorkflowDefinition}. Prompts are templates whose
+ * {@code {name}} and {@code {name.path}} placeholders are filled from the workflow
+ * inputs and the outputs of the node's dependencies (see {@link Templates}).
+ */
+public sealed interface Node {
+
+    NodeOptions options();
+
+    default String id() {
+        return options().id();
+    }
+
+    String type();
+
+    /**
+     * Sends the rendered prompt to the chat model. The output is the response text, or
+     * the response converted to {@code outputType} when it is not {@link String}.
+     */
+    record Llm(NodeOptions options, String prompt, Class<?> outputType) implements Node {
+
+        public Llm {
+            Assert.isTrue(StringUtils.hasText(prompt), "Prompt of node " + options.id() + " must not be empty");
+            outputType = outputType == null ? String.class : outputType;
+        }
+
+        @Override
+        public String type() {
+            return "llm";
+        }
+    }
+
+    /**
+     * Runs a local function registered with the {@link WorkflowEngine} on the inputs and
+     * dependency outputs. Functions run inline and should be cheap.
+     */
+    record Local(NodeOptions options, String function) implements Node {
+
+        public Local {
+            Assert.isTrue(StringUtils.hasText(function), "Function of node " + options.id() + " must not be empty");
+        }
+
+        @Override
+        public String type() {
+            return "function";
+        }
+    }
+
+    /**
+     * Asks the chat model which of the routes fits the rendered input best. The output is
+     * the route name; nodes with a {@code when} condition on it form the branches.
+     */
+    record Router(NodeOptions options, String input, List<String> routes) implements Node {
+
+        public Router {
+            Assert.isTrue(StringUtils.hasText(input), "Input of router " + options.id() + " must not be empty");
+            Assert.notEmpty(routes, "Routes of router " + options.id() + " must not be empty");
+            routes = List.copyOf(routes);
+        }
+
+        @Override
+        public String type() {
+            return "router";
+        }
+    }
+
+    /**
+     * Sends the prompt once per element of the list referenced by {@code items}, with at
+     * most {@code concurrency} calls in flight. The element is available as {@code {item}}
+     * and its position as {@code {index}}. The output is the list of responses, in order.
+     */
+    record FanOut(NodeOptions options, String items, String prompt, int concurrency) implements Node {
+
+        public FanOut {
+            Assert.isTrue(StringUtils.hasText(items), "Items of fan-out " + options.id() + " must not be empty");
+            Assert.isTrue(StringUtils.hasText(prompt), "Prompt of fan-out " + options.id() + " must not be empty");
+            Assert.isTrue(concurrency > 0, "Concurrency of fan-out " + options.id() + " must be greater than 0");
+        }
+
+        @Override
+        public String type() {
+            return "fan-out";
+        }
+    }
+
+    /**
+     * Runs the body workflow up to {@code maxIterations} times, until the {@code until}
+     * condition holds on the outputs of an iteration. Every iteration sees the outputs of
+     * the previous one as {@code {last.node}} and its number as {@code {iteration}}. The
+     * output is the map of the body's node outputs of the last iteration.
+     */
+    record Loop(NodeOptions options, WorkflowDefinition body, String until, int maxIterations) implements Node {
+
+        public Loop {
+            Assert.notNull(body, "Body of loop " + options.id() + " must not be null");
+            Assert.isTrue(StringUtils.hasText(until), "Condition of loop " + options.id() + " must not be empty");
+            Assert.isTrue(maxIterations > 0, "Max iterations of loop " + options.id() + " must be greater than 0");
+        }
+
+        @Override
+        public String type() {
+            return "loop";
+        }
+    }
+
+    /**
+     * Signature of the functions that {@link Local} nodes run.
+     */
+    @FunctionalInterface
+    interface LocalFunction extends Function<Map<String, Object>, Object> {
+    }
+}
@@ -0,0 +1,33 @@
+package demo.ai.agentic.engine;
+
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Settings every node shares.
+ *
+ * @param id        unique id of the node, also the name its output is referenced by
+ * @param dependsOn ids of the nodes whose outputs this node needs
+ * @param when      optional condition ({@code node.path == value} or {@code !=}) on the
+ *                  outputs of the dependencies; the node is skipped when it is false
+ * @param timeout   deadline of a single attempt, or null for none
+ * @param retries   number of retries after a failed or timed out attempt
+ */
+public record NodeOptions(String id, List<String> dependsOn, String when, Duration timeout, int retries) {
+
+    public NodeOptions {
+        Assert.isTrue(StringUtils.hasText(id), "Node id must not be empty");
+        Assert.isTrue(!id.contains("."), "Node id must not contain '.': " + id);
+        Assert.isTrue(timeout == null || (!timeout.isNegative() && !timeout.isZero()),
+                "Timeout of node " + id + " must be positive");
+        Assert.isTrue(retries >= 0, "Retries of node " + id + " must not be negative");
+        dependsOn = dependsOn == null ? List.of() : List.copyOf(dependsOn);
+    }
+
+    public NodeOptions(String id, List<String> dependsOn) {
+        this(id, dependsOn, null, null, 0);
+    }
+}
@@ -0,0 +1,169 @@
+package demo.ai.agentic.engine;
+
+import demo.ai.agentic.record.EvaluationResponse;
+import demo.ai.agentic.record.Generation;
+import demo.ai.agentic.record.OrchestratorResponse;
+import demo.ai.agentic.workflow.ChainStep;
+import demo.ai.agentic.workflow.ChainWorkflow;
+import demo.ai.agentic.workflow.EvaluatorOptimizerWorkflow;
+import demo.ai.agentic.workflow.OrchestratorWorkflow;
+import demo.ai.agentic.workflow.ParallelizationWorkflow;
+import demo.ai.agentic.workflow.RoutingWorkflow;
+import org.springframework.util.Assert;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The five workflow patterns of {@code demo.ai.agentic.workflow} expressed as
+ * {@link WorkflowDefinition definitions}, so they run on the {@link WorkflowEngine}.
+ * Every definition reads its input from the workflow input named in its description.
+ */
+public final class PatternDefinitions {
+
+    /**
+     * Sorting and table rendering of the default chain, see {@link #chainFunctions(List)}.
+     */
+    public static final Map<String, Node.LocalFunction> FUNCTIONS = chainFunctions(ChainWorkflow.DEFAULT_STEPS);
+
+    private static final String ORCHESTRATOR_PROMPT = """
+            Analyze this task and break it down into 2-3 distinct approaches:
+
+            Task: {task}
+
+            Return your response in this JSON format:
+            {
+            "analysis": "Explain your understanding of the task and which variations would be valuable.",
+            "tasks": [
+                {"type": "formal", "description": "Write a precise, technical version that emphasizes specifications"},
+                {"type": "conversational", "description": "Write an engaging, friendly version that connects with readers"}
+            ]
+            }
+            """;
+
+    private static final String WORKER_PROMPT = """
+            Generate content based on:
+            Task: {task}
+            Style: {item.type}
+            Guidelines: {item.description}
+            """;
+
+    private PatternDefinitions() {
+    }
+
+    /**
+     * {@link ChainWorkflow}: one node per step, each depending on the previous one. Input
+     * {@code input}. Local steps become function nodes named after the step, which the
+     * engine must know from {@link #chainFunctions(List)}.
+     */
+    public static WorkflowDefinition chain(List<ChainStep> steps) {
+        Assert.notEmpty(steps, "Steps must not be empty");
+
+        WorkflowDefinition.Builder builder = WorkflowDefinition.builder(ChainWorkflow.NAME).maxConcurrency(1);
+        String previous = "input";
+        for (ChainStep step : steps) {
+            String[] dependsOn = previous.equals("input") ? new String[0] : new String[]{previous};
+            switch (step) {
+                case ChainStep.LlmStep llmStep ->
+                        builder.llm(step.name(), llmStep.systemPrompt() + "\n{" + previous + "}", dependsOn);
+                case ChainStep.LocalStep localStep -> builder.function(step.name(), step.name(), dependsOn);
+            }
+            previous = step.name();
+        }
+        return builder.build();
+    }
+
+    /**
+     * Functions of the local steps of a chain, by step name. Each applies the step to the
+     * output of the step before it, or to the {@code input} for the first step.
+     */
+    public static Map<String, Node.LocalFunction> chainFunctions(List<ChainStep> steps) {
+        Map<String, Node.LocalFunction> functions = new HashMap<>();
+        String previous = "input";
+        for (ChainStep step : steps) {
+            if (step instanceof ChainStep.LocalStep localStep) {
+                String source = previous;
+                functions.put(step.name(), scope -> localStep.transformer().apply(Templates.text(scope.get(source))));
+            }
+            previous = step.name();
+        }
+        return Map.copyOf(functions);
+    }
+
+    /**
+     * {@link RoutingWorkflow}: a router over the route names and one branch per route,
+     * of which only the selected one runs. Input {@code input}.
+     *
+     * @param routes prompts of the specialists by route name
+     */
+    public static WorkflowDefinition routing(Map<String, String> routes) {
+        Assert.notEmpty(routes, "Routes must not be empty");
+
+        List<String> names = routes.keySet().stream().sorted().toList();
+        WorkflowDefinition.Builder builder = WorkflowDefinition.builder(RoutingWorkflow.NAME)
+                .router("route", "{input}", names, options -> {
+                });
+        for (String name : names) {
+            builder.llm(name, routes.get(name) + "\n{input}", String.class,
+                    options -> options.dependsOn("route").when("route == " + name));
+        }
+        return builder.output(names.toArray(String[]::new)).build();
+    }
+
+    /**
+     * {@link ParallelizationWorkflow}: the prompt applied to every element of the
+     * {@code inputs} list, with at most {@code concurrency} calls in flight.
+     */
+    public static WorkflowDefinition parallelization(String prompt, int concurrency) {
+        return WorkflowDefinition.builder(ParallelizationWorkflow.NAME)
+                .fanOut("analyses", "inputs", prompt + "\nInput: {item}", concurrency, options -> {
+                })
+                .maxConcurrency(concurrency)
+                .build();
+    }
+
+    /**
+     * {@link OrchestratorWorkflow}: the orchestrator splits the {@code task} input into
+     * subtasks that workers run concurrently. Unlike the class, the workers do not see
+     * each other's results.
+     */
+    public static WorkflowDefinition orchestrator(int concurrency) {
+        return WorkflowDefinition.builder(OrchestratorWorkflow.NAME)
+                .llm("orchestrator", ORCHESTRATOR_PROMPT, OrchestratorResponse.class, options -> {
+                })
+                .fanOut("workers", "orchestrator.tasks", WORKER_PROMPT, concurrency,
+                        options -> options.dependsOn("orchestrator"))
+                .maxConcurrency(concurrency)
+                .build();
+    }
+
+    /**
+     * {@link EvaluatorOptimizerWorkflow}: generates a solution of the {@code task} input
+     * and evaluates it, feeding the evaluation back into the next generation until it
+     * passes or {@code maxIterations} is reached. The output holds the last
+     * {@code generate} and {@code evaluate} outputs.
+     */
+    public static WorkflowDefinition evaluatorOptimizer(int maxIterations) {
+        WorkflowDefinition body = WorkflowDefinition.builder(EvaluatorOptimizerWorkflow.NAME)
+                .llm("generate", EvaluatorOptimizerWorkflow.DEFAULT_GENERATOR_PROMPT + """
+
+                        Previous attempt: {last.generate.response}
+                        Feedback: {last.evaluate.feedback}
+                        Task: {task}""", Generation.class, options -> {
+                })
+                .llm("evaluate", EvaluatorOptimizerWorkflow.DEFAULT_EVALUATOR_PROMPT + """
+
+                        Original task: {task}
+                        Content to evaluate: {generate.response}""", EvaluationResponse.class,
+                        options -> options.dependsOn("generate"))
+                .maxConcurrency(1)
+                .build();
+
+        return WorkflowDefinition.builder(EvaluatorOptimizerWorkflow.NAME)
+                .loop("refine", body, "evaluate.evaluation == PASS", maxIterations, options -> {
+                })
+                .maxConcurrency(1)
+                .build();
+    }
+}
@@ -0,0 +1,130 @@
+package demo.ai.agentic.engine;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Renders prompt templates and evaluates node conditions against a scope of workflow
+ * inputs and node outputs.
+ *
+ * <p>
+ * A placeholder {@code {name}} or {@code {name.path.to.value}} is replaced by the
+ * value at that path, navigating maps, record components, getters and list indexes.
+ * Placeholders whose first segment is not in the scope are left as they are, so JSON
+ * examples in prompts need no escaping; a missing value further down the path renders
+ * as an empty string.
+ */
+final class Templates {
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{([A-Za-z_][\\w-]*(?:\\.[\\w-]+)*)}");
+
+    private static final Pattern CONDITION = Pattern.compile("^\\s*([A-Za-z_][\\w-]*(?:\\.[\\w-]+)*)\\s*(==|!=)\\s*(.*?)\\s*$");
+
+    private Templates() {
+    }
+
+    static String render(String template, Map<String, Object> scope) {
+        Matcher matcher = PLACEHOLDER.matcher(template);
+        StringBuilder rendered = new StringBuilder();
+        while (matcher.find()) {
+            String path = matcher.group(1);
+            String replacement = scope.containsKey(root(path)) ? text(resolve(path, scope)) : matcher.group();
+            matcher.appendReplacement(rendered, Matcher.quoteReplacement(replacement));
+        }
+        matcher.appendTail(rendered);
+        return rendered.toString();
+    }
+
+    /**
+     * Evaluates {@code path == value} or {@code path != value}; the value may be quoted.
+     */
+    static boolean test(String condition, Map<String, Object> scope) {
+        Matcher matcher = CONDITION.matcher(condition);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Invalid condition '" + condition
+                    + "', expected 'node.path == value' or 'node.path != value'");
+        }
+        String expected = unquote(matcher.group(3));
+        boolean equal = text(resolve(matcher.group(1), scope)).equals(expected);
+        return matcher.group(2).equals("==") == equal;
+    }
+
+    static String conditionRoot(String condition) {
+        Matcher matcher = CONDITION.matcher(condition);
+        return matcher.matches() ? root(matcher.group(1)) : null;
+    }
+
+    static Object resolve(String path, Map<String, Object> scope) {
+        String[] segments = path.split("\\.");
+        Object value = scope.get(segments[0]);
+        for (int i = 1; i < segments.length && value != null; i++) {
+            value = child(value, segments[i]);
+        }
+        return value;
+    }
+
+    static String text(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof Collection<?> collection) {
+            return collection.stream().map(Templates::text).collect(Collectors.joining("\n\n"));
+        }
+        return value instanceof Enum<?> constant ? constant.name() : value.toString();
+    }
+
+    private static Object child(Object value, String segment) {
+        if (value instanceof Map<?, ?> map) {
+            return map.get(segment);
+        }
+        if (value instanceof List<?> list) {
+            try {
+                int index = Integer.parseInt(segment);
+                return index >= 0 && index < list.size() ? list.get(index) : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        if (value.getClass().isRecord()) {
+            for (RecordComponent component : value.getClass().getRecordComponents()) {
+                if (component.getName().equals(segment)) {
+                    return invoke(component.getAccessor(), value);
+                }
+            }
+            return null;
+        }
+        String getter = "get" + Character.toUpperCase(segment.charAt(0)) + segment.substring(1);
+        try {
+            return invoke(value.getClass().getMethod(getter), value);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static Object invoke(Method method, Object target) {
+        try {
+            return method.invoke(target);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot read " + method.getName() + " of " + target.getClass(), e);
+        }
+    }
+
+    private static String root(String path) {
+        int dot = path.indexOf('.');
+        return dot < 0 ? path : path.substring(0, dot);
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2 && (value.startsWith("\"") && value.endsWith("\"")
+                || value.startsWith("'") && value.endsWith("'"))) {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+}
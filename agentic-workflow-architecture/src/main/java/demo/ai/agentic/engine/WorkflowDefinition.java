@@ -0,0 +1,208 @@
+package demo.ai.agentic.engine;
+
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A workflow compiled into a DAG of {@link Node nodes}, ready to run on the
+ * {@link WorkflowEngine}. Definitions are built with {@link #builder(String)} or parsed
+ * from YAML/JSON with {@link WorkflowSpecs}.
+ *
+ * @param name           name of the workflow
+ * @param nodes          the nodes, in topological order
+ * @param output         ids of the nodes whose output is the workflow output; the first
+ *                       one that was not skipped wins, which lets router branches share it
+ * @param maxConcurrency maximum number of LLM calls in flight for one run
+ */
+public record WorkflowDefinition(String name, List<Node> nodes, List<String> output, int maxConcurrency) {
+
+    public static final int DEFAULT_MAX_CONCURRENCY = 4;
+
+    public WorkflowDefinition {
+        Assert.isTrue(StringUtils.hasText(name), "Workflow name must not be empty");
+        Assert.notEmpty(nodes, "Workflow " + name + " must have at least one node");
+        Assert.notEmpty(output, "Workflow " + name + " must name its output node");
+        Assert.isTrue(maxConcurrency > 0, "Max concurrency of workflow " + name + " must be greater than 0");
+
+        Map<String, Node> byId = new LinkedHashMap<>();
+        for (Node node : nodes) {
+            Assert.isNull(byId.put(node.id(), node), "Duplicate node id '" + node.id() + "' in workflow " + name);
+        }
+        for (Node node : nodes) {
+            for (String dependency : node.options().dependsOn()) {
+                Assert.isTrue(byId.containsKey(dependency) && !dependency.equals(node.id()),
+                        "Node '" + node.id() + "' depends on unknown node '" + dependency + "'");
+            }
+            String when = node.options().when();
+            if (when != null) {
+                String root = Templates.conditionRoot(when);
+                Assert.isTrue(root != null && node.options().dependsOn().contains(root),
+                        "Condition of node '" + node.id() + "' must test one of its dependencies: " + when);
+            }
+        }
+        for (String id : output) {
+            Assert.isTrue(byId.containsKey(id), "Output node '" + id + "' of workflow " + name + " does not exist");
+        }
+        nodes = topologicalOrder(byId);
+        output = List.copyOf(output);
+    }
+
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    public Node node(String id) {
+        return nodes.stream().filter(node -> node.id().equals(id)).findFirst().orElse(null);
+    }
+
+    /**
+     * Orders the nodes so that every node comes after its dependencies (Kahn's algorithm).
+     *
+     * @throws IllegalStateException if the dependencies contain a cycle
+     */
+    private static List<Node> topologicalOrder(Map<String, Node> byId) {
+        Map<String, Integer> inDegree = new HashMap<>();
+        Map<String, List<String>> dependents = new HashMap<>();
+        byId.values().forEach(node -> {
+            inDegree.put(node.id(), node.options().dependsOn().size());
+            node.options().dependsOn().forEach(dependency ->
+                    dependents.computeIfAbsent(dependency, key -> new ArrayList<>()).add(node.id()));
+        });
+
+        Deque<String> ready = new ArrayDeque<>();
+        byId.keySet().stream().filter(id -> inDegree.get(id) == 0).forEach(ready::add);
+        List<Node> ordered = new ArrayList<>(byId.size());
+        while (!ready.isEmpty()) {
+            String id = ready.poll();
+            ordered.add(byId.get(id));
+            for (String dependent : dependents.getOrDefault(id, List.of())) {
+                if (inDegree.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+
+        if (ordered.size() < byId.size()) {
+            List<String> cyclic = byId.keySet().stream().filter(id -> inDegree.get(id) > 0).toList();
+            throw new IllegalStateException("Workflow nodes have cyclic dependencies between " + cyclic);
+        }
+        return List.copyOf(ordered);
+    }
+
+    /**
+     * Java DSL for workflow definitions. Unless stated otherwise with {@link #output},
+     * the output of the workflow is the output of the last node added.
+     */
+    public static final class Builder {
+
+        private final String name;
+        private final List<Node> nodes = new ArrayList<>();
+        private List<String> output;
+        private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+
+        private Builder(String name) {
+            this.name = name;
+        }
+
+        public Builder llm(String id, String prompt, String... dependsOn) {
+            return llm(id, prompt, String.class, options -> options.dependsOn(dependsOn));
+        }
+
+        public Builder llm(String id, String prompt, Class<?> outputType, Consumer<Options> options) {
+            return add(new Node.Llm(options(id, options), prompt, outputType));
+        }
+
+        public Builder function(String id, String function, String... dependsOn) {
+            return function(id, function, options -> options.dependsOn(dependsOn));
+        }
+
+        public Builder function(String id, String function, Consumer<Options> options) {
+            return add(new Node.Local(options(id, options), function));
+        }
+
+        public Builder router(String id, String input, List<String> routes, Consumer<Options> options) {
+            return add(new Node.Router(options(id, options), input, routes));
+        }
+
+        public Builder fanOut(String id, String items, String prompt, int concurrency, Consumer<Options> options) {
+            return add(new Node.FanOut(options(id, options), items, prompt, concurrency));
+        }
+
+        public Builder loop(String id, WorkflowDefinition body, String until, int maxIterations,
+                            Consumer<Options> options) {
+            return add(new Node.Loop(options(id, options), body, until, maxIterations));
+        }
+
+        public Builder output(String... nodeIds) {
+            this.output = List.of(nodeIds);
+            return this;
+        }
+
+        public Builder maxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        public WorkflowDefinition build() {
+            List<String> outputNodes = output != null ? output
+                    : nodes.isEmpty() ? List.of() : List.of(nodes.getLast().id());
+            return new WorkflowDefinition(name, nodes, outputNodes, maxConcurrency);
+        }
+
+        private Builder add(Node node) {
+            nodes.add(node);
+            return this;
+        }
+
+        private static NodeOptions options(String id, Consumer<Options> customizer) {
+            Options options = new Options();
+            customizer.accept(options);
+            return new NodeOptions(id, options.dependsOn, options.when, options.timeout, options.retries);
+        }
+    }
+
+    /**
+     * Node settings of the {@link Builder}.
+     */
+    public static final class Options {
+
+        private List<String> dependsOn = List.of();
+        private String when;
+        private Duration timeout;
+        private int retries;
+
+        private Options() {
+        }
+
+        public Options dependsOn(String... nodeIds) {
+            this.dependsOn = Arrays.asList(nodeIds);
+            return this;
+        }
+
+        public Options when(String condition) {
+            this.when = condition;
+            return this;
+        }
+
+        public Options timeout(Duration timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
+        public Options retries(int retries) {
+            this.retries = retries;
+            return this;
+        }
+    }
+}
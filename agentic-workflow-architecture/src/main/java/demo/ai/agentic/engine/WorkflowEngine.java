@@ -0,0 +1,441 @@
+package demo.ai.agentic.engine;
+
+import demo.ai.agentic.concurrency.LlmExecutor;
+import demo.ai.agentic.record.NodeRun;
+import demo.ai.agentic.record.RoutingResponse;
+import demo.ai.agentic.record.WorkflowRun;
+import demo.ai.agentic.workflow.WorkflowStep;
+import demo.ai.commons.metrics.LlmMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs {@link WorkflowDefinition workflow DAGs} without blocking a thread per node.
+ *
+ * <p>
+ * Every node is a {@link CompletableFuture} composed on the futures of its dependencies,
+ * so independent nodes run concurrently and a node starts as soon as its last dependency
+ * completes. LLM calls go through the shared {@link LlmExecutor}: the calls of one run
+ * share the workflow's {@code maxConcurrency} slots, and the calls of a fan-out node are
+ * additionally limited to the node's concurrency. Every attempt of a node has the node's
+ * timeout, and failed attempts are retried with exponential backoff, at most 30 seconds.
+ * When a node fails for good, the calls still in flight are cancelled and the run fails
+ * with its error. A fan-out node of an ad-hoc definition fails when it has more than
+ * {@value #MAX_AD_HOC_FAN_OUT} items.
+ *
+ * <p>
+ * LLM calls are tagged with {@link WorkflowStep} keys (workflow name, node id), so the
+ * step cache can be enabled per node; the calls of a fan-out node share its id. The
+ * metrics of {@link #runAdHoc ad-hoc} definitions are tagged with {@value #AD_HOC} and the
+ * node type instead, so that names chosen by clients cannot grow the set of meters.
+ */
+public class WorkflowEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkflowEngine.class);
+
+    /**
+     * Workflow tag of the calls and metrics of ad-hoc definitions.
+     */
+    public static final String AD_HOC = "custom";
+
+    /**
+     * Items a fan-out node of an ad-hoc definition may call the model for.
+     */
+    public static final int MAX_AD_HOC_FAN_OUT = 100;
+
+    private static final Duration RETRY_BACKOFF = Duration.ofMillis(500);
+
+    private static final Duration MAX_RETRY_BACKOFF = Duration.ofSeconds(30);
+
+    private static final String ROUTER_PROMPT = """
+            Analyze the input and select the most appropriate option from these options: %s
+            First explain your reasoning, then provide your selection.
+
+            Input: %s""";
+
+    private final ChatClient chatClient;
+    private final LlmExecutor llmExecutor;
+    private final Map<String, Node.LocalFunction> functions;
+
+    public WorkflowEngine(ChatClient chatClient, LlmExecutor llmExecutor) {
+        this(chatClient, llmExecutor, Map.of());
+    }
+
+    /**
+     * @param functions local functions by name, for {@link Node.Local} nodes
+     */
+    public WorkflowEngine(ChatClient chatClient, LlmExecutor llmExecutor, Map<String, Node.LocalFunction> functions) {
+        Assert.notNull(chatClient, "ChatClient must not be null");
+        Assert.notNull(llmExecutor, "LlmExecutor must not be null");
+        Assert.notNull(functions, "Functions must not be null");
+
+        this.chatClient = chatClient;
+        this.llmExecutor = llmExecutor;
+        this.functions = Map.copyOf(functions);
+    }
+
+    /**
+     * Runs the workflow and waits for its result.
+     *
+     * @param inputs values available to every template as {@code {name}}
+     */
+    public WorkflowRun run(WorkflowDefinition definition, Map<String, Object> inputs) {
+        try {
+            return runAsync(definition, inputs).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    public CompletableFuture<WorkflowRun> runAsync(WorkflowDefinition definition, Map<String, Object> inputs) {
+        return runAsync(definition, inputs, false);
+    }
+
+    /**
+     * Runs a definition supplied by a client and waits for its result. Its calls and
+     * metrics are tagged with workflow {@value #AD_HOC} and the node type as step.
+     */
+    public WorkflowRun runAdHoc(WorkflowDefinition definition, Map<String, Object> inputs) {
+        try {
+            return runAsync(definition, inputs, true).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private CompletableFuture<WorkflowRun> runAsync(WorkflowDefinition definition, Map<String, Object> inputs,
+                                                    boolean adHoc) {
+        Assert.notNull(definition, "Workflow definition must not be null");
+        Assert.notNull(inputs, "Inputs must not be null");
+
+        Run run = new Run(adHoc ? AD_HOC : definition.name(), adHoc);
+        LlmExecutor.Batch calls = llmExecutor.batch(definition.maxConcurrency());
+        return execute(definition, inputs, calls, run, "")
+                .handle((outcomes, error) -> {
+                    if (error != null) {
+                        run.cancel();
+                        throw error instanceof CompletionException completion ? completion : new CompletionException(error);
+                    }
+                    Map<String, Object> outputs = outputs(outcomes);
+                    Object output = definition.output().stream()
+                            .filter(id -> !outcomes.get(id).skipped())
+                            .findFirst()
+                            .map(outputs::get)
+                            .orElse(null);
+                    List<NodeRun> nodes = run.nodes.stream()
+                            .sorted(Comparator.comparingLong(NodeRun::startOffsetMillis))
+                            .toList();
+                    long elapsed = run.offsetMillis();
+                    log.info("Workflow '{}' completed {} node(s) in {} ms", definition.name(), nodes.size(), elapsed);
+                    return new WorkflowRun(definition.name(), output, outputs, nodes, elapsed);
+                });
+    }
+
+    /**
+     * Composes the node futures of one definition.
+     *
+     * @param prefix prefix of the node ids in the recorded node runs, for loop bodies
+     */
+    private CompletableFuture<Map<String, Outcome>> execute(WorkflowDefinition definition, Map<String, Object> inputs,
+                                                            LlmExecutor.Batch calls, Run run, String prefix) {
+        // Only used by this thread; a node reads the outcomes of its own dependency futures.
+        Map<String, CompletableFuture<Outcome>> futures = new LinkedHashMap<>();
+        for (Node node : definition.nodes()) {
+            List<String> dependencies = node.options().dependsOn();
+            List<CompletableFuture<Outcome>> dependencyFutures = dependencies.stream()
+                    .map(futures::get)
+                    .toList();
+            CompletableFuture<?>[] ready = dependencyFutures.toArray(CompletableFuture[]::new);
+
+            CompletableFuture<Outcome> future = CompletableFuture.allOf(ready).thenCompose(ignored -> {
+                Map<String, Object> scope = new HashMap<>(inputs);
+                boolean dependencySkipped = false;
+                for (int i = 0; i < dependencies.size(); i++) {
+                    Outcome outcome = dependencyFutures.get(i).join();
+                    dependencySkipped |= outcome.skipped();
+                    scope.put(dependencies.get(i), outcome.output());
+                }
+                String when = node.options().when();
+                if (dependencySkipped || (when != null && !Templates.test(when, scope))) {
+                    run.record(node, prefix, NodeRun.Status.SKIPPED, 0, run.offsetMillis(), null);
+                    return CompletableFuture.completedFuture(Outcome.SKIPPED);
+                }
+                return runNode(definition.name(), node, scope, calls, run, prefix);
+            });
+            future.whenComplete((outcome, error) -> {
+                if (error != null) {
+                    run.cancel();
+                }
+            });
+            futures.put(node.id(), future);
+        }
+
+        return CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    Map<String, Outcome> outcomes = new LinkedHashMap<>();
+                    futures.forEach((id, future) -> outcomes.put(id, future.join()));
+                    return outcomes;
+                });
+    }
+
+    private CompletableFuture<Outcome> runNode(String workflow, Node node, Map<String, Object> scope,
+                                               LlmExecutor.Batch calls, Run run, String prefix) {
+        long start = run.offsetMillis();
+        AtomicInteger attempts = new AtomicInteger();
+        String tag = run.workflowTag(workflow);
+        String step = run.stepTag(node);
+        CompletableFuture<Object> output = switch (node) {
+            case Node.Llm llm -> {
+                String prompt = Templates.render(llm.prompt(), scope);
+                yield withRetries(llm.options(), attempts, run,
+                        () -> calls.submit(() -> call(tag, step, prompt, llm.outputType())));
+            }
+            case Node.Local local -> withRetries(local.options(), attempts, run, () -> invoke(local, scope));
+            case Node.Router router -> {
+                String input = Templates.render(router.input(), scope);
+                yield withRetries(router.options(), attempts, run,
+                        () -> calls.submit(() -> selectRoute(tag, step, router, input)));
+            }
+            case Node.FanOut fanOut -> fanOut(tag, step, fanOut, scope, calls, run, attempts);
+            case Node.Loop loop -> loop(loop, scope, calls, run, prefix + loop.id() + "/", 1, Map.of(), attempts);
+        };
+
+        return output.handle((value, error) -> {
+            long duration = run.offsetMillis() - start;
+            LlmMetrics.stepCompleted(tag, step, Duration.ofMillis(duration), error == null);
+            if (error != null) {
+                Throwable cause = cause(error);
+                run.record(node, prefix, NodeRun.Status.FAILED, attempts.get(), start, duration, describe(cause));
+                throw new CompletionException(cause);
+            }
+            run.record(node, prefix, NodeRun.Status.COMPLETED, attempts.get(), start, duration, null);
+            return new Outcome(value, false);
+        });
+    }
+
+    private Object call(String workflow, String nodeId, String prompt, Class<?> outputType) {
+        ChatClient.CallResponseSpec response = chatClient.prompt(prompt)
+                .advisors(WorkflowStep.of(workflow, nodeId))
+                .call();
+        return outputType == String.class ? response.content() : response.entity(outputType);
+    }
+
+    private String selectRoute(String workflow, String step, Node.Router router, String input) {
+        RoutingResponse response = chatClient.prompt(String.format(ROUTER_PROMPT, router.routes(), input))
+                .advisors(WorkflowStep.of(workflow, step))
+                .call()
+                .entity(RoutingResponse.class);
+        if (response == null || !router.routes().contains(response.selection())) {
+            throw new IllegalStateException("Router '" + router.id() + "' selected unknown route '"
+                    + (response != null ? response.selection() : null) + "'");
+        }
+        log.info("Router '{}' selected route '{}': {}", router.id(), response.selection(), response.reasoning());
+        return response.selection();
+    }
+
+    private CompletableFuture<Object> invoke(Node.Local local, Map<String, Object> scope) {
+        Node.LocalFunction function = functions.get(local.function());
+        if (function == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException(
+                    "Unknown function '" + local.function() + "' of node '" + local.id() + "'"));
+        }
+        return CompletableFuture.supplyAsync(() -> function.apply(scope), Runnable::run);
+    }
+
+    private CompletableFuture<Object> fanOut(String workflow, String step, Node.FanOut fanOut,
+                                             Map<String, Object> scope, LlmExecutor.Batch calls, Run run,
+                                             AtomicInteger attempts) {
+        Object items = Templates.resolve(fanOut.items(), scope);
+        if (!(items instanceof Collection<?> collection)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Items '" + fanOut.items()
+                    + "' of fan-out '" + fanOut.id() + "' must resolve to a list, got " + items));
+        }
+
+        if (run.adHoc && collection.size() > MAX_AD_HOC_FAN_OUT) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Fan-out '" + fanOut.id()
+                    + "' has " + collection.size() + " items, more than " + MAX_AD_HOC_FAN_OUT));
+        }
+
+        LlmExecutor.Batch itemCalls = calls.nested(fanOut.concurrency());
+        List<Object> elements = new ArrayList<>(collection);
+        List<CompletableFuture<Object>> results = new ArrayList<>(elements.size());
+        for (int i = 0; i < elements.size(); i++) {
+            Map<String, Object> itemScope = new HashMap<>(scope);
+            itemScope.put("item", elements.get(i));
+            itemScope.put("index", i);
+            String prompt = Templates.render(fanOut.prompt(), itemScope);
+            results.add(withRetries(fanOut.options(), attempts, run,
+                    () -> itemCalls.submit(() -> call(workflow, step, prompt, String.class))));
+        }
+        return CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    List<Object> outputs = new ArrayList<>(results.size());
+                    results.forEach(result -> outputs.add(result.join()));
+                    return outputs;
+                });
+    }
+
+    /**
+     * Runs one iteration of the loop body and, unless the condition holds or the last
+     * iteration was reached, composes the next one on it.
+     */
+    private CompletableFuture<Object> loop(Node.Loop loop, Map<String, Object> scope, LlmExecutor.Batch calls,
+                                           Run run, String prefix, int iteration, Map<String, Object> last,
+                                           AtomicInteger attempts) {
+        attempts.incrementAndGet();
+        Map<String, Object> inputs = new HashMap<>(scope);
+        inputs.put("iteration", iteration);
+        inputs.put("last", last);
+        return execute(loop.body(), inputs, calls, run, prefix + iteration + "/").thenCompose(outcomes -> {
+            Map<String, Object> outputs = outputs(outcomes);
+            if (Templates.test(loop.until(), outputs) || iteration >= loop.maxIterations()) {
+                log.info("Loop '{}' stopped after {} iteration(s)", loop.id(), iteration);
+                outputs.put("iteration", iteration);
+                return CompletableFuture.completedFuture(outputs);
+            }
+            return loop(loop, scope, calls, run, prefix, iteration + 1, outputs, attempts);
+        });
+    }
+
+    private <T> CompletableFuture<T> withRetries(NodeOptions options, AtomicInteger attempts, Run run,
+                                                 Supplier<CompletableFuture<T>> launch) {
+        return withRetries(options, attempts, run, launch, 0);
+    }
+
+    private <T> CompletableFuture<T> withRetries(NodeOptions options, AtomicInteger attempts, Run run,
+                                                 Supplier<CompletableFuture<T>> launch, int retry) {
+        attempts.incrementAndGet();
+        return attempt(options, run, launch).exceptionallyCompose(error -> {
+            Throwable cause = cause(error);
+            if (retry >= options.retries() || run.cancelled.get()) {
+                return CompletableFuture.failedFuture(cause);
+            }
+            // Shifting by more than a few bits would overflow into a zero or negative delay.
+            long backoff = Math.min(RETRY_BACKOFF.toMillis() << Math.min(retry, 6), MAX_RETRY_BACKOFF.toMillis());
+            log.warn("Node '{}' failed ({}), retrying in {} ms", options.id(), describe(cause), backoff);
+            LlmMetrics.retry(run.workflow, run.adHoc ? AD_HOC : options.id());
+            return CompletableFuture.supplyAsync(() -> null,
+                            CompletableFuture.delayedExecutor(backoff, TimeUnit.MILLISECONDS))
+                    .thenCompose(ignored -> withRetries(options, attempts, run, launch, retry + 1));
+        });
+    }
+
+    private <T> CompletableFuture<T> attempt(NodeOptions options, Run run, Supplier<CompletableFuture<T>> launch) {
+        CompletableFuture<T> call = launch.get();
+        run.track(call);
+        if (options.timeout() == null) {
+            return call;
+        }
+
+        AtomicBoolean timedOut = new AtomicBoolean();
+        CompletableFuture.delayedExecutor(options.timeout().toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+            if (!call.isDone() && timedOut.compareAndSet(false, true)) {
+                // Cancelling interrupts the call on the LlmExecutor.
+                call.cancel(true);
+            }
+        });
+        return call.exceptionallyCompose(error -> CompletableFuture.failedFuture(timedOut.get()
+                ? new TimeoutException("Node '" + options.id() + "' timed out after " + options.timeout().toMillis() + " ms")
+                : cause(error)));
+    }
+
+    private static Map<String, Object> outputs(Map<String, Outcome> outcomes) {
+        Map<String, Object> outputs = new LinkedHashMap<>();
+        outcomes.forEach((id, outcome) -> {
+            if (!outcome.skipped()) {
+                outputs.put(id, outcome.output());
+            }
+        });
+        return outputs;
+    }
+
+    private static Throwable cause(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static String describe(Throwable error) {
+        return error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+    }
+
+    private record Outcome(Object output, boolean skipped) {
+
+        static final Outcome SKIPPED = new Outcome(null, true);
+    }
+
+    /**
+     * State of one workflow run: node timings and the calls in flight.
+     */
+    private static final class Run {
+
+        private final String workflow;
+        private final boolean adHoc;
+        private final long start = System.nanoTime();
+        private final Queue<NodeRun> nodes = new ConcurrentLinkedQueue<>();
+        private final Queue<CompletableFuture<?>> inFlight = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+
+        Run(String workflow, boolean adHoc) {
+            this.workflow = workflow;
+            this.adHoc = adHoc;
+        }
+
+        /**
+         * Workflow tag of the calls and metrics of a node of the given definition, which
+         * may be a loop body.
+         */
+        String workflowTag(String definition) {
+            return adHoc ? AD_HOC : definition;
+        }
+
+        String stepTag(Node node) {
+            return adHoc ? node.type() : node.id();
+        }
+
+        long offsetMillis() {
+            return Duration.ofNanos(System.nanoTime() - start).toMillis();
+        }
+
+        void record(Node node, String prefix, NodeRun.Status status, int attempts, long startOffset, String error) {
+            record(node, prefix, status, attempts, startOffset, 0, error);
+        }
+
+        void record(Node node, String prefix, NodeRun.Status status, int attempts, long startOffset, long duration,
+                    String error) {
+            nodes.add(new NodeRun(prefix + node.id(), node.type(), status, attempts, startOffset, duration, error));
+        }
+
+        void track(CompletableFuture<?> call) {
+            inFlight.add(call);
+            call.whenComplete((value, error) -> inFlight.remove(call));
+            if (cancelled.get()) {
+                call.cancel(true);
+            }
+        }
+
+        void cancel() {
+            if (cancelled.compareAndSet(false, true)) {
+                inFlight.forEach(call -> call.cancel(true));
+            }
+        }
+    }
+}
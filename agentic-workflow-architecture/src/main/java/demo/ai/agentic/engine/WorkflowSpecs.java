@@ -0,0 +1,151 @@
+package demo.ai.agentic.engine;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Parses workflow definitions written in YAML or JSON (JSON being a subset of YAML):
+ *
+ * <pre>
+ * name: summarize
+ * maxConcurrency: 4
+ * output: [summary]
+ * nodes:
+ *   - id: facts
+ *     type: llm
+ *     prompt: "List the facts in: {input}"
+ *     timeout: 30s
+ *     retries: 1
+ *   - id: summary
+ *     type: llm
+ *     prompt: "Summarize: {facts}"
+ *     dependsOn: [facts]
+ * </pre>
+ *
+ * Node types are {@code llm} ({@code prompt}, optional {@code outputType}),
+ * {@code function} ({@code function}), {@code router} ({@code input}, {@code routes}),
+ * {@code fan-out} ({@code items}, {@code prompt}, {@code concurrency}) and {@code loop}
+ * ({@code body}, {@code until}, {@code maxIterations}). An {@code outputType} is the simple
+ * name of a record in {@code demo.ai.agentic.record}; definitions come from clients, so no
+ * other class is ever loaded for them. For the same reason retries, loop iterations and
+ * concurrency are capped at {@value #MAX_RETRIES}, {@value #MAX_ITERATIONS} and
+ * {@value #MAX_CONCURRENCY}.
+ */
+public final class WorkflowSpecs {
+
+    public static final int MAX_RETRIES = 5;
+
+    public static final int MAX_ITERATIONS = 20;
+
+    public static final int MAX_CONCURRENCY = 16;
+
+    private static final ObjectMapper MAPPER = new YAMLMapper();
+
+    private static final String RECORD_PACKAGE = "demo.ai.agentic.record.";
+
+    private static final Pattern SIMPLE_NAME = Pattern.compile("[A-Z][A-Za-z0-9]*");
+
+    private WorkflowSpecs() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the source is not a valid definition
+     */
+    public static WorkflowDefinition parse(String source) {
+        Assert.isTrue(StringUtils.hasText(source), "Workflow definition must not be empty");
+        try {
+            return compile(MAPPER.readValue(source, WorkflowSpec.class), null);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid workflow definition: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private static WorkflowDefinition compile(WorkflowSpec spec, String defaultName) {
+        String name = spec.name() != null ? spec.name() : defaultName;
+        Assert.notEmpty(spec.nodes(), "Workflow " + name + " must have at least one node");
+
+        WorkflowDefinition.Builder builder = WorkflowDefinition.builder(name);
+        for (NodeSpec node : spec.nodes()) {
+            Assert.notNull(node.type(), "Type of node " + node.id() + " must not be empty");
+            int retries = capped(node.retries(), 0, MAX_RETRIES, "Retries of node " + node.id());
+            Consumer<WorkflowDefinition.Options> options = settings -> settings
+                    .dependsOn(node.dependsOn() == null ? new String[0] : node.dependsOn().toArray(String[]::new))
+                    .when(node.when())
+                    .timeout(duration(node.timeout()))
+                    .retries(retries);
+
+            switch (node.type()) {
+                case "llm" -> builder.llm(node.id(), node.prompt(), outputType(node.outputType()), options);
+                case "function" -> builder.function(node.id(), node.function(), options);
+                case "router" -> builder.router(node.id(), node.input(), node.routes(), options);
+                case "fan-out" -> builder.fanOut(node.id(), node.items(), node.prompt(),
+                        capped(node.concurrency(), WorkflowDefinition.DEFAULT_MAX_CONCURRENCY, MAX_CONCURRENCY,
+                                "Concurrency of fan-out " + node.id()),
+                        options);
+                case "loop" -> {
+                    Assert.notNull(node.body(), "Body of loop " + node.id() + " must not be empty");
+                    builder.loop(node.id(), compile(node.body(), name), node.until(),
+                            capped(node.maxIterations(), 1, MAX_ITERATIONS, "Max iterations of loop " + node.id()),
+                            options);
+                }
+                default -> throw new IllegalArgumentException("Unknown type '" + node.type() + "' of node "
+                        + node.id() + ", expected llm, function, router, fan-out or loop");
+            }
+        }
+        if (spec.output() != null) {
+            builder.output(spec.output().toArray(String[]::new));
+        }
+        if (spec.maxConcurrency() != null) {
+            builder.maxConcurrency(capped(spec.maxConcurrency(), WorkflowDefinition.DEFAULT_MAX_CONCURRENCY,
+                    MAX_CONCURRENCY, "Max concurrency of workflow " + name));
+        }
+        return builder.build();
+    }
+
+    private static int capped(Integer value, int defaultValue, int max, String description) {
+        if (value == null) {
+            return defaultValue;
+        }
+        Assert.isTrue(value <= max, description + " must not be greater than " + max + ", was " + value);
+        return value;
+    }
+
+    private static Duration duration(String value) {
+        return StringUtils.hasText(value) ? DurationStyle.detectAndParse(value) : null;
+    }
+
+    private static Class<?> outputType(String type) {
+        if (!StringUtils.hasText(type)) {
+            return String.class;
+        }
+        Assert.isTrue(SIMPLE_NAME.matcher(type).matches(),
+                "Output type '" + type + "' must be the simple name of a record in " + RECORD_PACKAGE);
+        Class<?> outputType;
+        try {
+            // Not initialized: the class is only checked and handed to the output converter.
+            outputType = Class.forName(RECORD_PACKAGE + type, false, WorkflowSpecs.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Unknown output type '" + type + "'", e);
+        }
+        Assert.isTrue(outputType.isRecord(), "Output type '" + type + "' is not a record");
+        return outputType;
+    }
+
+    private record WorkflowSpec(String name, List<NodeSpec> nodes, List<String> output, Integer maxConcurrency) {
+    }
+
+    private record NodeSpec(String id, String type, List<String> dependsOn, String when, String timeout,
+                            Integer retries, String prompt, String outputType, String function, String input,
+                            List<String> routes, String items, Integer concurrency, WorkflowSpec body,
+                            String until, Integer maxIterations) {
+    }
+}
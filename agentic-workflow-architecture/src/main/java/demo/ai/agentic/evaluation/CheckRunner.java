@@ -0,0 +1,41 @@
+package demo.ai.agentic.evaluation;
+
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Main class of the separate JVM that {@link JavaCompilePreEvaluator} runs the checks
+ * of a candidate in. Its class path holds only the candidate, the checks and this class,
+ * so it must not depend on anything but the JDK and {@link CodeCheck}.
+ *
+ * <p>
+ * Arguments: the file to write the outcome to, the candidate class and the check
+ * classes. The outcome is {@code OK}, or the failure of the first check that failed;
+ * without it the run counts as failed, whatever the exit code.
+ */
+final class CheckRunner {
+
+    static final String OK = "OK";
+
+    private CheckRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path outcome = Path.of(args[0]);
+        try {
+            Class<?> candidate = Class.forName(args[1], false, CheckRunner.class.getClassLoader());
+            for (int i = 2; i < args.length; i++) {
+                CodeCheck check = (CodeCheck) Class.forName(args[i]).getDeclaredConstructor().newInstance();
+                check.verify(candidate);
+            }
+        } catch (Throwable e) {
+            Throwable cause = e instanceof InvocationTargetException target ? target.getCause() : e;
+            Files.writeString(outcome, String.valueOf(cause), StandardCharsets.UTF_8);
+            System.exit(1);
+        }
+        Files.writeString(outcome, OK, StandardCharsets.UTF_8);
+        System.exit(0);
+    }
+}
@@ -0,0 +1,17 @@
+package demo.ai.agentic.evaluation;
+
+/**
+ * Caller-provided check of a compiled candidate class, e.g. a few assertions written
+ * against it through reflection. A check fails by throwing; the exception message
+ * becomes the feedback for the generator.
+ *
+ * <p>
+ * Checks run in a separate JVM that only has the candidate and the check class on its
+ * class path, so implementations must be top-level classes with a no-argument
+ * constructor that depend on nothing but the JDK.
+ */
+@FunctionalInterface
+public interface CodeCheck {
+
+    void verify(Class<?> candidate) throws Exception;
+}
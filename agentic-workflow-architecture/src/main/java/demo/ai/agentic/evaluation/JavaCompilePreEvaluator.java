@@ -0,0 +1,383 @@
+package demo.ai.agentic.evaluation;
+
+import demo.ai.agentic.cache.CacheKeys;
+import demo.ai.agentic.record.EvaluationResponse;
+import demo.ai.agentic.record.EvaluationResponse.Evaluation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.FileSystemUtils;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Compiles a generated Java solution in-process with {@link JavaCompiler} and fails it
+ * immediately with the compiler diagnostics, so code that does not compile never costs
+ * an LLM evaluation. When enabled, code that compiles is additionally run against
+ * caller-provided {@link CodeCheck checks}.
+ *
+ * <p>
+ * Generated code is never loaded into this JVM. Running it is off by default; when on,
+ * candidates that use anything beyond plain computation (the system, processes,
+ * threads, files, the network, reflection) are rejected from their source, and the
+ * checks of the others run in a separate JVM with a small heap, which is killed when
+ * it does not finish within the timeout. Verdicts are cached by the hash of the code,
+ * except those of runs that timed out or were interrupted.
+ *
+ * <p>
+ * On a runtime without a system compiler (a JRE) this pre-evaluator is a no-op and
+ * every candidate goes to the LLM evaluator.
+ */
+public class JavaCompilePreEvaluator implements PreEvaluator {
+
+    private static final Logger log = LoggerFactory.getLogger(JavaCompilePreEvaluator.class);
+
+    private static final Pattern CODE_FENCE = Pattern.compile("```(?:java)?\\s*\\n(.*?)```", Pattern.DOTALL);
+    private static final Pattern PACKAGE = Pattern.compile("^\\s*package\\s+([\\w.]+)\\s*;", Pattern.MULTILINE);
+    private static final Pattern PUBLIC_TYPE = Pattern.compile(
+            "public\\s+(?:(?:final|abstract|sealed|static)\\s+)*(?:class|interface|enum|record)\\s+(\\w+)");
+    private static final Pattern ANY_TYPE = Pattern.compile("(?:class|interface|enum|record)\\s+(\\w+)");
+    private static final Pattern FORBIDDEN_API = Pattern.compile("\\b(?:System|Runtime|ProcessBuilder|Process"
+            + "|ProcessHandle|Thread|ThreadGroup|ClassLoader|ModuleLayer|Unsafe)\\b|\\bClass\\s*\\.\\s*forName\\b"
+            + "|\\bjava\\s*\\.\\s*(?:io|nio|net|lang\\s*\\.\\s*(?:reflect|invoke|foreign|instrument))\\b"
+            + "|\\b(?:sun|jdk|com\\s*\\.\\s*sun)\\s*\\.|\\\\u");
+    private static final int MAX_DIAGNOSTICS = 10;
+    private static final int MAX_FEEDBACK_CHARS = 1000;
+    private static final List<String> CHECK_JVM_OPTIONS = List.of("-Xmx64m", "-Xss512k", "-XX:+UseSerialGC",
+            "-XX:TieredStopAtLevel=1", "-XX:-UsePerfData", "-Djava.awt.headless=true");
+
+    private final JavaCompiler compiler;
+    private final boolean runChecks;
+    private final List<CodeCheck> checks;
+    private final Duration checkTimeout;
+    private final Map<String, Optional<EvaluationResponse>> verdicts;
+
+    private final LongAdder compiled = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+
+    /**
+     * Creates a compile-only pre-evaluator: {@link #withChecks checks} are not run.
+     */
+    public JavaCompilePreEvaluator(Duration checkTimeout, int cacheSize) {
+        this(checkTimeout, cacheSize, false);
+    }
+
+    public JavaCompilePreEvaluator(Duration checkTimeout, int cacheSize, boolean runChecks) {
+        this(ToolProvider.getSystemJavaCompiler(), runChecks, List.of(), checkTimeout, lruCache(cacheSize));
+    }
+
+    private JavaCompilePreEvaluator(JavaCompiler compiler, boolean runChecks, List<CodeCheck> checks,
+                                    Duration checkTimeout, Map<String, Optional<EvaluationResponse>> verdicts) {
+        Assert.notNull(checks, "Checks must not be null");
+        Assert.isTrue(checkTimeout != null && checkTimeout.isPositive(), "Check timeout must be positive");
+        for (CodeCheck check : checks) {
+            Class<?> type = check.getClass();
+            Assert.isTrue(!type.isHidden() && type.getEnclosingClass() == null,
+                    () -> "Checks run in a separate JVM and must be top-level classes: " + type.getName());
+        }
+
+        this.compiler = compiler;
+        this.runChecks = runChecks;
+        this.checks = runChecks ? List.copyOf(checks) : List.of();
+        this.checkTimeout = checkTimeout;
+        this.verdicts = verdicts;
+        if (compiler == null) {
+            log.warn("No system Java compiler available (running on a JRE?); pre-evaluation is disabled");
+        }
+    }
+
+    /**
+     * Returns a pre-evaluator that also runs the given checks against the compiled
+     * candidate, if running checks is enabled. It shares the compiler and the verdict
+     * cache with this one.
+     */
+    public JavaCompilePreEvaluator withChecks(List<CodeCheck> checks) {
+        return new JavaCompilePreEvaluator(this.compiler, this.runChecks, checks, this.checkTimeout, this.verdicts);
+    }
+
+    public boolean isAvailable() {
+        return compiler != null;
+    }
+
+    @Override
+    public Optional<EvaluationResponse> preEvaluate(String content) {
+        if (compiler == null || content == null || content.isBlank()) {
+            return Optional.empty();
+        }
+
+        String code = extractCode(content);
+        String key = CacheKeys.sha256(code + "\u0000" + checks.stream()
+                .map(check -> check.getClass().getName())
+                .collect(Collectors.joining(",")));
+
+        Optional<EvaluationResponse> cached = verdicts.get(key);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+
+        Verdict verdict = evaluate(code);
+        if (verdict.cacheable()) {
+            verdicts.put(key, verdict.response());
+        }
+        verdict.response().ifPresent(response -> rejected.increment());
+        return verdict.response();
+    }
+
+    public long compiledCount() {
+        return compiled.sum();
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    public long cacheHitCount() {
+        return cacheHits.sum();
+    }
+
+    private Verdict evaluate(String code) {
+        String className = className(code);
+        if (className == null) {
+            return Verdict.fail("No Java class, interface, enum or record declaration found in the response.");
+        }
+
+        compiled.increment();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        InMemoryFileManager fileManager = new InMemoryFileManager(
+                compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8));
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                List.of("-proc:none", "-Xlint:none", "-nowarn"), null, List.of(new SourceFile(className, code)));
+
+        if (!Boolean.TRUE.equals(task.call())) {
+            String errors = diagnostics.getDiagnostics().stream()
+                    .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+                    .limit(MAX_DIAGNOSTICS)
+                    .map(diagnostic -> "Line " + diagnostic.getLineNumber() + ": "
+                            + diagnostic.getMessage(null))
+                    .collect(Collectors.joining("\n"));
+            log.info("Candidate {} does not compile:\n{}", className, errors);
+            return Verdict.fail("The code does not compile. Fix these compiler errors:\n" + errors);
+        }
+
+        if (checks.isEmpty()) {
+            return Verdict.PASS;
+        }
+        Matcher forbidden = FORBIDDEN_API.matcher(code);
+        if (forbidden.find()) {
+            return Verdict.fail("The code must only compute: remove the use of '" + forbidden.group().trim()
+                    + "' (no System, Runtime, processes, threads, files, network, reflection or unicode escapes).");
+        }
+        try {
+            return runChecks(className, fileManager.classes());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not run the checks of " + className, e);
+        }
+    }
+
+    /**
+     * Runs the checks in a separate JVM whose class path holds only the candidate, the
+     * checks and {@link CheckRunner}, and kills it when it does not finish in time.
+     */
+    private Verdict runChecks(String className, Map<String, byte[]> classes) throws IOException {
+        Path directory = Files.createTempDirectory("pre-evaluation-");
+        try {
+            Path classPath = Files.createDirectory(directory.resolve("classes"));
+            for (Map.Entry<String, byte[]> candidateClass : classes.entrySet()) {
+                writeClass(classPath, candidateClass.getKey(), candidateClass.getValue());
+            }
+            Set<Class<?>> runnerClasses = new LinkedHashSet<>(List.of(CheckRunner.class, CodeCheck.class));
+            checks.forEach(check -> runnerClasses.add(check.getClass()));
+            for (Class<?> type : runnerClasses) {
+                writeClass(classPath, type.getName(), bytecode(type));
+            }
+
+            Path outcome = directory.resolve("outcome");
+            List<String> command = new ArrayList<>();
+            command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+            command.addAll(CHECK_JVM_OPTIONS);
+            command.addAll(List.of("-cp", classPath.toString(), CheckRunner.class.getName(), outcome.toString(),
+                    className));
+            checks.forEach(check -> command.add(check.getClass().getName()));
+
+            Process process = new ProcessBuilder(command)
+                    .directory(directory.toFile())
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            try {
+                if (!process.waitFor(checkTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                    process.destroyForcibly().waitFor();
+                    return Verdict.uncached(Optional.of(failure("The checks did not finish within "
+                            + checkTimeout.toMillis() + " ms; look for endless loops or blocking calls.")));
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+                return Verdict.uncached(Optional.empty());
+            }
+
+            String result = Files.exists(outcome) ? Files.readString(outcome, StandardCharsets.UTF_8) : null;
+            if (process.exitValue() == 0 && CheckRunner.OK.equals(result)) {
+                return Verdict.PASS;
+            }
+            return Verdict.fail(result != null
+                    ? "The code compiles but fails a check: " + abbreviate(result)
+                    : "The code compiles but the checks crashed with exit code " + process.exitValue()
+                    + "; look for unbounded recursion or memory use.");
+        } finally {
+            FileSystemUtils.deleteRecursively(directory);
+        }
+    }
+
+    private static void writeClass(Path classPath, String className, byte[] bytes) throws IOException {
+        Path file = classPath.resolve(className.replace('.', '/') + JavaFileObject.Kind.CLASS.extension);
+        Files.createDirectories(file.getParent());
+        Files.write(file, bytes);
+    }
+
+    private static byte[] bytecode(Class<?> type) throws IOException {
+        String resource = type.getName().replace('.', '/') + JavaFileObject.Kind.CLASS.extension;
+        try (InputStream in = type.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("No bytecode found for " + type.getName());
+            }
+            return in.readAllBytes();
+        }
+    }
+
+    private static String abbreviate(String text) {
+        return text.length() <= MAX_FEEDBACK_CHARS ? text : text.substring(0, MAX_FEEDBACK_CHARS) + "...";
+    }
+
+    private static EvaluationResponse failure(String feedback) {
+        return new EvaluationResponse(Evaluation.FAIL, feedback);
+    }
+
+    static String extractCode(String content) {
+        Matcher fence = CODE_FENCE.matcher(content);
+        return fence.find() ? fence.group(1) : content;
+    }
+
+    static String className(String code) {
+        Matcher type = PUBLIC_TYPE.matcher(code);
+        if (!type.find()) {
+            type = ANY_TYPE.matcher(code);
+            if (!type.find()) {
+                return null;
+            }
+        }
+        Matcher packageName = PACKAGE.matcher(code);
+        return packageName.find() ? packageName.group(1) + "." + type.group(1) : type.group(1);
+    }
+
+    private static Map<String, Optional<EvaluationResponse>> lruCache(int maxEntries) {
+        Assert.isTrue(maxEntries > 0, "Cache size must be greater than 0");
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Optional<EvaluationResponse>> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    private static final class SourceFile extends SimpleJavaFileObject {
+
+        private final String code;
+
+        SourceFile(String className, String code) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+
+    private static final class ClassFile extends SimpleJavaFileObject {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        ClassFile(String className) {
+            super(URI.create("bytes:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return bytes;
+        }
+    }
+
+    private static final class InMemoryFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+
+        private final Map<String, ClassFile> classFiles = new LinkedHashMap<>();
+
+        InMemoryFileManager(JavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                                                   FileObject sibling) {
+            ClassFile classFile = new ClassFile(className);
+            classFiles.put(className, classFile);
+            return classFile;
+        }
+
+        Map<String, byte[]> classes() {
+            return classFiles.entrySet().stream()
+                    .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().bytes.toByteArray()));
+        }
+    }
+
+    /**
+     * Outcome of pre-evaluating a candidate, and whether it may be cached: outcomes of
+     * runs that timed out or were interrupted may differ on the next attempt.
+     */
+    private record Verdict(Optional<EvaluationResponse> response, boolean cacheable) {
+
+        static final Verdict PASS = new Verdict(Optional.empty(), true);
+
+        static Verdict fail(String feedback) {
+            return new Verdict(Optional.of(failure(feedback)), true);
+        }
+
+        static Verdict uncached(Optional<EvaluationResponse> response) {
+            return new Verdict(response, false);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package demo.ai.agentic.evaluation;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * Behavioural check for the "Stack with O(1) getMin" sample task: pushes and pops a few
+ * values, including a duplicate minimum, and verifies {@code getMin()} after every step.
+ */
+public class MinStackCheck implements CodeCheck {
+
+    @Override
+    public void verify(Class<?> candidate) throws Exception {
+        Constructor<?> constructor = candidate.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        Object stack = constructor.newInstance();
+
+        Method push = method(candidate, "push", 1);
+        Method pop = method(candidate, "pop", 0);
+        Method getMin = method(candidate, "getMin", 0);
+
+        push(stack, push, 5);
+        expectMin(stack, getMin, 5, "after push(5)");
+        push(stack, push, 3);
+        expectMin(stack, getMin, 3, "after push(3)");
+        push(stack, push, 7);
+        expectMin(stack, getMin, 3, "after push(7)");
+        push(stack, push, 3);
+        expectMin(stack, getMin, 3, "after pushing a second 3");
+        pop.invoke(stack);
+        expectMin(stack, getMin, 3, "after popping the second 3");
+        pop.invoke(stack);
+        pop.invoke(stack);
+        expectMin(stack, getMin, 5, "after popping 7 and 3");
+    }
+
+    private static Method method(Class<?> type, String name, int parameters) {
+        Method method = Arrays.stream(type.getDeclaredMethods())
+                .filter(candidate -> candidate.getName().equals(name) && candidate.getParameterCount() == parameters)
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Missing method " + name + " with " + parameters
+                        + " parameter(s)"));
+        method.setAccessible(true);
+        return method;
+    }
+
+    private static void push(Object stack, Method push, int value) throws Exception {
+        Class<?> type = push.getParameterTypes()[0];
+        Object argument = type == long.class || type == Long.class ? (Object) (long) value
+                : type == double.class || type == Double.class ? (Object) (double) value
+                : (Object) value;
+        push.invoke(stack, argument);
+    }
+
+    private static void expectMin(Object stack, Method getMin, int expected, String when) throws Exception {
+        Object min = getMin.invoke(stack);
+        boolean matches = min instanceof Number number ? number.doubleValue() == expected
+                : String.valueOf(expected).equals(String.valueOf(min));
+        if (!matches) {
+            throw new AssertionError("getMin() returned " + min + " instead of " + expected + " " + when);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package demo.ai.agentic.evaluation;
+
+import demo.ai.agentic.record.EvaluationResponse;
+
+import java.util.Optional;
+
+/**
+ * Cheap local check that runs before the LLM evaluator. Returning a verdict skips the
+ * LLM evaluation round trip for that candidate; returning empty hands it on to the LLM.
+ */
+@FunctionalInterface
+public interface PreEvaluator {
+
+    PreEvaluator NONE = content -> Optional.empty();
+
+    Optional<EvaluationResponse> preEvaluate(String content);
+}
@@ -0,0 +1,14 @@
+package demo.ai.agentic.job;
+
+/**
+ * What a running {@link JobTask} can see of its job.
+ */
+public interface JobContext {
+
+    /**
+     * Reports progress to pollers and subscribers of the job.
+     */
+    void progress(String message);
+
+    boolean isCancelled();
+}
@@ -0,0 +1,279 @@
+package demo.ai.agentic.job;
+
+import demo.ai.agentic.record.JobEvent;
+import demo.ai.agentic.record.JobStatus;
+import demo.ai.agentic.record.JobStatus.Priority;
+import demo.ai.agentic.record.JobStatus.State;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs workflow jobs in the background, so HTTP requests return right away instead of
+ * holding a servlet thread for the whole run.
+ *
+ * <p>
+ * Submitted jobs wait on a bounded priority queue (higher priority first, then first
+ * come, first served) for one of a fixed number of workers; when the queue is full,
+ * {@link #submit} rejects the job so callers can push back. Jobs report their state and
+ * progress to pollers ({@link #status}) and subscribers ({@link #events}), can be
+ * cancelled while queued or running, and are forgotten {@code ttl} after they finished.
+ */
+public class JobManager implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(JobManager.class);
+
+    private static final int MAX_PROGRESS_MESSAGES = 100;
+
+    private static final Comparator<Job> ORDER = Comparator.<Job, Priority>comparing(job -> job.priority)
+            .thenComparingLong(job -> job.sequence);
+
+    private final int queueCapacity;
+    private final Duration ttl;
+    private final Clock clock;
+
+    private final PriorityBlockingQueue<Job> queue = new PriorityBlockingQueue<>(16, ORDER);
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ExecutorService workers;
+    private final ScheduledExecutorService evictor;
+
+    public JobManager(int workers, int queueCapacity, Duration ttl) {
+        this(workers, queueCapacity, ttl, Clock.systemUTC());
+    }
+
+    JobManager(int workers, int queueCapacity, Duration ttl, Clock clock) {
+        Assert.isTrue(workers > 0, "Workers must be greater than 0");
+        Assert.isTrue(queueCapacity > 0, "Queue capacity must be greater than 0");
+        Assert.isTrue(ttl != null && ttl.isPositive(), "TTL must be positive");
+
+        this.queueCapacity = queueCapacity;
+        this.ttl = ttl;
+        this.clock = clock;
+        this.workers = Executors.newFixedThreadPool(workers, Thread.ofVirtual().name("job-", 0).factory());
+        for (int i = 0; i < workers; i++) {
+            this.workers.execute(this::work);
+        }
+        long evictionPeriod = Math.max(1, Math.min(ttl.toMillis(), Duration.ofMinutes(1).toMillis()));
+        this.evictor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("job-eviction").daemon().factory());
+        this.evictor.scheduleWithFixedDelay(this::evictExpired, evictionPeriod, evictionPeriod, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues the task as a new job.
+     *
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public JobStatus submit(String workflow, Priority priority, JobTask task) {
+        Assert.hasText(workflow, "Workflow must not be empty");
+        Assert.notNull(priority, "Priority must not be null");
+        Assert.notNull(task, "Task must not be null");
+
+        Job job = new Job(UUID.randomUUID().toString(), workflow, priority, sequence.incrementAndGet(), task);
+        synchronized (queue) {
+            if (queue.size() >= queueCapacity) {
+                throw new RejectedExecutionException("Job queue is full (" + queueCapacity + " jobs)");
+            }
+            jobs.put(job.id, job);
+            queue.add(job);
+        }
+        log.info("Queued {} job {} with priority {}", workflow, job.id, priority);
+        return job.status();
+    }
+
+    public Optional<JobStatus> status(String id) {
+        return Optional.ofNullable(jobs.get(id)).map(Job::status);
+    }
+
+    /**
+     * State changes and progress of the job: the events so far, then live ones until the
+     * job has finished.
+     */
+    public Optional<Flux<JobEvent>> events(String id) {
+        return Optional.ofNullable(jobs.get(id)).map(job -> job.events.asFlux());
+    }
+
+    /**
+     * Cancels the job. A queued job is removed from the queue; a running job is
+     * signalled and its thread interrupted, and finishes as cancelled once it stops.
+     */
+    public Optional<JobStatus> cancel(String id) {
+        Job job = jobs.get(id);
+        if (job == null) {
+            return Optional.empty();
+        }
+        job.cancel();
+        return Optional.of(job.status());
+    }
+
+    public int queued() {
+        return queue.size();
+    }
+
+    /**
+     * Forgets jobs that finished more than {@code ttl} ago.
+     */
+    void evictExpired() {
+        Instant cutoff = clock.instant().minus(ttl);
+        jobs.values().removeIf(job -> job.finishedBefore(cutoff));
+    }
+
+    @Override
+    public void close() {
+        evictor.shutdownNow();
+        List<Job> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        pending.forEach(Job::cancel);
+        workers.shutdownNow();
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                queue.take().run();
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private final class Job implements JobContext {
+
+        private final String id;
+        private final String workflow;
+        private final Priority priority;
+        private final long sequence;
+        private final JobTask task;
+        private final Instant submittedAt = clock.instant();
+        private final Sinks.Many<JobEvent> events = Sinks.many().replay().limit(MAX_PROGRESS_MESSAGES + 4);
+        private final List<String> progress = new ArrayList<>();
+
+        private State state = State.QUEUED;
+        private Instant startedAt;
+        private Instant finishedAt;
+        private Object result;
+        private String error;
+        private Thread thread;
+        private volatile boolean cancelled;
+
+        Job(String id, String workflow, Priority priority, long sequence, JobTask task) {
+            this.id = id;
+            this.workflow = workflow;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.task = task;
+            emit(JobEvent.state(id, State.QUEUED, null, submittedAt));
+        }
+
+        void run() {
+            synchronized (this) {
+                if (state != State.QUEUED) {
+                    return;
+                }
+                state = State.RUNNING;
+                startedAt = clock.instant();
+                thread = Thread.currentThread();
+                emit(JobEvent.state(id, State.RUNNING, null, startedAt));
+            }
+
+            Object output = null;
+            Exception failure = null;
+            try {
+                output = task.run(this);
+            } catch (Exception e) {
+                failure = e;
+            } finally {
+                synchronized (this) {
+                    thread = null;
+                }
+                // Do not let a cancellation interrupt leak into the next job of this worker.
+                Thread.interrupted();
+            }
+
+            if (cancelled) {
+                finish(State.CANCELLED, output, null);
+            } else if (failure != null) {
+                log.warn("{} job {} failed: {}", workflow, id, failure.toString());
+                finish(State.FAILED, null, failure.getMessage() != null ? failure.getMessage()
+                        : failure.getClass().getSimpleName());
+            } else {
+                finish(State.SUCCEEDED, output, null);
+            }
+        }
+
+        synchronized void cancel() {
+            if (state.finished()) {
+                return;
+            }
+            cancelled = true;
+            if (state == State.QUEUED) {
+                queue.remove(this);
+                finish(State.CANCELLED, null, null);
+            } else if (thread != null) {
+                thread.interrupt();
+            }
+        }
+
+        @Override
+        public synchronized void progress(String message) {
+            if (progress.size() < MAX_PROGRESS_MESSAGES) {
+                progress.add(message);
+                emit(JobEvent.progress(id, state, message, clock.instant()));
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        synchronized JobStatus status() {
+            int position = 0;
+            if (state == State.QUEUED) {
+                position = 1 + (int) queue.stream().filter(other -> ORDER.compare(other, this) < 0).count();
+            }
+            return new JobStatus(id, workflow, state, priority, position, submittedAt, startedAt, finishedAt,
+                    List.copyOf(progress), result, error);
+        }
+
+        synchronized boolean finishedBefore(Instant cutoff) {
+            return state.finished() && finishedAt.isBefore(cutoff);
+        }
+
+        private synchronized void finish(State finalState, Object output, String failure) {
+            state = finalState;
+            result = output;
+            error = failure;
+            finishedAt = clock.instant();
+            log.info("{} job {} {} after {} ms", workflow, id, finalState.name().toLowerCase(),
+                    Duration.between(submittedAt, finishedAt).toMillis());
+            emit(JobEvent.state(id, finalState, failure, finishedAt));
+            events.tryEmitComplete();
+        }
+
+        private void emit(JobEvent event) {
+            events.tryEmitNext(event);
+        }
+    }
+}
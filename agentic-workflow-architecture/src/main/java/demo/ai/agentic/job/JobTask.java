@@ -0,0 +1,12 @@
+package demo.ai.agentic.job;
+
+/**
+ * Work of an asynchronous job, typically one workflow run. Long-running tasks should
+ * poll {@link JobContext#isCancelled()} between calls; the thread running the task is
+ * also interrupted when the job is cancelled.
+ */
+@FunctionalInterface
+public interface JobTask {
+
+    Object run(JobContext context) throws Exception;
+}
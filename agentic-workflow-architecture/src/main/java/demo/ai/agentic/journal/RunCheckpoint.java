@@ -0,0 +1,99 @@
+package demo.ai.agentic.journal;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Checkpoint of one workflow run in the {@link WorkflowJournal}. Workflows look up a
+ * step with {@link #replay} before calling the model and {@link #record} its output
+ * afterwards; outputs that are not strings are stored as JSON.
+ */
+public final class RunCheckpoint {
+
+    /**
+     * Checkpoint of a run that is not journaled: nothing is replayed or recorded.
+     */
+    public static final RunCheckpoint NONE = new RunCheckpoint(null, null);
+
+    private static final Logger log = LoggerFactory.getLogger(RunCheckpoint.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final WorkflowJournal journal;
+    private final String run;
+
+    RunCheckpoint(WorkflowJournal journal, String run) {
+        this.journal = journal;
+        this.run = run;
+    }
+
+    /**
+     * Returns the journaled output of the step if this run completed it with the same input.
+     */
+    public <T> Optional<T> replay(String step, String input, Class<T> type) {
+        if (journal == null) {
+            return Optional.empty();
+        }
+        Optional<T> output = journal.replay(run, step, input).flatMap(value -> decode(value, type));
+        output.ifPresent(value -> log.info("Replayed step '{}' of run '{}' from the journal", step, run));
+        return output;
+    }
+
+    public void record(String step, String input, Object output) {
+        if (journal != null && output != null) {
+            journal.append(run, step, input, encode(output));
+        }
+    }
+
+    /**
+     * Replays the step, or runs and records it.
+     */
+    public <T> T step(String step, String input, Class<T> type, Supplier<T> call) {
+        Optional<T> replayed = replay(step, input, type);
+        if (replayed.isPresent()) {
+            return replayed.get();
+        }
+        T output = call.get();
+        record(step, input, output);
+        return output;
+    }
+
+    /**
+     * Marks the run as finished, so a later run with the same id starts over.
+     */
+    public void complete() {
+        if (journal != null) {
+            journal.complete(run);
+        }
+    }
+
+    private static String encode(Object output) {
+        if (output instanceof String text) {
+            return text;
+        }
+        try {
+            return MAPPER.writeValueAsString(output);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Step output of type " + output.getClass().getName()
+                    + " cannot be journaled", e);
+        }
+    }
+
+    private static <T> Optional<T> decode(String value, Class<T> type) {
+        if (type == String.class) {
+            return Optional.of(type.cast(value));
+        }
+        try {
+            return Optional.ofNullable(MAPPER.readValue(value, type));
+        } catch (JsonProcessingException e) {
+            // e.g. the output type changed since the run was journaled; run the step again
+            log.warn("Journaled step output is not a valid {}: {}", type.getSimpleName(), e.getOriginalMessage());
+            return Optional.empty();
+        }
+    }
+}
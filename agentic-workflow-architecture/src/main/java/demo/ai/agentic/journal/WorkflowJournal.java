@@ -0,0 +1,452 @@
+package demo.ai.agentic.journal;
+
+import demo.ai.agentic.cache.CacheKeys;
+import demo.ai.agentic.record.JournalStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file journal of completed workflow steps, so a run that is restarted
+ * after a crash or retried replays its completed LLM steps instead of paying for them
+ * again.
+ *
+ * <p>
+ * Every step is journaled with the SHA-256 of its input and its output; a step is only
+ * replayed when its input hash matches, so a changed prompt or input runs the step
+ * again. Records are {@code [length][CRC32][payload]}; on open the file is scanned and
+ * cut back to the last intact record, so a torn write at a crash is dropped.
+ *
+ * <p>
+ * Appends never wait for the disk: records are queued and a flusher thread writes
+ * them in batches with one {@code fsync} per batch (group commit), lingering up to
+ * {@code flushInterval} for more records. A record that has not been flushed at a
+ * crash is lost, which costs one repeated LLM call on the next run. The future returned
+ * by {@link #append} completes once the record is durable.
+ *
+ * <p>
+ * Finished runs, superseded step records and runs older than the retention are dead
+ * weight; once they take more than {@code compactionThreshold} bytes, and more than
+ * the live records, the flusher rewrites the file with only the live records.
+ */
+public class WorkflowJournal implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkflowJournal.class);
+
+    private static final byte STEP = 1;
+    private static final byte COMPLETE = 2;
+    private static final int RECORD_OVERHEAD = 2 * Integer.BYTES;
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+    private static final int MAX_BATCH_BYTES = 1024 * 1024;
+
+    private final Path path;
+    private final Duration flushInterval;
+    private final long compactionThreshold;
+    private final Duration retention;
+    private final Clock clock;
+
+    private final Map<String, Map<String, Entry>> runs = new ConcurrentHashMap<>();
+    private final ReentrantLock io = new ReentrantLock();
+    private final Object queueLock = new Object();
+    private final Thread flusher;
+
+    private FileChannel channel;
+    private long fileBytes;
+    private List<Pending> pending = new ArrayList<>();
+    private long pendingBytes;
+    private volatile boolean closed;
+
+    private final LongAdder appends = new LongAdder();
+    private final LongAdder replays = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushedRecords = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+
+    private WorkflowJournal(Path path, Duration flushInterval, long compactionThreshold, Duration retention,
+                            Clock clock) {
+        this.path = path;
+        this.flushInterval = flushInterval;
+        this.compactionThreshold = compactionThreshold;
+        this.retention = retention;
+        this.clock = clock;
+        this.flusher = Thread.ofPlatform().name("workflow-journal").daemon().unstarted(this::flushLoop);
+    }
+
+    /**
+     * Opens (or creates) the journal, loads the runs that have not finished and starts
+     * the flusher.
+     *
+     * @param flushInterval       how long the flusher waits for more records before an fsync
+     * @param compactionThreshold dead bytes that trigger a compaction
+     * @param retention           age after which an unfinished run is dropped at compaction
+     */
+    public static WorkflowJournal open(Path path, Duration flushInterval, long compactionThreshold,
+                                       Duration retention) throws IOException {
+        return open(path, flushInterval, compactionThreshold, retention, Clock.systemUTC());
+    }
+
+    static WorkflowJournal open(Path path, Duration flushInterval, long compactionThreshold, Duration retention,
+                                Clock clock) throws IOException {
+        Assert.notNull(path, "Path must not be null");
+        Assert.isTrue(!flushInterval.isNegative(), "Flush interval must not be negative");
+        Assert.isTrue(compactionThreshold >= 0, "Compaction threshold must not be negative");
+        Assert.isTrue(retention.isPositive(), "Retention must be positive");
+
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        WorkflowJournal journal = new WorkflowJournal(path, flushInterval, compactionThreshold, retention, clock);
+        journal.load();
+        journal.flusher.start();
+        return journal;
+    }
+
+    /**
+     * Opens the checkpoint of one run of a workflow. Runs are identified by workflow
+     * name and run id, so the same id can be reused across workflows.
+     */
+    public RunCheckpoint run(String workflow, String runId) {
+        Assert.hasText(workflow, "Workflow must not be empty");
+        Assert.hasText(runId, "Run id must not be empty");
+        return new RunCheckpoint(this, workflow + ":" + runId);
+    }
+
+    /**
+     * Returns the journaled output of the step if it was completed with the same input.
+     */
+    public Optional<String> replay(String run, String step, String input) {
+        Map<String, Entry> steps = runs.get(run);
+        Entry entry = steps != null ? steps.get(step) : null;
+        if (entry == null || !entry.inputHash().equals(CacheKeys.sha256(input))) {
+            return Optional.empty();
+        }
+        replays.increment();
+        return Optional.of(entry.output());
+    }
+
+    /**
+     * Journals the output of a completed step.
+     *
+     * @return a future that completes once the record is on disk
+     */
+    public CompletableFuture<Void> append(String run, String step, String input, String output) {
+        String inputHash = CacheKeys.sha256(input);
+        long now = clock.millis();
+        byte[] record = encode(STEP, run, step, inputHash, output, now);
+        runs.computeIfAbsent(run, key -> new ConcurrentHashMap<>())
+                .put(step, new Entry(inputHash, output, now, record.length));
+        appends.increment();
+        return enqueue(record);
+    }
+
+    /**
+     * Marks the run as finished; its records are dropped at the next compaction.
+     */
+    public CompletableFuture<Void> complete(String run) {
+        if (runs.remove(run) == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return enqueue(encode(COMPLETE, run, "", "", "", clock.millis()));
+    }
+
+    /**
+     * Rewrites the file with the records of the unfinished runs only.
+     */
+    public void compact() {
+        io.lock();
+        try {
+            long before = fileBytes;
+            Path temporary = path.resolveSibling(path.getFileName() + ".compact");
+            long cutoff = clock.millis() - retention.toMillis();
+            runs.entrySet().removeIf(run -> run.getValue().values().stream()
+                    .allMatch(entry -> entry.writtenAt() < cutoff));
+
+            long written = 0;
+            try (FileChannel target = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                for (Map.Entry<String, Map<String, Entry>> run : runs.entrySet()) {
+                    for (Map.Entry<String, Entry> step : run.getValue().entrySet()) {
+                        Entry entry = step.getValue();
+                        written += write(target, encode(STEP, run.getKey(), step.getKey(), entry.inputHash(),
+                                entry.output(), entry.writtenAt()));
+                    }
+                }
+                target.force(true);
+            }
+            channel.close();
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(path, StandardOpenOption.WRITE);
+            channel.position(written);
+            fileBytes = written;
+            compactions.increment();
+            log.info("Compacted workflow journal {} from {} to {} bytes", path, before, written);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compact workflow journal " + path, e);
+        } finally {
+            io.unlock();
+        }
+    }
+
+    public JournalStats stats() {
+        long flushCount = flushes.sum();
+        return new JournalStats(runs.size(),
+                runs.values().stream().mapToInt(Map::size).sum(),
+                fileBytes, liveBytes(), appends.sum(), replays.sum(), flushCount,
+                flushCount == 0 ? 0.0 : (double) flushedRecords.sum() / flushCount,
+                flushCount == 0 ? 0.0 : flushNanos.sum() / 1_000_000.0 / flushCount,
+                compactions.sum());
+    }
+
+    /**
+     * Flushes the queued records and stops the flusher.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (queueLock) {
+            closed = true;
+            queueLock.notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        io.lock();
+        try {
+            channel.close();
+        } finally {
+            io.unlock();
+        }
+    }
+
+    private CompletableFuture<Void> enqueue(byte[] record) {
+        CompletableFuture<Void> durable = new CompletableFuture<>();
+        synchronized (queueLock) {
+            if (closed) {
+                durable.completeExceptionally(new IllegalStateException("Workflow journal is closed"));
+                return durable;
+            }
+            pending.add(new Pending(record, durable));
+            pendingBytes += record.length;
+            queueLock.notifyAll();
+        }
+        return durable;
+    }
+
+    private void flushLoop() {
+        while (true) {
+            List<Pending> batch;
+            synchronized (queueLock) {
+                try {
+                    while (pending.isEmpty() && !closed) {
+                        queueLock.wait();
+                    }
+                    // Linger so that records of concurrent runs share one fsync.
+                    long deadline = System.nanoTime() + flushInterval.toNanos();
+                    long remaining;
+                    while (!closed && pendingBytes < MAX_BATCH_BYTES
+                            && (remaining = deadline - System.nanoTime()) > 0) {
+                        queueLock.wait(Math.max(1, remaining / 1_000_000));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new ArrayList<>();
+                pendingBytes = 0;
+            }
+            flush(batch);
+            if (fileBytes - liveBytes() > compactionThreshold && fileBytes - liveBytes() > liveBytes()) {
+                try {
+                    compact();
+                } catch (UncheckedIOException e) {
+                    log.warn("Workflow journal compaction failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        long start = System.nanoTime();
+        io.lock();
+        try {
+            ByteBuffer[] buffers = batch.stream().map(pending -> ByteBuffer.wrap(pending.record())).toArray(ByteBuffer[]::new);
+            long remaining = batch.stream().mapToLong(pending -> pending.record().length).sum();
+            while (remaining > 0) {
+                remaining -= channel.write(buffers);
+            }
+            channel.force(false);
+            fileBytes += batch.stream().mapToLong(pending -> pending.record().length).sum();
+        } catch (IOException e) {
+            log.error("Failed to write {} workflow journal record(s) to {}", batch.size(), path, e);
+            batch.forEach(pending -> pending.durable().completeExceptionally(e));
+            return;
+        } finally {
+            io.unlock();
+        }
+        flushes.increment();
+        flushedRecords.add(batch.size());
+        flushNanos.add(System.nanoTime() - start);
+        batch.forEach(pending -> pending.durable().complete(null));
+    }
+
+    private void load() throws IOException {
+        long valid = 0;
+        if (Files.exists(path)) {
+            try (InputStream stream = new BufferedInputStream(Files.newInputStream(path))) {
+                DataInputStream input = new DataInputStream(stream);
+                while (true) {
+                    byte[] payload = readRecord(input);
+                    if (payload == null) {
+                        break;
+                    }
+                    apply(payload);
+                    valid += RECORD_OVERHEAD + payload.length;
+                }
+            }
+        }
+
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (channel.size() > valid) {
+            log.warn("Dropping {} bytes of incomplete records at the end of workflow journal {}",
+                    channel.size() - valid, path);
+            channel.truncate(valid);
+        }
+        channel.position(valid);
+        fileBytes = valid;
+        log.info("Loaded {} unfinished workflow run(s) from journal {}", runs.size(), path);
+        if (fileBytes - liveBytes() > compactionThreshold) {
+            compact();
+        }
+    }
+
+    private static byte[] readRecord(DataInputStream input) throws IOException {
+        try {
+            int length = input.readInt();
+            int checksum = input.readInt();
+            if (length <= 0 || length > MAX_RECORD_SIZE) {
+                return null;
+            }
+            byte[] payload = input.readNBytes(length);
+            return payload.length == length && crc(payload) == checksum ? payload : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private void apply(byte[] payload) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = input.readByte();
+        long writtenAt = input.readLong();
+        String run = readString(input);
+        if (type == COMPLETE) {
+            runs.remove(run);
+            return;
+        }
+        String step = readString(input);
+        String inputHash = readString(input);
+        String output = readString(input);
+        runs.computeIfAbsent(run, key -> new ConcurrentHashMap<>())
+                .put(step, new Entry(inputHash, output, writtenAt, RECORD_OVERHEAD + payload.length));
+    }
+
+    private long liveBytes() {
+        return runs.values().stream()
+                .flatMap(steps -> steps.values().stream())
+                .mapToLong(Entry::size)
+                .sum();
+    }
+
+    private static byte[] encode(byte type, String run, String step, String inputHash, String output,
+                                 long writtenAt) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(RECORD_OVERHEAD + 128 + output.length());
+            DataOutputStream data = new DataOutputStream(bytes);
+            data.writeInt(0);
+            data.writeInt(0);
+            data.writeByte(type);
+            data.writeLong(writtenAt);
+            writeString(data, run);
+            if (type == STEP) {
+                writeString(data, step);
+                writeString(data, inputHash);
+                writeString(data, output);
+            }
+            byte[] record = bytes.toByteArray();
+            int length = record.length - RECORD_OVERHEAD;
+            ByteBuffer.wrap(record)
+                    .putInt(0, length)
+                    .putInt(Integer.BYTES, crc(record, RECORD_OVERHEAD, length));
+            return record;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long write(FileChannel target, byte[] record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+        return record.length;
+    }
+
+    private static void writeString(DataOutputStream data, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        return new String(input.readNBytes(input.readInt()), StandardCharsets.UTF_8);
+    }
+
+    private static int crc(byte[] bytes) {
+        return crc(bytes, 0, bytes.length);
+    }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private record Entry(String inputHash, String output, long writtenAt, long size) {
+    }
+
+    private record Pending(byte[] record, CompletableFuture<Void> durable) {
+    }
+}
@@ -0,0 +1,6 @@
+package demo.ai.agentic.record;
+
+import java.util.List;
+
+public record BatchResponse(List<BatchItem> results) {
+}
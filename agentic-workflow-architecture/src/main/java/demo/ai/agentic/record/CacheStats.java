@@ -0,0 +1,4 @@
+package demo.ai.agentic.record;
+
+public record CacheStats(long hits, long misses, long diskHits, long evictions, int entries, double hitRatio) {
+}
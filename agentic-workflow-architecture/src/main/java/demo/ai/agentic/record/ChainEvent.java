@@ -0,0 +1,20 @@
+package demo.ai.agentic.record;
+
+public record ChainEvent(Type type, int step, String content) {
+
+    public enum Type {
+        STEP_STARTED, TOKEN, STEP_COMPLETED
+    }
+
+    public static ChainEvent started(int step) {
+        return new ChainEvent(Type.STEP_STARTED, step, "");
+    }
+
+    public static ChainEvent token(int step, String token) {
+        return new ChainEvent(Type.TOKEN, step, token);
+    }
+
+    public static ChainEvent completed(int step, String response) {
+        return new ChainEvent(Type.STEP_COMPLETED, step, response);
+    }
+}
@@ -2,5 +2,9 @@ package demo.ai.agentic.record;
 
 import java.util.List;
 
-public record FinalResponse(String analysis, List<String> workerResponses) {
+public record FinalResponse(String analysis, List<String> workerResponses, List<WorkerTiming> workerTimings) {
+
+    public FinalResponse(String analysis, List<String> workerResponses) {
+        this(analysis, workerResponses, List.of());
+    }
 }
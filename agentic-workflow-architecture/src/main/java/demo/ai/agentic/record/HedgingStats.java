@@ -0,0 +1,8 @@
+package demo.ai.agentic.record;
+
+import java.util.Map;
+
+public record HedgingStats(boolean enabled, double percentile, double budgetRatio, long calls, long hedges,
+                           long hedgeWins, double hedgeRate, double winRate, long budgetExhausted,
+                           long congested, Map<String, Double> hedgeDelayMillis) {
+}
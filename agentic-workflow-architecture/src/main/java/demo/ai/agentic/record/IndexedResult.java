@@ -0,0 +1,13 @@
+package demo.ai.agentic.record;
+
+public record IndexedResult(int index, boolean success, String output, String error, int attempts,
+                            long elapsedMillis) {
+
+    public static IndexedResult success(int index, String output, int attempts, long elapsedMillis) {
+        return new IndexedResult(index, true, output, null, attempts, elapsedMillis);
+    }
+
+    public static IndexedResult failure(int index, String error, int attempts, long elapsedMillis) {
+        return new IndexedResult(index, false, null, error, attempts, elapsedMillis);
+    }
+}
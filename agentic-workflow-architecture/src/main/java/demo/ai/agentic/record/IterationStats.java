@@ -0,0 +1,5 @@
+package demo.ai.agentic.record;
+
+public record IterationStats(int iteration, long promptTokens, long completionTokens, long totalTokens,
+                             long elapsedMillis, EvaluationResponse.Evaluation evaluation) {
+}
@@ -0,0 +1,18 @@
+package demo.ai.agentic.record;
+
+import java.time.Instant;
+
+public record JobEvent(Type type, String jobId, JobStatus.State state, String message, Instant at) {
+
+    public enum Type {
+        STATE, PROGRESS
+    }
+
+    public static JobEvent state(String jobId, JobStatus.State state, String message, Instant at) {
+        return new JobEvent(Type.STATE, jobId, state, message, at);
+    }
+
+    public static JobEvent progress(String jobId, JobStatus.State state, String message, Instant at) {
+        return new JobEvent(Type.PROGRESS, jobId, state, message, at);
+    }
+}
@@ -0,0 +1,28 @@
+package demo.ai.agentic.record;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Snapshot of an asynchronous workflow job.
+ *
+ * @param position 1-based position in the queue while the job is queued, 0 otherwise
+ * @param progress progress messages reported by the workflow so far
+ * @param result   output of the workflow once it succeeded
+ */
+public record JobStatus(String id, String workflow, State state, Priority priority, int position,
+                        Instant submittedAt, Instant startedAt, Instant finishedAt,
+                        List<String> progress, Object result, String error) {
+
+    public enum State {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED;
+
+        public boolean finished() {
+            return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    public enum Priority {
+        HIGH, NORMAL, LOW
+    }
+}
@@ -0,0 +1,6 @@
+package demo.ai.agentic.record;
+
+public record JournalStats(int unfinishedRuns, int steps, long fileBytes, long liveBytes, long appends,
+                           long replays, long flushes, double averageRecordsPerFlush, double averageFlushMillis,
+                           long compactions) {
+}
@@ -0,0 +1,4 @@
+package demo.ai.agentic.record;
+
+public record Metric(String value, double numericValue, String name) {
+}
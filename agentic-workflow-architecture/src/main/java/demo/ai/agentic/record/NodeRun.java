@@ -0,0 +1,9 @@
+package demo.ai.agentic.record;
+
+public record NodeRun(String id, String type, Status status, int attempts, long startOffsetMillis,
+                      long durationMillis, String error) {
+
+    public enum Status {
+        COMPLETED, SKIPPED, FAILED
+    }
+}
@@ -0,0 +1,6 @@
+package demo.ai.agentic.record;
+
+public record ProviderStats(String provider, int maxConcurrency, int inFlight, int waiting, long completed,
+                            double avgQueueWaitMillis, double maxQueueWaitMillis,
+                            double avgCallMillis, double maxCallMillis) {
+}
@@ -2,5 +2,14 @@ package demo.ai.agentic.record;
 
 import java.util.List;
 
-public record RefinedResponse(String solution, List<Generation> chainOfThought) {
+public record RefinedResponse(String solution, List<Generation> chainOfThought, StopReason stopReason,
+                              List<IterationStats> iterations) {
+
+    public enum StopReason {
+        PASS, MAX_ITERATIONS, TOKEN_BUDGET_EXHAUSTED, TIME_BUDGET_EXHAUSTED, CANCELLED
+    }
+
+    public RefinedResponse(String solution, List<Generation> chainOfThought) {
+        this(solution, chainOfThought, StopReason.PASS, List.of());
+    }
 }
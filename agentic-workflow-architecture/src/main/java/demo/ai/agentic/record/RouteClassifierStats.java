@@ -0,0 +1,7 @@
+package demo.ai.agentic.record;
+
+public record RouteClassifierStats(boolean enabled, double confidenceThreshold, long decisions, long fastPathHits,
+                                   double fastPathHitRate, long llmDecisions, long comparedDecisions,
+                                   long disagreements, double disagreementRate, int trainingExamples,
+                                   int loggedDecisions) {
+}
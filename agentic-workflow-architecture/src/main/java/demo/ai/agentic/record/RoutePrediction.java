@@ -0,0 +1,4 @@
+package demo.ai.agentic.record;
+
+public record RoutePrediction(String route, double confidence, double similarity) {
+}
@@ -0,0 +1,12 @@
+package demo.ai.agentic.record;
+
+public record RoutedTicket(String id, String route, boolean success, String response, String error) {
+
+    public static RoutedTicket success(String id, String route, String response) {
+        return new RoutedTicket(id, route, true, response, null);
+    }
+
+    public static RoutedTicket failure(String id, String route, String error) {
+        return new RoutedTicket(id, route, false, null, error);
+    }
+}
@@ -0,0 +1,5 @@
+package demo.ai.agentic.record;
+
+public record SingleFlightStats(String name, boolean enabled, long lingerMillis, long executed, long coalesced,
+                                long lingered, int inFlight, double sharedRatio) {
+}
@@ -0,0 +1,6 @@
+package demo.ai.agentic.record;
+
+public record SpeculationStats(boolean enabled, int topK, long speculations, long hits, long misses, double hitRate,
+                               long speculativeCalls, long wastedCalls, long wastedTokens,
+                               long latencySavedMillis, double avgLatencySavedMillis) {
+}
@@ -1,4 +1,19 @@
 package demo.ai.agentic.record;
 
-public record Task(String type, String description) {
+import java.util.List;
+
+/**
+ * A subtask returned by the orchestrator. {@code id} and {@code dependsOn} are optional:
+ * tasks without dependencies run concurrently, a task with dependencies runs as soon as
+ * all tasks it depends on have completed.
+ */
+public record Task(String id, String type, String description, List<String> dependsOn) {
+
+    public Task {
+        dependsOn = dependsOn == null ? List.of() : List.copyOf(dependsOn);
+    }
+
+    public Task(String type, String description) {
+        this(null, type, description, List.of());
+    }
 }
@@ -0,0 +1,4 @@
+package demo.ai.agentic.record;
+
+public record Ticket(String id, String text) {
+}
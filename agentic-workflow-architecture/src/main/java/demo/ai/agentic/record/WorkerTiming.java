@@ -0,0 +1,7 @@
+package demo.ai.agentic.record;
+
+/**
+ * Timing of one orchestrator worker, relative to the start of the worker phase.
+ */
+public record WorkerTiming(String taskId, String type, long startOffsetMillis, long durationMillis) {
+}
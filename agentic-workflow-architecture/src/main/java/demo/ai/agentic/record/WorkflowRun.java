@@ -0,0 +1,8 @@
+package demo.ai.agentic.record;
+
+import java.util.List;
+import java.util.Map;
+
+public record WorkflowRun(String workflow, Object output, Map<String, Object> outputs, List<NodeRun> nodes,
+                          long elapsedMillis) {
+}
@@ -0,0 +1,185 @@
+package demo.ai.agentic.routing;
+
+import demo.ai.agentic.record.RouteClassifierStats;
+import demo.ai.agentic.record.RoutePrediction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process fast path for route selection. Predictions come from a {@link TfIdfModel}
+ * trained on labeled example tickets; only predictions at or above the confidence
+ * threshold are used, everything else falls back to the LLM selector.
+ *
+ * <p>
+ * Every LLM decision is logged (bounded) together with what the classifier would have
+ * chosen, which yields the disagreement rate and serves as additional training data
+ * for {@link #retrain()}. A sample of fast-path decisions can be verified by the LLM in
+ * the background ({@code shadowRate}) so that disagreement is also measured on the
+ * tickets the classifier is confident about.
+ */
+public class RouteClassifier {
+
+    private static final Logger log = LoggerFactory.getLogger(RouteClassifier.class);
+
+    private final Map<String, List<String>> seedExamples;
+    private final boolean enabled;
+    private final double confidenceThreshold;
+    private final double shadowRate;
+    private final int maxLoggedDecisions;
+
+    private final AtomicReference<TfIdfModel> model = new AtomicReference<>();
+    private final Deque<LoggedDecision> loggedDecisions = new ArrayDeque<>();
+
+    private final Map<String, LongAdder> routeCounts = new ConcurrentHashMap<>();
+
+    private final LongAdder decisions = new LongAdder();
+    private final LongAdder fastPathHits = new LongAdder();
+    private final LongAdder llmDecisions = new LongAdder();
+    private final LongAdder compared = new LongAdder();
+    private final LongAdder disagreements = new LongAdder();
+
+    public RouteClassifier(Map<String, List<String>> seedExamples, boolean enabled, double confidenceThreshold,
+                           double shadowRate, int maxLoggedDecisions) {
+        Assert.notEmpty(seedExamples, "Seed examples must not be empty");
+        Assert.isTrue(confidenceThreshold >= 0 && confidenceThreshold <= 1, "Confidence threshold must be in [0, 1]");
+        Assert.isTrue(shadowRate >= 0 && shadowRate <= 1, "Shadow rate must be in [0, 1]");
+        Assert.isTrue(maxLoggedDecisions > 0, "Max logged decisions must be greater than 0");
+
+        this.seedExamples = Map.copyOf(seedExamples);
+        this.enabled = enabled;
+        this.confidenceThreshold = confidenceThreshold;
+        this.shadowRate = shadowRate;
+        this.maxLoggedDecisions = maxLoggedDecisions;
+        this.model.set(TfIdfModel.train(this.seedExamples));
+    }
+
+    public RoutePrediction predict(String input, Collection<String> routes) {
+        return model.get().predict(input, routes);
+    }
+
+    /**
+     * Ranks the candidate routes from most to least likely: by similarity to the input,
+     * and by how often each route was chosen before when the similarities tie (e.g. when
+     * the input shares no features with any route).
+     */
+    public List<String> rank(String input, Collection<String> routes) {
+        Map<String, Double> similarities = model.get().similarities(input, routes);
+        return routes.stream()
+                .sorted(Comparator.comparingDouble((String route) -> similarities.get(route)).reversed()
+                        .thenComparing(Comparator.comparingLong(this::timesChosen).reversed()))
+                .toList();
+    }
+
+    /**
+     * Whether the prediction is good enough to skip the LLM selector.
+     */
+    public boolean isConfident(RoutePrediction prediction) {
+        return enabled && prediction.route() != null && prediction.confidence() >= confidenceThreshold;
+    }
+
+    public void recordFastPath(RoutePrediction prediction) {
+        decisions.increment();
+        fastPathHits.increment();
+        countRoute(prediction.route());
+    }
+
+    /**
+     * Whether a fast-path decision should additionally be verified by the LLM.
+     */
+    public boolean sampleShadow() {
+        return shadowRate > 0 && ThreadLocalRandom.current().nextDouble() < shadowRate;
+    }
+
+    /**
+     * Records a decision of the LLM selector and what the classifier predicted for the
+     * same input.
+     *
+     * @param shadow true for background verifications of fast-path decisions, which
+     *               are not counted as routing decisions of their own
+     */
+    public void recordLlmDecision(String input, RoutePrediction prediction, String llmRoute, boolean shadow) {
+        if (!shadow) {
+            decisions.increment();
+            llmDecisions.increment();
+            countRoute(llmRoute);
+        }
+        if (prediction.route() != null) {
+            compared.increment();
+            if (!prediction.route().equals(llmRoute)) {
+                disagreements.increment();
+                log.info("Route classifier predicted '{}' ({}) but the LLM chose '{}'",
+                        prediction.route(), String.format("%.2f", prediction.confidence()), llmRoute);
+            }
+        }
+        synchronized (loggedDecisions) {
+            loggedDecisions.addLast(new LoggedDecision(input, llmRoute));
+            if (loggedDecisions.size() > maxLoggedDecisions) {
+                loggedDecisions.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the model from the seed examples plus every logged LLM decision.
+     *
+     * @return the number of training examples of the new model
+     */
+    public int retrain() {
+        Map<String, List<String>> examples = new LinkedHashMap<>();
+        seedExamples.forEach((route, texts) -> examples.put(route, new ArrayList<>(texts)));
+        synchronized (loggedDecisions) {
+            loggedDecisions.forEach(decision ->
+                    examples.computeIfAbsent(decision.route(), route -> new ArrayList<>()).add(decision.input()));
+        }
+        TfIdfModel retrained = TfIdfModel.train(examples);
+        model.set(retrained);
+        log.info("Route classifier retrained on {} examples", retrained.examples());
+        return retrained.examples();
+    }
+
+    public RouteClassifierStats stats() {
+        long total = decisions.sum();
+        long hits = fastPathHits.sum();
+        long comparedCount = compared.sum();
+        long disagreementCount = disagreements.sum();
+        int logged;
+        synchronized (loggedDecisions) {
+            logged = loggedDecisions.size();
+        }
+        return new RouteClassifierStats(enabled, confidenceThreshold, total, hits, ratio(hits, total),
+                llmDecisions.sum(), comparedCount, disagreementCount, ratio(disagreementCount, comparedCount),
+                model.get().examples(), logged);
+    }
+
+    private void countRoute(String route) {
+        if (route != null) {
+            routeCounts.computeIfAbsent(route, key -> new LongAdder()).increment();
+        }
+    }
+
+    private long timesChosen(String route) {
+        LongAdder count = routeCounts.get(route);
+        return count == null ? 0 : count.sum();
+    }
+
+    private static double ratio(long part, long total) {
+        return total == 0 ? 0 : (double) part / total;
+    }
+
+    private record LoggedDecision(String input, String route) {
+    }
+}
@@ -0,0 +1,70 @@
+package demo.ai.agentic.routing;
+
+import demo.ai.agentic.record.SpeculationStats;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Settings and bookkeeping of speculative route execution: while the LLM selector runs,
+ * the specialists of the {@code topK} most likely routes are already called, and the one
+ * matching the selection is kept.
+ *
+ * <p>
+ * A hit saves the overlap of the selector and the specialist call, i.e. the shorter of
+ * the two. Every other speculative call is wasted; its tokens are counted when it
+ * completed before it was discarded. Calls cancelled mid-flight report no usage, so
+ * {@code wastedTokens} is a lower bound and {@code wastedCalls} the better cost signal.
+ */
+public class RouteSpeculator {
+
+    private final boolean enabled;
+    private final int topK;
+
+    private final LongAdder speculations = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder speculativeCalls = new LongAdder();
+    private final LongAdder wastedCalls = new LongAdder();
+    private final LongAdder wastedTokens = new LongAdder();
+    private final LongAdder latencySavedNanos = new LongAdder();
+
+    public RouteSpeculator(boolean enabled, int topK) {
+        Assert.isTrue(topK > 0, "Top-k must be greater than 0");
+
+        this.enabled = enabled;
+        this.topK = topK;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int topK() {
+        return topK;
+    }
+
+    public void recordSpeculation(int calls) {
+        speculations.increment();
+        speculativeCalls.add(calls);
+    }
+
+    public void recordHit(long savedNanos) {
+        hits.increment();
+        latencySavedNanos.add(savedNanos);
+    }
+
+    public void recordWaste(long tokens) {
+        wastedCalls.increment();
+        wastedTokens.add(tokens);
+    }
+
+    public SpeculationStats stats() {
+        long total = speculations.sum();
+        long hitCount = hits.sum();
+        long savedMillis = Duration.ofNanos(latencySavedNanos.sum()).toMillis();
+        return new SpeculationStats(enabled, topK, total, hitCount, total - hitCount,
+                total == 0 ? 0 : (double) hitCount / total, speculativeCalls.sum(), wastedCalls.sum(),
+                wastedTokens.sum(), savedMillis, hitCount == 0 ? 0 : (double) savedMillis / hitCount);
+    }
+}
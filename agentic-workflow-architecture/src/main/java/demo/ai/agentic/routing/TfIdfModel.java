@@ -0,0 +1,180 @@
+package demo.ai.agentic.routing;
+
+import demo.ai.agentic.record.RoutePrediction;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable TF-IDF nearest-centroid classifier over unigram and bigram features.
+ * Every route is represented by the normalized mean TF-IDF vector of its examples; a
+ * text is assigned to the route whose centroid has the highest cosine similarity.
+ * Confidence is the relative margin between the best and the second best similarity,
+ * so an ambiguous text gets a low confidence even if it matches both routes well.
+ */
+final class TfIdfModel {
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "can", "could", "do", "for", "from",
+            "have", "hi", "hello", "how", "i", "if", "in", "is", "it", "its", "me", "my", "of", "on", "or",
+            "please", "so", "that", "the", "this", "to", "was", "we", "what", "with", "you", "your",
+            "subject", "message", "thanks", "regards", "best");
+
+    private final Map<String, Double> idf;
+    private final Map<String, Map<String, Double>> centroids;
+    private final int examples;
+
+    private TfIdfModel(Map<String, Double> idf, Map<String, Map<String, Double>> centroids, int examples) {
+        this.idf = idf;
+        this.centroids = centroids;
+        this.examples = examples;
+    }
+
+    /**
+     * @param examples labeled texts, one list of example texts per route
+     */
+    static TfIdfModel train(Map<String, ? extends Collection<String>> examples) {
+        Assert.notEmpty(examples, "Training examples must not be empty");
+
+        List<Map<String, Integer>> documents = new ArrayList<>();
+        List<String> labels = new ArrayList<>();
+        examples.forEach((route, texts) -> texts.forEach(text -> {
+            documents.add(termCounts(text));
+            labels.add(route);
+        }));
+
+        Map<String, Integer> documentFrequency = new HashMap<>();
+        documents.forEach(counts -> counts.keySet().forEach(term -> documentFrequency.merge(term, 1, Integer::sum)));
+        Map<String, Double> idf = new HashMap<>();
+        documentFrequency.forEach((term, df) ->
+                idf.put(term, Math.log((documents.size() + 1.0) / (df + 1.0)) + 1.0));
+
+        Map<String, Map<String, Double>> sums = new HashMap<>();
+        for (int i = 0; i < documents.size(); i++) {
+            Map<String, Double> sum = sums.computeIfAbsent(labels.get(i), label -> new HashMap<>());
+            vector(documents.get(i), idf).forEach((term, weight) -> sum.merge(term, weight, Double::sum));
+        }
+        Map<String, Map<String, Double>> centroids = new HashMap<>();
+        sums.forEach((route, sum) -> centroids.put(route, normalize(sum)));
+
+        return new TfIdfModel(Map.copyOf(idf), Map.copyOf(centroids), documents.size());
+    }
+
+    /**
+     * Predicts the route of the text among the given candidate routes; routes the model
+     * has no examples for are never predicted.
+     */
+    RoutePrediction predict(String text, Collection<String> routes) {
+        Map<String, Double> vector = vector(termCounts(text), idf);
+
+        String best = null;
+        double bestSimilarity = 0;
+        double secondSimilarity = 0;
+        for (String route : routes) {
+            Map<String, Double> centroid = centroids.get(route);
+            if (centroid == null) {
+                continue;
+            }
+            double similarity = dot(vector, centroid);
+            if (best == null || similarity > bestSimilarity) {
+                secondSimilarity = bestSimilarity;
+                bestSimilarity = similarity;
+                best = route;
+            } else if (similarity > secondSimilarity) {
+                secondSimilarity = similarity;
+            }
+        }
+
+        double confidence = bestSimilarity > 0 ? (bestSimilarity - secondSimilarity) / bestSimilarity : 0;
+        return new RoutePrediction(best, confidence, bestSimilarity);
+    }
+
+    /**
+     * Cosine similarity of the text to every candidate route the model knows.
+     */
+    Map<String, Double> similarities(String text, Collection<String> routes) {
+        Map<String, Double> vector = vector(termCounts(text), idf);
+        Map<String, Double> similarities = new HashMap<>();
+        for (String route : routes) {
+            Map<String, Double> centroid = centroids.get(route);
+            similarities.put(route, centroid == null ? 0 : dot(vector, centroid));
+        }
+        return similarities;
+    }
+
+    int examples() {
+        return examples;
+    }
+
+    static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (token.length() > 1 && !STOP_WORDS.contains(token)) {
+                tokens.add(stem(token));
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Light suffix stripping so that e.g. "charged", "charges" and "charge" share a feature.
+     */
+    private static String stem(String token) {
+        for (String suffix : new String[]{"ing", "ed", "es", "s"}) {
+            if (token.length() > suffix.length() + 3 && token.endsWith(suffix)) {
+                return token.substring(0, token.length() - suffix.length());
+            }
+        }
+        return token;
+    }
+
+    private static Map<String, Integer> termCounts(String text) {
+        List<String> tokens = tokens(text);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            counts.merge(tokens.get(i), 1, Integer::sum);
+            if (i > 0) {
+                counts.merge(tokens.get(i - 1) + " " + tokens.get(i), 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    private static Map<String, Double> vector(Map<String, Integer> counts, Map<String, Double> idf) {
+        Map<String, Double> vector = new HashMap<>();
+        counts.forEach((term, count) -> {
+            Double weight = idf.get(term);
+            if (weight != null) {
+                vector.put(term, (1 + Math.log(count)) * weight);
+            }
+        });
+        return normalize(vector);
+    }
+
+    private static Map<String, Double> normalize(Map<String, Double> vector) {
+        double norm = Math.sqrt(vector.values().stream().mapToDouble(weight -> weight * weight).sum());
+        if (norm == 0) {
+            return vector;
+        }
+        Map<String, Double> normalized = new HashMap<>();
+        vector.forEach((term, weight) -> normalized.put(term, weight / norm));
+        return normalized;
+    }
+
+    private static double dot(Map<String, Double> vector, Map<String, Double> centroid) {
+        double sum = 0;
+        for (Map.Entry<String, Double> entry : vector.entrySet()) {
+            Double weight = centroid.get(entry.getKey());
+            if (weight != null) {
+                sum += entry.getValue() * weight;
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,43 @@
+package demo.ai.agentic.workflow;
+
+import org.springframework.util.Assert;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * A single transformation in a {@link ChainWorkflow}. A chain may mix steps that
+ * need language understanding, which are sent to the LLM, with deterministic
+ * steps that are executed in-process.
+ */
+public sealed interface ChainStep permits ChainStep.LlmStep, ChainStep.LocalStep {
+
+    String name();
+
+    /**
+     * Sends the previous step output to the LLM together with the system prompt.
+     */
+    record LlmStep(String name, String systemPrompt) implements ChainStep {
+
+        public LlmStep {
+            Assert.hasText(systemPrompt, "System prompt must not be empty");
+        }
+    }
+
+    /**
+     * Transforms the previous step output with a plain Java function, no LLM call.
+     */
+    record LocalStep(String name, UnaryOperator<String> transformer) implements ChainStep {
+
+        public LocalStep {
+            Assert.notNull(transformer, "Transformer must not be null");
+        }
+    }
+
+    static ChainStep llm(String name, String systemPrompt) {
+        return new LlmStep(name, systemPrompt);
+    }
+
+    static ChainStep local(String name, UnaryOperator<String> transformer) {
+        return new LocalStep(name, transformer);
+    }
+}
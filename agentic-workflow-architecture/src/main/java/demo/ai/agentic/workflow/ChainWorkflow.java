@@ -1,13 +1,22 @@
 package demo.ai.agentic.workflow;
 
+import demo.ai.agentic.journal.RunCheckpoint;
+import demo.ai.agentic.record.ChainEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public class ChainWorkflow {
 
     private static final Logger log = LoggerFactory.getLogger(ChainWorkflow.class);
 
+    public static final String NAME = "chain";
+
     /**
      * Array of system prompts that define the transformation steps in the chain.
      * Each prompt acts as a gate that validates and transforms the output before
@@ -44,22 +53,47 @@ public class ChainWorkflow {
 			| Customer Satisfaction | 92% |
 			"""};
 
+    /**
+     * Default chain: the LLM only extracts and normalizes the metrics, sorting and
+     * table rendering (steps 3 and 4 of {@link #DEFAULT_SYSTEM_PROMPTS}) run in-process.
+     */
+    public static final List<ChainStep> DEFAULT_STEPS = List.of(
+            ChainStep.llm("extract", DEFAULT_SYSTEM_PROMPTS[0]),
+            ChainStep.llm("normalize", DEFAULT_SYSTEM_PROMPTS[1]),
+            ChainStep.local("sort", MetricLines::sortDescending),
+            ChainStep.local("table", MetricLines::toMarkdownTable));
+
     private final ChatClient chatClient;
-    private final String[] systemPrompts;
+    private final List<ChainStep> steps;
 
     public ChainWorkflow(ChatClient chatClient) {
-        this(chatClient, DEFAULT_SYSTEM_PROMPTS);
+        this(chatClient, DEFAULT_STEPS);
     }
 
-    private ChainWorkflow(ChatClient chatClient, String[] systemPrompts) {
+    public ChainWorkflow(ChatClient chatClient, List<ChainStep> steps) {
+        Assert.notNull(chatClient, "ChatClient must not be null");
+        Assert.notEmpty(steps, "Steps must not be empty");
+
         this.chatClient = chatClient;
-        this.systemPrompts = systemPrompts;
+        this.steps = List.copyOf(steps);
+    }
+
+    /**
+     * Creates the original chain where every step, including sorting and table
+     * rendering, is delegated to the LLM.
+     */
+    public static ChainWorkflow llmOnly(ChatClient chatClient) {
+        List<ChainStep> steps = new ArrayList<>();
+        for (int i = 0; i < DEFAULT_SYSTEM_PROMPTS.length; i++) {
+            steps.add(ChainStep.llm("step-" + (i + 1), DEFAULT_SYSTEM_PROMPTS[i]));
+        }
+        return new ChainWorkflow(chatClient, steps);
     }
 
     /**
      * Executes the prompt chaining workflow by processing the input text through
-     * a series of LLM calls, where each call's output becomes the input for the
-     * next step.
+     * a series of steps, where each step's output becomes the input for the
+     * next step. LLM steps call the chat client, local steps are applied in-process.
      *
      * <p>
      * The method prints the intermediate results after each step to show the
@@ -69,22 +103,104 @@ public class ChainWorkflow {
      * @return the final output after all steps have been executed
      */
     public String chain(String userInput) {
+        return chain(userInput, RunCheckpoint.NONE);
+    }
+
+    /**
+     * Checkpointed variant of {@link #chain(String)}: the output of every LLM step is
+     * journaled, and steps this run already completed with the same input are replayed
+     * from the journal instead of being sent to the model again. Local steps are cheap
+     * and always run.
+     *
+     * @param userInput  the input text containing numerical data to be processed
+     * @param checkpoint checkpoint of the run; {@link RunCheckpoint#NONE} journals nothing
+     * @return the final output after all steps have been executed
+     */
+    public String chain(String userInput, RunCheckpoint checkpoint) {
+        Assert.notNull(checkpoint, "Checkpoint must not be null");
 
         int step = 0;
         String response = userInput;
         log.info("\nSTEP {}:\n {}", step++, response);
 
-        for (String prompt : systemPrompts) {
-
-            // 1. Compose the input using the response from the previous step.
-            String input = String.format("{%s}\n {%s}", prompt, response);
+        for (ChainStep chainStep : steps) {
 
-            // 2. Call the chat client with the new input and get the new response.
-            response = chatClient.prompt(input).call().content();
+            response = switch (chainStep) {
+                // Compose the input using the response from the previous step and
+                // call the chat client with it.
+                case ChainStep.LlmStep llmStep -> {
+                    String input = composeInput(llmStep.systemPrompt(), response);
+                    yield checkpoint.step(llmStep.name(), input, String.class,
+                            () -> chatClient.prompt(input)
+                                    .advisors(WorkflowStep.of(NAME, llmStep.name()))
+                                    .call()
+                                    .content());
+                }
+                // Deterministic steps never leave the JVM.
+                case ChainStep.LocalStep localStep -> localStep.transformer().apply(response);
+            };
 
             log.info("\nSTEP {}:\n {}", step++, response);
         }
 
+        checkpoint.complete();
         return response;
     }
+
+    /**
+     * Streaming variant of {@link #chain(String)}. Each LLM step is sent to the model
+     * with {@link ChatClient#prompt(String)}{@code .stream()} so tokens are emitted
+     * as soon as they arrive instead of after the whole chain has completed.
+     *
+     * <p>
+     * For every step the returned flux emits a {@link ChainEvent.Type#STEP_STARTED}
+     * event, one {@link ChainEvent.Type#TOKEN} event per streamed chunk and a
+     * {@link ChainEvent.Type#STEP_COMPLETED} event carrying the full step output,
+     * which then becomes the input of the next step.
+     *
+     * @param userInput the input text containing numerical data to be processed
+     * @return a cold flux of chain events; nothing is sent to the model until it is subscribed
+     */
+    public Flux<ChainEvent> chainStream(String userInput) {
+        return Flux.defer(() -> {
+            log.info("\nSTEP 0:\n {}", userInput);
+            return streamStep(0, userInput);
+        });
+    }
+
+    private Flux<ChainEvent> streamStep(int index, String previousResponse) {
+        if (index == steps.size()) {
+            return Flux.empty();
+        }
+
+        int step = index + 1;
+        StringBuilder response = new StringBuilder();
+
+        Flux<String> output = switch (steps.get(index)) {
+            case ChainStep.LlmStep llmStep -> chatClient.prompt(composeInput(llmStep.systemPrompt(), previousResponse))
+                    .advisors(WorkflowStep.of(NAME, llmStep.name()))
+                    .stream()
+                    .content();
+            // A local step produces its whole output at once.
+            case ChainStep.LocalStep localStep ->
+                    Flux.defer(() -> Flux.just(localStep.transformer().apply(previousResponse)));
+        };
+
+        Flux<ChainEvent> tokens = output
+                .doOnNext(response::append)
+                .map(token -> ChainEvent.token(step, token));
+
+        // The next step can only start once the current step output is complete.
+        Flux<ChainEvent> completion = Flux.defer(() -> {
+            log.info("\nSTEP {}:\n {}", step, response);
+            return Flux.just(ChainEvent.completed(step, response.toString()))
+                    .concatWith(streamStep(index + 1, response.toString()));
+        });
+
+        return Flux.just(ChainEvent.started(step)).concatWith(tokens).concatWith(completion);
+    }
+
+    private static String composeInput(String prompt, String previousResponse) {
+        return String.format("{%s}\n {%s}", prompt, previousResponse);
+    }
 }
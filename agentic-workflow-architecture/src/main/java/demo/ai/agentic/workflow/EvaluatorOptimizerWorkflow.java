@@ -1,20 +1,43 @@
 package demo.ai.agentic.workflow;
 
+import demo.ai.agentic.concurrency.LlmExecutor;
+import demo.ai.agentic.evaluation.PreEvaluator;
+import demo.ai.agentic.journal.RunCheckpoint;
 import demo.ai.agentic.record.EvaluationResponse;
+import demo.ai.agentic.record.EvaluationResponse.Evaluation;
 import demo.ai.agentic.record.Generation;
+import demo.ai.agentic.record.IterationStats;
 import demo.ai.agentic.record.RefinedResponse;
+import demo.ai.agentic.record.RefinedResponse.StopReason;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.ResponseEntity;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.util.Assert;
 
+import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 
 public class EvaluatorOptimizerWorkflow {
 
     private static final Logger log = LoggerFactory.getLogger(EvaluatorOptimizerWorkflow.class);
 
+    public static final String NAME = "evaluator-optimizer";
+
+    private static final long CANCELLATION_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
     public static final String DEFAULT_GENERATOR_PROMPT = """
 			Your goal is to complete the task based on the input. If there are feedback
 			from your previous generations, you should reflect on them to improve your solution.
@@ -51,28 +74,63 @@ public class EvaluatorOptimizerWorkflow {
 
     private final ChatClient chatClient;
 
+    private final LlmExecutor llmExecutor;
+
+    private final PreEvaluator preEvaluator;
+
     private final String generatorPrompt;
 
     private final String evaluatorPrompt;
 
     public EvaluatorOptimizerWorkflow(ChatClient chatClient) {
-        this(chatClient, DEFAULT_GENERATOR_PROMPT, DEFAULT_EVALUATOR_PROMPT);
+        this(chatClient, null, PreEvaluator.NONE, DEFAULT_GENERATOR_PROMPT, DEFAULT_EVALUATOR_PROMPT);
     }
 
     public EvaluatorOptimizerWorkflow(ChatClient chatClient, String generatorPrompt, String evaluatorPrompt) {
+        this(chatClient, null, PreEvaluator.NONE, generatorPrompt, evaluatorPrompt);
+    }
+
+    /**
+     * @param llmExecutor  executor for {@link #speculativeLoop speculative} candidates; may be
+     *                     null when only the sequential {@link #loop} is used
+     * @param preEvaluator local check run before the LLM evaluator; a verdict it returns
+     *                     replaces the LLM evaluation of that candidate
+     */
+    public EvaluatorOptimizerWorkflow(ChatClient chatClient, LlmExecutor llmExecutor, PreEvaluator preEvaluator) {
+        this(chatClient, llmExecutor, preEvaluator, DEFAULT_GENERATOR_PROMPT, DEFAULT_EVALUATOR_PROMPT);
+    }
+
+    public EvaluatorOptimizerWorkflow(ChatClient chatClient, LlmExecutor llmExecutor, PreEvaluator preEvaluator,
+                                      String generatorPrompt, String evaluatorPrompt) {
         Assert.notNull(chatClient, "ChatClient must not be null");
+        Assert.notNull(preEvaluator, "PreEvaluator must not be null");
         Assert.hasText(generatorPrompt, "Generator prompt must not be empty");
         Assert.hasText(evaluatorPrompt, "Evaluator prompt must not be empty");
 
         this.chatClient = chatClient;
+        this.llmExecutor = llmExecutor;
+        this.preEvaluator = preEvaluator;
         this.generatorPrompt = generatorPrompt;
         this.evaluatorPrompt = evaluatorPrompt;
     }
 
     /**
-     * Initiates the evaluator-optimizer workflow for a given task. This method
+     * Initiates the evaluator-optimizer workflow for a given task with the
+     * {@link LoopBudget#DEFAULT default budget}.
+     *
+     * @param task The task or problem to be solved through iterative refinement
+     * @return A RefinedResponse containing the final solution and the chain of
+     *         thought showing the evolution of the solution
+     * @see #loop(String, LoopBudget, BooleanSupplier)
+     */
+    public RefinedResponse loop(String task) {
+        return loop(task, LoopBudget.DEFAULT, () -> false);
+    }
+
+    /**
+     * Runs the evaluator-optimizer workflow for a given task. This method
      * orchestrates the iterative process of generation and evaluation until a
-     * satisfactory solution is reached.
+     * satisfactory solution is reached or the budget is spent.
      *
      * <p>
      * The workflow follows these steps:
@@ -83,55 +141,307 @@ public class EvaluatorOptimizerWorkflow {
      * <li>If evaluation passes, return the solution</li>
      * <li>If evaluation indicates a need for improvement, incorporate feedback and
      * generate a new solution</li>
-     * <li>Repeat steps 2-4 until a satisfactory solution is achieved</li>
+     * <li>Repeat steps 2-4 until a satisfactory solution is achieved, the budget is
+     * exhausted or the run is cancelled</li>
      * </ol>
      *
-     * @param task The task or problem to be solved through iterative refinement
-     * @return A RefinedResponse containing the final solution and the chain of
-     *         thought showing the evolution of the solution
+     * <p>
+     * The context passed to the generator is compacted: it holds only the latest attempt
+     * with its feedback and a bounded digest of earlier feedback, so prompt size stays
+     * constant instead of growing with every iteration.
+     *
+     * @param task      The task or problem to be solved through iterative refinement
+     * @param budget    Iteration, token and time limits of the run
+     * @param cancelled Polled before every call; when it returns true the run stops
+     * @return A RefinedResponse containing the best solution found, the chain of thought,
+     *         the reason the loop stopped and per-iteration token counts
      */
-    public RefinedResponse loop(String task) {
-        List<String> memory = new ArrayList<>();
-        List<Generation> chainOfThought = new ArrayList<>();
+    public RefinedResponse loop(String task, LoopBudget budget, BooleanSupplier cancelled) {
+        return loop(task, budget, cancelled, RunCheckpoint.NONE);
+    }
 
-        return loop(task, "", memory, chainOfThought);
+    /**
+     * Checkpointed variant of {@link #loop(String, LoopBudget, BooleanSupplier)}: every
+     * generation and evaluation is journaled, and iterations this run already completed
+     * are replayed from the journal, so a restarted run continues with the first
+     * iteration it had not finished. Replayed calls spend no tokens. The run is only
+     * marked finished when a solution passes; a run stopped by its budget or cancelled
+     * can be resumed, e.g. with a larger budget.
+     *
+     * @param checkpoint checkpoint of the run; {@link RunCheckpoint#NONE} journals nothing
+     */
+    public RefinedResponse loop(String task, LoopBudget budget, BooleanSupplier cancelled,
+                                RunCheckpoint checkpoint) {
+        Assert.hasText(task, "Task must not be empty");
+        Assert.notNull(budget, "Budget must not be null");
+        Assert.notNull(cancelled, "Cancellation signal must not be null");
+        Assert.notNull(checkpoint, "Checkpoint must not be null");
+
+        List<Generation> chainOfThought = new ArrayList<>();
+        List<IterationStats> iterations = new ArrayList<>();
+        FeedbackDigest digest = new FeedbackDigest();
+        long start = System.nanoTime();
+        long tokens = 0;
+
+        String context = "";
+        String best = null;
+        Evaluation bestEvaluation = null;
+
+        while (true) {
+            StopReason exhausted = checkBudget(budget, iterations.size(), tokens, start, cancelled);
+            if (exhausted != null) {
+                log.info("Evaluator-optimizer loop stopped after {} iteration(s): {}", iterations.size(), exhausted);
+                return new RefinedResponse(best, chainOfThought, exhausted, iterations);
+            }
+
+            long iterationStart = System.nanoTime();
+            int iteration = iterations.size() + 1;
+            ResponseEntity<ChatResponse, Generation> generated = generate(task, context, checkpoint, iteration);
+            Generation generation = generated.entity();
+            chainOfThought.add(generation);
+
+            if (isCancelled(cancelled)) {
+                iterations.add(stats(iterations.size() + 1, iterationStart, null, generated.response()));
+                // The new generation was never evaluated, so it only stands in for a rated one.
+                return new RefinedResponse(best != null ? best : generation.response(), chainOfThought,
+                        StopReason.CANCELLED, iterations);
+            }
+
+            ResponseEntity<ChatResponse, EvaluationResponse> evaluated =
+                    evaluate(generation.response(), task, checkpoint, iteration);
+            EvaluationResponse evaluationResponse = evaluated.entity();
+            IterationStats stats = stats(iteration, iterationStart,
+                    evaluationResponse.evaluation(), generated.response(), evaluated.response());
+            iterations.add(stats);
+            tokens += stats.totalTokens();
+
+            if (evaluationResponse.evaluation().equals(Evaluation.PASS)) {
+                // Solution is accepted!
+                checkpoint.complete();
+                return new RefinedResponse(generation.response(), chainOfThought, StopReason.PASS, iterations);
+            }
+
+            if (bestEvaluation == null || evaluationResponse.evaluation().compareTo(bestEvaluation) <= 0) {
+                best = generation.response();
+                bestEvaluation = evaluationResponse.evaluation();
+            }
+
+            context = digest.compact(generation.response(), evaluationResponse.feedback());
+        }
     }
 
     /**
-     * Internal recursive implementation of the evaluator-optimizer loop. This
-     * method maintains the state of previous attempts and feedback while recursively
-     * refining the solution until it meets the evaluation criteria.
+     * Speculative variant of {@link #loop(String, LoopBudget, BooleanSupplier)} that trades
+     * tokens for latency. Every round generates {@code candidates} solutions concurrently on
+     * the shared {@link LlmExecutor}, each evaluated as soon as it is generated. The first
+     * candidate rated PASS is returned right away and the calls still in flight are
+     * cancelled. If no candidate passes, the next round is seeded with the best-rated
+     * candidate and its feedback.
+     *
+     * <p>
+     * Each round counts as one iteration of the budget. Tokens spent by candidates that
+     * were cancelled mid-flight are not reported by the provider and thus not counted.
      *
-     * @param task           The original task to be solved
-     * @param context        Accumulated context including previous attempts and feedback
-     * @param memory         List of previous solution attempts for reference
-     * @param chainOfThought List tracking the evolution of solutions and reasoning
-     * @return A RefinedResponse containing the final solution and complete solution history
+     * @param task       The task or problem to be solved through iterative refinement
+     * @param candidates Number of concurrent candidates per round; 1 behaves like {@link #loop}
+     * @param budget     Round, token and time limits of the run
+     * @param cancelled  Polled while waiting for candidates; when it returns true the run stops
+     * @return A RefinedResponse with the passing (or best) solution, every evaluated
+     *         generation, the reason the loop stopped and per-round token counts
      */
-    private RefinedResponse loop(String task, String context, List<String> memory,
-                                 List<Generation> chainOfThought) {
+    public RefinedResponse speculativeLoop(String task, int candidates, LoopBudget budget,
+                                           BooleanSupplier cancelled) {
+        Assert.hasText(task, "Task must not be empty");
+        Assert.isTrue(candidates > 0, "Candidates must be greater than 0");
+        Assert.notNull(budget, "Budget must not be null");
+        Assert.notNull(cancelled, "Cancellation signal must not be null");
+        Assert.state(this.llmExecutor != null, "Speculative mode requires an LlmExecutor");
 
-        Generation generation = generate(task, context);
-        memory.add(generation.response());
-        chainOfThought.add(generation);
+        List<Generation> chainOfThought = new ArrayList<>();
+        List<IterationStats> rounds = new ArrayList<>();
+        FeedbackDigest digest = new FeedbackDigest();
+        long start = System.nanoTime();
+        long tokens = 0;
+
+        String context = "";
+        Attempt best = null;
+
+        while (true) {
+            StopReason exhausted = checkBudget(budget, rounds.size(), tokens, start, cancelled);
+            if (exhausted != null) {
+                log.info("Speculative loop stopped after {} round(s): {}", rounds.size(), exhausted);
+                return new RefinedResponse(best != null ? best.generation().response() : null,
+                        chainOfThought, exhausted, rounds);
+            }
+
+            long roundStart = System.nanoTime();
+            Round round = runRound(task, context, candidates, budget, start, cancelled);
+            round.attempts().forEach(attempt -> chainOfThought.add(attempt.generation()));
+
+            Attempt roundBest = round.attempts().stream()
+                    .min(Comparator.comparing(attempt -> attempt.evaluation().evaluation()))
+                    .orElse(null);
+            IterationStats stats = stats(rounds.size() + 1, roundStart,
+                    roundBest != null ? roundBest.evaluation().evaluation() : null,
+                    round.attempts().stream().flatMap(attempt -> attempt.responses().stream())
+                            .toArray(ChatResponse[]::new));
+            rounds.add(stats);
+            tokens += stats.totalTokens();
+
+            if (roundBest != null && roundBest.evaluation().evaluation() == Evaluation.PASS) {
+                log.info("Candidate passed in round {} after {} of {} candidate(s) completed",
+                        rounds.size(), round.attempts().size(), candidates);
+                return new RefinedResponse(roundBest.generation().response(), chainOfThought, StopReason.PASS, rounds);
+            }
+            if (round.stopReason() != null) {
+                Attempt result = better(best, roundBest);
+                return new RefinedResponse(result != null ? result.generation().response() : null,
+                        chainOfThought, round.stopReason(), rounds);
+            }
+            if (roundBest == null) {
+                throw new IllegalStateException("All " + candidates + " candidates of round " + rounds.size()
+                        + " failed", round.failure());
+            }
+
+            best = better(best, roundBest);
+            context = digest.compact(roundBest.generation().response(), roundBest.evaluation().feedback());
+        }
+    }
 
-        EvaluationResponse evaluationResponse = evaluate(generation.response(), task);
+    private Round runRound(String task, String context, int candidates, LoopBudget budget, long startNanos,
+                           BooleanSupplier cancelled) {
+        LlmExecutor.Batch batch = this.llmExecutor.batch(candidates);
+        BlockingQueue<CompletableFuture<Attempt>> completed = new LinkedBlockingQueue<>();
+        List<CompletableFuture<Attempt>> inFlight = new ArrayList<>(candidates);
+        for (int i = 1; i <= candidates; i++) {
+            String candidateContext = candidates == 1 ? context
+                    : context + "\nYou are candidate " + i + " of " + candidates + "; try your own approach.";
+            CompletableFuture<Attempt> future = batch.submit(() -> attempt(task, candidateContext));
+            future.whenComplete((attempt, error) -> completed.add(future));
+            inFlight.add(future);
+        }
 
-        if (evaluationResponse.evaluation().equals(EvaluationResponse.Evaluation.PASS)) {
-            // Solution is accepted!
-            return new RefinedResponse(generation.response(), chainOfThought);
+        List<Attempt> attempts = new ArrayList<>();
+        Throwable failure = null;
+        try {
+            for (int received = 0; received < candidates; ) {
+                if (isCancelled(cancelled)) {
+                    return new Round(attempts, StopReason.CANCELLED, failure);
+                }
+                long remaining = budget.maxDuration().toNanos() - (System.nanoTime() - startNanos);
+                if (remaining <= 0) {
+                    return new Round(attempts, StopReason.TIME_BUDGET_EXHAUSTED, failure);
+                }
+                CompletableFuture<Attempt> next = completed.poll(Math.min(remaining, CANCELLATION_POLL_NANOS),
+                        TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    continue;
+                }
+                received++;
+                if (next.isCompletedExceptionally()) {
+                    failure = next.handle((attempt, error) -> error).join();
+                    log.warn("Candidate failed: {}", failure.toString());
+                    continue;
+                }
+                Attempt attempt = next.join();
+                attempts.add(attempt);
+                if (attempt.evaluation().evaluation() == Evaluation.PASS) {
+                    break;
+                }
+            }
+            return new Round(attempts, null, failure);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Round(attempts, StopReason.CANCELLED, failure);
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private Attempt attempt(String task, String context) {
+        ResponseEntity<ChatResponse, Generation> generated = generate(task, context);
+        ResponseEntity<ChatResponse, EvaluationResponse> evaluated = evaluate(generated.entity().response(), task);
+        return new Attempt(generated.entity(), evaluated.entity(),
+                List.of(generated.response(), evaluated.response()));
+    }
+
+    private static Attempt better(Attempt current, Attempt candidate) {
+        if (current == null) {
+            return candidate;
+        }
+        if (candidate == null) {
+            return current;
         }
+        return candidate.evaluation().evaluation().compareTo(current.evaluation().evaluation()) <= 0
+                ? candidate : current;
+    }
+
+    private record Attempt(Generation generation, EvaluationResponse evaluation, List<ChatResponse> responses) {
+    }
+
+    private record Round(List<Attempt> attempts, StopReason stopReason, Throwable failure) {
+    }
 
-        // Accumulated new context including the last and the previous attempts and
-        // feedbacks.
-        StringBuilder newContext = new StringBuilder();
-        newContext.append("Previous attempts:");
-        for (String m : memory) {
-            newContext.append("\n- ").append(m);
+    private static StopReason checkBudget(LoopBudget budget, int iterations, long tokens, long startNanos,
+                                          BooleanSupplier cancelled) {
+        if (isCancelled(cancelled)) {
+            return StopReason.CANCELLED;
         }
-        newContext.append("\nFeedback: ").append(evaluationResponse.feedback());
+        if (iterations >= budget.maxIterations()) {
+            return StopReason.MAX_ITERATIONS;
+        }
+        if (tokens >= budget.maxTokens()) {
+            return StopReason.TOKEN_BUDGET_EXHAUSTED;
+        }
+        if (System.nanoTime() - startNanos >= budget.maxDuration().toNanos()) {
+            return StopReason.TIME_BUDGET_EXHAUSTED;
+        }
+        return null;
+    }
 
-        return loop(task, newContext.toString(), memory, chainOfThought);
+    private static boolean isCancelled(BooleanSupplier cancelled) {
+        return cancelled.getAsBoolean() || Thread.currentThread().isInterrupted();
+    }
+
+    private static IterationStats stats(int iteration, long startNanos, Evaluation evaluation,
+                                        ChatResponse... responses) {
+        long promptTokens = 0;
+        long completionTokens = 0;
+        for (ChatResponse response : responses) {
+            Usage usage = response != null ? response.getMetadata().getUsage() : null;
+            if (usage != null) {
+                promptTokens += usage.getPromptTokens() != null ? usage.getPromptTokens() : 0;
+                completionTokens += usage.getCompletionTokens() != null ? usage.getCompletionTokens() : 0;
+            }
+        }
+        return new IterationStats(iteration, promptTokens, completionTokens, promptTokens + completionTokens,
+                Duration.ofNanos(System.nanoTime() - startNanos).toMillis(), evaluation);
+    }
+
+    private ResponseEntity<ChatResponse, Generation> generate(String task, String context,
+                                                              RunCheckpoint checkpoint, int iteration) {
+        String step = "generate-" + iteration;
+        String input = this.generatorPrompt + "\n" + context + "\nTask: " + task;
+        Optional<Generation> replayed = checkpoint.replay(step, input, Generation.class);
+        if (replayed.isPresent()) {
+            return new ResponseEntity<>(null, replayed.get());
+        }
+        ResponseEntity<ChatResponse, Generation> generated = generate(task, context);
+        checkpoint.record(step, input, generated.entity());
+        return generated;
+    }
+
+    private ResponseEntity<ChatResponse, EvaluationResponse> evaluate(String content, String task,
+                                                                      RunCheckpoint checkpoint, int iteration) {
+        String step = "evaluate-" + iteration;
+        String input = this.evaluatorPrompt + "\nOriginal task: " + task + "\nContent to evaluate: " + content;
+        Optional<EvaluationResponse> replayed = checkpoint.replay(step, input, EvaluationResponse.class);
+        if (replayed.isPresent()) {
+            return new ResponseEntity<>(null, replayed.get());
+        }
+        ResponseEntity<ChatResponse, EvaluationResponse> evaluated = evaluate(content, task);
+        checkpoint.record(step, input, evaluated.entity());
+        return evaluated;
     }
 
     /**
@@ -143,49 +453,101 @@ public class EvaluatorOptimizerWorkflow {
      * @param context Previous attempts and feedback for iterative improvement
      * @return A Generation containing the model's thoughts and proposed solution
      */
-    private Generation generate(String task, String context) {
-        Generation generationResponse = chatClient.prompt()
+    private ResponseEntity<ChatResponse, Generation> generate(String task, String context) {
+        ResponseEntity<ChatResponse, Generation> generated = chatClient.prompt()
                 .user(u -> u.text("{prompt}\n{context}\nTask: {task}")
                         .param("prompt", this.generatorPrompt)
                         .param("context", context)
                         .param("task", task))
+                .advisors(WorkflowStep.of(NAME, "generator"))
                 .call()
-                .entity(Generation.class);
+                .responseEntity(Generation.class);
 
+        Generation generationResponse = generated.entity();
         assert generationResponse != null;
         log.info("=== GENERATOR OUTPUT ===");
         log.info("THOUGHTS: {}", generationResponse.thoughts());
         log.info("RESPONSE:\n{}", generationResponse.response());
 
-        return generationResponse;
+        return generated;
     }
 
     /**
      * Evaluates if a solution meets the specified requirements and quality
      * criteria. This method represents the evaluator component of the workflow, analyzing
      * solutions and providing detailed feedback for further refinement until the desired
-     * quality level is reached.
+     * quality level is reached. The {@link PreEvaluator} runs first; when it returns a
+     * verdict, the LLM evaluation is skipped.
      *
      * @param content The solution content to be evaluated
      * @param task    The original task against which to evaluate the solution
      * @return An EvaluationResponse containing the evaluation result
      *         (PASS/NEEDS_IMPROVEMENT/FAIL) and detailed feedback for improvement
      */
-    private EvaluationResponse evaluate(String content, String task) {
+    private ResponseEntity<ChatResponse, EvaluationResponse> evaluate(String content, String task) {
+
+        Optional<EvaluationResponse> preEvaluation = this.preEvaluator.preEvaluate(content);
+        if (preEvaluation.isPresent()) {
+            log.info("=== PRE-EVALUATOR OUTPUT (LLM evaluation skipped) ===");
+            log.info("EVALUATION: {}", preEvaluation.get().evaluation());
+            log.info("FEEDBACK: {}", preEvaluation.get().feedback());
+            return new ResponseEntity<>(null, preEvaluation.get());
+        }
 
-        EvaluationResponse evaluationResponse = chatClient.prompt()
+        ResponseEntity<ChatResponse, EvaluationResponse> evaluated = chatClient.prompt()
                 .user(u -> u.text("{prompt}\nOriginal task: {task}\nContent to evaluate: {content}")
                         .param("prompt", this.evaluatorPrompt)
                         .param("task", task)
                         .param("content", content))
+                .advisors(WorkflowStep.of(NAME, "evaluator"))
                 .call()
-                .entity(EvaluationResponse.class);
+                .responseEntity(EvaluationResponse.class);
 
+        EvaluationResponse evaluationResponse = evaluated.entity();
         assert evaluationResponse != null;
         log.info("=== EVALUATOR OUTPUT ===");
         log.info("EVALUATION: {}", evaluationResponse.evaluation());
         log.info("FEEDBACK: {}", evaluationResponse.feedback());
 
-        return evaluationResponse;
+        return evaluated;
+    }
+
+    /**
+     * Builds the generator context from the latest attempt and its feedback, plus a
+     * rolling digest of the feedback on earlier attempts. Older digest entries are
+     * dropped and long ones abbreviated, so the context size is bounded.
+     */
+    static final class FeedbackDigest {
+
+        static final int MAX_ENTRIES = 4;
+        static final int MAX_ENTRY_LENGTH = 280;
+
+        private final Deque<String> earlierFeedback = new ArrayDeque<>();
+        private String previousFeedback;
+
+        String compact(String latestAttempt, String feedback) {
+            if (previousFeedback != null) {
+                earlierFeedback.addLast(abbreviate(previousFeedback));
+                if (earlierFeedback.size() > MAX_ENTRIES) {
+                    earlierFeedback.removeFirst();
+                }
+            }
+            previousFeedback = feedback;
+
+            StringBuilder context = new StringBuilder();
+            context.append("Latest attempt:\n").append(latestAttempt);
+            context.append("\nFeedback: ").append(feedback);
+            if (!earlierFeedback.isEmpty()) {
+                context.append("\nFeedback on earlier attempts:");
+                earlierFeedback.forEach(entry -> context.append("\n- ").append(entry));
+            }
+            return context.toString();
+        }
+
+        private static String abbreviate(String feedback) {
+            String singleLine = feedback == null ? "" : feedback.replaceAll("\\s+", " ").strip();
+            return singleLine.length() <= MAX_ENTRY_LENGTH ? singleLine
+                    : singleLine.substring(0, MAX_ENTRY_LENGTH - 3) + "...";
+        }
     }
 }
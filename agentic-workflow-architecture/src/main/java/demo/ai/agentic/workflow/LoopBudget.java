@@ -0,0 +1,21 @@
+package demo.ai.agentic.workflow;
+
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+
+/**
+ * Limits of one evaluator-optimizer run: the number of generate/evaluate iterations, the
+ * total number of tokens spent by all calls, and the wall-clock time. The loop stops at
+ * the first limit that is reached.
+ */
+public record LoopBudget(int maxIterations, long maxTokens, Duration maxDuration) {
+
+    public static final LoopBudget DEFAULT = new LoopBudget(5, 50_000, Duration.ofMinutes(5));
+
+    public LoopBudget {
+        Assert.isTrue(maxIterations > 0, "Max iterations must be greater than 0");
+        Assert.isTrue(maxTokens > 0, "Max tokens must be greater than 0");
+        Assert.isTrue(maxDuration != null && maxDuration.isPositive(), "Max duration must be positive");
+    }
+}
@@ -0,0 +1,113 @@
+package demo.ai.agentic.workflow;
+
+import demo.ai.agentic.record.Metric;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Deterministic helpers for the {@code value: metric} line format produced by the
+ * extraction steps of {@link ChainWorkflow}. They replace the LLM steps that only
+ * sort lines or render them as a markdown table.
+ */
+public final class MetricLines {
+
+    private static final Pattern NUMBER = Pattern.compile("[-+]?\\d[\\d,]*(?:\\.\\d+)?");
+
+    private static final Comparator<Metric> DESCENDING =
+            Comparator.comparingDouble(Metric::numericValue).reversed();
+
+    private MetricLines() {
+    }
+
+    /**
+     * Sorts {@code value: metric} lines in descending order by numerical value.
+     * Lines that cannot be parsed are kept, in their original order, after the sorted ones.
+     */
+    public static String sortDescending(String text) {
+        List<Metric> metrics = new ArrayList<>();
+        List<String> unparsed = new ArrayList<>();
+        for (String line : lines(text)) {
+            Metric metric = parseLine(line);
+            if (metric != null) {
+                metrics.add(metric);
+            } else {
+                unparsed.add(line);
+            }
+        }
+
+        List<String> sorted = new ArrayList<>(metrics.stream()
+                .sorted(DESCENDING)
+                .map(metric -> metric.value() + ": " + metric.name())
+                .toList());
+        sorted.addAll(unparsed);
+        return String.join("\n", sorted);
+    }
+
+    /**
+     * Renders {@code value: metric} lines as a markdown table with {@code Metric} and
+     * {@code Value} columns, keeping the line order.
+     */
+    public static String toMarkdownTable(String text) {
+        StringBuilder table = new StringBuilder("| Metric | Value |\n|:--|--:|\n");
+        for (Metric metric : parse(text)) {
+            table.append("| ").append(titleCase(metric.name()))
+                    .append(" | ").append(metric.value())
+                    .append(" |\n");
+        }
+        return table.toString();
+    }
+
+    /**
+     * Parses every {@code value: metric} line of the text, skipping lines that do not
+     * contain a numerical value.
+     */
+    public static List<Metric> parse(String text) {
+        return lines(text).stream()
+                .map(MetricLines::parseLine)
+                .filter(metric -> metric != null)
+                .toList();
+    }
+
+    static Metric parseLine(String line) {
+        int separator = line.indexOf(':');
+        if (separator <= 0) {
+            return null;
+        }
+
+        String value = line.substring(0, separator).trim();
+        String name = line.substring(separator + 1).trim();
+        Matcher number = NUMBER.matcher(value);
+        if (name.isEmpty() || !number.find()) {
+            return null;
+        }
+
+        double numericValue = Double.parseDouble(number.group().replace(",", ""));
+        return new Metric(value, numericValue, name);
+    }
+
+    private static List<String> lines(String text) {
+        return text.lines()
+                .map(MetricLines::clean)
+                .filter(line -> !line.isEmpty())
+                .toList();
+    }
+
+    // The chain wraps each step input in braces and models like to answer with bullets.
+    private static String clean(String line) {
+        return line.strip()
+                .replaceAll("^[{}\\s]*(?:[-*]\\s+)?", "")
+                .replaceAll("[{}\\s]+$", "");
+    }
+
+    private static String titleCase(String name) {
+        return Arrays.stream(name.split("\\s+"))
+                .map(word -> word.isEmpty() ? word : Character.toUpperCase(word.charAt(0)) + word.substring(1))
+                .collect(Collectors.joining(" "));
+    }
+}
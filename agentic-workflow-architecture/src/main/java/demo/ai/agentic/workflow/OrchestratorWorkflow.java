@@ -1,19 +1,45 @@
 package demo.ai.agentic.workflow;
 
+import demo.ai.agentic.concurrency.LlmExecutor;
 import demo.ai.agentic.record.FinalResponse;
 import demo.ai.agentic.record.OrchestratorResponse;
+import demo.ai.agentic.record.Task;
+import demo.ai.agentic.record.WorkerTiming;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
 
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class OrchestratorWorkflow {
 
     private static final Logger log = LoggerFactory.getLogger(OrchestratorWorkflow.class);
 
+    public static final String NAME = "orchestrator";
+
+    public static final int DEFAULT_MAX_PARALLELISM = 4;
+
     private final ChatClient chatClient;
+    private final LlmExecutor llmExecutor;
     private final String orchestratorPrompt;
     private final String workerPrompt;
 
@@ -28,15 +54,22 @@ public class OrchestratorWorkflow {
                          Focus on how each approach serves different aspects of the task.",
             "tasks": [
             	\\{
+            	"id": "formal",
             	"type": "formal",
-            	"description": "Write a precise, technical version that emphasizes specifications"
+            	"description": "Write a precise, technical version that emphasizes specifications",
+            	"dependsOn": []
             	\\},
             	\\{
+            	"id": "conversational",
             	"type": "conversational",
-            	"description": "Write an engaging, friendly version that connects with readers"
+            	"description": "Write an engaging, friendly version that connects with readers",
+            	"dependsOn": []
             	\\}
             ]
             \\}
+            
+            Tasks run in parallel. Only when a task needs the result of another task,
+            list the id of that task in "dependsOn"; it then runs after that task completes.
             """;
 
     public static final String DEFAULT_WORKER_PROMPT = """
@@ -44,29 +77,51 @@ public class OrchestratorWorkflow {
             Task: {original_task}
             Style: {task_type}
             Guidelines: {task_description}
+            Results of prerequisite tasks: {dependency_results}
             """;
 
-    public OrchestratorWorkflow(ChatClient chatClient) {
-        this(chatClient, DEFAULT_ORCHESTRATOR_PROMPT, DEFAULT_WORKER_PROMPT);
+    public OrchestratorWorkflow(ChatClient chatClient, LlmExecutor llmExecutor) {
+        this(chatClient, llmExecutor, DEFAULT_ORCHESTRATOR_PROMPT, DEFAULT_WORKER_PROMPT);
     }
 
-    public OrchestratorWorkflow(ChatClient chatClient, String orchestratorPrompt, String workerPrompt) {
+    public OrchestratorWorkflow(ChatClient chatClient, LlmExecutor llmExecutor, String orchestratorPrompt,
+                                String workerPrompt) {
         Assert.notNull(chatClient, "ChatClient must not be null");
+        Assert.notNull(llmExecutor, "LlmExecutor must not be null");
         Assert.hasText(orchestratorPrompt, "Orchestrator prompt must not be empty");
         Assert.hasText(workerPrompt, "Worker prompt must not be empty");
 
         this.chatClient = chatClient;
+        this.llmExecutor = llmExecutor;
         this.orchestratorPrompt = orchestratorPrompt;
         this.workerPrompt = workerPrompt;
     }
 
     public FinalResponse process(String taskDescription) {
+        return process(taskDescription, DEFAULT_MAX_PARALLELISM);
+    }
+
+    /**
+     * Breaks the task down with the orchestrator and runs the resulting subtasks on the
+     * shared {@link LlmExecutor}. Independent subtasks run concurrently, with at most
+     * {@code maxParallelism} of them in flight; a subtask with dependencies starts as soon
+     * as all of its dependencies have completed and receives their results. When a worker
+     * fails or the calling thread is interrupted, the workers still running are cancelled.
+     *
+     * @param taskDescription The task to break down and process
+     * @param maxParallelism  The maximum number of worker calls in flight at once
+     * @return the orchestrator analysis, the worker responses in task order, and per-worker timings
+     * @throws IllegalStateException if the orchestrator returned cyclic task dependencies
+     */
+    public FinalResponse process(String taskDescription, int maxParallelism) {
         Assert.hasText(taskDescription, "Task description must not be empty");
+        Assert.isTrue(maxParallelism > 0, "Max parallelism must be greater than 0");
 
         // Step 1: Get orchestrator response
         OrchestratorResponse orchestratorResponse = this.chatClient.prompt()
                 .user(u -> u.text(this.orchestratorPrompt)
                         .param("task", taskDescription))
+                .advisors(WorkflowStep.of(NAME, "orchestrator"))
                 .call()
                 .entity(OrchestratorResponse.class);
 
@@ -75,18 +130,166 @@ public class OrchestratorWorkflow {
         log.info("ANALYSIS: {}", orchestratorResponse.analysis());
         log.info("TASKS: {}", orchestratorResponse.tasks());
 
-        // Step 2: Process each task
-        List<String> workerResponses = orchestratorResponse.tasks().stream().map(task -> this.chatClient.prompt()
+        // Step 2: Process the tasks, each as soon as its dependencies are done
+        List<Task> tasks = normalize(orchestratorResponse.tasks());
+        List<Task> schedule = topologicalOrder(tasks);
+
+        LlmExecutor.Batch batch = this.llmExecutor.batch(maxParallelism);
+        // Only used by this thread; workers get the futures of their own dependencies.
+        Map<String, CompletableFuture<String>> results = new HashMap<>();
+        Queue<CompletableFuture<String>> calls = new ConcurrentLinkedQueue<>();
+        AtomicBoolean failed = new AtomicBoolean();
+        Map<String, WorkerTiming> timings = new ConcurrentHashMap<>();
+        long phaseStart = System.nanoTime();
+
+        for (Task task : schedule) {
+            List<CompletableFuture<String>> dependencies = task.dependsOn().stream()
+                    .map(results::get)
+                    .toList();
+            CompletableFuture<String> result = CompletableFuture
+                    .allOf(dependencies.toArray(CompletableFuture[]::new))
+                    .thenCompose(ready -> {
+                        CompletableFuture<String> call = batch.submit(() -> {
+                            long start = System.nanoTime();
+                            String response = work(taskDescription, task, dependencyResults(task, dependencies));
+                            timings.put(task.id(), new WorkerTiming(task.id(), task.type(),
+                                    millis(start - phaseStart), millis(System.nanoTime() - start)));
+                            return response;
+                        });
+                        calls.add(call);
+                        if (failed.get()) {
+                            call.cancel(true);
+                        }
+                        return call;
+                    });
+            results.put(task.id(), result);
+        }
+
+        List<String> workerResponses = new ArrayList<>(tasks.size());
+        try {
+            for (Task task : tasks) {
+                workerResponses.add(results.get(task.id()).get());
+            }
+        } catch (ExecutionException | InterruptedException e) {
+            // Tasks still waiting for their dependencies are not started any more, and
+            // the calls in flight are interrupted, also when the caller is interrupted,
+            // e.g. because its job was cancelled.
+            failed.set(true);
+            results.values().forEach(future -> future.cancel(true));
+            calls.forEach(call -> call.cancel(true));
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the workers", e);
+            }
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        }
+        List<WorkerTiming> workerTimings = tasks.stream().map(task -> timings.get(task.id())).toList();
+
+        log.info("=== WORKER OUTPUT ===");
+        log.info("{}", workerResponses);
+        log.info("=== WORKER TIMINGS ===");
+        log.info("{}", workerTimings);
+
+        return new FinalResponse(orchestratorResponse.analysis(), workerResponses, workerTimings);
+    }
+
+    private String work(String taskDescription, Task task, String dependencyResults) {
+        return this.chatClient.prompt()
                 .user(u -> u.text(this.workerPrompt)
                         .param("original_task", taskDescription)
                         .param("task_type", task.type())
-                        .param("task_description", task.description()))
+                        .param("task_description", task.description())
+                        .param("dependency_results", dependencyResults))
+                .advisors(WorkflowStep.of(NAME, "worker"))
                 .call()
-                .content()).toList();
+                .content();
+    }
 
-        log.info("=== WORKER OUTPUT ===");
-        log.info("{}", workerResponses);
+    /**
+     * Formats the results of the completed dependencies, given in the order of
+     * {@link Task#dependsOn()}.
+     */
+    private static String dependencyResults(Task task, List<CompletableFuture<String>> dependencies) {
+        if (task.dependsOn().isEmpty()) {
+            return "None";
+        }
+        return IntStream.range(0, dependencies.size())
+                .mapToObj(i -> "\n[" + task.dependsOn().get(i) + "]\n" + dependencies.get(i).join())
+                .collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * Gives every task a unique id (falling back to its position) and drops dependencies
+     * on unknown tasks or on the task itself, which the orchestrator may return.
+     */
+    static List<Task> normalize(List<Task> tasks) {
+        Assert.notEmpty(tasks, "Orchestrator returned no tasks");
+
+        List<Task> withIds = new ArrayList<>(tasks.size());
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            String id = task.id();
+            if (!StringUtils.hasText(id) || !ids.add(id)) {
+                id = "task-" + (i + 1);
+                ids.add(id);
+            }
+            withIds.add(new Task(id, task.type(), task.description(), task.dependsOn()));
+        }
+
+        return withIds.stream()
+                .map(task -> {
+                    List<String> dependsOn = task.dependsOn().stream()
+                            .filter(dependency -> !dependency.equals(task.id()))
+                            .distinct()
+                            .toList();
+                    List<String> unknown = dependsOn.stream().filter(dependency -> !ids.contains(dependency)).toList();
+                    if (!unknown.isEmpty()) {
+                        log.warn("Ignoring unknown dependencies {} of task '{}'", unknown, task.id());
+                    }
+                    return new Task(task.id(), task.type(), task.description(),
+                            dependsOn.stream().filter(ids::contains).toList());
+                })
+                .toList();
+    }
+
+    /**
+     * Orders tasks so that every task comes after its dependencies (Kahn's algorithm),
+     * starting with the tasks without dependencies in the orchestrator's order.
+     */
+    static List<Task> topologicalOrder(List<Task> tasks) {
+        Map<String, Task> byId = new LinkedHashMap<>();
+        Map<String, Integer> pending = new HashMap<>();
+        Map<String, List<String>> dependents = new HashMap<>();
+        for (Task task : tasks) {
+            byId.put(task.id(), task);
+            pending.put(task.id(), task.dependsOn().size());
+            task.dependsOn().forEach(dependency ->
+                    dependents.computeIfAbsent(dependency, id -> new ArrayList<>()).add(task.id()));
+        }
+
+        Deque<String> ready = new ArrayDeque<>();
+        byId.keySet().stream().filter(id -> pending.get(id) == 0).forEach(ready::add);
+
+        List<Task> order = new ArrayList<>(tasks.size());
+        while (!ready.isEmpty()) {
+            String id = ready.poll();
+            order.add(byId.get(id));
+            for (String dependent : dependents.getOrDefault(id, List.of())) {
+                if (pending.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+
+        if (order.size() < tasks.size()) {
+            List<String> cyclic = byId.keySet().stream().filter(id -> pending.get(id) > 0).toList();
+            throw new IllegalStateException("Orchestrator returned cyclic task dependencies between " + cyclic);
+        }
+        return order;
+    }
 
-        return new FinalResponse(orchestratorResponse.analysis(), workerResponses);
+    private static long millis(long nanos) {
+        return Duration.ofNanos(nanos).toMillis();
     }
 }
@@ -1,33 +1,63 @@
 package demo.ai.agentic.workflow;
 
+import demo.ai.agentic.concurrency.LlmExecutor;
+import demo.ai.agentic.record.BatchItem;
+import demo.ai.agentic.record.BatchResponse;
+import demo.ai.agentic.record.IndexedResult;
+import demo.ai.commons.metrics.LlmMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class ParallelizationWorkflow {
 
+    private static final Logger log = LoggerFactory.getLogger(ParallelizationWorkflow.class);
+
+    public static final String NAME = "parallelization";
+
+    private static final Duration RETRY_BACKOFF = Duration.ofMillis(500);
+
+    public static final int DEFAULT_BATCH_TOKEN_BUDGET = 2_000;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 20;
+
     private final ChatClient chatClient;
+    private final LlmExecutor llmExecutor;
+
+    public ParallelizationWorkflow(ChatClient chatClient, LlmExecutor llmExecutor) {
+        Assert.notNull(chatClient, "ChatClient must not be null");
+        Assert.notNull(llmExecutor, "LlmExecutor must not be null");
 
-    public ParallelizationWorkflow(ChatClient chatClient) {
         this.chatClient = chatClient;
+        this.llmExecutor = llmExecutor;
     }
 
     /**
-     * Processes multiple inputs concurrently using a fixed thread pool and the same prompt template.
+     * Processes multiple inputs concurrently on the shared {@link LlmExecutor} using the same prompt template.
      * This method maintains the order of results corresponding to the input order.
      *
      * @param prompt   The prompt template to use for each input. The input will be appended to this prompt.
      *                 Must not be null. Example: "Translate the following text to French":
      * @param inputs   List of input strings to process. Each input will be processed independently
      *                 in parallel. Must not be null or empty. Example: ["Hello", "World", "Good morning"]
-     * @param nWorkers The number of concurrent worker threads to use. This controls the maximum
-     *                 number of simultaneous LLM API calls. Must be greater than 0. Consider API
-     *                 rate limits when setting this value.
+     * @param nWorkers The maximum number of this call's inputs processed at the same time. The
+     *                 process-wide provider limit of the executor applies on top of it, so the
+     *                 total number of in-flight LLM calls stays bounded across concurrent requests.
+     *                 Must be greater than 0.
      * @return List of processed results in the same order as the inputs. Each result contains
      * the LLM's response for the corresponding input.
      * @throws IllegalArgumentException if prompt is null, inputs is null/empty, or nWorkers <= 0
@@ -39,26 +69,192 @@ public class ParallelizationWorkflow {
         Assert.notEmpty(inputs, "Inputs list cannot be empty");
         Assert.isTrue(nWorkers > 0, "Number of workers must be greater than 0");
 
-        try (ExecutorService executor = Executors.newFixedThreadPool(nWorkers)) {
-
-            List<CompletableFuture<String>> futures = inputs.stream()
-                    .map(input -> CompletableFuture.supplyAsync(() -> {
-                        try {
-                            return chatClient.prompt(prompt + "\nInput: " + input).call().content();
-                        } catch (Exception e) {
-                            throw new RuntimeException("Failed to process input: " + input, e);
-                        }
-                    }, executor))
-                    .toList();
-
-            // Wait for all tasks to complete
-            CompletableFuture<Void> allFutures = CompletableFuture.allOf(
-                    futures.toArray(CompletableFuture[]::new));
-            allFutures.join();
-
-            return futures.stream()
-                    .map(CompletableFuture::join)
-                    .collect(Collectors.toList());
+        List<Supplier<String>> calls = inputs.stream()
+                .map(input -> (Supplier<String>) () -> {
+                    try {
+                        return process(prompt, input);
+                    } catch (Exception e) {
+                        throw new RuntimeException("Failed to process input: " + input, e);
+                    }
+                })
+                .toList();
+
+        List<CompletableFuture<String>> futures = llmExecutor.submitAll(calls, nWorkers);
+
+        // Wait for all tasks to complete
+        CompletableFuture<Void> allFutures = CompletableFuture.allOf(
+                futures.toArray(CompletableFuture[]::new));
+        allFutures.join();
+
+        return futures.stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Processes multiple inputs concurrently and emits each result as soon as its input
+     * finishes, instead of waiting for the slowest one. A failing or stalled input does
+     * not affect the others: every emitted {@link IndexedResult} carries its own success
+     * or failure, tagged with the index of the input it belongs to.
+     *
+     * @param prompt     The prompt template to use for each input. The input will be appended to this prompt.
+     * @param inputs     List of input strings to process. Must not be null or empty.
+     * @param nWorkers   The maximum number of this call's inputs processed at the same time.
+     * @param timeout    Deadline of a single attempt for one input, including the time spent
+     *                   waiting for a provider permit. A timed out attempt is interrupted and
+     *                   reported once it has left the executor.
+     * @param maxRetries How many times a failed or timed out input is retried, with backoff,
+     *                   before a failure result is emitted for it. Zero disables retries.
+     * @return A cold flux emitting exactly one result per input, in completion order
+     */
+    public Flux<IndexedResult> parallelStream(String prompt, List<String> inputs, int nWorkers,
+                                              Duration timeout, int maxRetries) {
+        Assert.notNull(prompt, "Prompt cannot be null");
+        Assert.notEmpty(inputs, "Inputs list cannot be empty");
+        Assert.isTrue(nWorkers > 0, "Number of workers must be greater than 0");
+        Assert.isTrue(timeout != null && timeout.isPositive(), "Timeout must be positive");
+        Assert.isTrue(maxRetries >= 0, "Max retries must not be negative");
+
+        return Flux.range(0, inputs.size())
+                .flatMap(index -> processIndexed(prompt, index, inputs.get(index), timeout, maxRetries), nWorkers);
+    }
+
+    private Mono<IndexedResult> processIndexed(String prompt, int index, String input, Duration timeout,
+                                               int maxRetries) {
+        return Mono.defer(() -> {
+            AtomicInteger attempts = new AtomicInteger();
+            long start = System.nanoTime();
+
+            return Mono.defer(() -> {
+                        attempts.incrementAndGet();
+                        // The executor interrupts a call that times out and fails it only once the
+                        // call has left, so a timed out input does not keep holding its slot.
+                        return Mono.fromFuture(() -> llmExecutor.submit(() -> process(prompt, input), timeout));
+                    })
+                    .retryWhen(Retry.backoff(maxRetries, RETRY_BACKOFF)
+                            .doBeforeRetry(signal -> LlmMetrics.retry(NAME, "worker"))
+                            .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                    .map(output -> IndexedResult.success(index, output, attempts.get(), elapsedMillis(start)))
+                    .onErrorResume(e -> {
+                        log.warn("Input {} failed after {} attempt(s): {}", index, attempts.get(), e.toString());
+                        return Mono.just(IndexedResult.failure(index, describe(e, timeout), attempts.get(),
+                                elapsedMillis(start)));
+                    });
+        });
+    }
+
+    /**
+     * Micro-batching variant of {@link #parallel(String, List, int)} for large fan-outs of
+     * short inputs. Consecutive inputs are packed into batches of at most
+     * {@code maxBatchTokens} estimated input tokens (and {@code maxBatchSize} inputs), and
+     * each batch is sent as a single structured-output call, so the shared prompt is sent
+     * once per batch instead of once per input. The batch response is split back into
+     * per-input results by id. Inputs of a batch whose response cannot be parsed, or whose
+     * id is missing from the response, are re-processed with a regular per-input call.
+     *
+     * @param prompt         The prompt template applied to every input.
+     * @param inputs         List of input strings to process. Must not be null or empty.
+     * @param nWorkers       The maximum number of batch calls in flight for this request.
+     * @param maxBatchTokens Estimated input token budget of one batch. An input larger than
+     *                       the budget is sent in a batch of its own.
+     * @param maxBatchSize   The maximum number of inputs packed into one batch.
+     * @return List of processed results in the same order as the inputs
+     */
+    public List<String> parallelBatched(String prompt, List<String> inputs, int nWorkers,
+                                        int maxBatchTokens, int maxBatchSize) {
+        Assert.notNull(prompt, "Prompt cannot be null");
+        Assert.notEmpty(inputs, "Inputs list cannot be empty");
+        Assert.isTrue(nWorkers > 0, "Number of workers must be greater than 0");
+        Assert.isTrue(maxBatchTokens > 0, "Batch token budget must be greater than 0");
+        Assert.isTrue(maxBatchSize > 0, "Max batch size must be greater than 0");
+
+        List<List<Integer>> batches = TokenBatches.pack(inputs, maxBatchTokens, maxBatchSize);
+        List<Supplier<Map<Integer, String>>> batchCalls = batches.stream()
+                .map(batch -> (Supplier<Map<Integer, String>>) () -> processBatch(prompt, inputs, batch))
+                .toList();
+        List<CompletableFuture<Map<Integer, String>>> futures = llmExecutor.submitAll(batchCalls, nWorkers);
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+        String[] results = new String[inputs.size()];
+        futures.forEach(future -> future.join().forEach((index, output) -> results[index] = output));
+
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                missing.add(i);
+            }
+        }
+        log.info("Packed {} inputs into {} batch call(s), {} fallback call(s)",
+                inputs.size(), batches.size(), missing.size());
+
+        if (!missing.isEmpty()) {
+            List<String> fallback = parallel(prompt, missing.stream().map(inputs::get).toList(), nWorkers);
+            for (int i = 0; i < missing.size(); i++) {
+                results[missing.get(i)] = fallback.get(i);
+            }
+        }
+        return List.of(results);
+    }
+
+    public List<String> parallelBatched(String prompt, List<String> inputs, int nWorkers) {
+        return parallelBatched(prompt, inputs, nWorkers, DEFAULT_BATCH_TOKEN_BUDGET, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Sends one batch and maps the returned items back to input indexes. Unparseable
+     * responses and unknown, duplicate or empty items are dropped so that the caller
+     * falls back to per-input calls for them.
+     */
+    private Map<Integer, String> processBatch(String prompt, List<String> inputs, List<Integer> batch) {
+        if (batch.size() == 1) {
+            return Map.of(batch.get(0), process(prompt, inputs.get(batch.get(0))));
         }
+
+        String message = TokenBatches.render(prompt + TokenBatches.PER_INPUT_INSTRUCTIONS, batch.stream().map(inputs::get).toList());
+
+        BatchResponse response;
+        try {
+            response = chatClient.prompt(message)
+                    .advisors(WorkflowStep.of(NAME, "batch-worker"))
+                    .call()
+                    .entity(BatchResponse.class);
+        } catch (RuntimeException e) {
+            log.warn("Batch of {} inputs could not be parsed, falling back to per-input calls: {}",
+                    batch.size(), e.toString());
+            LlmMetrics.retry(NAME, "batch-worker");
+            return Map.of();
+        }
+
+        Map<Integer, String> results = new HashMap<>();
+        if (response != null && response.results() != null) {
+            for (BatchItem item : response.results()) {
+                if (item != null && item.id() >= 0 && item.id() < batch.size() && item.output() != null
+                        && !item.output().isBlank()) {
+                    results.putIfAbsent(batch.get(item.id()), item.output());
+                }
+            }
+        }
+        if (results.size() < batch.size()) {
+            log.warn("Batch response covered {} of {} inputs", results.size(), batch.size());
+        }
+        return results;
+    }
+
+    private static String describe(Throwable error, Duration timeout) {
+        if (error instanceof TimeoutException) {
+            return "Timed out after " + timeout.toMillis() + " ms";
+        }
+        return error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+    }
+
+    private String process(String prompt, String input) {
+        return chatClient.prompt(prompt + "\nInput: " + input)
+                .advisors(WorkflowStep.of(NAME, "worker"))
+                .call()
+                .content();
     }
 }
@@ -1,21 +1,94 @@
 package demo.ai.agentic.workflow;
 
+import demo.ai.agentic.concurrency.LlmExecutor;
+import demo.ai.agentic.record.BatchItem;
+import demo.ai.agentic.record.BatchResponse;
+import demo.ai.agentic.record.BatchRoutingResponse;
+import demo.ai.agentic.record.RouteAssignment;
+import demo.ai.agentic.record.RoutePrediction;
+import demo.ai.agentic.record.RoutedTicket;
 import demo.ai.agentic.record.RoutingResponse;
+import demo.ai.agentic.record.Ticket;
+import demo.ai.agentic.routing.RouteClassifier;
+import demo.ai.agentic.routing.RouteSpeculator;
+import demo.ai.commons.metrics.LlmMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 public class RoutingWorkflow {
 
     private static final Logger log = LoggerFactory.getLogger(RoutingWorkflow.class);
 
+    public static final String NAME = "routing";
+
+    public static final int DEFAULT_BATCH_SIZE = 20;
+    public static final int DEFAULT_BATCH_CONCURRENCY = 4;
+
+    private static final int BATCH_TOKEN_BUDGET = 4_000;
+
+    /**
+     * How long tickets of one route are collected before a partial specialist batch is sent.
+     */
+    private static final Duration GROUP_LINGER = Duration.ofMillis(250);
+
+    private static final String BATCH_SELECTOR_PROMPT = """
+            Analyze each of the following support tickets independently and select the most
+            appropriate support team for it from these options: %s
+            Consider key terms, user intent, and urgency level. Return one assignment per
+            ticket, copy the ticket's id into the assignment and use the exact team name as
+            the selection.
+            """;
+
     private final ChatClient chatClient;
+    private final RouteClassifier routeClassifier;
+    private final LlmExecutor llmExecutor;
+    private final RouteSpeculator routeSpeculator;
 
     public RoutingWorkflow(ChatClient chatClient) {
+        this(chatClient, null, null, null);
+    }
+
+    public RoutingWorkflow(ChatClient chatClient, RouteClassifier routeClassifier, LlmExecutor llmExecutor) {
+        this(chatClient, routeClassifier, llmExecutor, null);
+    }
+
+    /**
+     * @param routeClassifier local fast-path classifier consulted before the LLM selector;
+     *                        may be null to always ask the LLM
+     * @param llmExecutor     executor for background shadow verifications of fast-path
+     *                        decisions and speculative specialist calls; may be null to skip them
+     * @param routeSpeculator settings of speculative route execution; may be null to
+     *                        always run the specialist after the selection
+     */
+    public RoutingWorkflow(ChatClient chatClient, RouteClassifier routeClassifier, LlmExecutor llmExecutor,
+                           RouteSpeculator routeSpeculator) {
+        Assert.notNull(chatClient, "ChatClient must not be null");
+
         this.chatClient = chatClient;
+        this.routeClassifier = routeClassifier;
+        this.llmExecutor = llmExecutor;
+        this.routeSpeculator = routeSpeculator;
     }
 
     /**
@@ -47,9 +120,232 @@ public class RoutingWorkflow {
         Assert.notNull(input, "Input text cannot be null");
         Assert.notEmpty(routes, "Routes map cannot be null or empty");
 
+        // Predicted once, for both speculation and the fast path
+        RoutePrediction prediction = routeClassifier != null ? routeClassifier.predict(input, routes.keySet()) : null;
+        if (canSpeculate() && !routeClassifier.isConfident(prediction)) {
+            return routeSpeculatively(input, routes, prediction);
+        }
+
         // Determine the appropriate route for the input
-        String routeKey = determineRoute(input, routes.keySet());
+        String routeKey = determineRoute(input, routes.keySet(), prediction);
+
+        // Process the input with the selected prompt
+        return text(runSpecialist(input, routes, routeKey));
+    }
+
+    /**
+     * Routes many tickets at once and streams every ticket's result as soon as its
+     * specialist has answered, in completion order.
+     *
+     * <p>
+     * Tickets the local {@link RouteClassifier} is confident about skip the LLM selector.
+     * The others are classified in batches of up to {@code batchSize} tickets per
+     * structured-output call. Classified tickets are grouped by route, and the tickets of
+     * each route are again sent in batches to that route's specialist prompt, so the number
+     * of LLM calls grows with the number of batches rather than with the number of tickets.
+     * Tickets missing from a batch response, or whose batch response cannot be parsed, are
+     * re-processed with a regular per-ticket call. All calls of one request share
+     * {@code concurrency} slots on the {@link LlmExecutor}.
+     *
+     * @param tickets     The tickets to route. A ticket without id gets its position as id.
+     * @param routes      Map of route names to their corresponding specialized prompts
+     * @param batchSize   The maximum number of tickets per selector or specialist call
+     * @param concurrency The maximum number of LLM calls in flight for this request
+     * @return One result per ticket, carrying its own success or failure
+     */
+    public Flux<RoutedTicket> routeBatch(List<Ticket> tickets, Map<String, String> routes, int batchSize,
+                                         int concurrency) {
+        Assert.notEmpty(tickets, "Tickets list cannot be empty");
+        Assert.notEmpty(routes, "Routes map cannot be null or empty");
+        Assert.isTrue(batchSize > 0, "Batch size must be greater than 0");
+        Assert.isTrue(concurrency > 0, "Concurrency must be greater than 0");
+        Assert.state(llmExecutor != null, "Batch routing requires an LlmExecutor");
+
+        List<Ticket> accepted = new ArrayList<>();
+        List<RoutedTicket> rejected = new ArrayList<>();
+        for (int i = 0; i < tickets.size(); i++) {
+            Ticket ticket = tickets.get(i);
+            String id = ticket != null && StringUtils.hasText(ticket.id()) ? ticket.id() : String.valueOf(i);
+            if (ticket == null || !StringUtils.hasText(ticket.text())) {
+                rejected.add(RoutedTicket.failure(id, null, "Ticket text must not be empty"));
+            } else {
+                accepted.add(new Ticket(id, ticket.text()));
+            }
+        }
+
+        LlmExecutor.Batch calls = llmExecutor.batch(concurrency);
+        AtomicInteger selectorCalls = new AtomicInteger();
+        AtomicInteger specialistCalls = new AtomicInteger();
+
+        Flux<RoutedTicket> routed = classify(accepted, routes.keySet(), batchSize, calls, selectorCalls)
+                .groupBy(assignment -> Optional.ofNullable(assignment.route()))
+                .flatMap(group -> group.key()
+                        .map(route -> group.bufferTimeout(batchSize, GROUP_LINGER)
+                                .flatMap(buffer -> runSpecialists(accepted, routes, route, buffer, batchSize, calls,
+                                        specialistCalls)))
+                        .orElseGet(() -> group.map(assignment -> RoutedTicket.failure(
+                                accepted.get(assignment.index()).id(), null, assignment.error()))));
+
+        return Flux.concat(Flux.fromIterable(rejected), routed)
+                .doOnComplete(() -> log.info("Routed {} tickets with {} selector and {} specialist call(s)",
+                        tickets.size(), selectorCalls.get(), specialistCalls.get()));
+    }
+
+    /**
+     * Emits the route of every ticket, taking confident classifier predictions as they are
+     * and asking the LLM selector in batches for the rest.
+     */
+    private Flux<Assignment> classify(List<Ticket> tickets, Collection<String> availableRoutes, int batchSize,
+                                      LlmExecutor.Batch calls, AtomicInteger selectorCalls) {
+        List<Assignment> fastPath = new ArrayList<>();
+        List<Integer> pending = new ArrayList<>();
+        RoutePrediction[] predictions = new RoutePrediction[tickets.size()];
+        for (int i = 0; i < tickets.size(); i++) {
+            if (routeClassifier != null) {
+                predictions[i] = routeClassifier.predict(tickets.get(i).text(), availableRoutes);
+                if (routeClassifier.isConfident(predictions[i])) {
+                    routeClassifier.recordFastPath(predictions[i]);
+                    fastPath.add(new Assignment(i, predictions[i].route(), null));
+                    continue;
+                }
+            }
+            pending.add(i);
+        }
+        if (pending.isEmpty()) {
+            return Flux.fromIterable(fastPath);
+        }
+
+        List<String> texts = pending.stream().map(index -> tickets.get(index).text()).toList();
+        Flux<Assignment> selected = Flux.fromIterable(TokenBatches.pack(texts, BATCH_TOKEN_BUDGET, batchSize))
+                .map(batch -> batch.stream().map(pending::get).toList())
+                .flatMap(batch -> (batch.size() == 1 ? Mono.just(Map.<Integer, String>of())
+                                : submit(calls, selectorCalls, () -> selectRoutes(tickets, batch, availableRoutes)))
+                        .flatMapMany(routes -> Flux.fromIterable(batch)
+                                .flatMap(index -> routes.containsKey(index)
+                                        ? Mono.just(new Assignment(index, routes.get(index), null))
+                                        : submit(calls, selectorCalls, () -> selectRoute(tickets.get(index).text(), availableRoutes))
+                                                .map(route -> new Assignment(index, route, null))
+                                                .onErrorResume(e -> Mono.just(new Assignment(index, null,
+                                                        describe(e)))))))
+                .doOnNext(assignment -> {
+                    if (routeClassifier != null && assignment.route() != null) {
+                        routeClassifier.recordLlmDecision(tickets.get(assignment.index()).text(),
+                                predictions[assignment.index()], assignment.route(), false);
+                    }
+                });
+
+        return Flux.concat(Flux.fromIterable(fastPath), selected);
+    }
+
+    /**
+     * Sends one batch of tickets of the same route to the route's specialist, falling back
+     * to per-ticket calls for tickets the batch response does not cover.
+     */
+    private Flux<RoutedTicket> runSpecialists(List<Ticket> tickets, Map<String, String> routes, String route,
+                                              List<Assignment> assignments, int batchSize, LlmExecutor.Batch calls,
+                                              AtomicInteger specialistCalls) {
+        List<Integer> indexes = assignments.stream().map(Assignment::index).toList();
+        if (!routes.containsKey(route)) {
+            return Flux.fromIterable(indexes).map(index -> RoutedTicket.failure(tickets.get(index).id(), route,
+                    "Selected route '" + route + "' not found in routes map"));
+        }
+
+        List<String> texts = indexes.stream().map(index -> tickets.get(index).text()).toList();
+        return Flux.fromIterable(TokenBatches.pack(texts, BATCH_TOKEN_BUDGET, batchSize))
+                .map(batch -> batch.stream().map(indexes::get).toList())
+                .flatMap(batch -> (batch.size() == 1 ? Mono.just(Map.<Integer, String>of())
+                                : submit(calls, specialistCalls, () -> runSpecialistBatch(tickets, routes.get(route), batch)))
+                        .flatMapMany(outputs -> Flux.fromIterable(batch).flatMap(index -> {
+                            Ticket ticket = tickets.get(index);
+                            if (outputs.containsKey(index)) {
+                                return Mono.just(RoutedTicket.success(ticket.id(), route, outputs.get(index)));
+                            }
+                            return submit(calls, specialistCalls, () -> text(runSpecialist(ticket.text(), routes, route)))
+                                    .map(response -> RoutedTicket.success(ticket.id(), route, response))
+                                    .onErrorResume(e -> Mono.just(RoutedTicket.failure(ticket.id(), route,
+                                            describe(e))));
+                        })));
+    }
+
+    /**
+     * Runs the call on the request's executor batch once subscribed. A batch of one ticket
+     * is never submitted as a batch call but goes straight to the per-ticket call.
+     */
+    private static <T> Mono<T> submit(LlmExecutor.Batch calls, AtomicInteger counter, Supplier<T> call) {
+        return Mono.fromFuture(() -> {
+            counter.incrementAndGet();
+            return calls.submit(call);
+        });
+    }
+
+    private boolean canSpeculate() {
+        return routeSpeculator != null && routeSpeculator.isEnabled() && routeClassifier != null
+                && llmExecutor != null;
+    }
+
+    /**
+     * Runs the LLM selector and, at the same time, the specialists of the most likely
+     * routes according to the classifier. If the selected route was among them, its
+     * response is used and the other calls are cancelled, which turns two sequential
+     * round trips into roughly one. Otherwise all speculative calls are cancelled and the
+     * selected specialist runs as usual.
+     */
+    private String routeSpeculatively(String input, Map<String, String> routes, RoutePrediction prediction) {
+        List<String> likelyRoutes = routeClassifier.rank(input, routes.keySet()).stream()
+                .limit(routeSpeculator.topK())
+                .toList();
+        routeSpeculator.recordSpeculation(likelyRoutes.size());
+        log.info("Speculatively running specialists {} while selecting the route", likelyRoutes);
+
+        long start = System.nanoTime();
+        Map<String, CompletableFuture<TimedResponse>> speculative = new LinkedHashMap<>();
+        likelyRoutes.forEach(route -> speculative.put(route, llmExecutor.submit(() -> {
+            long specialistStart = System.nanoTime();
+            ChatResponse response = runSpecialist(input, routes, route);
+            return new TimedResponse(response, System.nanoTime() - specialistStart);
+        })));
+
+        String routeKey;
+        try {
+            routeKey = selectRoute(input, routes.keySet());
+            routeClassifier.recordLlmDecision(input, prediction, routeKey, false);
+        } catch (RuntimeException e) {
+            speculative.values().forEach(future -> future.cancel(true));
+            throw e;
+        }
+        long selectorNanos = System.nanoTime() - start;
+
+        CompletableFuture<TimedResponse> hit = speculative.remove(routeKey);
+        speculative.values().forEach(future -> {
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                routeSpeculator.recordWaste(totalTokens(future.join().response()));
+            } else {
+                future.cancel(true);
+                routeSpeculator.recordWaste(0);
+            }
+        });
+
+        if (hit == null) {
+            log.info("Selected route '{}' was not speculated", routeKey);
+            return text(runSpecialist(input, routes, routeKey));
+        }
+
+        try {
+            TimedResponse response = hit.get();
+            routeSpeculator.recordHit(Math.min(selectorNanos, response.nanos()));
+            return text(response.response());
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            // e.g. the job of the request was cancelled: the specialist call is not needed any more
+            hit.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the specialist of route '"
+                    + routeKey + "'", e);
+        }
+    }
 
+    private ChatResponse runSpecialist(String input, Map<String, String> routes, String routeKey) {
         // Get the selected prompt from the route map
         String selectedPrompt = routes.get(routeKey);
 
@@ -57,8 +353,144 @@ public class RoutingWorkflow {
             throw new IllegalArgumentException("Selected route '" + routeKey + "' not found in routes map");
         }
 
-        // Process the input with the selected prompt
-        return chatClient.prompt(selectedPrompt + "\nInput: " + input).call().content();
+        return chatClient.prompt(selectedPrompt + "\nInput: " + input)
+                .advisors(WorkflowStep.of(NAME, "specialist"))
+                .call()
+                .chatResponse();
+    }
+
+    /**
+     * Classifies a batch of tickets with one structured-output call.
+     *
+     * @return the route of every ticket index the response covers with a known route;
+     * empty if the response cannot be parsed
+     */
+    private Map<Integer, String> selectRoutes(List<Ticket> tickets, List<Integer> batch,
+                                              Collection<String> availableRoutes) {
+        String message = TokenBatches.render(String.format(BATCH_SELECTOR_PROMPT, availableRoutes),
+                batch.stream().map(index -> tickets.get(index).text()).toList());
+
+        BatchRoutingResponse response;
+        try {
+            response = chatClient.prompt(message)
+                    .advisors(WorkflowStep.of(NAME, "batch-selector"))
+                    .call()
+                    .entity(BatchRoutingResponse.class);
+        } catch (RuntimeException e) {
+            log.warn("Batch of {} tickets could not be classified, falling back to per-ticket selection: {}",
+                    batch.size(), e.toString());
+            LlmMetrics.retry(NAME, "batch-selector");
+            return Map.of();
+        }
+
+        Map<Integer, String> routes = new HashMap<>();
+        if (response != null && response.assignments() != null) {
+            for (RouteAssignment assignment : response.assignments()) {
+                if (assignment != null && assignment.id() >= 0 && assignment.id() < batch.size()
+                        && assignment.selection() != null && availableRoutes.contains(assignment.selection())) {
+                    routes.putIfAbsent(batch.get(assignment.id()), assignment.selection());
+                }
+            }
+        }
+        if (routes.size() < batch.size()) {
+            log.warn("Batch selector response covered {} of {} tickets", routes.size(), batch.size());
+        }
+        return routes;
+    }
+
+    /**
+     * Sends a batch of tickets to one specialist prompt with one structured-output call.
+     *
+     * @return the response of every ticket index the batch response covers; empty if the
+     * response cannot be parsed
+     */
+    private Map<Integer, String> runSpecialistBatch(List<Ticket> tickets, String prompt, List<Integer> batch) {
+        String message = TokenBatches.render(prompt + TokenBatches.PER_INPUT_INSTRUCTIONS,
+                batch.stream().map(index -> tickets.get(index).text()).toList());
+
+        BatchResponse response;
+        try {
+            response = chatClient.prompt(message)
+                    .advisors(WorkflowStep.of(NAME, "batch-specialist"))
+                    .call()
+                    .entity(BatchResponse.class);
+        } catch (RuntimeException e) {
+            log.warn("Specialist batch of {} tickets could not be parsed, falling back to per-ticket calls: {}",
+                    batch.size(), e.toString());
+            LlmMetrics.retry(NAME, "batch-specialist");
+            return Map.of();
+        }
+
+        Map<Integer, String> outputs = new HashMap<>();
+        if (response != null && response.results() != null) {
+            for (BatchItem item : response.results()) {
+                if (item != null && item.id() >= 0 && item.id() < batch.size() && StringUtils.hasText(item.output())) {
+                    outputs.putIfAbsent(batch.get(item.id()), item.output());
+                }
+            }
+        }
+        return outputs;
+    }
+
+    private static String describe(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+
+    private static String text(ChatResponse response) {
+        return response != null && response.getResult() != null ? response.getResult().getOutput().getText() : null;
+    }
+
+    private static long totalTokens(ChatResponse response) {
+        Usage usage = response.getMetadata().getUsage();
+        return usage != null && usage.getTotalTokens() != null ? usage.getTotalTokens() : 0;
+    }
+
+    private record TimedResponse(ChatResponse response, long nanos) {
+    }
+
+    /**
+     * Route of the ticket at {@code index}, or the error if none could be determined.
+     */
+    private record Assignment(int index, String route, String error) {
+    }
+
+    /**
+     * Determines the route of the input, using the local {@link RouteClassifier} when it
+     * is confident and the LLM selector otherwise. LLM decisions are recorded with the
+     * classifier's prediction so that its disagreement rate can be tracked and it can be
+     * retrained on them.
+     *
+     * @param input           The input text to analyze for routing
+     * @param availableRoutes The set of available routing options
+     * @param prediction      The classifier's prediction for the input; null without a classifier
+     * @return The selected route key
+     */
+    private String determineRoute(String input, Collection<String> availableRoutes, RoutePrediction prediction) {
+        if (routeClassifier == null) {
+            return selectRoute(input, availableRoutes);
+        }
+
+        if (routeClassifier.isConfident(prediction)) {
+            routeClassifier.recordFastPath(prediction);
+            log.info("Fast-path route: {} (confidence {})", prediction.route(),
+                    String.format("%.2f", prediction.confidence()));
+            if (llmExecutor != null && routeClassifier.sampleShadow()) {
+                llmExecutor.submit(() -> selectRoute(input, availableRoutes))
+                        .whenComplete((llmRoute, error) -> {
+                            if (error == null) {
+                                routeClassifier.recordLlmDecision(input, prediction, llmRoute, true);
+                            } else {
+                                log.debug("Shadow route verification failed", error);
+                            }
+                        });
+            }
+            return prediction.route();
+        }
+
+        String selected = selectRoute(input, availableRoutes);
+        routeClassifier.recordLlmDecision(input, prediction, selected, false);
+        return selected;
     }
 
     /**
@@ -79,7 +511,7 @@ public class RoutingWorkflow {
      * @param availableRoutes The set of available routing options
      * @return The selected route key based on content analysis
      */
-    private String determineRoute(String input, Iterable<String> availableRoutes) {
+    private String selectRoute(String input, Iterable<String> availableRoutes) {
         System.out.println("\nAvailable routes: " + availableRoutes);
 
         String selectorPrompt = String.format("""
@@ -94,7 +526,10 @@ public class RoutingWorkflow {
                 
                 Input: %s""", availableRoutes, input);
 
-        RoutingResponse routingResponse = chatClient.prompt(selectorPrompt).call().entity(RoutingResponse.class);
+        RoutingResponse routingResponse = chatClient.prompt(selectorPrompt)
+                .advisors(WorkflowStep.of(NAME, "selector"))
+                .call()
+                .entity(RoutingResponse.class);
 
         assert routingResponse != null;
 
@@ -0,0 +1,69 @@
+package demo.ai.agentic.workflow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Packs inputs into batches for micro-batched LLM calls, using a rough token estimate
+ * of about four characters per token.
+ */
+final class TokenBatches {
+
+    /**
+     * Appended to a prompt that is applied to every input of a batch.
+     */
+    static final String PER_INPUT_INSTRUCTIONS = """
+
+            Apply the instructions above to each of the following inputs independently,
+            exactly as if every input had been sent on its own. Return one result per input
+            and copy the input's id into the result.
+            """;
+
+    private TokenBatches() {
+    }
+
+    /**
+     * Greedily packs consecutive inputs into batches by estimated token count, keeping input order.
+     * An input larger than the budget ends up in a batch of its own.
+     *
+     * @return the input indexes of every batch
+     */
+    static List<List<Integer>> pack(List<String> inputs, int maxBatchTokens, int maxBatchSize) {
+        List<List<Integer>> batches = new ArrayList<>();
+        List<Integer> current = new ArrayList<>();
+        int currentTokens = 0;
+        for (int i = 0; i < inputs.size(); i++) {
+            int tokens = estimateTokens(inputs.get(i));
+            if (!current.isEmpty() && (currentTokens + tokens > maxBatchTokens || current.size() == maxBatchSize)) {
+                batches.add(current);
+                current = new ArrayList<>();
+                currentTokens = 0;
+            }
+            current.add(i);
+            currentTokens += tokens;
+        }
+        batches.add(current);
+        return batches;
+    }
+
+    /**
+     * Renders the instructions followed by every input wrapped in an {@code <input>} tag
+     * whose id is the input's position in the batch.
+     */
+    static String render(String instructions, List<String> inputs) {
+        StringBuilder message = new StringBuilder(instructions);
+        for (int id = 0; id < inputs.size(); id++) {
+            message.append("\n<input id=\"").append(id).append("\">\n")
+                    .append(inputs.get(id).strip())
+                    .append("\n</input>\n");
+        }
+        return message.toString();
+    }
+
+    /**
+     * Rough token estimate (about four characters per token), plus a little for the id wrapper.
+     */
+    static int estimateTokens(String text) {
+        return (text.length() + 3) / 4 + 8;
+    }
+}
@@ -0,0 +1,28 @@
+package demo.ai.agentic.workflow;
+
+import demo.ai.commons.metrics.LlmMetrics;
+import org.springframework.ai.chat.client.ChatClient;
+
+import java.util.function.Consumer;
+
+/**
+ * Advisor context keys that identify which workflow and which step issued a chat
+ * client call. Advisors such as the step cache use them to apply per-step policies, and
+ * the LLM metrics are tagged with them.
+ */
+public final class WorkflowStep {
+
+    public static final String WORKFLOW = LlmMetrics.WORKFLOW;
+
+    public static final String STEP = LlmMetrics.STEP;
+
+    private WorkflowStep() {
+    }
+
+    /**
+     * Tags a chat client request with the given workflow and step names.
+     */
+    public static Consumer<ChatClient.AdvisorSpec> of(String workflow, String step) {
+        return advisor -> advisor.param(WORKFLOW, workflow).param(STEP, step);
+    }
+}
@@ -0,0 +1,122 @@
+package demo.ai.agentic.cache;
+
+import demo.ai.agentic.support.StubChatModel;
+import demo.ai.agentic.workflow.WorkflowStep;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StepCacheAdvisorTest {
+
+    private final StubChatModel chatModel = new StubChatModel(prompt -> "answer to " + prompt.getContents());
+    private final StepCache cache = new StepCache(100, Duration.ofMinutes(5));
+    private final ChatClient chatClient = ChatClient.builder(chatModel)
+            .defaultAdvisors(new StepCacheAdvisor(cache, List.of("chain:*", "routing:selector"), "test-model"))
+            .build();
+
+    @Test
+    void adviseCall_ShouldServeIdenticalStepRequestsFromCache() {
+        String first = call("hello", WorkflowStep.of("chain", "extract"));
+        String second = call("hello", WorkflowStep.of("chain", "extract"));
+
+        assertThat(second).isEqualTo(first);
+        assertThat(chatModel.calls()).isEqualTo(1);
+        assertThat(cache.stats().hits()).isEqualTo(1);
+    }
+
+    @Test
+    void adviseCall_ShouldMissWhenUserTextDiffers() {
+        call("hello", WorkflowStep.of("chain", "extract"));
+        call("hello again", WorkflowStep.of("chain", "extract"));
+
+        assertThat(chatModel.calls()).isEqualTo(2);
+    }
+
+    @Test
+    void adviseCall_ShouldBypassCacheForStepsThatDidNotOptIn() {
+        call("hello", WorkflowStep.of("routing", "specialist"));
+        call("hello", WorkflowStep.of("routing", "specialist"));
+
+        assertThat(chatModel.calls()).isEqualTo(2);
+        assertThat(cache.stats().misses()).isZero();
+    }
+
+    @Test
+    void adviseCall_ShouldHonorExplicitOptIn() {
+        for (int i = 0; i < 2; i++) {
+            chatClient.prompt("hello")
+                    .advisors(a -> a.param(StepCacheAdvisor.CACHE_ENABLED, true))
+                    .call()
+                    .content();
+        }
+
+        assertThat(chatModel.calls()).isEqualTo(1);
+    }
+
+    @Test
+    void adviseStream_ShouldCacheAggregatedContent() {
+        String streamed = String.join("", chatClient.prompt("hello")
+                .advisors(WorkflowStep.of("chain", "extract"))
+                .stream()
+                .content()
+                .collectList()
+                .block());
+
+        String cached = call("hello", WorkflowStep.of("chain", "extract"));
+
+        assertThat(cached).isEqualTo(streamed);
+        assertThat(chatModel.calls()).isEqualTo(1);
+    }
+
+    @Test
+    void adviseCall_ShouldServeHitsWhenTheContextHasNullValues() {
+        // Given an advisor upstream that adds a null value, once the answer is cached
+        Map<String, Object> nullValue = new HashMap<>();
+        nullValue.put("nullable", null);
+        AtomicBoolean addNullValue = new AtomicBoolean();
+        CallAdvisor addsNullValue = new CallAdvisor() {
+            @Override
+            public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+                return chain.nextCall(addNullValue.get() ? request.mutate().context(nullValue).build() : request);
+            }
+
+            @Override
+            public String getName() {
+                return "addsNullValue";
+            }
+
+            @Override
+            public int getOrder() {
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+        };
+        ChatClient client = ChatClient.builder(chatModel)
+                .defaultAdvisors(addsNullValue, new StepCacheAdvisor(cache, List.of("chain:*"), "test-model"))
+                .build();
+        String first = client.prompt("hello").advisors(WorkflowStep.of("chain", "extract")).call().content();
+        addNullValue.set(true);
+
+        // When
+        String second = client.prompt("hello").advisors(WorkflowStep.of("chain", "extract")).call().content();
+
+        // Then
+        assertThat(second).isEqualTo(first);
+        assertThat(chatModel.calls()).isEqualTo(1);
+    }
+
+    private String call(String text, java.util.function.Consumer<ChatClient.AdvisorSpec> step) {
+        return chatClient.prompt(text).advisors(step).call().content();
+    }
+}
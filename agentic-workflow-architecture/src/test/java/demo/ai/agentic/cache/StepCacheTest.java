@@ -0,0 +1,111 @@
+package demo.ai.agentic.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StepCacheTest {
+
+    private static final String KEY_A = CacheKeys.sha256("a");
+    private static final String KEY_B = CacheKeys.sha256("b");
+    private static final String KEY_C = CacheKeys.sha256("c");
+
+    @Test
+    void get_ShouldCountHitsAndMisses() {
+        StepCache cache = new StepCache(10, Duration.ofMinutes(1));
+
+        assertThat(cache.get(KEY_A)).isEmpty();
+        cache.put(KEY_A, "value");
+
+        assertThat(cache.get(KEY_A)).contains("value");
+        assertThat(cache.stats().hits()).isEqualTo(1);
+        assertThat(cache.stats().misses()).isEqualTo(1);
+        assertThat(cache.stats().hitRatio()).isEqualTo(0.5);
+    }
+
+    @Test
+    void put_ShouldEvictLeastRecentlyUsedEntryWhenFull() {
+        StepCache cache = new StepCache(2, Duration.ofMinutes(1));
+        cache.put(KEY_A, "a");
+        cache.put(KEY_B, "b");
+        cache.get(KEY_A);
+
+        cache.put(KEY_C, "c");
+
+        assertThat(cache.get(KEY_B)).isEmpty();
+        assertThat(cache.get(KEY_A)).contains("a");
+        assertThat(cache.get(KEY_C)).contains("c");
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+    }
+
+    @Test
+    void get_ShouldExpireEntriesAfterTtl() {
+        MutableClock clock = new MutableClock();
+        StepCache cache = new StepCache(10, Duration.ofSeconds(30), null, clock);
+        cache.put(KEY_A, "a");
+
+        clock.advance(Duration.ofSeconds(31));
+
+        assertThat(cache.get(KEY_A)).isEmpty();
+    }
+
+    @Test
+    void diskStore_ShouldServeEntriesAfterReopen(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("cache.bin");
+        try (MappedStepCacheStore store = MappedStepCacheStore.open(file, 4096)) {
+            new StepCache(10, Duration.ofMinutes(1), store, Clock.systemUTC()).put(KEY_A, "persisted");
+        }
+
+        try (MappedStepCacheStore store = MappedStepCacheStore.open(file, 4096)) {
+            StepCache cache = new StepCache(10, Duration.ofMinutes(1), store, Clock.systemUTC());
+
+            assertThat(cache.get(KEY_A)).contains("persisted");
+            assertThat(cache.stats().diskHits()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void diskStore_ShouldCompactWhenFull(@TempDir Path directory) throws Exception {
+        try (MappedStepCacheStore store = MappedStepCacheStore.open(directory.resolve("cache.bin"), 256)) {
+            String value = "x".repeat(100);
+            for (int i = 0; i < 10; i++) {
+                store.put(KEY_A, value + i, Long.MAX_VALUE, 0);
+            }
+
+            assertThat(store.size()).isEqualTo(1);
+            assertThat(store.get(KEY_A, 0)).hasValueSatisfying(record ->
+                    assertThat(record.value()).isEqualTo(value + 9));
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package demo.ai.agentic.concurrency;
+
+import demo.ai.agentic.record.HedgingStats;
+import demo.ai.agentic.support.StubChatModel;
+import demo.ai.agentic.workflow.WorkflowStep;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HedgingAdvisorTest {
+
+    private static final int WARM_UP = 5;
+
+    // The first call after the warm-up stalls; every other call answers right away.
+    private final AtomicInteger calls = new AtomicInteger();
+    private final StubChatModel chatModel = new StubChatModel(prompt -> {
+        if (calls.incrementAndGet() == WARM_UP + 1) {
+            sleep(Duration.ofMillis(800));
+        }
+        return "answer to " + prompt.getContents();
+    });
+
+    private HedgingAdvisor advisor;
+
+    @AfterEach
+    void close() {
+        advisor.close();
+    }
+
+    @Test
+    void adviseCall_ShouldAnswerFromHedgeWhenPrimaryStalls() {
+        // Given
+        ChatClient chatClient = chatClient(1.0);
+        warmUp(chatClient);
+
+        // When
+        long start = System.nanoTime();
+        String answer = call(chatClient, "chain");
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // Then
+        HedgingStats stats = advisor.stats();
+        assertThat(answer).isEqualTo("answer to hello");
+        assertThat(elapsed).isLessThan(Duration.ofMillis(600));
+        assertThat(chatModel.calls()).isEqualTo(WARM_UP + 2);
+        assertThat(stats.hedges()).isEqualTo(1);
+        assertThat(stats.hedgeWins()).isEqualTo(1);
+        assertThat(stats.hedgeDelayMillis()).containsKey("chain/step");
+    }
+
+    @Test
+    void adviseCall_ShouldWaitForPrimaryWhenBudgetIsSpent() {
+        // Given
+        ChatClient chatClient = chatClient(0.0);
+        warmUp(chatClient);
+
+        // When
+        long start = System.nanoTime();
+        String answer = call(chatClient, "chain");
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // Then
+        assertThat(answer).isEqualTo("answer to hello");
+        assertThat(elapsed).isGreaterThanOrEqualTo(Duration.ofMillis(750));
+        assertThat(chatModel.calls()).isEqualTo(WARM_UP + 1);
+        assertThat(advisor.stats().hedges()).isZero();
+        assertThat(advisor.stats().budgetExhausted()).isEqualTo(1);
+    }
+
+    @Test
+    void adviseCall_ShouldNotHedgeWhileCongested() {
+        // Given
+        ChatClient chatClient = chatClient(1.0, () -> true);
+        warmUp(chatClient);
+
+        // When
+        String answer = call(chatClient, "chain");
+
+        // Then
+        assertThat(answer).isEqualTo("answer to hello");
+        assertThat(chatModel.calls()).isEqualTo(WARM_UP + 1);
+        assertThat(advisor.stats().hedges()).isZero();
+        assertThat(advisor.stats().congested()).isEqualTo(1);
+    }
+
+    @Test
+    void adviseCall_ShouldNotHedgeWorkflowsThatAreNotListed() {
+        // Given
+        ChatClient chatClient = chatClient(1.0);
+
+        // When
+        for (int i = 0; i < WARM_UP + 1; i++) {
+            call(chatClient, "parallel");
+        }
+
+        // Then
+        assertThat(chatModel.calls()).isEqualTo(WARM_UP + 1);
+        assertThat(advisor.stats().calls()).isZero();
+    }
+
+    private ChatClient chatClient(double budget) {
+        return chatClient(budget, () -> false);
+    }
+
+    private ChatClient chatClient(double budget, BooleanSupplier congested) {
+        HedgingPolicy policy = new HedgingPolicy(true, 0.95, budget, Duration.ofMillis(50), 20, WARM_UP);
+        advisor = new HedgingAdvisor(policy, List.of("chain"), "", congested);
+        return ChatClient.builder(chatModel)
+                .defaultAdvisors(advisor)
+                .build();
+    }
+
+    private void warmUp(ChatClient chatClient) {
+        for (int i = 0; i < WARM_UP; i++) {
+            call(chatClient, "chain");
+        }
+    }
+
+    private static String call(ChatClient chatClient, String workflow) {
+        return chatClient.prompt("hello").advisors(WorkflowStep.of(workflow, "step")).call().content();
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while stalling", e);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package demo.ai.agentic.concurrency;
+
+import demo.ai.agentic.record.ProviderStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LlmExecutorTest {
+
+    private final LlmExecutor executor = new LlmExecutor("openai", 8, Map.of("openai", 3));
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void submitAll_ShouldNeverExceedProviderLimitAcrossBatches() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        Supplier<String> call = () -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            sleep(20);
+            inFlight.decrementAndGet();
+            return "ok";
+        };
+
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int batch = 0; batch < 4; batch++) {
+            futures.addAll(executor.submitAll(List.of(call, call, call, call), 4));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+        assertThat(maxInFlight.get()).isEqualTo(3);
+        ProviderStats stats = executor.stats().get(0);
+        assertThat(stats.completed()).isEqualTo(16);
+        assertThat(stats.inFlight()).isZero();
+        assertThat(stats.waiting()).isZero();
+        assertThat(stats.maxQueueWaitMillis()).isPositive();
+    }
+
+    @Test
+    void submitAll_ShouldApplyPerBatchParallelism() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        Supplier<String> call = () -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            sleep(20);
+            inFlight.decrementAndGet();
+            return "ok";
+        };
+
+        executor.submitAll(List.of(call, call, call, call), 1).forEach(CompletableFuture::join);
+
+        assertThat(maxInFlight.get()).isEqualTo(1);
+    }
+
+    @Test
+    void cancel_ShouldInterruptRunningCall() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        CompletableFuture<String> future = executor.submit(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "late";
+        });
+        assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+
+        future.cancel(true);
+
+        assertThat(interrupted.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void submit_ShouldFailTimedOutCallOnlyOnceItHasLeft() {
+        long start = System.nanoTime();
+        CompletableFuture<String> future = executor.submit(() -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                // a call that takes a while to unwind, like an HTTP client closing its connection
+                sleep(200);
+            }
+            throw new IllegalStateException("interrupted");
+        }, Duration.ofMillis(100));
+
+        assertThatThrownBy(future::join).hasCauseInstanceOf(TimeoutException.class);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(300));
+        assertThat(executor.stats().get(0).inFlight()).isZero();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package demo.ai.agentic.concurrency;
+
+import demo.ai.agentic.record.SingleFlightStats;
+import demo.ai.agentic.support.StubChatModel;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    @Test
+    void execute_ShouldShareOneRunBetweenConcurrentCallers() throws Exception {
+        // Given
+        SingleFlight singleFlight = new SingleFlight("test", true, Duration.ZERO);
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        // When
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 8; i++) {
+                results.add(CompletableFuture.supplyAsync(() -> singleFlight.execute("key", () -> {
+                    runs.incrementAndGet();
+                    await(release);
+                    return "result";
+                }), executor));
+            }
+            while (singleFlight.stats().coalesced() < 7) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+        }
+
+        // Then
+        assertThat(results).allSatisfy(result -> assertThat(result.join()).isEqualTo("result"));
+        assertThat(runs).hasValue(1);
+        SingleFlightStats stats = singleFlight.stats();
+        assertThat(stats.executed()).isEqualTo(1);
+        assertThat(stats.coalesced()).isEqualTo(7);
+        assertThat(stats.inFlight()).isZero();
+    }
+
+    @Test
+    void execute_ShouldRunAgainAfterCompletionWithoutLinger() {
+        // Given
+        SingleFlight singleFlight = new SingleFlight("test", true, Duration.ZERO);
+        AtomicInteger runs = new AtomicInteger();
+
+        // When
+        singleFlight.execute("key", runs::incrementAndGet);
+        singleFlight.execute("key", runs::incrementAndGet);
+
+        // Then
+        assertThat(runs).hasValue(2);
+        assertThat(singleFlight.stats().executed()).isEqualTo(2);
+    }
+
+    @Test
+    void execute_ShouldServeLingeringResultUntilItExpires() throws InterruptedException {
+        // Given
+        SingleFlight singleFlight = new SingleFlight("test", true, Duration.ofMillis(200));
+        AtomicInteger runs = new AtomicInteger();
+
+        // When
+        int first = singleFlight.execute("key", runs::incrementAndGet);
+        int lingered = singleFlight.execute("key", runs::incrementAndGet);
+        Thread.sleep(300);
+        int expired = singleFlight.execute("key", runs::incrementAndGet);
+
+        // Then
+        assertThat(lingered).isEqualTo(first);
+        assertThat(expired).isEqualTo(2);
+        assertThat(singleFlight.stats().lingered()).isEqualTo(1);
+    }
+
+    @Test
+    void execute_ShouldNotLingerFailures() {
+        // Given
+        SingleFlight singleFlight = new SingleFlight("test", true, Duration.ofMinutes(1));
+        AtomicInteger runs = new AtomicInteger();
+
+        // When
+        assertThatThrownBy(() -> singleFlight.execute("key", () -> {
+            runs.incrementAndGet();
+            throw new IllegalStateException("provider down");
+        })).hasMessage("provider down");
+        String result = singleFlight.execute("key", () -> "recovered-" + runs.incrementAndGet());
+
+        // Then
+        assertThat(result).isEqualTo("recovered-2");
+    }
+
+    @Test
+    void execute_ShouldRetryFollowersWhenLeaderIsInterrupted() throws Exception {
+        // Given
+        SingleFlight singleFlight = new SingleFlight("test", true, Duration.ZERO);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        Thread leader = Thread.ofVirtual().start(() -> {
+            try {
+                singleFlight.execute("key", () -> {
+                    leaderStarted.countDown();
+                    try {
+                        Thread.sleep(Duration.ofMinutes(1));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("cancelled", e);
+                    }
+                    return "leader";
+                });
+            } catch (IllegalStateException expected) {
+                // the cancelled leader fails on its own
+            }
+        });
+        leaderStarted.await();
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(
+                () -> singleFlight.execute("key", () -> "follower"));
+        while (singleFlight.stats().coalesced() < 1) {
+            Thread.onSpinWait();
+        }
+
+        // When
+        leader.interrupt();
+
+        // Then
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("follower");
+        assertThat(singleFlight.stats().executed()).isEqualTo(2);
+    }
+
+    @Test
+    void adviseCall_ShouldCoalesceIdenticalConcurrentChatCalls() {
+        // Given
+        StubChatModel chatModel = new StubChatModel(prompt -> "answer to " + prompt.getContents(),
+                Duration.ofMillis(300));
+        SingleFlightAdvisor advisor = new SingleFlightAdvisor(new SingleFlight("calls", true, Duration.ZERO),
+                "test-model");
+        ChatClient chatClient = ChatClient.builder(chatModel).defaultAdvisors(advisor).build();
+
+        // When
+        List<CompletableFuture<String>> answers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 4; i++) {
+                answers.add(CompletableFuture.supplyAsync(
+                        () -> chatClient.prompt("hello").call().content(), executor));
+            }
+            answers.add(CompletableFuture.supplyAsync(() -> chatClient.prompt("hello")
+                    .advisors(a -> a.param(SingleFlightAdvisor.ENABLED, false))
+                    .call()
+                    .content(), executor));
+        }
+
+        // Then
+        assertThat(answers).allSatisfy(answer -> assertThat(answer.join()).isEqualTo("answer to hello"));
+        assertThat(chatModel.calls()).isEqualTo(2);
+        assertThat(advisor.stats().coalesced()).isEqualTo(3);
+    }
+
+    @Test
+    void adviseCall_ShouldKeepNullValuesOfTheCallerContext() {
+        // Given
+        SingleFlightAdvisor advisor = new SingleFlightAdvisor(new SingleFlight("calls", true, Duration.ZERO),
+                "test-model");
+        Map<String, Object> context = new HashMap<>();
+        context.put("nullable", null);
+        ChatClientRequest request = ChatClientRequest.builder().prompt(new Prompt("hello")).context(context).build();
+        CallAdvisorChain chain = new CallAdvisorChain() {
+            @Override
+            public ChatClientResponse nextCall(ChatClientRequest chatClientRequest) {
+                return ChatClientResponse.builder()
+                        .chatResponse(new ChatResponse(List.of(new Generation(new AssistantMessage("answer")))))
+                        .build();
+            }
+
+            @Override
+            public List<CallAdvisor> getCallAdvisors() {
+                return List.of(advisor);
+            }
+        };
+
+        // When
+        ChatClientResponse response = advisor.adviseCall(request, chain);
+
+        // Then
+        assertThat(response.chatResponse().getResult().getOutput().getText()).isEqualTo("answer");
+        assertThat(response.context()).containsEntry("nullable", null);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package demo.ai.agentic.controller;
+
+import demo.ai.agentic.concurrency.LlmExecutor;
+import demo.ai.agentic.support.StubChatModel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WorkflowEngineControllerTest {
+
+    private final LlmExecutor executor = new LlmExecutor("openai", 8, Map.of());
+
+    private final StubChatModel chatModel = new StubChatModel(prompt -> "answer");
+
+    private final WorkflowEngineController controller =
+            new WorkflowEngineController(ChatClient.create(chatModel), executor);
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void runDefinition_ShouldRejectOutputTypesOtherThanRecords() {
+        // Given
+        List<String> outputTypes = List.of("java.lang.Runtime", "Runtime", "demo.ai.agentic.record.Task",
+                "NodeRun$Status", "WorkflowStep");
+
+        // When / Then
+        for (String outputType : outputTypes) {
+            String definition = """
+                    name: answer
+                    nodes:
+                      - id: answer
+                        type: llm
+                        prompt: "Answer {input}"
+                        outputType: "%s"
+                    """.formatted(outputType);
+            assertThatThrownBy(() -> controller.runDefinition(definition, "hello"))
+                    .as(outputType)
+                    .hasMessageContaining("type '" + outputType + "'")
+                    .isInstanceOfSatisfying(ResponseStatusException.class, e ->
+                            assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        }
+        assertThat(chatModel.calls()).isZero();
+    }
+
+    @Test
+    void runDefinition_ShouldRejectRetriesOverTheCap() {
+        // Given
+        String definition = """
+                name: answer
+                nodes:
+                  - id: answer
+                    type: llm
+                    prompt: "Answer {input}"
+                    retries: 1000
+                """;
+
+        // When / Then
+        assertThatThrownBy(() -> controller.runDefinition(definition, "hello"))
+                .hasMessageContaining("Retries of node answer must not be greater than")
+                .isInstanceOfSatisfying(ResponseStatusException.class, e ->
+                        assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        assertThat(chatModel.calls()).isZero();
+    }
+
+    @Test
+    void runDefinition_ShouldRunDefinitionsWithRecordOutputTypes() {
+        // Given
+        var chatModel = new StubChatModel(prompt -> "{\"selection\": \"a\", \"reasoning\": \"because\"}");
+        var controller = new WorkflowEngineController(ChatClient.create(chatModel), executor);
+        String definition = """
+                name: answer
+                nodes:
+                  - id: answer
+                    type: llm
+                    prompt: "Answer {input}"
+                    outputType: RoutingResponse
+                """;
+
+        // When / Then
+        assertThat(controller.runDefinition(definition, "hello").output())
+                .hasFieldOrPropertyWithValue("selection", "a");
+    }
+}
@@ -0,0 +1,372 @@
+package demo.ai.agentic.engine;
+
+import demo.ai.agentic.concurrency.LlmExecutor;
+import demo.ai.agentic.record.NodeRun;
+import demo.ai.agentic.record.WorkflowRun;
+import demo.ai.agentic.support.StubChatModel;
+import demo.ai.agentic.workflow.ChainStep;
+import demo.ai.agentic.workflow.ParallelizationWorkflow;
+import demo.ai.agentic.workflow.WorkflowStep;
+import demo.ai.commons.metrics.LlmMetrics;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WorkflowEngineTest {
+
+    private final LlmExecutor executor = new LlmExecutor("openai", 8, Map.of());
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void run_ShouldRunChainStepsInOrder() {
+        // Given
+        List<ChainStep> steps = List.of(
+                ChainStep.llm("shout", "Repeat:"),
+                ChainStep.local("exclaim", text -> text + "!"));
+        var chatModel = new StubChatModel(prompt -> "echo " + lastLine(prompt));
+        var engine = new WorkflowEngine(ChatClient.create(chatModel), executor, PatternDefinitions.chainFunctions(steps));
+
+        // When
+        WorkflowRun run = engine.run(PatternDefinitions.chain(steps), Map.of("input", "hello"));
+
+        // Then
+        assertThat(run.output()).isEqualTo("echo hello!");
+        assertThat(run.nodes()).extracting(NodeRun::id).containsExactly("shout", "exclaim");
+        assertThat(run.nodes()).extracting(NodeRun::status).containsOnly(NodeRun.Status.COMPLETED);
+    }
+
+    @Test
+    void run_ShouldStartIndependentNodesTogetherAndDependentsAfterThem() {
+        // Given
+        WorkflowDefinition definition = WorkflowDefinition.builder("drafts")
+                .llm("formal", "formal draft of {input}")
+                .llm("casual", "casual draft of {input}")
+                .llm("merge", "merge {formal} and {casual}", "formal", "casual")
+                .build();
+        var chatModel = new StubChatModel(prompt -> prompt.getContents().replace(" draft of", ""), Duration.ofMillis(150));
+        var engine = new WorkflowEngine(ChatClient.create(chatModel), executor);
+
+        // When
+        WorkflowRun run = engine.run(definition, Map.of("input", "a bottle"));
+
+        // Then
+        assertThat(run.output()).isEqualTo("merge formal a bottle and casual a bottle");
+        Map<String, NodeRun> nodes = byId(run);
+        assertThat(Math.abs(nodes.get("formal").startOffsetMillis() - nodes.get("casual").startOffsetMillis()))
+                .isLessThan(100);
+        assertThat(nodes.get("merge").startOffsetMillis())
+                .isGreaterThanOrEqualTo(nodes.get("formal").startOffsetMillis() + nodes.get("formal").durationMillis());
+    }
+
+    @Test
+    void run_ShouldOnlyRunTheSelectedRoute() {
+        // Given
+        var chatModel = new StubChatModel(prompt -> prompt.getContents().contains("select the most appropriate")
+                ? "{\"reasoning\": \"invoice\", \"selection\": \"billing\"}"
+                : "handled by " + prompt.getContents().lines().findFirst().orElseThrow());
+        var engine = new WorkflowEngine(ChatClient.create(chatModel), executor);
+        WorkflowDefinition definition = PatternDefinitions.routing(Map.of(
+                "billing", "billing team",
+                "technical", "technical team"));
+
+        // When
+        WorkflowRun run = engine.run(definition, Map.of("input", "I was charged twice"));
+
+        // Then
+        assertThat(run.output()).isEqualTo("handled by billing team");
+        assertThat(byId(run).get("technical").status()).isEqualTo(NodeRun.Status.SKIPPED);
+        assertThat(chatModel.calls()).isEqualTo(2);
+    }
+
+    @Test
+    void run_ShouldKeepFanOutResultsInOrderWithinItsConcurrency() {
+        // Given
+        var inFlight = new AtomicInteger();
+        var maxInFlight = new AtomicInteger();
+        var chatModel = new StubChatModel(prompt -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            return "analysis of " + lastLine(prompt).replace("Input: ", "");
+        });
+        var engine = new WorkflowEngine(ChatClient.create(chatModel), executor);
+
+        // When
+        WorkflowRun run = engine.run(PatternDefinitions.parallelization("Analyze", 2),
+                Map.of("inputs", List.of("a", "b", "c", "d", "e")));
+
+        // Then
+        assertThat(run.output()).isEqualTo(List.of("analysis of a", "analysis of b", "analysis of c",
+                "analysis of d", "analysis of e"));
+        assertThat(maxInFlight.get()).isEqualTo(2);
+    }
+
+    @Test
+    void run_ShouldTagTheCallsOfAFanOutWithItsId() {
+        // Given
+        Queue<String> steps = new ConcurrentLinkedQueue<>();
+        var chatClient = ChatClient.builder(new StubChatModel(prompt -> "analysis"))
+                .defaultAdvisors(new StepRecorder(steps))
+                .build();
+        var engine = new WorkflowEngine(chatClient, executor);
+
+        // When
+        engine.run(PatternDefinitions.parallelization("Analyze", 2), Map.of("inputs", List.of("a", "b", "c")));
+
+        // Then
+        assertThat(steps).containsOnly(ParallelizationWorkflow.NAME + "/analyses").hasSize(3);
+    }
+
+    @Test
+    void runAdHoc_ShouldTagCallsAndMetricsWithTheNodeTypeInsteadOfClientNames() {
+        // Given
+        Queue<String> steps = new ConcurrentLinkedQueue<>();
+        var chatClient = ChatClient.builder(new StubChatModel(prompt -> "summary"))
+                .defaultAdvisors(new StepRecorder(steps))
+                .build();
+        var engine = new WorkflowEngine(chatClient, executor);
+        WorkflowDefinition definition = WorkflowSpecs.parse("""
+                name: client-chosen-name
+                nodes:
+                  - id: client-chosen-node
+                    type: llm
+                    prompt: "Summarize {input}"
+                """);
+        var registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+
+        try {
+            // When
+            WorkflowRun run = engine.runAdHoc(definition, Map.of("input", "a report"));
+
+            // Then
+            assertThat(run.workflow()).isEqualTo("client-chosen-name");
+            assertThat(steps).containsExactly(WorkflowEngine.AD_HOC + "/llm");
+            assertThat(registry.find(LlmMetrics.STEP_DURATION).tag("workflow", "client-chosen-name").timers())
+                    .isEmpty();
+            assertThat(registry.get(LlmMetrics.STEP_DURATION).tags("workflow", WorkflowEngine.AD_HOC, "step", "llm")
+                    .timer().count()).isEqualTo(1);
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
+    }
+
+    @Test
+    void run_ShouldLoopUntilTheEvaluationPasses() {
+        // Given
+        var evaluations = new AtomicInteger();
+        var chatModel = new StubChatModel(prompt -> prompt.getContents().contains("Content to evaluate")
+                ? evaluations.incrementAndGet() < 2
+                ? "{\"evaluation\": \"NEEDS_IMPROVEMENT\", \"feedback\": \"add getMin\"}"
+                : "{\"evaluation\": \"PASS\", \"feedback\": \"good\"}"
+                : prompt.getContents().contains("Feedback: add getMin")
+                ? "{\"thoughts\": \"fixed\", \"response\": \"class Stack2\"}"
+                : "{\"thoughts\": \"first\", \"response\": \"class Stack1\"}");
+        var engine = new WorkflowEngine(ChatClient.create(chatModel), executor);
+
+        // When
+        WorkflowRun run = engine.run(PatternDefinitions.evaluatorOptimizer(5), Map.of("task", "a stack"));
+
+        // Then
+        assertThat(Templates.resolve("refine.iteration", run.outputs())).isEqualTo(2);
+        assertThat(Templates.resolve("refine.generate.response", run.outputs())).isEqualTo("class Stack2");
+        assertThat(run.nodes()).extracting(NodeRun::id)
+                .contains("refine/1/generate", "refine/2/evaluate", "refine");
+    }
+
+    @Test
+    void run_ShouldRetryAttemptsThatTimeOut() {
+        // Given
+        var calls = new AtomicInteger();
+        var chatModel = new StubChatModel(prompt -> {
+            if (calls.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(2_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return "done";
+        });
+        var engine = new WorkflowEngine(ChatClient.create(chatModel), executor);
+        WorkflowDefinition definition = WorkflowDefinition.builder("retry")
+                .llm("slow", "work", String.class, options -> options.timeout(Duration.ofMillis(200)).retries(1))
+                .build();
+
+        // When
+        WorkflowRun run = engine.run(definition, Map.of());
+
+        // Then
+        assertThat(run.output()).isEqualTo("done");
+        assertThat(run.nodes().getFirst().attempts()).isEqualTo(2);
+    }
+
+    @Test
+    void run_ShouldFailWithTimeoutWhenRetriesAreExhausted() {
+        // Given
+        var chatModel = new StubChatModel(prompt -> "late", Duration.ofSeconds(2));
+        var engine = new WorkflowEngine(ChatClient.create(chatModel), executor);
+        WorkflowDefinition definition = WorkflowDefinition.builder("timeout")
+                .llm("slow", "work", String.class, options -> options.timeout(Duration.ofMillis(100)))
+                .build();
+
+        // When / Then
+        assertThatThrownBy(() -> engine.runAsync(definition, Map.of()).join())
+                .hasCauseInstanceOf(TimeoutException.class)
+                .hasMessageContaining("Node 'slow' timed out after 100 ms");
+    }
+
+    @Test
+    void build_ShouldRejectCycles() {
+        // Given
+        WorkflowDefinition.Builder builder = WorkflowDefinition.builder("cycle")
+                .llm("a", "first {b}", "b")
+                .llm("b", "second {a}", "a");
+
+        // When / Then
+        assertThatThrownBy(builder::build)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("cyclic dependencies between [a, b]");
+    }
+
+    @Test
+    void parse_ShouldCompileYamlDefinitions() {
+        // Given
+        String yaml = """
+                name: review
+                maxConcurrency: 2
+                output: [verdict]
+                nodes:
+                  - id: evaluate
+                    type: llm
+                    prompt: "Evaluate {input}"
+                    outputType: EvaluationResponse
+                    timeout: 30s
+                    retries: 2
+                  - id: verdict
+                    type: llm
+                    prompt: "Explain {evaluate.feedback}"
+                    dependsOn: [evaluate]
+                    when: evaluate.evaluation != PASS
+                """;
+
+        // When
+        WorkflowDefinition definition = WorkflowSpecs.parse(yaml);
+
+        // Then
+        assertThat(definition.maxConcurrency()).isEqualTo(2);
+        assertThat(definition.node("evaluate")).isInstanceOfSatisfying(Node.Llm.class, node -> {
+            assertThat(node.outputType().getSimpleName()).isEqualTo("EvaluationResponse");
+            assertThat(node.options().timeout()).isEqualTo(Duration.ofSeconds(30));
+            assertThat(node.options().retries()).isEqualTo(2);
+        });
+        assertThat(definition.node("verdict").options().when()).isEqualTo("evaluate.evaluation != PASS");
+    }
+
+    @Test
+    void parse_ShouldRejectRetriesIterationsAndConcurrencyOverTheCaps() {
+        // Given
+        List<String> nodes = List.of(
+                "{id: a, type: llm, prompt: a, retries: 1000}",
+                "{id: a, type: loop, body: {nodes: [{id: b, type: llm, prompt: b}]}, until: b, maxIterations: 100000}",
+                "{id: a, type: fan-out, items: input, prompt: a, concurrency: 1000}");
+
+        // When / Then
+        for (String node : nodes) {
+            assertThatThrownBy(() -> WorkflowSpecs.parse("{name: capped, nodes: [" + node + "]}"))
+                    .as(node)
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("must not be greater than");
+        }
+        assertThatThrownBy(() -> WorkflowSpecs.parse(
+                "{name: capped, maxConcurrency: 1000, nodes: [{id: a, type: llm, prompt: a}]}"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("must not be greater than " + WorkflowSpecs.MAX_CONCURRENCY);
+    }
+
+    @Test
+    void runAdHoc_ShouldRejectFanOutsOverTooManyItems() {
+        // Given
+        var chatModel = new StubChatModel(prompt -> "answer");
+        var engine = new WorkflowEngine(ChatClient.create(chatModel), executor,
+                Map.of("explode", scope -> Collections.nCopies(WorkflowEngine.MAX_AD_HOC_FAN_OUT + 1, "item")));
+        WorkflowDefinition definition = WorkflowSpecs.parse("""
+                name: many
+                nodes:
+                  - id: items
+                    type: function
+                    function: explode
+                  - id: answers
+                    type: fan-out
+                    items: items
+                    prompt: "Answer {item}"
+                    dependsOn: [items]
+                """);
+
+        // When / Then
+        assertThatThrownBy(() -> engine.runAdHoc(definition, Map.of()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("more than " + WorkflowEngine.MAX_AD_HOC_FAN_OUT);
+        assertThat(chatModel.calls()).isZero();
+        assertThat((List<?>) engine.run(definition, Map.of()).output()).hasSize(WorkflowEngine.MAX_AD_HOC_FAN_OUT + 1);
+    }
+
+    /**
+     * Records the workflow and step tags of every call.
+     */
+    private record StepRecorder(Queue<String> steps) implements CallAdvisor {
+
+        @Override
+        public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+            steps.add(request.context().get(WorkflowStep.WORKFLOW) + "/" + request.context().get(WorkflowStep.STEP));
+            return chain.nextCall(request);
+        }
+
+        @Override
+        public String getName() {
+            return "StepRecorder";
+        }
+
+        @Override
+        public int getOrder() {
+            return 0;
+        }
+    }
+
+    private static String lastLine(Prompt prompt) {
+        List<String> lines = prompt.getContents().lines().toList();
+        return lines.getLast();
+    }
+
+    private static Map<String, NodeRun> byId(WorkflowRun run) {
+        return run.nodes().stream().collect(Collectors.toMap(NodeRun::id, node -> node));
+    }
+}
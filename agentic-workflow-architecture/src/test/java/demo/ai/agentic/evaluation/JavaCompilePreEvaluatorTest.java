@@ -0,0 +1,135 @@
+package demo.ai.agentic.evaluation;
+
+import demo.ai.agentic.record.EvaluationResponse;
+import demo.ai.agentic.record.EvaluationResponse.Evaluation;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JavaCompilePreEvaluatorTest {
+
+    private static final String MIN_STACK = """
+            import java.util.ArrayDeque;
+            import java.util.Deque;
+
+            public class MinStack {
+                private final Deque<Integer> values = new ArrayDeque<>();
+                private final Deque<Integer> mins = new ArrayDeque<>();
+
+                public void push(int x) {
+                    this.values.push(x);
+                    if (this.mins.isEmpty() || x <= this.mins.peek()) {
+                        this.mins.push(x);
+                    }
+                }
+
+                public int pop() {
+                    int x = this.values.pop();
+                    if (x == this.mins.peek()) {
+                        this.mins.pop();
+                    }
+                    return x;
+                }
+
+                public int getMin() {
+                    return this.mins.peek();
+                }
+            }
+            """;
+
+    private final JavaCompilePreEvaluator preEvaluator = new JavaCompilePreEvaluator(Duration.ofSeconds(10), 16,
+            true);
+
+    @Test
+    void preEvaluate_ShouldFailWithDiagnosticsWhenCodeDoesNotCompile() {
+        // Given
+        String broken = "```java\npublic class Broken {\n    int size() { return missing; }\n}\n```";
+
+        // When
+        Optional<EvaluationResponse> verdict = preEvaluator.preEvaluate(broken);
+
+        // Then
+        assertThat(verdict).get().extracting(EvaluationResponse::evaluation).isEqualTo(Evaluation.FAIL);
+        assertThat(verdict.get().feedback()).contains("Line 2", "cannot find symbol");
+    }
+
+    @Test
+    void preEvaluate_ShouldPassCompilingCodeOnToTheLlmAndCacheTheVerdict() {
+        // When
+        Optional<EvaluationResponse> first = preEvaluator.preEvaluate(MIN_STACK);
+        Optional<EvaluationResponse> second = preEvaluator.preEvaluate(MIN_STACK);
+
+        // Then
+        assertThat(first).isEmpty();
+        assertThat(second).isEmpty();
+        assertThat(preEvaluator.compiledCount()).isEqualTo(1);
+        assertThat(preEvaluator.cacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void preEvaluate_ShouldOnlyCompileWhenRunningChecksIsDisabled() {
+        // Given
+        var compileOnly = new JavaCompilePreEvaluator(Duration.ofSeconds(10), 16)
+                .withChecks(List.of(new MinStackCheck()));
+        String wrongMin = MIN_STACK.replace("x <= this.mins.peek()", "x < this.mins.peek()");
+
+        // When
+        Optional<EvaluationResponse> verdict = compileOnly.preEvaluate(wrongMin);
+
+        // Then
+        assertThat(verdict).isEmpty();
+    }
+
+    @Test
+    void preEvaluate_ShouldRunChecksAgainstTheCompiledClass() {
+        // Given
+        var withChecks = preEvaluator.withChecks(List.of(new MinStackCheck()));
+        String wrongMin = MIN_STACK.replace("x <= this.mins.peek()", "x < this.mins.peek()");
+
+        // When
+        Optional<EvaluationResponse> correct = withChecks.preEvaluate(MIN_STACK);
+        Optional<EvaluationResponse> wrong = withChecks.preEvaluate(wrongMin);
+
+        // Then
+        assertThat(correct).isEmpty();
+        assertThat(wrong).get().extracting(EvaluationResponse::feedback).asString()
+                .contains("fails a check");
+    }
+
+    @Test
+    void preEvaluate_ShouldFailChecksThatDoNotFinishInTimeWithoutCachingTheVerdict() {
+        // Given
+        var withChecks = new JavaCompilePreEvaluator(Duration.ofSeconds(1), 16, true)
+                .withChecks(List.of(new MinStackCheck()));
+        String endless = MIN_STACK.replace("return this.mins.peek();", "while (true) { }");
+
+        // When
+        Optional<EvaluationResponse> first = withChecks.preEvaluate(endless);
+        Optional<EvaluationResponse> second = withChecks.preEvaluate(endless);
+
+        // Then
+        assertThat(first).get().extracting(EvaluationResponse::feedback).asString()
+                .contains("did not finish within 1000 ms");
+        assertThat(second).isPresent();
+        assertThat(withChecks.cacheHitCount()).isZero();
+        assertThat(withChecks.compiledCount()).isEqualTo(2);
+    }
+
+    @Test
+    void preEvaluate_ShouldRejectCandidatesThatUseTheSystemBeforeRunningThem() {
+        // Given
+        var withChecks = preEvaluator.withChecks(List.of(new MinStackCheck()));
+        String exiting = MIN_STACK.replace("return this.mins.peek();", "System.exit(0); return 0;");
+
+        // When
+        Optional<EvaluationResponse> verdict = withChecks.preEvaluate(exiting);
+
+        // Then
+        assertThat(verdict).get().extracting(EvaluationResponse::feedback).asString()
+                .contains("'System'");
+    }
+}
@@ -0,0 +1,269 @@
+package demo.ai.agentic.job;
+
+import demo.ai.agentic.concurrency.LlmExecutor;
+import demo.ai.agentic.constants.RouteConstant;
+import demo.ai.agentic.record.JobEvent;
+import demo.ai.agentic.record.JobStatus;
+import demo.ai.agentic.record.JobStatus.Priority;
+import demo.ai.agentic.record.JobStatus.State;
+import demo.ai.agentic.routing.RouteClassifier;
+import demo.ai.agentic.routing.RouteSpeculator;
+import demo.ai.agentic.workflow.OrchestratorWorkflow;
+import demo.ai.agentic.workflow.RoutingWorkflow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JobManagerTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final LlmExecutor executor = new LlmExecutor("openai", 8, Map.of());
+
+    private JobManager jobManager;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        jobManager.close();
+        executor.close();
+    }
+
+    @Test
+    void submit_ShouldRunHigherPriorityJobsFirst() throws Exception {
+        // Given
+        jobManager = new JobManager(1, 10, Duration.ofMinutes(1));
+        Queue<String> order = new ConcurrentLinkedQueue<>();
+        JobStatus blocker = jobManager.submit("blocker", Priority.NORMAL, context -> release.await(1, TimeUnit.MINUTES));
+        awaitState(blocker.id(), State.RUNNING);
+        JobStatus low = jobManager.submit("low", Priority.LOW, context -> order.add("low"));
+        jobManager.submit("normal", Priority.NORMAL, context -> order.add("normal"));
+        JobStatus high = jobManager.submit("high", Priority.HIGH, context -> order.add("high"));
+
+        // When
+        assertThat(jobManager.status(low.id()).orElseThrow().position()).isEqualTo(3);
+        assertThat(jobManager.status(high.id()).orElseThrow().position()).isEqualTo(1);
+        release.countDown();
+
+        // Then
+        awaitState(low.id(), State.SUCCEEDED);
+        assertThat(order).containsExactly("high", "normal", "low");
+    }
+
+    @Test
+    void submit_ShouldRejectJobsWhenTheQueueIsFull() throws Exception {
+        // Given
+        jobManager = new JobManager(1, 1, Duration.ofMinutes(1));
+        JobStatus running = jobManager.submit("running", Priority.NORMAL, context -> release.await(1, TimeUnit.MINUTES));
+        awaitState(running.id(), State.RUNNING);
+        jobManager.submit("queued", Priority.NORMAL, context -> "done");
+
+        // When / Then
+        assertThatThrownBy(() -> jobManager.submit("rejected", Priority.HIGH, context -> "done"))
+                .isInstanceOf(RejectedExecutionException.class)
+                .hasMessageContaining("Job queue is full");
+    }
+
+    @Test
+    void cancel_ShouldStopRunningAndDropQueuedJobs() throws Exception {
+        // Given
+        jobManager = new JobManager(1, 10, Duration.ofMinutes(1));
+        JobStatus running = jobManager.submit("running", Priority.NORMAL, context -> {
+            Thread.sleep(Duration.ofMinutes(1));
+            return "never";
+        });
+        awaitState(running.id(), State.RUNNING);
+        JobStatus queued = jobManager.submit("queued", Priority.NORMAL, context -> "never");
+
+        // When
+        JobStatus cancelledQueued = jobManager.cancel(queued.id()).orElseThrow();
+        jobManager.cancel(running.id());
+
+        // Then
+        assertThat(cancelledQueued.state()).isEqualTo(State.CANCELLED);
+        assertThat(awaitFinished(running.id()).state()).isEqualTo(State.CANCELLED);
+        assertThat(jobManager.queued()).isZero();
+    }
+
+    @Test
+    void cancel_ShouldCancelTheWorkerCallsOfARunningOrchestratorJob() throws Exception {
+        // Given
+        jobManager = new JobManager(1, 10, Duration.ofMinutes(1));
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch interrupted = new CountDownLatch(2);
+        ChatModel chatModel = new BlockingChatModel(prompt -> prompt.contains("break it down") ? """
+                {"analysis": "two drafts", "tasks": [
+                  {"id": "formal", "type": "formal", "description": "precise"},
+                  {"id": "casual", "type": "casual", "description": "friendly"}
+                ]}
+                """ : null, started, interrupted);
+        var workflow = new OrchestratorWorkflow(ChatClient.create(chatModel), executor);
+        JobStatus job = jobManager.submit(OrchestratorWorkflow.NAME, Priority.NORMAL,
+                context -> workflow.process("Describe a bottle"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        jobManager.cancel(job.id());
+
+        // Then
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(awaitFinished(job.id()).state()).isEqualTo(State.CANCELLED);
+    }
+
+    @Test
+    void cancel_ShouldCancelTheSpecialistCallsOfARunningSpeculativeRoutingJob() throws Exception {
+        // Given
+        jobManager = new JobManager(1, 10, Duration.ofMinutes(1));
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch interrupted = new CountDownLatch(2);
+        ChatModel chatModel = new BlockingChatModel(prompt -> prompt.contains("select the most appropriate")
+                ? "{\"reasoning\": \"mentions billing\", \"selection\": \"billing\"}" : null, started, interrupted);
+        var classifier = new RouteClassifier(RouteConstant.routeExamples, true, 0.35, 0, 100);
+        var workflow = new RoutingWorkflow(ChatClient.create(chatModel), classifier, executor,
+                new RouteSpeculator(true, 2));
+        JobStatus job = jobManager.submit(RoutingWorkflow.NAME, Priority.NORMAL,
+                context -> workflow.route("Question about account billing", RouteConstant.supportRoutes));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        jobManager.cancel(job.id());
+
+        // Then
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(awaitFinished(job.id()).state()).isEqualTo(State.CANCELLED);
+    }
+
+    @Test
+    void events_ShouldReplayProgressAndCompleteWhenTheJobFinishes() throws Exception {
+        // Given
+        jobManager = new JobManager(1, 10, Duration.ofMinutes(1));
+        JobStatus job = jobManager.submit("chain", Priority.NORMAL, context -> {
+            context.progress("Step 1 completed");
+            context.progress("Step 2 completed");
+            return "table";
+        });
+
+        // When
+        List<JobEvent> events = jobManager.events(job.id()).orElseThrow()
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        // Then
+        assertThat(events).extracting(JobEvent::type).containsExactly(JobEvent.Type.STATE, JobEvent.Type.STATE,
+                JobEvent.Type.PROGRESS, JobEvent.Type.PROGRESS, JobEvent.Type.STATE);
+        assertThat(events.getLast().state()).isEqualTo(State.SUCCEEDED);
+        JobStatus status = jobManager.status(job.id()).orElseThrow();
+        assertThat(status.result()).isEqualTo("table");
+        assertThat(status.progress()).containsExactly("Step 1 completed", "Step 2 completed");
+    }
+
+    @Test
+    void evictExpired_ShouldForgetFinishedJobsAfterTheTtl() throws Exception {
+        // Given
+        MutableClock clock = new MutableClock();
+        jobManager = new JobManager(1, 10, Duration.ofMinutes(15), clock);
+        JobStatus failed = jobManager.submit("failing", Priority.NORMAL, context -> {
+            throw new IllegalStateException("model unavailable");
+        });
+        assertThat(awaitFinished(failed.id()).error()).isEqualTo("model unavailable");
+
+        // When
+        clock.advance(Duration.ofMinutes(10));
+        jobManager.evictExpired();
+        boolean keptBeforeTtl = jobManager.status(failed.id()).isPresent();
+        clock.advance(Duration.ofMinutes(10));
+        jobManager.evictExpired();
+
+        // Then
+        assertThat(keptBeforeTtl).isTrue();
+        assertThat(jobManager.status(failed.id())).isEmpty();
+    }
+
+    private void awaitState(String id, State state) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (jobManager.status(id).orElseThrow().state() != state) {
+            assertThat(System.nanoTime()).as("job %s reaching %s", id, state).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private JobStatus awaitFinished(String id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        JobStatus status;
+        while (!(status = jobManager.status(id).orElseThrow()).state().finished()) {
+            assertThat(System.nanoTime()).as("job %s finishing", id).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+        return status;
+    }
+
+    /**
+     * Answers the prompts the responder knows right away, and blocks every other call
+     * until it is interrupted.
+     */
+    private record BlockingChatModel(Function<String, String> responder, CountDownLatch started,
+                                     CountDownLatch interrupted) implements ChatModel {
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            String answer = responder.apply(prompt.getContents());
+            if (answer != null) {
+                return new ChatResponse(List.of(new Generation(new AssistantMessage(answer))));
+            }
+            started.countDown();
+            try {
+                Thread.sleep(Duration.ofMinutes(1));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException("call was not cancelled");
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
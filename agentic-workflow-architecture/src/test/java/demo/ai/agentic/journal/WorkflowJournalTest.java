@@ -0,0 +1,165 @@
+package demo.ai.agentic.journal;
+
+import demo.ai.agentic.record.EvaluationResponse;
+import demo.ai.agentic.support.StubChatModel;
+import demo.ai.agentic.workflow.ChainWorkflow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.chat.client.ChatClient;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WorkflowJournalTest {
+
+    private static final Duration FLUSH_INTERVAL = Duration.ofMillis(5);
+
+    private static final Duration RETENTION = Duration.ofDays(1);
+
+    @Test
+    void replay_ShouldServeJournaledStepsAfterReopen(@TempDir Path directory) throws Exception {
+        // Given
+        Path file = directory.resolve("journal.log");
+        try (WorkflowJournal journal = open(file, 1024)) {
+            RunCheckpoint checkpoint = journal.run("chain", "run-1");
+            checkpoint.record("extract", "input", "92: satisfaction");
+            checkpoint.record("evaluate", "content", new EvaluationResponse(EvaluationResponse.Evaluation.PASS, "ok"));
+        }
+
+        // When
+        try (WorkflowJournal journal = open(file, 1024)) {
+            RunCheckpoint checkpoint = journal.run("chain", "run-1");
+
+            // Then
+            assertThat(checkpoint.replay("extract", "input", String.class)).contains("92: satisfaction");
+            assertThat(checkpoint.replay("evaluate", "content", EvaluationResponse.class))
+                    .contains(new EvaluationResponse(EvaluationResponse.Evaluation.PASS, "ok"));
+            assertThat(checkpoint.replay("extract", "changed input", String.class)).isEmpty();
+            assertThat(journal.run("chain", "run-2").replay("extract", "input", String.class)).isEmpty();
+        }
+    }
+
+    @Test
+    void open_ShouldDropTornRecordAtTheEnd(@TempDir Path directory) throws Exception {
+        // Given
+        Path file = directory.resolve("journal.log");
+        try (WorkflowJournal journal = open(file, 1024)) {
+            journal.append("chain:run-1", "extract", "input", "first").join();
+            journal.append("chain:run-1", "normalize", "input", "second").join();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        // When
+        try (WorkflowJournal journal = open(file, 1024)) {
+
+            // Then
+            assertThat(journal.replay("chain:run-1", "extract", "input")).contains("first");
+            assertThat(journal.replay("chain:run-1", "normalize", "input")).isEmpty();
+            journal.append("chain:run-1", "normalize", "input", "again").join();
+        }
+        try (WorkflowJournal journal = open(file, 1024)) {
+            assertThat(journal.replay("chain:run-1", "normalize", "input")).contains("again");
+        }
+    }
+
+    @Test
+    void append_ShouldWriteQueuedRecordsWithOneFsyncInOrder(@TempDir Path directory) throws Exception {
+        // Given
+        Path file = directory.resolve("journal.log");
+        List<CompletableFuture<Void>> durable = new ArrayList<>();
+        WorkflowJournal journal = WorkflowJournal.open(file, Duration.ofMinutes(1), 1024, RETENTION);
+        for (int i = 0; i < 100; i++) {
+            durable.add(journal.append("chain:run-1", "step-" + i, "input", "output-" + i));
+        }
+        durable.add(journal.append("chain:run-1", "step-0", "input", "latest"));
+        boolean durableBeforeFlush = durable.stream().anyMatch(CompletableFuture::isDone);
+
+        // When
+        journal.close();
+
+        // Then
+        assertThat(durableBeforeFlush).isFalse();
+        assertThat(durable).allMatch(future -> future.isDone() && !future.isCompletedExceptionally());
+        assertThat(journal.stats().flushes()).isEqualTo(1);
+        assertThat(journal.stats().averageRecordsPerFlush()).isEqualTo(101.0);
+        try (WorkflowJournal reopened = open(file, 1024)) {
+            // the later record of a step wins, so records were written in the order they were appended
+            assertThat(reopened.replay("chain:run-1", "step-0", "input")).contains("latest");
+            assertThat(reopened.replay("chain:run-1", "step-99", "input")).contains("output-99");
+        }
+    }
+
+    @Test
+    void compact_ShouldDropFinishedRuns(@TempDir Path directory) throws Exception {
+        // Given
+        Path file = directory.resolve("journal.log");
+        try (WorkflowJournal journal = open(file, Long.MAX_VALUE)) {
+            RunCheckpoint finished = journal.run("chain", "finished");
+            RunCheckpoint unfinished = journal.run("chain", "unfinished");
+            for (int i = 0; i < 20; i++) {
+                finished.record("step-" + i, "input", "x".repeat(200));
+            }
+            unfinished.record("extract", "input", "kept");
+            finished.complete();
+            journal.complete("chain:unknown").join();
+            journal.append("chain:unfinished", "extract", "input", "kept").join();
+            long before = Files.size(file);
+
+            // When
+            journal.compact();
+
+            // Then
+            assertThat(Files.size(file)).isLessThan(before / 10);
+            assertThat(journal.stats().unfinishedRuns()).isEqualTo(1);
+            assertThat(journal.stats().compactions()).isEqualTo(1);
+        }
+        try (WorkflowJournal journal = open(file, Long.MAX_VALUE)) {
+            assertThat(journal.replay("chain:unfinished", "extract", "input")).contains("kept");
+            assertThat(journal.replay("chain:finished", "step-0", "input")).isEmpty();
+        }
+    }
+
+    @Test
+    void chain_ShouldResumeFromTheFirstIncompleteStep(@TempDir Path directory) throws Exception {
+        // Given
+        AtomicBoolean crash = new AtomicBoolean(true);
+        StubChatModel chatModel = new StubChatModel(prompt -> {
+            if (prompt.getContents().contains("Convert all numerical values") && crash.getAndSet(false)) {
+                throw new IllegalStateException("process died");
+            }
+            return "92%: customer satisfaction";
+        });
+        ChainWorkflow workflow = new ChainWorkflow(ChatClient.create(chatModel));
+
+        try (WorkflowJournal journal = open(directory.resolve("journal.log"), 1024)) {
+            assertThatThrownBy(() -> workflow.chain("Q3 report", journal.run(ChainWorkflow.NAME, "q3")))
+                    .hasMessage("process died");
+
+            // When
+            String table = workflow.chain("Q3 report", journal.run(ChainWorkflow.NAME, "q3"));
+
+            // Then
+            assertThat(table).contains("| Customer Satisfaction | 92% |");
+            // extract (1), normalize crashed (2), normalize again (3); extract was replayed
+            assertThat(chatModel.calls()).isEqualTo(3);
+            assertThat(journal.stats().replays()).isEqualTo(1);
+            assertThat(journal.stats().unfinishedRuns()).isZero();
+        }
+    }
+
+    private static WorkflowJournal open(Path file, long compactionThreshold) throws Exception {
+        return WorkflowJournal.open(file, FLUSH_INTERVAL, compactionThreshold, RETENTION);
+    }
+}
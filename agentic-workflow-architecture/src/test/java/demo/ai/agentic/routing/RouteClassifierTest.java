@@ -0,0 +1,85 @@
+package demo.ai.agentic.routing;
+
+import demo.ai.agentic.constants.RouteConstant;
+import demo.ai.agentic.record.RouteClassifierStats;
+import demo.ai.agentic.record.RoutePrediction;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RouteClassifierTest {
+
+    private final RouteClassifier classifier = new RouteClassifier(RouteConstant.routeExamples, true, 0.35, 0, 100);
+
+    @Test
+    void predict_ShouldRouteSampleTicketsConfidently() {
+        // Given
+        Set<String> routes = RouteConstant.supportRoutes.keySet();
+
+        // When
+        RoutePrediction account = classifier.predict(RouteConstant.tickets.get("INC001"), routes);
+        RoutePrediction billing = classifier.predict(RouteConstant.tickets.get("INC002"), routes);
+        RoutePrediction product = classifier.predict(RouteConstant.tickets.get("INC003"), routes);
+
+        // Then
+        assertThat(account.route()).isEqualTo("account");
+        assertThat(billing.route()).isEqualTo("billing");
+        assertThat(product.route()).isEqualTo("product");
+        assertThat(List.of(account, billing, product)).allMatch(classifier::isConfident);
+    }
+
+    @Test
+    void predict_ShouldNotBeConfidentAboutUnrelatedOrAmbiguousText() {
+        // Given
+        Set<String> routes = RouteConstant.supportRoutes.keySet();
+
+        // When
+        RoutePrediction unrelated = classifier.predict("Lorem ipsum dolor sit amet", routes);
+        RoutePrediction ambiguous = classifier.predict("Question about account billing", routes);
+
+        // Then
+        assertThat(classifier.isConfident(unrelated)).isFalse();
+        assertThat(classifier.isConfident(ambiguous)).isFalse();
+    }
+
+    @Test
+    void retrain_ShouldLearnFromLoggedLlmDecisions() {
+        // Given
+        Set<String> routes = Set.of("billing", "technical", "account", "product", "shipping");
+        String parcel = "My parcel has not been delivered and the tracking number shows no updates";
+        RoutePrediction before = classifier.predict(parcel, routes);
+        classifier.recordLlmDecision(parcel, before, "shipping", false);
+        classifier.recordLlmDecision("The delivery of my order is late, where is my parcel?",
+                classifier.predict("late delivery", routes), "shipping", false);
+
+        // When
+        classifier.retrain();
+        RoutePrediction after = classifier.predict("Where is my parcel? The delivery is late.", routes);
+
+        // Then
+        assertThat(after.route()).isEqualTo("shipping");
+        RouteClassifierStats stats = classifier.stats();
+        assertThat(stats.llmDecisions()).isEqualTo(2);
+        assertThat(stats.disagreements()).isEqualTo(stats.comparedDecisions());
+        assertThat(stats.trainingExamples()).isEqualTo(34);
+        assertThat(stats.loggedDecisions()).isEqualTo(2);
+    }
+
+    @Test
+    void stats_ShouldReportFastPathHitRate() {
+        // When
+        classifier.recordFastPath(new RoutePrediction("billing", 0.9, 0.5));
+        classifier.recordFastPath(new RoutePrediction("billing", 0.9, 0.5));
+        classifier.recordFastPath(new RoutePrediction("billing", 0.9, 0.5));
+        classifier.recordLlmDecision("text", new RoutePrediction("billing", 0.1, 0.2), "billing", false);
+
+        // Then
+        RouteClassifierStats stats = classifier.stats();
+        assertThat(stats.decisions()).isEqualTo(4);
+        assertThat(stats.fastPathHitRate()).isEqualTo(0.75);
+        assertThat(stats.disagreementRate()).isZero();
+    }
+}
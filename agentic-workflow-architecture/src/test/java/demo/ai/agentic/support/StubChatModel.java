@@ -0,0 +1,75 @@
+package demo.ai.agentic.support;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Deterministic in-process {@link ChatModel} for tests. Every call is answered by
+ * the given responder after an optional fixed latency; streaming splits the answer
+ * on spaces so token-level behaviour can be asserted.
+ */
+public class StubChatModel implements ChatModel {
+
+    private final Function<Prompt, String> responder;
+    private final Duration latency;
+    private final AtomicInteger calls = new AtomicInteger();
+
+    public StubChatModel(Function<Prompt, String> responder) {
+        this(responder, Duration.ZERO);
+    }
+
+    public StubChatModel(Function<Prompt, String> responder, Duration latency) {
+        this.responder = responder;
+        this.latency = latency;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        calls.incrementAndGet();
+        sleep();
+        return response(responder.apply(prompt));
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.defer(() -> {
+            calls.incrementAndGet();
+            sleep();
+            String[] tokens = responder.apply(prompt).split("(?<= )");
+            return Flux.fromArray(tokens).map(StubChatModel::response);
+        });
+    }
+
+    public int calls() {
+        return calls.get();
+    }
+
+    private static ChatResponse response(String text) {
+        int tokens = Math.max(1, text.length() / 4);
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))),
+                ChatResponseMetadata.builder().usage(new DefaultUsage(tokens, tokens)).build());
+    }
+
+    private void sleep() {
+        if (latency.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while simulating model latency", e);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package demo.ai.agentic.workflow;
+
+import demo.ai.agentic.record.ChainEvent;
+import demo.ai.agentic.support.StubChatModel;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChainWorkflowTest {
+
+    @Test
+    void chainStream_ShouldEmitStartedTokensAndCompletedForEveryStep() {
+        StubChatModel chatModel = new StubChatModel(prompt -> "92%: customer satisfaction");
+        ChainWorkflow workflow = new ChainWorkflow(ChatClient.create(chatModel));
+
+        List<ChainEvent> events = workflow.chainStream("Customer satisfaction is 92 points.")
+                .collectList()
+                .block();
+
+        assertThat(events).isNotNull();
+        assertThat(events.get(0)).isEqualTo(ChainEvent.started(1));
+        assertThat(events.get(1)).isEqualTo(ChainEvent.token(1, "92%: "));
+        assertThat(events)
+                .filteredOn(event -> event.type() == ChainEvent.Type.STEP_COMPLETED)
+                .extracting(ChainEvent::step)
+                .containsExactly(1, 2, 3, 4);
+        assertThat(events.get(events.size() - 1)).isEqualTo(ChainEvent.completed(4, """
+                | Metric | Value |
+                |:--|--:|
+                | Customer Satisfaction | 92% |
+                """));
+        // Sorting and table rendering run in-process.
+        assertThat(chatModel.calls()).isEqualTo(2);
+    }
+
+    @Test
+    void chain_ShouldOnlyCallModelForLlmSteps() {
+        StubChatModel chatModel = new StubChatModel(prompt -> """
+                45%: revenue growth
+                92%: customer satisfaction
+                $43: user acquisition cost""");
+
+        String table = new ChainWorkflow(ChatClient.create(chatModel)).chain("Q3 report");
+
+        assertThat(table).isEqualTo("""
+                | Metric | Value |
+                |:--|--:|
+                | Customer Satisfaction | 92% |
+                | Revenue Growth | 45% |
+                | User Acquisition Cost | $43 |
+                """);
+        assertThat(chatModel.calls()).isEqualTo(2);
+    }
+
+    @Test
+    void llmOnly_ShouldCallModelForEveryStep() {
+        StubChatModel chatModel = new StubChatModel(prompt -> "92%: customer satisfaction");
+
+        ChainWorkflow.llmOnly(ChatClient.create(chatModel)).chain("Q3 report");
+
+        assertThat(chatModel.calls()).isEqualTo(4);
+    }
+
+    @Test
+    void chainStream_ShouldNotCallModelUntilSubscribed() {
+        StubChatModel chatModel = new StubChatModel(prompt -> "ignored");
+
+        new ChainWorkflow(ChatClient.create(chatModel)).chainStream("input");
+
+        assertThat(chatModel.calls()).isZero();
+    }
+}
@@ -0,0 +1,290 @@
+package demo.ai.agentic.workflow;
+
+import demo.ai.agentic.concurrency.LlmExecutor;
+import demo.ai.agentic.evaluation.PreEvaluator;
+import demo.ai.agentic.journal.WorkflowJournal;
+import demo.ai.agentic.record.EvaluationResponse;
+import demo.ai.agentic.record.EvaluationResponse.Evaluation;
+import demo.ai.agentic.record.IterationStats;
+import demo.ai.agentic.record.RefinedResponse;
+import demo.ai.agentic.record.RefinedResponse.StopReason;
+import demo.ai.agentic.support.StubChatModel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static demo.ai.agentic.workflow.EvaluatorOptimizerWorkflow.NAME;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EvaluatorOptimizerWorkflowTest {
+
+    private static final Pattern EVALUATED_ATTEMPT = Pattern.compile("Content to evaluate: attempt (\\d+)");
+
+    private static final Pattern CANDIDATE = Pattern.compile("candidate (\\d+) of");
+    private static final Pattern EVALUATED_CANDIDATE = Pattern.compile("Content to evaluate: (cand\\d+-gen\\d+)");
+    private static final Duration SLOW_CANDIDATE = Duration.ofSeconds(2);
+
+    private final LlmExecutor executor = new LlmExecutor("openai", 8, Map.of());
+
+    private final AtomicInteger generations = new AtomicInteger();
+    private final List<String> generatorPrompts = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void loop_ShouldStopOnPassWithPerIterationTokens() {
+        // Given
+        var workflow = workflow(2);
+
+        // When
+        RefinedResponse response = workflow.loop("Implement a stack");
+
+        // Then
+        assertThat(response.stopReason()).isEqualTo(StopReason.PASS);
+        assertThat(response.solution()).isEqualTo("attempt 2");
+        assertThat(response.iterations()).hasSize(2);
+        assertThat(response.iterations()).allMatch(iteration -> iteration.totalTokens() > 0);
+    }
+
+    @Test
+    void loop_ShouldStopAtMaxIterationsWithCompactedContext() {
+        // Given
+        var workflow = workflow(Integer.MAX_VALUE);
+
+        // When
+        RefinedResponse response = workflow.loop("Implement a stack",
+                new LoopBudget(4, 1_000_000, Duration.ofMinutes(1)), () -> false);
+
+        // Then
+        assertThat(response.stopReason()).isEqualTo(StopReason.MAX_ITERATIONS);
+        assertThat(response.solution()).isEqualTo("attempt 4");
+        assertThat(response.chainOfThought()).hasSize(4);
+        String lastPrompt = generatorPrompts.get(3);
+        assertThat(lastPrompt).contains("attempt 3", "feedback 1", "feedback 2", "feedback 3")
+                .doesNotContain("attempt 1", "attempt 2");
+    }
+
+    @Test
+    void loop_ShouldResumeWithTheFirstIterationNotJournaled(@TempDir Path directory) throws Exception {
+        // Given
+        var workflow = workflow(3);
+        try (WorkflowJournal journal = WorkflowJournal.open(directory.resolve("journal.log"),
+                Duration.ofMillis(5), 1024, Duration.ofDays(1))) {
+            RefinedResponse stopped = workflow.loop("Implement a stack",
+                    new LoopBudget(2, 1_000_000, Duration.ofMinutes(1)), () -> false, journal.run(NAME, "stack"));
+            assertThat(stopped.stopReason()).isEqualTo(StopReason.MAX_ITERATIONS);
+
+            // When
+            RefinedResponse resumed = workflow.loop("Implement a stack",
+                    new LoopBudget(5, 1_000_000, Duration.ofMinutes(1)), () -> false, journal.run(NAME, "stack"));
+
+            // Then
+            assertThat(resumed.stopReason()).isEqualTo(StopReason.PASS);
+            assertThat(resumed.solution()).isEqualTo("attempt 3");
+            assertThat(resumed.chainOfThought()).hasSize(3);
+            // the first two iterations were replayed without calling the model
+            assertThat(generations.get()).isEqualTo(3);
+            assertThat(resumed.iterations()).extracting(IterationStats::totalTokens).startsWith(0L, 0L);
+        }
+    }
+
+    @Test
+    void loop_ShouldStopWhenTokenBudgetIsExhausted() {
+        // Given
+        var workflow = workflow(Integer.MAX_VALUE);
+
+        // When
+        RefinedResponse response = workflow.loop("Implement a stack",
+                new LoopBudget(10, 1, Duration.ofMinutes(1)), () -> false);
+
+        // Then
+        assertThat(response.stopReason()).isEqualTo(StopReason.TOKEN_BUDGET_EXHAUSTED);
+        assertThat(response.iterations()).hasSize(1);
+    }
+
+    @Test
+    void loop_ShouldStopWhenCancelled() {
+        // Given
+        var workflow = workflow(Integer.MAX_VALUE);
+
+        // When
+        RefinedResponse response = workflow.loop("Implement a stack", LoopBudget.DEFAULT,
+                () -> generations.get() >= 2);
+
+        // Then
+        assertThat(response.stopReason()).isEqualTo(StopReason.CANCELLED);
+        assertThat(response.chainOfThought()).hasSize(2);
+        // attempt 2 was generated but never evaluated
+        assertThat(response.solution()).isEqualTo("attempt 1");
+    }
+
+    @Test
+    void loop_ShouldReturnTheUnevaluatedGenerationWhenCancelledBeforeAnyEvaluation() {
+        // Given
+        var workflow = workflow(Integer.MAX_VALUE);
+
+        // When
+        RefinedResponse response = workflow.loop("Implement a stack", LoopBudget.DEFAULT,
+                () -> generations.get() >= 1);
+
+        // Then
+        assertThat(response.stopReason()).isEqualTo(StopReason.CANCELLED);
+        assertThat(response.solution()).isEqualTo("attempt 1");
+        assertThat(response.iterations()).singleElement()
+                .satisfies(iteration -> assertThat(iteration.evaluation()).isNull());
+    }
+
+    @Test
+    void loop_ShouldSkipLlmEvaluationWhenPreEvaluatorRejects() {
+        // Given
+        var chatModel = new StubChatModel(prompt -> respond(prompt, 2));
+        PreEvaluator rejectFirst = content -> content.equals("attempt 1")
+                ? Optional.of(new EvaluationResponse(Evaluation.FAIL, "does not compile"))
+                : Optional.empty();
+        var workflow = new EvaluatorOptimizerWorkflow(ChatClient.create(chatModel), null, rejectFirst);
+
+        // When
+        RefinedResponse response = workflow.loop("Implement a stack");
+
+        // Then
+        assertThat(response.stopReason()).isEqualTo(StopReason.PASS);
+        assertThat(chatModel.calls()).isEqualTo(3);
+        assertThat(generatorPrompts.get(1)).contains("Feedback: does not compile");
+    }
+
+    @Test
+    void feedbackDigest_ShouldKeepContextBounded() {
+        // Given
+        var digest = new EvaluatorOptimizerWorkflow.FeedbackDigest();
+        String context = "";
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            context = digest.compact("attempt " + i, "x".repeat(1_000));
+        }
+
+        // Then
+        assertThat(context.lines().filter(line -> line.startsWith("- ")))
+                .hasSize(EvaluatorOptimizerWorkflow.FeedbackDigest.MAX_ENTRIES)
+                .allMatch(line -> line.length() <= EvaluatorOptimizerWorkflow.FeedbackDigest.MAX_ENTRY_LENGTH + 2);
+    }
+
+    @Test
+    void speculativeLoop_ShouldReturnFirstPassingCandidateAndCancelTheRest() {
+        // Given
+        var chatModel = new StubChatModel(prompt -> respondAsCandidate(prompt, attempt -> attempt.startsWith("cand2")));
+        var workflow = new EvaluatorOptimizerWorkflow(ChatClient.create(chatModel), executor, PreEvaluator.NONE);
+        long start = System.nanoTime();
+
+        // When
+        RefinedResponse response = workflow.speculativeLoop("Implement a stack", 3, LoopBudget.DEFAULT, () -> false);
+
+        // Then
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(SLOW_CANDIDATE);
+        assertThat(response.stopReason()).isEqualTo(StopReason.PASS);
+        assertThat(response.solution()).startsWith("cand2");
+        assertThat(response.iterations()).hasSize(1);
+        await(() -> executor.stats().get(0).inFlight() == 0);
+    }
+
+    @Test
+    void speculativeLoop_ShouldSeedNextRoundWithBestCandidate() {
+        // Given
+        var chatModel = new StubChatModel(prompt -> respondAsCandidate(prompt,
+                attempt -> Integer.parseInt(attempt.substring(attempt.indexOf("-gen") + 4)) > 2));
+        var workflow = new EvaluatorOptimizerWorkflow(ChatClient.create(chatModel), executor, PreEvaluator.NONE);
+
+        // When
+        RefinedResponse response = workflow.speculativeLoop("Implement a stack", 2, LoopBudget.DEFAULT, () -> false);
+
+        // Then
+        assertThat(response.stopReason()).isEqualTo(StopReason.PASS);
+        assertThat(response.iterations()).hasSize(2);
+        assertThat(response.chainOfThought()).hasSizeGreaterThanOrEqualTo(3);
+        assertThat(generatorPrompts.subList(2, generatorPrompts.size()))
+                .allMatch(prompt -> prompt.contains("Latest attempt:\ncand2") && prompt.contains("Feedback: feedback cand2"));
+    }
+
+    /**
+     * Generates "cand&lt;candidate&gt;-gen&lt;n&gt;"; candidates other than 2 are slow in their first
+     * round. The evaluator passes attempts matching the predicate, rates candidate 2 as
+     * needing improvement and all others as failed.
+     */
+    private String respondAsCandidate(Prompt prompt, Predicate<String> passes) {
+        String text = prompt.getContents();
+        if (text.contains("Your goal is to complete the task")) {
+            Matcher candidate = CANDIDATE.matcher(text);
+            assertThat(candidate.find()).isTrue();
+            int attempt;
+            synchronized (generatorPrompts) {
+                generatorPrompts.add(text);
+                attempt = generations.incrementAndGet();
+            }
+            if (!candidate.group(1).equals("2") && attempt <= 3) {
+                sleep(SLOW_CANDIDATE.toMillis());
+            }
+            return "{\"thoughts\":\"try\",\"response\":\"cand" + candidate.group(1) + "-gen" + attempt + "\"}";
+        }
+        Matcher matcher = EVALUATED_CANDIDATE.matcher(text);
+        assertThat(matcher.find()).isTrue();
+        String attempt = matcher.group(1);
+        String evaluation = passes.test(attempt) ? "PASS" : attempt.startsWith("cand2") ? "NEEDS_IMPROVEMENT" : "FAIL";
+        return "{\"evaluation\":\"" + evaluation + "\",\"feedback\":\"feedback " + attempt.substring(0, 5) + "\"}";
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            sleep(10);
+        }
+    }
+
+    /**
+     * The evaluator passes the attempt with the given number and asks for improvements on all others.
+     */
+    private EvaluatorOptimizerWorkflow workflow(int passingAttempt) {
+        var chatModel = new StubChatModel(prompt -> respond(prompt, passingAttempt));
+        return new EvaluatorOptimizerWorkflow(ChatClient.create(chatModel));
+    }
+
+    private String respond(Prompt prompt, int passingAttempt) {
+        String text = prompt.getContents();
+        if (text.contains("Your goal is to complete the task")) {
+            generatorPrompts.add(text);
+            int attempt = generations.incrementAndGet();
+            return "{\"thoughts\":\"try " + attempt + "\",\"response\":\"attempt " + attempt + "\"}";
+        }
+        Matcher matcher = EVALUATED_ATTEMPT.matcher(text);
+        assertThat(matcher.find()).isTrue();
+        int attempt = Integer.parseInt(matcher.group(1));
+        String evaluation = attempt == passingAttempt ? "PASS" : "NEEDS_IMPROVEMENT";
+        return "{\"evaluation\":\"" + evaluation + "\",\"feedback\":\"feedback " + attempt + "\"}";
+    }
+}
@@ -0,0 +1,47 @@
+package demo.ai.agentic.workflow;
+
+import demo.ai.agentic.record.Metric;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetricLinesTest {
+
+    @Test
+    void parse_ShouldExtractValueNumberAndName() {
+        assertThat(MetricLines.parse("""
+                {92%: customer satisfaction
+                - $1,250.50: average order value
+                -5%: customer churn change}"""))
+                .containsExactly(
+                        new Metric("92%", 92, "customer satisfaction"),
+                        new Metric("$1,250.50", 1250.5, "average order value"),
+                        new Metric("-5%", -5, "customer churn change"));
+    }
+
+    @Test
+    void sortDescending_ShouldSortByNumberAndKeepUnparsedLinesLast() {
+        String sorted = MetricLines.sortDescending("""
+                23%: market share
+                Note: values are approximate
+                92%: customer satisfaction
+                5%: customer churn""");
+
+        assertThat(sorted).isEqualTo("""
+                92%: customer satisfaction
+                23%: market share
+                5%: customer churn
+                Note: values are approximate""");
+    }
+
+    @Test
+    void toMarkdownTable_ShouldRenderTitleCasedMetrics() {
+        assertThat(MetricLines.toMarkdownTable("92%: customer satisfaction\n45%: revenue growth"))
+                .isEqualTo("""
+                        | Metric | Value |
+                        |:--|--:|
+                        | Customer Satisfaction | 92% |
+                        | Revenue Growth | 45% |
+                        """);
+    }
+}
@@ -0,0 +1,145 @@
+package demo.ai.agentic.workflow;
+
+import demo.ai.agentic.concurrency.LlmExecutor;
+import demo.ai.agentic.record.FinalResponse;
+import demo.ai.agentic.record.Task;
+import demo.ai.agentic.record.WorkerTiming;
+import demo.ai.agentic.support.StubChatModel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrchestratorWorkflowTest {
+
+    private static final String DAG = """
+            {"analysis": "two drafts and a merge", "tasks": [
+              {"id": "formal", "type": "formal", "description": "precise", "dependsOn": []},
+              {"id": "casual", "type": "casual", "description": "friendly"},
+              {"id": "merge", "type": "merge", "description": "combine", "dependsOn": ["formal", "casual", "missing"]}
+            ]}
+            """;
+
+    private final LlmExecutor executor = new LlmExecutor("openai", 8, Map.of());
+
+    private final Queue<String> workerPrompts = new ConcurrentLinkedQueue<>();
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void process_ShouldRunIndependentWorkersConcurrentlyAndDependentsAfterThem() {
+        // Given
+        var chatModel = new StubChatModel(this::respond, Duration.ofMillis(150));
+        var workflow = new OrchestratorWorkflow(ChatClient.create(chatModel), executor);
+
+        // When
+        FinalResponse response = workflow.process("Describe a bottle");
+
+        // Then
+        assertThat(response.workerResponses()).containsExactly("draft formal", "draft casual", "draft merge");
+        List<WorkerTiming> timings = response.workerTimings();
+        assertThat(timings).extracting(WorkerTiming::taskId).containsExactly("formal", "casual", "merge");
+        // both drafts start together, the merge only after both have finished
+        assertThat(Math.abs(timings.get(0).startOffsetMillis() - timings.get(1).startOffsetMillis())).isLessThan(100);
+        assertThat(timings.get(2).startOffsetMillis())
+                .isGreaterThanOrEqualTo(timings.get(0).startOffsetMillis() + timings.get(0).durationMillis());
+        assertThat(workerPrompts.stream().filter(prompt -> prompt.contains("Style: merge")).findFirst().orElseThrow())
+                .contains("[formal]", "draft formal", "[casual]", "draft casual");
+    }
+
+    @Test
+    void process_ShouldHonourMaxParallelism() {
+        // Given
+        var chatModel = new StubChatModel(this::respond, Duration.ofMillis(150));
+        var workflow = new OrchestratorWorkflow(ChatClient.create(chatModel), executor);
+
+        // When
+        FinalResponse response = workflow.process("Describe a bottle", 1);
+
+        // Then
+        List<WorkerTiming> timings = response.workerTimings();
+        assertThat(timings.get(1).startOffsetMillis())
+                .isGreaterThanOrEqualTo(timings.get(0).startOffsetMillis() + timings.get(0).durationMillis());
+    }
+
+    @Test
+    void process_ShouldInterruptWorkersInFlightWhenAWorkerFails() throws InterruptedException {
+        // Given
+        CountDownLatch interrupted = new CountDownLatch(1);
+        ChatModel chatModel = new ChatModel() {
+            @Override
+            public ChatResponse call(Prompt prompt) {
+                String text = prompt.getContents();
+                if (text.contains("break it down")) {
+                    return new ChatResponse(List.of(new Generation(new AssistantMessage(DAG))));
+                }
+                if (text.contains("Style: formal")) {
+                    sleep(Duration.ofMillis(100));
+                    throw new IllegalStateException("formal draft failed");
+                }
+                try {
+                    Thread.sleep(Duration.ofSeconds(10));
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                throw new IllegalStateException("casual draft was not interrupted");
+            }
+        };
+        var workflow = new OrchestratorWorkflow(ChatClient.create(chatModel), executor);
+
+        // When / Then
+        assertThatThrownBy(() -> workflow.process("Describe a bottle"))
+                .hasMessageContaining("formal draft failed");
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void topologicalOrder_ShouldRejectCycles() {
+        // Given
+        List<Task> tasks = OrchestratorWorkflow.normalize(List.of(
+                new Task("a", "a", "first", List.of("b")),
+                new Task("b", "b", "second", List.of("a")),
+                new Task("c", "c")));
+
+        // When / Then
+        assertThatThrownBy(() -> OrchestratorWorkflow.topologicalOrder(tasks))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("[a, b]");
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String respond(Prompt prompt) {
+        String text = prompt.getContents();
+        if (text.contains("break it down")) {
+            return DAG;
+        }
+        workerPrompts.add(text);
+        String style = text.substring(text.indexOf("Style: ") + 7).lines().findFirst().orElseThrow();
+        return "draft " + style;
+    }
+}
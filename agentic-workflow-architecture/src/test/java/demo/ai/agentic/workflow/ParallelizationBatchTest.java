@@ -0,0 +1,99 @@
+package demo.ai.agentic.workflow;
+
+import demo.ai.agentic.concurrency.LlmExecutor;
+import demo.ai.agentic.support.StubChatModel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParallelizationBatchTest {
+
+    private static final Pattern INPUT = Pattern.compile("<input id=\"(\\d+)\">\\s*(\\S+)");
+
+    private final LlmExecutor executor = new LlmExecutor("openai", 8, Map.of());
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void pack_ShouldRespectTokenBudgetAndBatchSize() {
+        // Given
+        String small = "x".repeat(40);   // 18 estimated tokens
+        String large = "x".repeat(400);  // 108 estimated tokens
+
+        // When
+        List<List<Integer>> batches = TokenBatches.pack(
+                List.of(small, small, small, large, small, small, small, small), 60, 2);
+
+        // Then
+        assertThat(batches).containsExactly(List.of(0, 1), List.of(2), List.of(3), List.of(4, 5), List.of(6, 7));
+    }
+
+    @Test
+    void parallelBatched_ShouldSplitBatchResponseInInputOrder() {
+        // Given
+        var chatModel = new StubChatModel(echoBatch(item -> item));
+        var workflow = new ParallelizationWorkflow(ChatClient.create(chatModel), executor);
+        List<String> inputs = List.of("a", "b", "c", "d", "e");
+
+        // When
+        List<String> results = workflow.parallelBatched("Upper", inputs, 2, 1_000, 3);
+
+        // Then
+        assertThat(results).containsExactly("A", "B", "C", "D", "E");
+        assertThat(chatModel.calls()).isEqualTo(2);
+    }
+
+    @Test
+    void parallelBatched_ShouldFallBackPerInputForMissingOrUnparseableResults() {
+        // Given
+        var chatModel = new StubChatModel(echoBatch(item -> item.equals("b") ? null : item));
+        var workflow = new ParallelizationWorkflow(ChatClient.create(chatModel), executor);
+
+        // When
+        List<String> results = workflow.parallelBatched("Upper", List.of("a", "b", "c", "broken", "d"), 2, 1_000, 3);
+
+        // Then
+        assertThat(results).containsExactly("A", "B", "C", "BROKEN", "D");
+        // two batches, one fallback for "b", two fallbacks for the unparseable second batch
+        assertThat(chatModel.calls()).isEqualTo(5);
+    }
+
+    /**
+     * Answers batch prompts with a JSON result per input (skipping inputs the filter maps to
+     * null, and returning garbage for batches containing "broken"), and single prompts with
+     * the upper-cased input.
+     */
+    private static Function<Prompt, String> echoBatch(Function<String, String> filter) {
+        return prompt -> {
+            String text = prompt.getContents();
+            if (!text.contains("<input id=")) {
+                return text.substring(text.lastIndexOf(' ') + 1).toUpperCase();
+            }
+            if (text.contains("broken")) {
+                return "not json";
+            }
+            Matcher matcher = INPUT.matcher(text);
+            StringBuilder items = new StringBuilder();
+            while (matcher.find()) {
+                if (filter.apply(matcher.group(2)) != null) {
+                    items.append(items.isEmpty() ? "" : ",")
+                            .append("{\"id\":").append(matcher.group(1))
+                            .append(",\"output\":\"").append(matcher.group(2).toUpperCase()).append("\"}");
+                }
+            }
+            return "{\"results\":[" + items + "]}";
+        };
+    }
+}
@@ -0,0 +1,113 @@
+package demo.ai.agentic.workflow;
+
+import demo.ai.agentic.concurrency.LlmExecutor;
+import demo.ai.agentic.record.IndexedResult;
+import demo.ai.agentic.support.StubChatModel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParallelizationWorkflowTest {
+
+    private final LlmExecutor executor = new LlmExecutor("openai", 8, Map.of());
+
+    private final AtomicInteger flakyCalls = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void parallelStream_ShouldEmitFastResultsBeforeSlowOnes() {
+        // Given
+        var workflow = workflow();
+
+        // When
+        List<IndexedResult> results = workflow
+                .parallelStream("Analyze", List.of("slow", "fast"), 2, Duration.ofSeconds(5), 0)
+                .collectList()
+                .block();
+
+        // Then
+        assertThat(results).extracting(IndexedResult::index).containsExactly(1, 0);
+        assertThat(results).allMatch(IndexedResult::success);
+        assertThat(results.get(0).output()).isEqualTo("done fast");
+    }
+
+    @Test
+    void parallelStream_ShouldIsolateFailuresAndTimeouts() {
+        // Given
+        var workflow = workflow();
+
+        // When
+        List<IndexedResult> results = workflow
+                .parallelStream("Analyze", List.of("fast", "fail", "hang"), 3, Duration.ofMillis(300), 0)
+                .sort(Comparator.comparingInt(IndexedResult::index))
+                .collectList()
+                .block();
+
+        // Then
+        assertThat(results).extracting(IndexedResult::success).containsExactly(true, false, false);
+        assertThat(results.get(1).error()).contains("boom");
+        assertThat(results.get(2).error()).isEqualTo("Timed out after 300 ms");
+        // the timeout is reported only once the interrupted call has left the executor
+        assertThat(executor.stats().get(0).inFlight()).isZero();
+    }
+
+    @Test
+    void parallelStream_ShouldRetryFailedInputs() {
+        // Given
+        var workflow = workflow();
+
+        // When
+        IndexedResult result = workflow
+                .parallelStream("Analyze", List.of("flaky"), 1, Duration.ofSeconds(5), 2)
+                .blockLast();
+
+        // Then
+        assertThat(result.success()).isTrue();
+        assertThat(result.attempts()).isEqualTo(2);
+        assertThat(result.output()).isEqualTo("done flaky");
+    }
+
+    private ParallelizationWorkflow workflow() {
+        var chatModel = new StubChatModel(this::respond);
+        return new ParallelizationWorkflow(ChatClient.create(chatModel), executor);
+    }
+
+    private String respond(Prompt prompt) {
+        String text = prompt.getContents();
+        if (text.contains("fail")) {
+            throw new IllegalStateException("boom");
+        }
+        if (text.contains("flaky") && flakyCalls.incrementAndGet() == 1) {
+            throw new IllegalStateException("transient");
+        }
+        if (text.contains("hang")) {
+            sleep(10_000);
+        }
+        if (text.contains("slow")) {
+            sleep(300);
+        }
+        return "done " + text.substring(text.lastIndexOf(' ') + 1);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package demo.ai.agentic.workflow;
+
+import demo.ai.agentic.concurrency.LlmExecutor;
+import demo.ai.agentic.constants.RouteConstant;
+import demo.ai.agentic.record.RouteClassifierStats;
+import demo.ai.agentic.record.RoutePrediction;
+import demo.ai.agentic.record.RoutedTicket;
+import demo.ai.agentic.record.SpeculationStats;
+import demo.ai.agentic.record.Ticket;
+import demo.ai.agentic.routing.RouteClassifier;
+import demo.ai.agentic.routing.RouteSpeculator;
+import demo.ai.agentic.support.StubChatModel;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoutingWorkflowTest {
+
+    private static final Pattern INPUT = Pattern.compile("<input id=\"(\\d+)\">\\s*([^<]+?)\\s*</input>");
+
+    private final RouteClassifier classifier = new RouteClassifier(RouteConstant.routeExamples, true, 0.35, 0, 100);
+
+    private final StubChatModel chatModel = new StubChatModel(RoutingWorkflowTest::respond);
+
+    private final RoutingWorkflow workflow = new RoutingWorkflow(ChatClient.create(chatModel), classifier, null);
+
+    @Test
+    void route_ShouldSkipLlmSelectorWhenClassifierIsConfident() {
+        // When
+        String response = workflow.route(RouteConstant.tickets.get("INC002"), RouteConstant.supportRoutes);
+
+        // Then
+        assertThat(response).isEqualTo("Billing Support Response: handled");
+        assertThat(chatModel.calls()).isEqualTo(1);
+        assertThat(classifier.stats().fastPathHits()).isEqualTo(1);
+    }
+
+    @Test
+    void route_ShouldPredictOnceWhenSpeculationIsEnabledAndTheClassifierIsConfident() {
+        // Given
+        var predictions = new AtomicInteger();
+        var countingClassifier = new RouteClassifier(RouteConstant.routeExamples, true, 0.35, 0, 100) {
+            @Override
+            public RoutePrediction predict(String input, Collection<String> routes) {
+                predictions.incrementAndGet();
+                return super.predict(input, routes);
+            }
+        };
+        try (var executor = new LlmExecutor("openai", 8, Map.of())) {
+            var speculative = new RoutingWorkflow(ChatClient.create(chatModel), countingClassifier, executor,
+                    new RouteSpeculator(true, 2));
+
+            // When
+            String response = speculative.route(RouteConstant.tickets.get("INC002"), RouteConstant.supportRoutes);
+
+            // Then
+            assertThat(response).isEqualTo("Billing Support Response: handled");
+            assertThat(predictions).hasValue(1);
+            assertThat(chatModel.calls()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void route_ShouldFallBackToLlmSelectorWhenClassifierIsUnsure() {
+        // When
+        String response = workflow.route("Question about account billing", RouteConstant.supportRoutes);
+
+        // Then
+        assertThat(response).isEqualTo("Billing Support Response: handled");
+        assertThat(chatModel.calls()).isEqualTo(2);
+        RouteClassifierStats stats = classifier.stats();
+        assertThat(stats.llmDecisions()).isEqualTo(1);
+        assertThat(stats.loggedDecisions()).isEqualTo(1);
+    }
+
+    @Test
+    void route_ShouldOverlapSelectorAndSpeculatedSpecialist() {
+        // Given
+        var slowModel = new StubChatModel(RoutingWorkflowTest::respond, Duration.ofMillis(200));
+        var speculator = new RouteSpeculator(true, 2);
+        try (var executor = new LlmExecutor("openai", 8, Map.of())) {
+            var speculative = new RoutingWorkflow(ChatClient.create(slowModel), classifier, executor, speculator);
+            long start = System.nanoTime();
+
+            // When
+            String response = speculative.route("Question about account billing", RouteConstant.supportRoutes);
+
+            // Then
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(380));
+            assertThat(response).isEqualTo("Billing Support Response: handled");
+            SpeculationStats stats = speculator.stats();
+            assertThat(stats.hits()).isEqualTo(1);
+            assertThat(stats.speculativeCalls()).isEqualTo(2);
+            assertThat(stats.wastedCalls()).isEqualTo(1);
+            assertThat(stats.latencySavedMillis()).isGreaterThanOrEqualTo(150);
+        }
+    }
+
+    @Test
+    void route_ShouldRunSelectedSpecialistWhenSpeculationMisses() {
+        // Given
+        var speculator = new RouteSpeculator(true, 1);
+        try (var executor = new LlmExecutor("openai", 8, Map.of())) {
+            var speculative = new RoutingWorkflow(ChatClient.create(chatModel), classifier, executor, speculator);
+
+            // When
+            String response = speculative.route("Question about account billing (escalated)", RouteConstant.supportRoutes);
+
+            // Then
+            assertThat(response).isEqualTo("Technical Support Response: handled");
+            SpeculationStats stats = speculator.stats();
+            assertThat(stats.misses()).isEqualTo(1);
+            assertThat(stats.wastedCalls()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void routeBatch_ShouldClassifyAndAnswerSeveralTicketsPerCall() {
+        // Given
+        List<Ticket> tickets = List.of(
+                new Ticket("T1", "Question about account billing 1"),
+                new Ticket("T2", "Question about account billing 2"),
+                new Ticket("T3", "Question about account billing 3"),
+                new Ticket("T4", "Question about account billing 4"),
+                new Ticket("T5", "Question about account billing 5"));
+        try (var executor = new LlmExecutor("openai", 8, Map.of())) {
+            var batchWorkflow = new RoutingWorkflow(ChatClient.create(chatModel), classifier, executor);
+
+            // When
+            List<RoutedTicket> results = batchWorkflow.routeBatch(tickets, RouteConstant.supportRoutes, 3, 2)
+                    .collectList()
+                    .block();
+
+            // Then
+            assertThat(results).hasSize(5).allSatisfy(result -> {
+                assertThat(result.success()).isTrue();
+                assertThat(result.route()).isEqualTo("billing");
+                assertThat(result.response()).isEqualTo("Billing Support Response: handled " + result.id());
+            });
+            // two selector batches and two specialist batches instead of ten calls
+            assertThat(chatModel.calls()).isEqualTo(4);
+            assertThat(classifier.stats().llmDecisions()).isEqualTo(5);
+        }
+    }
+
+    @Test
+    void routeBatch_ShouldFallBackPerTicketAndReportRejectedTickets() {
+        // Given
+        List<Ticket> tickets = List.of(
+                new Ticket("fast", RouteConstant.tickets.get("INC002")),
+                new Ticket("batched", "Question about account billing"),
+                new Ticket("missing", "Question about account billing (escalated)"),
+                new Ticket("empty", " "));
+        try (var executor = new LlmExecutor("openai", 8, Map.of())) {
+            var batchWorkflow = new RoutingWorkflow(ChatClient.create(chatModel), classifier, executor);
+
+            // When
+            Map<String, RoutedTicket> results = batchWorkflow.routeBatch(tickets, RouteConstant.supportRoutes, 10, 2)
+                    .collectMap(RoutedTicket::id)
+                    .block();
+
+            // Then
+            assertThat(results).hasSize(4);
+            assertThat(results.get("fast").route()).isEqualTo("billing");
+            assertThat(results.get("batched").route()).isEqualTo("billing");
+            assertThat(results.get("missing").route()).isEqualTo("technical");
+            assertThat(results.get("missing").response()).isEqualTo("Technical Support Response: handled");
+            assertThat(results.get("empty").success()).isFalse();
+            assertThat(results.get("empty").error()).isEqualTo("Ticket text must not be empty");
+            assertThat(classifier.stats().fastPathHits()).isEqualTo(1);
+        }
+    }
+
+    /**
+     * Answers batch selector prompts with "billing" for every ticket except escalated ones,
+     * which are left out, and batch specialist prompts with the greeting plus the input.
+     */
+    private static String respondBatch(String text) {
+        Matcher matcher = INPUT.matcher(text);
+        StringBuilder items = new StringBuilder();
+        boolean selector = text.contains("support tickets");
+        while (matcher.find()) {
+            if (selector && matcher.group(2).contains("(escalated)")) {
+                continue;
+            }
+            String id = matcher.group(1);
+            String input = matcher.group(2);
+            items.append(items.isEmpty() ? "" : ",").append(selector
+                    ? "{\"id\":" + id + ",\"selection\":\"billing\"}"
+                    : "{\"id\":" + id + ",\"output\":\"Billing Support Response: handled T"
+                    + input.substring(input.length() - 1) + "\"}");
+        }
+        return selector ? "{\"assignments\":[" + items + "]}" : "{\"results\":[" + items + "]}";
+    }
+
+    private static String respond(Prompt prompt) {
+        String text = prompt.getContents();
+        if (text.contains("<input id=")) {
+            return respondBatch(text);
+        }
+        if (text.contains("select the most appropriate support team")) {
+            String selection = text.contains("(escalated)") ? "technical" : "billing";
+            return "{\"reasoning\":\"mentions billing\",\"selection\":\"" + selection + "\"}";
+        }
+        String greeting = text.substring(text.indexOf("Always start with \"") + 19);
+        return greeting.substring(0, greeting.indexOf('"')) + " handled";
+    }
+}
@@ -0,0 +1,69 @@
+package demo.ai.agentic.benchmark;
+
+import demo.ai.agentic.cache.StepCache;
+import demo.ai.agentic.cache.StepCacheAdvisor;
+import demo.ai.agentic.concurrency.SingleFlight;
+import demo.ai.agentic.concurrency.SingleFlightAdvisor;
+import demo.ai.commons.logging.LlmCallLog;
+import demo.ai.commons.logging.LlmLoggingAdvisor;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
+import org.springframework.ai.chat.model.ChatModel;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chat clients with the advisor chains the benchmarks compare.
+ */
+final class BenchmarkClients {
+
+    /**
+     * No advisors at all: the cost of the ChatClient itself.
+     */
+    static final String BARE = "bare";
+
+    /**
+     * Only Spring AI's logging advisor, which renders every request and response on the
+     * calling thread.
+     */
+    static final String SIMPLE_LOGGING = "simple-logging";
+
+    /**
+     * Only the application's logging advisor: timing fields for every call, payloads for a
+     * 1% sample, written from a background thread.
+     */
+    static final String LOGGING = "logging";
+
+    /**
+     * The chain of the application: step cache (nothing cached, so every call misses),
+     * single-flight coalescing and logging.
+     */
+    static final String APPLICATION = "application";
+
+    // One writer thread for all benchmarks, as in the application.
+    private static final LlmCallLog CALL_LOG = new LlmCallLog(4096, 2000);
+
+    private BenchmarkClients() {
+    }
+
+    static ChatClient chatClient(ChatModel chatModel, String advisors) {
+        ChatClient.Builder builder = ChatClient.builder(chatModel);
+        return switch (advisors) {
+            case BARE -> builder.build();
+            case SIMPLE_LOGGING -> builder.defaultAdvisors(new SimpleLoggerAdvisor()).build();
+            case LOGGING -> builder.defaultAdvisors(loggingAdvisor()).build();
+            case APPLICATION -> builder.defaultAdvisors(
+                            new StepCacheAdvisor(new StepCache(1000, Duration.ofHours(1)), List.of(), "stub"),
+                            new SingleFlightAdvisor(new SingleFlight("calls", true, Duration.ZERO), "stub"),
+                            loggingAdvisor())
+                    .build();
+            default -> throw new IllegalArgumentException("Unknown advisor chain: " + advisors);
+        };
+    }
+
+    private static LlmLoggingAdvisor loggingAdvisor() {
+        return new LlmLoggingAdvisor(CALL_LOG, 0.01, Map.of(), "stub");
+    }
+}
@@ -0,0 +1,49 @@
+package demo.ai.agentic.benchmark;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Entry point of the benchmark jar. Accepts the regular JMH command line, but unless
+ * told otherwise it also runs the {@code gc} profiler for allocation rates and writes
+ * the results as JSON to {@code jmh-results/<timestamp>.json}, so runs can be compared
+ * over time (e.g. on https://jmh.morethan.net).
+ */
+public final class BenchmarkRunner {
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListWithParams()
+                || commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (commandLine.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            Path result = Path.of("jmh-results", LocalDateTime.now().format(TIMESTAMP) + ".json");
+            Files.createDirectories(result.getParent());
+            options.resultFormat(commandLine.getResultFormat().orElse(ResultFormatType.JSON))
+                    .result(result.toString());
+        }
+        new Runner(options.build()).run();
+    }
+}
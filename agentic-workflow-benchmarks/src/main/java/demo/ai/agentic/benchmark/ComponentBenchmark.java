@@ -0,0 +1,86 @@
+package demo.ai.agentic.benchmark;
+
+import demo.ai.agentic.record.EvaluationResponse;
+import demo.ai.agentic.record.RoutingResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.ai.converter.BeanOutputConverter;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The building blocks every workflow step pays for, measured one at a time against a
+ * zero-latency {@link StubChatModel}: rendering a prompt template, converting a JSON
+ * answer to a record, and a full chat client call through each advisor chain.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ComponentBenchmark {
+
+    private static final PromptTemplate TEMPLATE = new PromptTemplate("""
+            Analyze the input and select the most appropriate support team from these options: {routes}
+            First explain your reasoning, then provide your selection in this JSON format:
+            Input: {input}
+            """);
+
+    private final BeanOutputConverter<EvaluationResponse> converter = new BeanOutputConverter<>(EvaluationResponse.class);
+
+    @Benchmark
+    public String promptTemplate() {
+        return TEMPLATE.render(Map.of("routes", "[billing, technical, account, product]",
+                "input", "I was charged twice for my subscription"));
+    }
+
+    @Benchmark
+    public EvaluationResponse entityConversion() {
+        return converter.convert(StubChatModel.EVALUATION);
+    }
+
+    @Benchmark
+    public String call(Client client) {
+        return client.chatClient.prompt("Summarize the quarter").call().content();
+    }
+
+    @Benchmark
+    public RoutingResponse callEntity(Client client) {
+        return client.chatClient.prompt("Analyze the input and select the most appropriate support team")
+                .call()
+                .entity(RoutingResponse.class);
+    }
+
+    /**
+     * Chat client per advisor chain; only the call benchmarks vary by it.
+     */
+    @State(Scope.Benchmark)
+    public static class Client {
+
+        @Param({BenchmarkClients.BARE, BenchmarkClients.SIMPLE_LOGGING, BenchmarkClients.LOGGING,
+                BenchmarkClients.APPLICATION})
+        public String advisors;
+
+        ChatClient chatClient;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            chatClient = BenchmarkClients.chatClient(new StubChatModel(Duration.ZERO), advisors);
+        }
+    }
+}
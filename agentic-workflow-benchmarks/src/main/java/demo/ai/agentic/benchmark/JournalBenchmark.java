@@ -0,0 +1,83 @@
+package demo.ai.agentic.benchmark;
+
+import demo.ai.agentic.journal.WorkflowJournal;
+import demo.ai.agentic.workflow.ChainWorkflow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * What the checkpoint journal adds to a workflow: the chain against a zero-latency
+ * {@link StubChatModel} with and without a checkpoint, where the difference is the
+ * in-line cost of journaling its two LLM steps, and the time until a record is durable
+ * when 32 runs journal at once and share fsyncs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class JournalBenchmark {
+
+    private static final String OUTPUT = StubChatModel.METRICS;
+
+    private final AtomicLong runs = new AtomicLong();
+
+    Path directory;
+
+    WorkflowJournal journal;
+
+    ChainWorkflow workflow;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal-benchmark");
+        journal = WorkflowJournal.open(directory.resolve("journal.log"), Duration.ofMillis(5), 1024 * 1024,
+                Duration.ofDays(1));
+        workflow = new ChainWorkflow(ChatClient.create(new StubChatModel(Duration.ZERO)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        journal.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public String chain() {
+        return workflow.chain(WorkflowBenchmark.REPORT);
+    }
+
+    @Benchmark
+    public String chainJournaled() {
+        return workflow.chain(WorkflowBenchmark.REPORT,
+                journal.run(ChainWorkflow.NAME, "run-" + runs.incrementAndGet()));
+    }
+
+    @Benchmark
+    @Threads(32)
+    public void durableAppend() {
+        long run = runs.incrementAndGet();
+        journal.append("concurrent:" + run, "step", "input-" + run, OUTPUT).join();
+    }
+}
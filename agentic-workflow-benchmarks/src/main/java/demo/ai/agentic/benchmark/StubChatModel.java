@@ -0,0 +1,109 @@
+package demo.ai.agentic.benchmark;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Deterministic in-process {@link ChatModel} that answers every workflow of the
+ * application with a canned, parseable response after a fixed latency. With zero
+ * latency, everything a benchmark measures is framework overhead.
+ */
+public class StubChatModel implements ChatModel {
+
+    static final String METRICS = """
+            92%: customer satisfaction
+            45%: revenue growth
+            23%: market share
+            5%: customer churn
+            $43: user acquisition cost
+            78%: product adoption rate
+            87%: employee satisfaction
+            34%: operating margin""";
+
+    static final String TASKS = """
+            {"analysis": "two drafts and a merge", "tasks": [
+              {"id": "formal", "type": "formal", "description": "precise", "dependsOn": []},
+              {"id": "conversational", "type": "conversational", "description": "friendly", "dependsOn": []},
+              {"id": "merge", "type": "merge", "description": "combine", "dependsOn": ["formal", "conversational"]}
+            ]}""";
+
+    static final String GENERATION = """
+            {"thoughts":"Two stacks","response":"public class MinStack {\\n    private final java.util.Deque<Integer> values = new java.util.ArrayDeque<>();\\n}"}""";
+
+    static final String EVALUATION = """
+            {"evaluation":"PASS","feedback":"All operations are O(1)."}""";
+
+    static final String SELECTION = """
+            {"reasoning":"The ticket is about a charge on the invoice","selection":"billing"}""";
+
+    private final Duration latency;
+
+    public StubChatModel(Duration latency) {
+        this.latency = latency;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        String answer = answer(prompt.getContents());
+        pause();
+        return response(answer);
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.defer(() -> {
+            String[] tokens = answer(prompt.getContents()).split("(?<= )");
+            pause();
+            return Flux.fromArray(tokens).map(StubChatModel::response);
+        });
+    }
+
+    static String answer(String text) {
+        if (text.contains("select the most appropriate support team")) {
+            return SELECTION;
+        }
+        if (text.contains("break it down")) {
+            return TASKS;
+        }
+        if (text.contains("Style: ")) {
+            return "Draft in the requested style.";
+        }
+        if (text.contains("Your goal is to complete the task")) {
+            return GENERATION;
+        }
+        if (text.contains("Evaluate this code implementation")) {
+            return EVALUATION;
+        }
+        if (text.contains("Always start with \"")) {
+            return "Billing Support Response: the duplicate charge will be refunded.";
+        }
+        if (text.contains("stakeholder")) {
+            return "Impacts: moderate. Actions: communicate early.";
+        }
+        return METRICS;
+    }
+
+    private static ChatResponse response(String text) {
+        int tokens = Math.max(1, text.length() / 4);
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))),
+                ChatResponseMetadata.builder().usage(new DefaultUsage(tokens, tokens)).build());
+    }
+
+    private void pause() {
+        // Parks instead of spinning, so virtual threads unmount just like on network I/O.
+        long deadline = System.nanoTime() + latency.toNanos();
+        for (long remaining = latency.toNanos(); remaining > 0; remaining = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
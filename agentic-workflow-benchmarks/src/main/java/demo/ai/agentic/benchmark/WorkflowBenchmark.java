@@ -0,0 +1,127 @@
+package demo.ai.agentic.benchmark;
+
+import demo.ai.agentic.concurrency.LlmExecutor;
+import demo.ai.agentic.constants.RouteConstant;
+import demo.ai.agentic.record.FinalResponse;
+import demo.ai.agentic.record.RefinedResponse;
+import demo.ai.agentic.workflow.ChainWorkflow;
+import demo.ai.agentic.workflow.EvaluatorOptimizerWorkflow;
+import demo.ai.agentic.workflow.OrchestratorWorkflow;
+import demo.ai.agentic.workflow.ParallelizationWorkflow;
+import demo.ai.agentic.workflow.RoutingWorkflow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.client.ChatClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end latency of one run of every workflow against {@link StubChatModel}.
+ *
+ * <p>
+ * With {@code latencyMillis=0} the score is pure framework overhead: prompt templating,
+ * the advisor chain, structured output conversion, logging and the executor hand-offs.
+ * With a latency, the overhead is the score minus the model time on the critical path
+ * of the workflow. Workflows are created per invocation, as the controller does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class WorkflowBenchmark {
+
+    static final String REPORT = """
+            Q3 Performance Summary:
+            Our customer satisfaction score rose to 92 points this quarter.
+            Revenue grew by 45% compared to last year.
+            Market share is now at 23% in our primary market.
+            Customer churn decreased to 5% from 8%.
+            """;
+
+    static final String STAKEHOLDER_PROMPT = """
+            Analyze how market changes will impact this stakeholder group.
+            Provide specific impacts and recommended actions.
+            """;
+
+    static final List<String> STAKEHOLDERS = List.of(
+            "Customers: price sensitive, want better tech",
+            "Employees: job security worries, need new skills",
+            "Investors: expect growth, want cost control",
+            "Suppliers: capacity constraints, price pressures");
+
+    static final String STACK_TASK = """
+            Implement a Stack in Java with push(x), pop() and getMin(), all in O(1).
+            """;
+
+    @Param({"0", "20"})
+    public long latencyMillis;
+
+    @Param({BenchmarkClients.BARE, BenchmarkClients.APPLICATION})
+    public String advisors;
+
+    ChatClient chatClient;
+
+    LlmExecutor llmExecutor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        chatClient = BenchmarkClients.chatClient(new StubChatModel(Duration.ofMillis(latencyMillis)), advisors);
+        llmExecutor = new LlmExecutor("stub", 256, Map.of());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        llmExecutor.close();
+    }
+
+    @Benchmark
+    public String chain() {
+        return new ChainWorkflow(chatClient).chain(REPORT);
+    }
+
+    /**
+     * The chain with every step sent to the model, to compare with the hybrid {@link #chain()}.
+     */
+    @Benchmark
+    public String chainLlmOnly() {
+        return ChainWorkflow.llmOnly(chatClient).chain(REPORT);
+    }
+
+    @Benchmark
+    public String routing() {
+        return new RoutingWorkflow(chatClient)
+                .route(RouteConstant.tickets.get("INC002"), RouteConstant.supportRoutes);
+    }
+
+    @Benchmark
+    public List<String> parallelization() {
+        return new ParallelizationWorkflow(chatClient, llmExecutor).parallel(STAKEHOLDER_PROMPT, STAKEHOLDERS, 4);
+    }
+
+    @Benchmark
+    public FinalResponse orchestrator() {
+        return new OrchestratorWorkflow(chatClient, llmExecutor)
+                .process("Write a product description for a new eco-friendly water bottle");
+    }
+
+    @Benchmark
+    public RefinedResponse evaluatorOptimizer() {
+        return new EvaluatorOptimizerWorkflow(chatClient).loop(STACK_TASK);
+    }
+}
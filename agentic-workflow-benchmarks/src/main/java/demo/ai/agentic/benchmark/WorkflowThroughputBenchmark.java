@@ -0,0 +1,20 @@
+package demo.ai.agentic.benchmark;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The workflows of {@link WorkflowBenchmark} run by many concurrent callers sharing one
+ * chat client and one {@link demo.ai.agentic.concurrency.LlmExecutor}, the way
+ * concurrent HTTP requests do. Lock contention or executor hand-offs that do not show
+ * in single-caller latency show up here as throughput that stops scaling.
+ */
+@Threads(32)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class WorkflowThroughputBenchmark extends WorkflowBenchmark {
+}
@@ -1,11 +1,16 @@
 package demo.ai.agentic.config;
 
 import demo.ai.agentic.repository.DogRepository;
+import demo.ai.commons.cache.SemanticCacheAdvisor;
+import demo.ai.commons.concurrency.AdaptiveConcurrencyAdvisor;
+import demo.ai.commons.logging.LlmLoggingAdvisor;
+import demo.ai.commons.metrics.LlmMetricsAdvisor;
 import jakarta.annotation.PostConstruct;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.mcp.SyncMcpToolCallbackProvider;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -19,20 +24,25 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class ChatClientConfig {
 
     private static final Logger log = LoggerFactory.getLogger(ChatClientConfig.class);
-    private final DogRepository dogRepository;
+    private final ObjectProvider<DogRepository> dogRepository;
     private final VectorStore vectorStore;
 
     @Value("${app.vectorstore.initialize}")
     private boolean vectorStoreInitialize;
 
-    public ChatClientConfig(DogRepository dogRepository, VectorStore vectorStore) {
+    // Only needed to initialize the vector store; the loadtest profile runs without a database.
+    public ChatClientConfig(ObjectProvider<DogRepository> dogRepository, VectorStore vectorStore) {
         this.dogRepository = dogRepository;
         this.vectorStore = vectorStore;
     }
 
     @Bean
     ChatClient chatClient(ChatClient.Builder builder,
-                          SyncMcpToolCallbackProvider toolProvider) {
+                          SyncMcpToolCallbackProvider toolProvider,
+                          ObjectProvider<SemanticCacheAdvisor> semanticCacheAdvisor,
+                          ObjectProvider<LlmMetricsAdvisor> llmMetricsAdvisor,
+                          ObjectProvider<LlmLoggingAdvisor> llmLoggingAdvisor,
+                          ObjectProvider<AdaptiveConcurrencyAdvisor> adaptiveConcurrencyAdvisor) {
         var system = """
                 You are an AI powered assistant to help people adopt a dog from the
                 agency named Pooch Palace with locations in Antwerp, Seoul, Tokyo,
@@ -42,6 +52,10 @@ public class ChatClientConfig {
                 we don't have any dogs available.
                 """;
 
+        semanticCacheAdvisor.ifAvailable(builder::defaultAdvisors);
+        llmMetricsAdvisor.ifAvailable(builder::defaultAdvisors);
+        llmLoggingAdvisor.ifAvailable(builder::defaultAdvisors);
+        adaptiveConcurrencyAdvisor.ifAvailable(builder::defaultAdvisors);
         return builder
                 .defaultSystem(system)
                 .defaultToolCallbacks(toolProvider.getToolCallbacks())
@@ -53,7 +67,7 @@ public class ChatClientConfig {
         log.info("Starting vector store initialization. vectorStoreInitialize={}", vectorStoreInitialize);
         if(vectorStoreInitialize) {
             try {
-                var dogs = dogRepository.findAll();
+                var dogs = dogRepository.getObject().findAll();
                 var count = new AtomicInteger();
 
                 dogs.forEach(dog -> {
@@ -1,5 +1,6 @@
 package demo.ai.agentic.controller;
 
+import demo.ai.commons.metrics.LlmMetrics;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -50,6 +51,7 @@ public class AdoptionsAssistantController {
                 .prompt()
                 .user(question)
                 .advisors(advisor, this.questionAnswerAdvisor)
+                .advisors(LlmMetrics.step("adoption", "enquiry"))
                 .call()
                 .content();
     }
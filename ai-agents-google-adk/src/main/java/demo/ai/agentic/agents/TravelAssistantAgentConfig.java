@@ -8,6 +8,7 @@ import com.google.adk.tools.BaseTool;
 import com.google.adk.tools.GoogleSearchTool;
 import com.google.adk.tools.mcp.McpToolset;
 import com.google.adk.tools.mcp.SseServerParameters;
+import demo.ai.agentic.replay.AgentModels;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -21,9 +22,11 @@ public class TravelAssistantAgentConfig {
     @Value("${mcp.server.url}")
     private String mcpServerUrl;
     private final ObjectMapper objectMapper;
+    private final AgentModels agentModels;
 
-    public TravelAssistantAgentConfig(ObjectMapper objectMapper) {
+    public TravelAssistantAgentConfig(ObjectMapper objectMapper, AgentModels agentModels) {
         this.objectMapper = objectMapper;
+        this.agentModels = agentModels;
     }
 
     /**
@@ -36,7 +39,7 @@ public class TravelAssistantAgentConfig {
                 .name("travel-assistant")
                 .description("A travel assistant that helps users plan activities " +
                         "using current weather and other available information.")
-                .model("gemini-2.0-flash")
+                .model(agentModels.model("gemini-2.0-flash"))
                 .instruction("""
                     You are a helpful travel assistant.
                     Your role is to assist users with planning their day, exploring cities,
@@ -67,7 +70,7 @@ public class TravelAssistantAgentConfig {
                 .collect(Collectors.toCollection(ArrayList::new));
 
         LlmAgent googleSearchAgent = LlmAgent.builder()
-                .model("gemini-2.5-flash")
+                .model(agentModels.model("gemini-2.5-flash"))
                 .name("google_search_agent")
                 .description("Search Google for current information")
                 .instruction("""
@@ -0,0 +1,17 @@
+package demo.ai.agentic.config;
+
+import demo.ai.agentic.replay.AgentModels;
+import demo.ai.agentic.replay.ReplayProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ReplayProperties.class)
+public class ReplayConfig {
+
+    @Bean
+    AgentModels agentModels(ReplayProperties properties) {
+        return new AgentModels(properties);
+    }
+}
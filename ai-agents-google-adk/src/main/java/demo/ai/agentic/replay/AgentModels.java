@@ -0,0 +1,61 @@
+package demo.ai.agentic.replay;
+
+import com.google.adk.models.BaseLlm;
+import com.google.adk.models.LlmRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The models of the agents by name: Gemini models from the ADK registry, or recording or
+ * replaying ones when {@code app.replay.mode} is {@code record} or {@code replay}, which
+ * the {@code record} and {@code replay} profiles set. Each model gets its own cassette,
+ * {@code <dir>/<model>.jsonl}; replay prefers a gzipped {@code .jsonl.gz} next to it.
+ */
+public class AgentModels implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(AgentModels.class);
+
+    private final ReplayProperties properties;
+    private final Map<String, LlmCassette> cassettes = new ConcurrentHashMap<>();
+
+    public AgentModels(ReplayProperties properties) {
+        this.properties = properties;
+    }
+
+    public BaseLlm model(String name) {
+        return switch (properties.mode()) {
+            case OFF -> LlmRegistry.getLlm(name);
+            case RECORD -> new RecordingLlm(LlmRegistry.getLlm(name), cassette(name));
+            case REPLAY -> new ReplayLlm(name, cassette(name), properties.latencyScale(),
+                    properties.synthesizeMisses(), properties.missLatency());
+        };
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        for (LlmCassette cassette : cassettes.values()) {
+            cassette.close();
+        }
+    }
+
+    private LlmCassette cassette(String name) {
+        return cassettes.computeIfAbsent(name, model -> {
+            Path file = properties.dir().resolve(model + ".jsonl");
+            Path gzipped = properties.dir().resolve(model + ".jsonl.gz");
+            LlmCassette cassette = new LlmCassette(
+                    properties.mode() == ReplayProperties.Mode.REPLAY && Files.exists(gzipped) ? gzipped : file,
+                    properties.maxSamples());
+            log.info("{} model '{}' with cassette {}",
+                    properties.mode() == ReplayProperties.Mode.RECORD ? "Recording" : "Replaying",
+                    model, cassette.file());
+            return cassette;
+        });
+    }
+}
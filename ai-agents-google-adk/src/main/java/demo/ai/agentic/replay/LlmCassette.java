@@ -0,0 +1,189 @@
+package demo.ai.agentic.replay;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.adk.JsonBaseModel;
+import com.google.adk.models.LlmRequest;
+import com.google.adk.models.LlmResponse;
+import com.google.genai.types.Content;
+import org.springframework.util.Assert;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Recorded exchanges of an ADK model, one JSON object per line with the request key,
+ * the latency and the responses of the call, keyed by a hash of the request.
+ *
+ * <p>
+ * A request is its model, system instructions, contents and the names of its tools.
+ * Function call ids are left out of the key since ADK makes up new ones on every run.
+ * Cassettes can be gzipped ({@code .jsonl.gz}) for checking in, and are then replay only.
+ *
+ * <p>
+ * The file handling follows {@code Cassette} of the commons module, which this module does
+ * not depend on: it would bring Spring AI and its auto-configuration into the application.
+ * The exchanges differ as well, since ADK responses are kept as ADK JSON.
+ */
+public class LlmCassette implements AutoCloseable {
+
+    private static final ObjectMapper MAPPER = JsonBaseModel.getMapper();
+
+    private final Path file;
+    private final int maxSamples;
+    private final Map<String, List<Exchange>> exchanges = new ConcurrentHashMap<>();
+    private BufferedWriter writer;
+
+    /**
+     * @param file       the cassette, gzipped if its name ends with {@code .gz}
+     * @param maxSamples exchanges recorded per request
+     */
+    public LlmCassette(Path file, int maxSamples) {
+        Assert.notNull(file, "File must not be null");
+        Assert.isTrue(maxSamples > 0, "Max samples must be positive");
+
+        this.file = file;
+        this.maxSamples = maxSamples;
+        if (Files.exists(file)) {
+            load();
+        }
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    public List<Exchange> get(String key) {
+        return exchanges.getOrDefault(key, List.of());
+    }
+
+    /**
+     * Records an exchange unless its request already has {@code maxSamples} of them.
+     */
+    public synchronized void record(Exchange exchange) {
+        List<Exchange> samples = exchanges.computeIfAbsent(exchange.key(), key -> new CopyOnWriteArrayList<>());
+        if (samples.size() >= maxSamples) {
+            return;
+        }
+        samples.add(exchange);
+        ObjectNode line = MAPPER.createObjectNode()
+                .put("key", exchange.key())
+                .put("latencyMillis", exchange.latencyMillis());
+        ArrayNode responses = line.putArray("responses");
+        exchange.responses().forEach(response -> responses.add(toNode(response.toJson())));
+        try {
+            if (writer == null) {
+                Assert.state(!file.toString().endsWith(".gz"), "Cannot record to a gzipped cassette: " + file);
+                Files.createDirectories(file.toAbsolutePath().getParent());
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            writer.write(MAPPER.writeValueAsString(line));
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not record to cassette " + file, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    static String key(String model, LlmRequest request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            List<String> parts = new ArrayList<>();
+            parts.add(request.model().orElse(model));
+            parts.addAll(request.getSystemInstructions());
+            for (Content content : request.contents()) {
+                parts.add(MAPPER.writeValueAsString(withoutIds(toNode(content.toJson()))));
+            }
+            parts.add(String.join(",", new TreeSet<>(request.tools().keySet())));
+            for (String part : parts) {
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void load() {
+        try (InputStream in = file.toString().endsWith(".gz")
+                ? new GZIPInputStream(Files.newInputStream(file)) : Files.newInputStream(file);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode node = MAPPER.readTree(line);
+                List<LlmResponse> responses = new ArrayList<>();
+                node.get("responses").forEach(response ->
+                        responses.add(JsonBaseModel.fromJsonNode(response, LlmResponse.class)));
+                Exchange exchange = new Exchange(node.get("key").asText(), node.get("latencyMillis").asLong(),
+                        responses);
+                List<Exchange> samples = exchanges.computeIfAbsent(exchange.key(), key -> new CopyOnWriteArrayList<>());
+                if (samples.size() < maxSamples) {
+                    samples.add(exchange);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read cassette " + file, e);
+        }
+    }
+
+    private static JsonNode toNode(String json) {
+        try {
+            return MAPPER.readTree(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static JsonNode withoutIds(JsonNode node) {
+        if (node instanceof ObjectNode object) {
+            object.remove("id");
+            object.forEach(LlmCassette::withoutIds);
+        } else if (node instanceof ArrayNode array) {
+            array.forEach(LlmCassette::withoutIds);
+        }
+        return node;
+    }
+
+    /**
+     * @param key           hash of the request
+     * @param latencyMillis how long the model took until its last response
+     * @param responses     the responses of the call, several for streamed calls
+     */
+    public record Exchange(String key, long latencyMillis, List<LlmResponse> responses) {
+    }
+}
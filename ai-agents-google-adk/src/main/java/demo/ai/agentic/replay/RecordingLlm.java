@@ -0,0 +1,44 @@
+package demo.ai.agentic.replay;
+
+import com.google.adk.models.BaseLlm;
+import com.google.adk.models.BaseLlmConnection;
+import com.google.adk.models.LlmRequest;
+import com.google.adk.models.LlmResponse;
+import io.reactivex.rxjava3.core.Flowable;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records the calls of an ADK model to an {@link LlmCassette} for {@link ReplayLlm}.
+ * Live connections are passed through without recording.
+ */
+public class RecordingLlm extends BaseLlm {
+
+    private final BaseLlm delegate;
+    private final LlmCassette cassette;
+
+    public RecordingLlm(BaseLlm delegate, LlmCassette cassette) {
+        super(delegate.model());
+        this.delegate = delegate;
+        this.cassette = cassette;
+    }
+
+    @Override
+    public Flowable<LlmResponse> generateContent(LlmRequest request, boolean stream) {
+        return Flowable.defer(() -> {
+            long start = System.nanoTime();
+            List<LlmResponse> responses = new CopyOnWriteArrayList<>();
+            return delegate.generateContent(request, stream)
+                    .doOnNext(responses::add)
+                    .doOnComplete(() -> cassette.record(new LlmCassette.Exchange(
+                            LlmCassette.key(model(), request), (System.nanoTime() - start) / 1_000_000,
+                            List.copyOf(responses))));
+        });
+    }
+
+    @Override
+    public BaseLlmConnection connect(LlmRequest request) {
+        return delegate.connect(request);
+    }
+}
@@ -0,0 +1,73 @@
+package demo.ai.agentic.replay;
+
+import com.google.adk.models.BaseLlm;
+import com.google.adk.models.BaseLlmConnection;
+import com.google.adk.models.LlmRequest;
+import com.google.adk.models.LlmResponse;
+import com.google.genai.types.Content;
+import com.google.genai.types.Part;
+import io.reactivex.rxjava3.core.Flowable;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers ADK model calls from an {@link LlmCassette} without calling Gemini.
+ *
+ * <p>
+ * A request is served one of the exchanges recorded for it, picked at random, with its
+ * recorded latency times {@code latencyScale} spread over its responses. Function calls
+ * in recorded responses are replayed too, so the agent still calls its tools. A request
+ * that was never recorded fails, unless {@code synthesizeMisses} is set, in which case it
+ * gets a placeholder answer after {@code missLatency}.
+ */
+public class ReplayLlm extends BaseLlm {
+
+    static final String MISSING_ANSWER = "No answer was recorded for this request.";
+
+    private final LlmCassette cassette;
+    private final double latencyScale;
+    private final boolean synthesizeMisses;
+    private final Duration missLatency;
+
+    public ReplayLlm(String model, LlmCassette cassette, double latencyScale, boolean synthesizeMisses,
+                     Duration missLatency) {
+        super(model);
+        this.cassette = cassette;
+        this.latencyScale = latencyScale;
+        this.synthesizeMisses = synthesizeMisses;
+        this.missLatency = missLatency;
+    }
+
+    @Override
+    public Flowable<LlmResponse> generateContent(LlmRequest request, boolean stream) {
+        return Flowable.defer(() -> {
+            String key = LlmCassette.key(model(), request);
+            List<LlmCassette.Exchange> recorded = cassette.get(key);
+            LlmCassette.Exchange exchange;
+            if (!recorded.isEmpty()) {
+                exchange = recorded.get(ThreadLocalRandom.current().nextInt(recorded.size()));
+            } else if (synthesizeMisses) {
+                exchange = new LlmCassette.Exchange(key, missLatency.toMillis(), List.of(LlmResponse.builder()
+                        .content(Content.builder().role("model").parts(List.of(Part.fromText(MISSING_ANSWER))).build())
+                        .build()));
+            } else {
+                return Flowable.error(new IllegalStateException("No recorded answer for request " + key
+                        + " in cassette " + cassette.file()));
+            }
+            long delayNanos = (long) (exchange.latencyMillis() * 1_000_000 * latencyScale
+                    / Math.max(1, exchange.responses().size()));
+            Flowable<LlmResponse> responses = Flowable.fromIterable(exchange.responses());
+            return delayNanos > 0
+                    ? responses.concatMap(response -> Flowable.just(response).delay(delayNanos, TimeUnit.NANOSECONDS))
+                    : responses;
+        });
+    }
+
+    @Override
+    public BaseLlmConnection connect(LlmRequest request) {
+        throw new UnsupportedOperationException("Live connections cannot be replayed");
+    }
+}
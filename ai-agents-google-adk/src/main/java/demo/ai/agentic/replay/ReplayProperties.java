@@ -0,0 +1,30 @@
+package demo.ai.agentic.replay;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of recording and replaying the Gemini calls of the agents.
+ *
+ * @param mode             whether model calls go to Gemini as usual, are recorded, or are replayed
+ * @param dir              directory of the cassettes, one per model
+ * @param maxSamples       exchanges recorded per request, which make up its replayed latency distribution
+ * @param latencyScale     factor applied to replayed latencies, 0 to replay without latency
+ * @param synthesizeMisses whether requests that were never recorded get a placeholder answer instead of failing
+ * @param missLatency      latency of placeholder answers, before the latency scale
+ */
+@ConfigurationProperties("app.replay")
+public record ReplayProperties(@DefaultValue("off") Mode mode,
+                               @DefaultValue("cassettes") Path dir,
+                               @DefaultValue("5") int maxSamples,
+                               @DefaultValue("1.0") double latencyScale,
+                               @DefaultValue("false") boolean synthesizeMisses,
+                               @DefaultValue("800ms") Duration missLatency) {
+
+    public enum Mode {
+        OFF, RECORD, REPLAY
+    }
+}
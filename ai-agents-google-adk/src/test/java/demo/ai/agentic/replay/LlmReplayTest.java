@@ -0,0 +1,139 @@
+package demo.ai.agentic.replay;
+
+import com.google.adk.models.BaseLlm;
+import com.google.adk.models.BaseLlmConnection;
+import com.google.adk.models.LlmRequest;
+import com.google.adk.models.LlmResponse;
+import com.google.genai.types.Content;
+import com.google.genai.types.Part;
+import io.reactivex.rxjava3.core.Flowable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LlmReplayTest {
+
+    private static final String MODEL = "gemini-2.0-flash";
+
+    private final AtomicInteger providerCalls = new AtomicInteger();
+
+    private final BaseLlm provider = new BaseLlm(MODEL) {
+        @Override
+        public Flowable<LlmResponse> generateContent(LlmRequest request, boolean stream) {
+            providerCalls.incrementAndGet();
+            return Flowable.just(answer("answer to " + request.contents().getFirst().text()));
+        }
+
+        @Override
+        public BaseLlmConnection connect(LlmRequest request) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    @Test
+    void replay_ShouldServeRecordedAnswersWithoutCallingTheProvider(@TempDir Path directory) throws IOException {
+        // Given
+        Path file = directory.resolve(MODEL + ".jsonl");
+        try (LlmCassette cassette = new LlmCassette(file, 5)) {
+            RecordingLlm recording = new RecordingLlm(provider, cassette);
+            recording.generateContent(request("hello"), false).blockingLast();
+            recording.generateContent(request("goodbye"), true).blockingLast();
+        }
+
+        // When
+        ReplayLlm replaying = new ReplayLlm(MODEL, new LlmCassette(file, 5), 0.0, false, Duration.ZERO);
+        LlmResponse hello = replaying.generateContent(request("hello"), false).blockingLast();
+        LlmResponse goodbye = replaying.generateContent(request("goodbye"), true).blockingLast();
+
+        // Then
+        assertThat(providerCalls).hasValue(2);
+        assertThat(text(hello)).isEqualTo("answer to hello");
+        assertThat(text(goodbye)).isEqualTo("answer to goodbye");
+    }
+
+    @Test
+    void replay_ShouldReadGzippedCassettesButNotRecordToThem(@TempDir Path directory) throws IOException {
+        // Given
+        Path file = directory.resolve(MODEL + ".jsonl");
+        try (LlmCassette cassette = new LlmCassette(file, 5)) {
+            new RecordingLlm(provider, cassette).generateContent(request("hello"), false).blockingLast();
+        }
+        Path gzipped = directory.resolve(MODEL + ".jsonl.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzipped))) {
+            Files.copy(file, out);
+        }
+        LlmCassette cassette = new LlmCassette(gzipped, 5);
+
+        // When
+        LlmResponse hello = new ReplayLlm(MODEL, cassette, 0.0, false, Duration.ZERO)
+                .generateContent(request("hello"), false).blockingLast();
+
+        // Then
+        assertThat(text(hello)).isEqualTo("answer to hello");
+        assertThatThrownBy(() -> new RecordingLlm(provider, cassette)
+                .generateContent(request("goodbye"), false).blockingLast())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Cannot record to a gzipped cassette");
+    }
+
+    @Test
+    void replay_ShouldFailOrSynthesizeRequestsThatWereNotRecorded(@TempDir Path directory) {
+        // Given
+        LlmCassette cassette = new LlmCassette(directory.resolve(MODEL + ".jsonl"), 5);
+        ReplayLlm strict = new ReplayLlm(MODEL, cassette, 0.0, false, Duration.ZERO);
+        ReplayLlm lenient = new ReplayLlm(MODEL, cassette, 0.0, true, Duration.ZERO);
+
+        // When / Then
+        assertThatThrownBy(() -> strict.generateContent(request("hello"), false).blockingLast())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("No recorded answer");
+        assertThat(text(lenient.generateContent(request("hello"), false).blockingLast()))
+                .isEqualTo(ReplayLlm.MISSING_ANSWER);
+    }
+
+    @Test
+    void record_ShouldKeepAtMostMaxSamplesPerRequest(@TempDir Path directory) throws IOException {
+        // Given
+        Path file = directory.resolve(MODEL + ".jsonl");
+        try (LlmCassette cassette = new LlmCassette(file, 2)) {
+            RecordingLlm recording = new RecordingLlm(provider, cassette);
+
+            // When
+            IntStream.range(0, 4).forEach(i -> recording.generateContent(request("hello"), false).blockingLast());
+        }
+
+        // Then
+        LlmCassette reopened = new LlmCassette(file, 5);
+        assertThat(reopened.get(LlmCassette.key(MODEL, request("hello")))).hasSize(2);
+        assertThat(Files.readAllLines(file)).hasSize(2);
+    }
+
+    private static LlmRequest request(String text) {
+        return LlmRequest.builder()
+                .model(MODEL)
+                .contents(List.of(Content.builder().role("user").parts(List.of(Part.fromText(text))).build()))
+                .build();
+    }
+
+    private static LlmResponse answer(String text) {
+        return LlmResponse.builder()
+                .content(Content.builder().role("model").parts(List.of(Part.fromText(text))).build())
+                .build();
+    }
+
+    private static String text(LlmResponse response) {
+        return response.content().orElseThrow().text();
+    }
+}
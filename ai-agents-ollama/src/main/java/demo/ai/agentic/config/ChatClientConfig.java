@@ -1,5 +1,9 @@
 package demo.ai.agentic.config;
 
+import demo.ai.commons.cache.SemanticCacheAdvisor;
+import demo.ai.commons.concurrency.AdaptiveConcurrencyAdvisor;
+import demo.ai.commons.logging.LlmLoggingAdvisor;
+import demo.ai.commons.metrics.LlmMetricsAdvisor;
 import jakarta.annotation.PostConstruct;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
@@ -7,10 +11,10 @@ import org.apache.commons.csv.CSVRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.model.tool.ToolCallingChatOptions;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.beans.factory.annotation.Value;
@@ -37,13 +41,20 @@ public class ChatClientConfig {
     }
 
     @Bean
-    ChatClient chatClient(ChatClient.Builder chatClientBuilder) {
+    ChatClient chatClient(ChatClient.Builder chatClientBuilder,
+                          ObjectProvider<SemanticCacheAdvisor> semanticCacheAdvisor,
+                          ObjectProvider<LlmMetricsAdvisor> llmMetricsAdvisor,
+                          ObjectProvider<LlmLoggingAdvisor> llmLoggingAdvisor,
+                          ObjectProvider<AdaptiveConcurrencyAdvisor> adaptiveConcurrencyAdvisor) {
+        semanticCacheAdvisor.ifAvailable(chatClientBuilder::defaultAdvisors);
+        llmMetricsAdvisor.ifAvailable(chatClientBuilder::defaultAdvisors);
+        llmLoggingAdvisor.ifAvailable(chatClientBuilder::defaultAdvisors);
+        adaptiveConcurrencyAdvisor.ifAvailable(chatClientBuilder::defaultAdvisors);
         return chatClientBuilder
                 .defaultOptions(ToolCallingChatOptions.builder()
                         .temperature(0.7)
                         .internalToolExecutionEnabled(Boolean.TRUE)
                         .build())
-                .defaultAdvisors(new SimpleLoggerAdvisor())
                 .build();
     }
 
@@ -2,6 +2,8 @@ package demo.ai.agentic.controller;
 
 import demo.ai.agentic.record.WineDetails;
 import demo.ai.agentic.tools.WineTool;
+import demo.ai.commons.cache.SemanticCacheAdvisor;
+import demo.ai.commons.metrics.LlmMetrics;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -60,6 +62,8 @@ public class WineController {
                 .prompt("provide succinct answers")
                 .user(question)
                 .advisors(chatMemoryAdvisor)
+                .advisors(SemanticCacheAdvisor.route("chat", user))
+                .advisors(LlmMetrics.step("wine", "chat"))
                 .call()
                 .content();
     }
@@ -124,6 +128,7 @@ public class WineController {
                 .prompt()
                 .user(question)
                 .advisors(chatMemoryAdvisor)
+                .advisors(LlmMetrics.step("wine", "tool-call"))
                 .tools(new WineTool(this.vectorStore)) // Access to vector db
                 .call()
                 .content();
@@ -151,6 +156,7 @@ public class WineController {
                 .prompt("Return only the title and description")
                 .user(question)
                 .advisors(chatMemoryAdvisor)
+                .advisors(LlmMetrics.step("wine", "structure"))
                 .tools(new WineTool(this.vectorStore))
                 .call()
                 .entity(WineDetails.class); // specify the structure expected
@@ -180,6 +186,7 @@ public class WineController {
                 .prompt("Please use advisors for answering wine related queries")
                 .user(question)
                 .advisors(chatMemoryAdvisor, questionAnswerAdvisor) // RAG goes here
+                .advisors(LlmMetrics.step("wine", "rag"))
                 .call()
                 .content();
     }
@@ -212,6 +219,7 @@ public class WineController {
                 .user(question)
                 .advisors(safeguardAdvisor) // guard the content
                 .advisors(chatMemoryAdvisor, questionAnswerAdvisor)
+                .advisors(LlmMetrics.step("wine", "guardrail"))
                 .call()
                 .content();
     }